@@ -1,5 +1,19 @@
 package io.github.md2conf.confluence.client;
 
+import io.github.md2conf.confluence.client.http.RequestIsolation;
+import io.github.md2conf.confluence.client.http.RequestTimeouts;
+import io.github.md2conf.confluence.client.http.ResponseCache;
+import io.github.md2conf.confluence.client.metrics.RequestMetrics;
+import io.github.md2conf.model.util.ContentHashAlgorithm;
+import io.github.md2conf.model.util.FileDigestCache;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static java.util.Collections.emptyList;
+
 public class ConfluenceClientConfigurationProperties { //todo rename or delete?
 
     private String confluenceUrl;
@@ -14,6 +28,26 @@ public class ConfluenceClientConfigurationProperties { //todo rename or delete?
     private boolean skipSslVerification = false;
     private Double maxRequestsPerSecond;
     private Integer connectionTTL;
+    private long responseCacheSize = ResponseCache.DEFAULT_MAX_BYTES;
+    private double hedgeBudget = 0;
+    private String hedgeUrl;
+    private List<String> readUrls = emptyList();
+    private int metadataTimeout = RequestTimeouts.DEFAULT_METADATA_TIMEOUT_MILLIS;
+    private int bodyTimeout = RequestTimeouts.DEFAULT_BODY_TIMEOUT_MILLIS;
+    private int attachmentTimeout = RequestTimeouts.DEFAULT_ATTACHMENT_TIMEOUT_MILLIS;
+    private Instant deadline;
+    private Duration deadlineMargin = PublishDeadline.DEFAULT_MARGIN;
+    private int circuitBreakerThreshold = RequestIsolation.DEFAULT_FAILURE_THRESHOLD;
+    private Duration circuitBreakerOpenDuration = RequestIsolation.DEFAULT_OPEN_DURATION;
+    private int maxConcurrentReads = 0;
+    private int maxConcurrentPageWrites = 0;
+    private int maxConcurrentAttachmentWrites = RequestIsolation.DEFAULT_MAX_CONCURRENT_ATTACHMENT_WRITES;
+    private RequestMetrics requestMetrics;
+    private Path journalPath;
+    private boolean resume = false;
+    private int orphanRemovalConcurrency = PublishConfluenceClient.DEFAULT_ORPHAN_REMOVAL_CONCURRENCY;
+    private Path fileDigestCachePath;
+    private ContentHashAlgorithm contentHashAlgorithm = ContentHashAlgorithm.SHA256;
 
     public String getConfluenceUrl() {
         return confluenceUrl;
@@ -111,6 +145,226 @@ public class ConfluenceClientConfigurationProperties { //todo rename or delete?
         this.connectionTTL = connectionTTL;
     }
 
+    /**
+     * Max total size in bytes of GET responses cached in memory, 0 to disable the cache
+     */
+    public long getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    public void setResponseCacheSize(long responseCacheSize) {
+        this.responseCacheSize = responseCacheSize;
+    }
+
+    /**
+     * Max number of duplicates of slow GET requests as a fraction of GET requests, 0 to disable hedging
+     */
+    public double getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    public void setHedgeBudget(double hedgeBudget) {
+        this.hedgeBudget = hedgeBudget;
+    }
+
+    /**
+     * Root URL of another Confluence node to send duplicates of slow GET requests to, null to use the Confluence URL
+     */
+    public String getHedgeUrl() {
+        return hedgeUrl;
+    }
+
+    public void setHedgeUrl(String hedgeUrl) {
+        this.hedgeUrl = hedgeUrl;
+    }
+
+    /**
+     * Root URLs of Confluence nodes to spread GET requests over, empty to send them to the Confluence URL
+     */
+    public List<String> getReadUrls() {
+        return readUrls;
+    }
+
+    public void setReadUrls(List<String> readUrls) {
+        this.readUrls = readUrls != null ? readUrls : emptyList();
+    }
+
+    /**
+     * Socket timeout in milliseconds of lookups and small writes, like properties and labels
+     */
+    public int getMetadataTimeout() {
+        return metadataTimeout;
+    }
+
+    public void setMetadataTimeout(int metadataTimeout) {
+        this.metadataTimeout = metadataTimeout;
+    }
+
+    /**
+     * Socket timeout in milliseconds of requests with page content, like page fetch and update
+     */
+    public int getBodyTimeout() {
+        return bodyTimeout;
+    }
+
+    public void setBodyTimeout(int bodyTimeout) {
+        this.bodyTimeout = bodyTimeout;
+    }
+
+    /**
+     * Socket timeout in milliseconds of attachment uploads and downloads
+     */
+    public int getAttachmentTimeout() {
+        return attachmentTimeout;
+    }
+
+    public void setAttachmentTimeout(int attachmentTimeout) {
+        this.attachmentTimeout = attachmentTimeout;
+    }
+
+    /**
+     * Time by which publishing must end, null for no deadline. No request is sent after the deadline.
+     */
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    public void setDeadline(Instant deadline) {
+        this.deadline = deadline;
+    }
+
+    /**
+     * No page is started when less than the margin is left until the deadline
+     */
+    public Duration getDeadlineMargin() {
+        return deadlineMargin;
+    }
+
+    public void setDeadlineMargin(Duration deadlineMargin) {
+        this.deadlineMargin = deadlineMargin;
+    }
+
+    /**
+     * Consecutive failures of a class of requests which open its circuit breaker, 0 to disable circuit breakers
+     */
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    public void setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = circuitBreakerThreshold;
+    }
+
+    /**
+     * Time requests of a class are rejected after its circuit breaker opens
+     */
+    public Duration getCircuitBreakerOpenDuration() {
+        return circuitBreakerOpenDuration;
+    }
+
+    public void setCircuitBreakerOpenDuration(Duration circuitBreakerOpenDuration) {
+        this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+    }
+
+    /**
+     * Max number of GET requests in flight, 0 for no limit
+     */
+    public int getMaxConcurrentReads() {
+        return maxConcurrentReads;
+    }
+
+    public void setMaxConcurrentReads(int maxConcurrentReads) {
+        this.maxConcurrentReads = maxConcurrentReads;
+    }
+
+    /**
+     * Max number of write requests in flight other than attachment writes, 0 for no limit
+     */
+    public int getMaxConcurrentPageWrites() {
+        return maxConcurrentPageWrites;
+    }
+
+    public void setMaxConcurrentPageWrites(int maxConcurrentPageWrites) {
+        this.maxConcurrentPageWrites = maxConcurrentPageWrites;
+    }
+
+    /**
+     * Max number of attachment writes in flight, 0 for no limit
+     */
+    public int getMaxConcurrentAttachmentWrites() {
+        return maxConcurrentAttachmentWrites;
+    }
+
+    public void setMaxConcurrentAttachmentWrites(int maxConcurrentAttachmentWrites) {
+        this.maxConcurrentAttachmentWrites = maxConcurrentAttachmentWrites;
+    }
+
+    /**
+     * Additional metrics of REST API requests, like {@link io.github.md2conf.confluence.client.metrics.MicrometerRequestMetrics}
+     */
+    public RequestMetrics getRequestMetrics() {
+        return requestMetrics;
+    }
+
+    public void setRequestMetrics(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    /**
+     * File of {@link PublishJournal}, null to publish without journal
+     */
+    public Path getJournalPath() {
+        return journalPath;
+    }
+
+    public void setJournalPath(Path journalPath) {
+        this.journalPath = journalPath;
+    }
+
+    /**
+     * Continue publishing recorded in the journal instead of starting a new one
+     */
+    public boolean isResume() {
+        return resume;
+    }
+
+    public void setResume(boolean resume) {
+        this.resume = resume;
+    }
+
+    /**
+     * Max number of orphan pages or labels of a page deleted in parallel
+     */
+    public int getOrphanRemovalConcurrency() {
+        return orphanRemovalConcurrency;
+    }
+
+    public void setOrphanRemovalConcurrency(int orphanRemovalConcurrency) {
+        this.orphanRemovalConcurrency = orphanRemovalConcurrency;
+    }
+
+    /**
+     * File of {@link FileDigestCache} with attachment digests, null to hash all attachments on every publish
+     */
+    public Path getFileDigestCachePath() {
+        return fileDigestCachePath;
+    }
+
+    public void setFileDigestCachePath(Path fileDigestCachePath) {
+        this.fileDigestCachePath = fileDigestCachePath;
+    }
+
+    /**
+     * Algorithm of page and attachment hashes. Hashes stored by another algorithm are replaced when content is not changed.
+     */
+    public ContentHashAlgorithm getContentHashAlgorithm() {
+        return contentHashAlgorithm;
+    }
+
+    public void setContentHashAlgorithm(ContentHashAlgorithm contentHashAlgorithm) {
+        this.contentHashAlgorithm = contentHashAlgorithm;
+    }
+
     public static final class ConfluenceClientConfigurationPropertiesBuilder {
         private String confluenceUrl;
         private String username;
@@ -124,6 +378,26 @@ public class ConfluenceClientConfigurationProperties { //todo rename or delete?
         private boolean skipSslVerification = false;
         private Double maxRequestsPerSecond;
         private Integer connectionTTL;
+        private long responseCacheSize = ResponseCache.DEFAULT_MAX_BYTES;
+        private double hedgeBudget = 0;
+        private String hedgeUrl;
+        private List<String> readUrls = emptyList();
+        private int metadataTimeout = RequestTimeouts.DEFAULT_METADATA_TIMEOUT_MILLIS;
+        private int bodyTimeout = RequestTimeouts.DEFAULT_BODY_TIMEOUT_MILLIS;
+        private int attachmentTimeout = RequestTimeouts.DEFAULT_ATTACHMENT_TIMEOUT_MILLIS;
+        private Instant deadline;
+        private Duration deadlineMargin = PublishDeadline.DEFAULT_MARGIN;
+        private int circuitBreakerThreshold = RequestIsolation.DEFAULT_FAILURE_THRESHOLD;
+        private Duration circuitBreakerOpenDuration = RequestIsolation.DEFAULT_OPEN_DURATION;
+        private int maxConcurrentReads = 0;
+        private int maxConcurrentPageWrites = 0;
+        private int maxConcurrentAttachmentWrites = RequestIsolation.DEFAULT_MAX_CONCURRENT_ATTACHMENT_WRITES;
+        private RequestMetrics requestMetrics;
+        private Path journalPath;
+        private boolean resume = false;
+        private int orphanRemovalConcurrency = PublishConfluenceClient.DEFAULT_ORPHAN_REMOVAL_CONCURRENCY;
+        private Path fileDigestCachePath;
+        private ContentHashAlgorithm contentHashAlgorithm = ContentHashAlgorithm.SHA256;
 
         private ConfluenceClientConfigurationPropertiesBuilder() {
         }
@@ -192,6 +466,106 @@ public class ConfluenceClientConfigurationProperties { //todo rename or delete?
             return this;
         }
 
+        public ConfluenceClientConfigurationPropertiesBuilder withResponseCacheSize(long responseCacheSize) {
+            this.responseCacheSize = responseCacheSize;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withHedgeBudget(double hedgeBudget) {
+            this.hedgeBudget = hedgeBudget;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withHedgeUrl(String hedgeUrl) {
+            this.hedgeUrl = hedgeUrl;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withReadUrls(List<String> readUrls) {
+            this.readUrls = readUrls;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withMetadataTimeout(int metadataTimeout) {
+            this.metadataTimeout = metadataTimeout;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withBodyTimeout(int bodyTimeout) {
+            this.bodyTimeout = bodyTimeout;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withAttachmentTimeout(int attachmentTimeout) {
+            this.attachmentTimeout = attachmentTimeout;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withDeadline(Instant deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withDeadlineMargin(Duration deadlineMargin) {
+            this.deadlineMargin = deadlineMargin;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withCircuitBreakerThreshold(int circuitBreakerThreshold) {
+            this.circuitBreakerThreshold = circuitBreakerThreshold;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withCircuitBreakerOpenDuration(Duration circuitBreakerOpenDuration) {
+            this.circuitBreakerOpenDuration = circuitBreakerOpenDuration;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withMaxConcurrentReads(int maxConcurrentReads) {
+            this.maxConcurrentReads = maxConcurrentReads;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withMaxConcurrentPageWrites(int maxConcurrentPageWrites) {
+            this.maxConcurrentPageWrites = maxConcurrentPageWrites;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withMaxConcurrentAttachmentWrites(int maxConcurrentAttachmentWrites) {
+            this.maxConcurrentAttachmentWrites = maxConcurrentAttachmentWrites;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withRequestMetrics(RequestMetrics requestMetrics) {
+            this.requestMetrics = requestMetrics;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withJournalPath(Path journalPath) {
+            this.journalPath = journalPath;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withResume(boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withOrphanRemovalConcurrency(int orphanRemovalConcurrency) {
+            this.orphanRemovalConcurrency = orphanRemovalConcurrency;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withFileDigestCachePath(Path fileDigestCachePath) {
+            this.fileDigestCachePath = fileDigestCachePath;
+            return this;
+        }
+
+        public ConfluenceClientConfigurationPropertiesBuilder withContentHashAlgorithm(ContentHashAlgorithm contentHashAlgorithm) {
+            this.contentHashAlgorithm = contentHashAlgorithm;
+            return this;
+        }
+
         public ConfluenceClientConfigurationProperties build() {
             ConfluenceClientConfigurationProperties confluenceClientConfigurationProperties = new ConfluenceClientConfigurationProperties();
             confluenceClientConfigurationProperties.setConfluenceUrl(confluenceUrl);
@@ -206,6 +580,26 @@ public class ConfluenceClientConfigurationProperties { //todo rename or delete?
             confluenceClientConfigurationProperties.setSkipSslVerification(skipSslVerification);
             confluenceClientConfigurationProperties.setMaxRequestsPerSecond(maxRequestsPerSecond);
             confluenceClientConfigurationProperties.setConnectionTTL(connectionTTL);
+            confluenceClientConfigurationProperties.setResponseCacheSize(responseCacheSize);
+            confluenceClientConfigurationProperties.setHedgeBudget(hedgeBudget);
+            confluenceClientConfigurationProperties.setHedgeUrl(hedgeUrl);
+            confluenceClientConfigurationProperties.setReadUrls(readUrls);
+            confluenceClientConfigurationProperties.setMetadataTimeout(metadataTimeout);
+            confluenceClientConfigurationProperties.setBodyTimeout(bodyTimeout);
+            confluenceClientConfigurationProperties.setAttachmentTimeout(attachmentTimeout);
+            confluenceClientConfigurationProperties.setDeadline(deadline);
+            confluenceClientConfigurationProperties.setDeadlineMargin(deadlineMargin);
+            confluenceClientConfigurationProperties.setCircuitBreakerThreshold(circuitBreakerThreshold);
+            confluenceClientConfigurationProperties.setCircuitBreakerOpenDuration(circuitBreakerOpenDuration);
+            confluenceClientConfigurationProperties.setMaxConcurrentReads(maxConcurrentReads);
+            confluenceClientConfigurationProperties.setMaxConcurrentPageWrites(maxConcurrentPageWrites);
+            confluenceClientConfigurationProperties.setMaxConcurrentAttachmentWrites(maxConcurrentAttachmentWrites);
+            confluenceClientConfigurationProperties.setRequestMetrics(requestMetrics);
+            confluenceClientConfigurationProperties.setJournalPath(journalPath);
+            confluenceClientConfigurationProperties.setResume(resume);
+            confluenceClientConfigurationProperties.setOrphanRemovalConcurrency(orphanRemovalConcurrency);
+            confluenceClientConfigurationProperties.setFileDigestCachePath(fileDigestCachePath);
+            confluenceClientConfigurationProperties.setContentHashAlgorithm(contentHashAlgorithm);
             return confluenceClientConfigurationProperties;
         }
     }
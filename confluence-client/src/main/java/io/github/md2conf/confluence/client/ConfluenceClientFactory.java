@@ -1,11 +1,19 @@
 package io.github.md2conf.confluence.client;
 
 import io.github.md2conf.confluence.client.http.ApiInternalClient;
-import io.github.md2conf.confluence.client.http.RestApiInternalClient;
+import io.github.md2conf.confluence.client.http.ReadNodeRouter;
+import io.github.md2conf.confluence.client.http.RequestHedger;
+import io.github.md2conf.confluence.client.http.RequestIsolation;
+import io.github.md2conf.confluence.client.http.RequestTimeouts;
+import io.github.md2conf.confluence.client.http.ResponseCache;
+import io.github.md2conf.confluence.client.metrics.HistogramRequestMetrics;
+import io.github.md2conf.confluence.client.metrics.RequestMetrics;
 import io.github.md2conf.confluence.client.utils.AssertUtils;
 import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.util.FileDigestCache;
 
 import static io.github.md2conf.confluence.client.PublishConfluenceClientBuilder.aConfluenceClient;
+import static io.github.md2conf.confluence.client.http.RestApiInternalClientBuilder.aRestApiInternalClient;
 
 public class ConfluenceClientFactory {
 
@@ -13,25 +21,61 @@ public class ConfluenceClientFactory {
                                                                   ConfluenceContentModel confluenceContentModel,
                                                                   PublishConfluenceClientListener publishConfluenceClientListener) {
         AssertUtils.assertMandatoryParameter(!confluenceContentModel.getPages().isEmpty(), "Confluence Content Pages");
-        ApiInternalClient apiInternalClient = createApiInternalClient(properties);
+        return publishConfluenceClient(properties, publishConfluenceClientListener);
+    }
+
+    /**
+     * Client for publishing pages which are not converted yet, see {@link PublishPipeline}
+     */
+    public static PublishConfluenceClient publishConfluenceClient(ConfluenceClientConfigurationProperties properties,
+                                                                  PublishConfluenceClientListener publishConfluenceClientListener) {
+        RequestMetrics requestMetrics = properties.getRequestMetrics();
+        if (publishConfluenceClientListener == null) {
+            HistogramRequestMetrics histogramRequestMetrics = new HistogramRequestMetrics();
+            publishConfluenceClientListener = new DefaultPublishConfluenceClientListener(histogramRequestMetrics);
+            requestMetrics = RequestMetrics.composite(histogramRequestMetrics, requestMetrics);
+        }
+        ApiInternalClient apiInternalClient = createApiInternalClient(properties, requestMetrics);
         PublishConfluenceClientBuilder builder = aConfluenceClient()
                 .withConfluenceClientListener(publishConfluenceClientListener)
                 .withInternalApiClient(apiInternalClient)
                 .withNotifyWatchers(properties.isNotifyWatchers())
                 .withOrphanRemovalStrategy(properties.getOrphanRemovalStrategy())
+                .withOrphanRemovalConcurrency(properties.getOrphanRemovalConcurrency())
+                .withFileDigests(properties.getFileDigestCachePath() != null ?
+                        FileDigestCache.load(properties.getFileDigestCachePath(), properties.getContentHashAlgorithm()) :
+                        FileDigestCache.inMemory(properties.getContentHashAlgorithm()))
                 .withPublishingStrategy(PublishingStrategy.APPEND_TO_ANCESTOR)
-                .withVersionMessage(properties.getVersionMessage());
+                .withVersionMessage(properties.getVersionMessage())
+                .withDeadline(PublishDeadline.at(properties.getDeadline(), properties.getDeadlineMargin()));
+        if (properties.getJournalPath() != null) {
+            String scope = String.join(" ", properties.getConfluenceUrl(), properties.getSpaceKey(), properties.getParentPageTitle());
+            builder.withJournal(PublishJournal.open(properties.getJournalPath(), scope, properties.isResume()));
+        }
 
         return builder.build();
     }
 
     public static ApiInternalClient createApiInternalClient(ConfluenceClientConfigurationProperties properties) {
-        return new RestApiInternalClient(properties.getConfluenceUrl(),
-                properties.isSkipSslVerification(),
-                true,
-                properties.getMaxRequestsPerSecond(),
-                properties.getConnectionTTL(),
-                properties.getUsername(),
-                properties.getPasswordOrPersonalAccessToken());
+        return createApiInternalClient(properties, properties.getRequestMetrics());
+    }
+
+    private static ApiInternalClient createApiInternalClient(ConfluenceClientConfigurationProperties properties, RequestMetrics requestMetrics) {
+        return aRestApiInternalClient()
+                .withRootConfluenceUrl(properties.getConfluenceUrl())
+                .withDisableSslVerification(properties.isSkipSslVerification())
+                .withEnableHttpClientSystemProperties(true)
+                .withMaxRequestsPerSecond(properties.getMaxRequestsPerSecond())
+                .withConnectionTTL(properties.getConnectionTTL())
+                .withUsername(properties.getUsername())
+                .withPasswordOrPersonalAccessToken(properties.getPasswordOrPersonalAccessToken())
+                .withRequestMetrics(requestMetrics)
+                .withResponseCache(properties.getResponseCacheSize() > 0 ? new ResponseCache(properties.getResponseCacheSize()) : null)
+                .withRequestHedger(properties.getHedgeBudget() > 0 ? new RequestHedger(properties.getHedgeBudget(), properties.getHedgeUrl()) : null)
+                .withReadNodeRouter(!properties.getReadUrls().isEmpty() ? new ReadNodeRouter(properties.getReadUrls()) : null)
+                .withRequestTimeouts(new RequestTimeouts(properties.getMetadataTimeout(), properties.getBodyTimeout(), properties.getAttachmentTimeout(), properties.getDeadline()))
+                .withRequestIsolation(new RequestIsolation(properties.getCircuitBreakerThreshold(), properties.getCircuitBreakerOpenDuration(), properties.getMaxConcurrentReads(),
+                        properties.getMaxConcurrentPageWrites(), properties.getMaxConcurrentAttachmentWrites()))
+                .build();
     }
 }
@@ -1,6 +1,7 @@
 package io.github.md2conf.confluence.client;
 
 import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
+import io.github.md2conf.confluence.client.metrics.HistogramRequestMetrics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,7 +18,18 @@ public class DefaultPublishConfluenceClientListener implements PublishConfluence
     private int attachmentUpdatedCnt;
     private int attachmentNotModifiedCnt;
     private int attachmentDeletedCnt;
+    private final HistogramRequestMetrics requestMetrics;
 
+    public DefaultPublishConfluenceClientListener() {
+        this(null);
+    }
+
+    /**
+     * @param requestMetrics - metrics of REST API requests to summarize when publishing is completed, nullable
+     */
+    public DefaultPublishConfluenceClientListener(HistogramRequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
 
     @Override
     public synchronized void pageAdded(ConfluenceApiPage addedPage) {
@@ -72,6 +84,12 @@ public class DefaultPublishConfluenceClientListener implements PublishConfluence
         logger.info("Publishing completed. Summary");
         logger.info(getPagesStats());
         logger.info(getAttachmentStats());
+        if (requestMetrics != null) {
+            String requestsSummary = requestMetrics.summary();
+            if (!requestsSummary.isEmpty()) {
+                logger.info(System.lineSeparator() + requestsSummary);
+            }
+        }
     }
 
     @Override
@@ -16,30 +16,28 @@
 
 package io.github.md2conf.confluence.client;
 
+import io.github.md2conf.confluence.client.PublishPlan.PageAction;
+import io.github.md2conf.confluence.client.PublishPlan.PageChange;
 import io.github.md2conf.confluence.client.http.ApiInternalClient;
-import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
-import io.github.md2conf.confluence.client.http.ConfluenceAttachment;
 import io.github.md2conf.confluence.client.http.NotFoundException;
 import io.github.md2conf.model.ConfluenceContentModel;
 import io.github.md2conf.model.ConfluencePage;
+import io.github.md2conf.model.util.FileDigestCache;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Path;
+import java.io.Closeable;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
 
 import static io.github.md2conf.confluence.client.OrphanRemovalStrategy.REMOVE_ORPHANS;
 import static io.github.md2conf.confluence.client.utils.AssertUtils.assertMandatoryParameter;
-import static io.github.md2conf.confluence.client.utils.InputStreamUtils.fileContent;
-import static java.nio.charset.StandardCharsets.UTF_8;
-import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
-import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
 import static org.apache.commons.lang3.StringUtils.isNotBlank;
 
 /**
@@ -47,47 +45,245 @@ import static org.apache.commons.lang3.StringUtils.isNotBlank;
  * @author Christian Stettler
  * @author qwazer
  */
-public class PublishConfluenceClient {
+public class PublishConfluenceClient implements Closeable {
 
     static final String CONTENT_HASH_PROPERTY_KEY = "content-hash";
     static final String ATTACHMENT_HASH_SUFFIX = "-attachment-hash";
     static final int INITIAL_PAGE_VERSION = 1;
+    public static final int DEFAULT_ORPHAN_REMOVAL_CONCURRENCY = 4;
     private final PublishingStrategy publishingStrategy;
     private final OrphanRemovalStrategy orphanRemovalStrategy;
     private final ApiInternalClient apiInternalClient;
     private final PublishConfluenceClientListener publishConfluenceClientListener;
-    private final String versionMessage;
-    private final boolean notifyWatchers;
+    private final PublishJournal journal;
+    private final FileDigestCache fileDigests;
+    private final PublishPlanner planner;
+    private final PublishPlanExecutor executor;
 
     public PublishConfluenceClient( PublishingStrategy publishingStrategy, OrphanRemovalStrategy orphanRemovalStrategy,
                                    ApiInternalClient apiInternalClient, PublishConfluenceClientListener publishConfluenceClientListener,
                                    String versionMessage, boolean notifyWatchers) {
+        this(publishingStrategy, orphanRemovalStrategy, apiInternalClient, publishConfluenceClientListener, versionMessage, notifyWatchers, PublishJournal.NOOP,
+                DEFAULT_ORPHAN_REMOVAL_CONCURRENCY, FileDigestCache.inMemory(), PublishDeadline.NONE);
+    }
+
+    /**
+     * See {@link PublishConfluenceClientBuilder}
+     */
+    PublishConfluenceClient( PublishingStrategy publishingStrategy, OrphanRemovalStrategy orphanRemovalStrategy,
+                            ApiInternalClient apiInternalClient, PublishConfluenceClientListener publishConfluenceClientListener,
+                            String versionMessage, boolean notifyWatchers, PublishJournal journal, int orphanRemovalConcurrency,
+                            FileDigestCache fileDigests, PublishDeadline deadline) {
         this.publishingStrategy = publishingStrategy;
         this.orphanRemovalStrategy = orphanRemovalStrategy;
         this.apiInternalClient = apiInternalClient;
         this.publishConfluenceClientListener = publishConfluenceClientListener != null ? publishConfluenceClientListener : new DefaultPublishConfluenceClientListener();
-        this.versionMessage = versionMessage;
-        this.notifyWatchers = notifyWatchers;
+        this.journal = journal != null ? journal : PublishJournal.NOOP;
+        this.fileDigests = fileDigests != null ? fileDigests : FileDigestCache.inMemory();
+        this.planner = new PublishPlanner(apiInternalClient, this.journal, this.fileDigests);
+        this.executor = new PublishPlanExecutor(apiInternalClient, this.publishConfluenceClientListener, this.journal, versionMessage, notifyWatchers, orphanRemovalConcurrency, deadline);
     }
 
     public void publish(ConfluenceContentModel model, String spaceKey, String parentTitle) {
+        execute(plan(model, spaceKey, parentTitle));
+    }
+
+    /**
+     * Closes the internal api client
+     */
+    @Override
+    public void close() {
+        this.apiInternalClient.close();
+    }
+
+    /**
+     * Publish only changed pages, see {@link #plan(ConfluenceContentModel, String, String, Predicate)}
+     */
+    public void publish(ConfluenceContentModel model, String spaceKey, String parentTitle, Predicate<ConfluencePage> changedPages) {
+        execute(plan(model, spaceKey, parentTitle, changedPages));
+    }
+
+    /**
+     * Compute changes needed to publish the model, without changing anything in Confluence.
+     */
+    public PublishPlan plan(ConfluenceContentModel model, String spaceKey, String parentTitle) {
+        return plan(model, spaceKey, parentTitle, page -> true);
+    }
+
+    /**
+     * Compute changes needed to publish changed pages of the model, without changing anything in Confluence.
+     * Other pages are not checked, unless they are ancestors of changed pages. Orphans are looked for only under
+     * checked pages, so pages removed from the model must be reported as changed together with their parents.
+     *
+     * @param changedPages - pages changed since the last publishing
+     */
+    public PublishPlan plan(ConfluenceContentModel model, String spaceKey, String parentTitle, Predicate<ConfluencePage> changedPages) {
         assertMandatoryParameter(model != null, "model");
         assertMandatoryParameter(isNotBlank(spaceKey), "spaceKey");
         assertMandatoryParameter(isNotBlank(parentTitle), "parentTitle");
+        try {
+            return planChanges(model, spaceKey, parentTitle, changedPages, new PublishPlan(spaceKey));
+        } finally {
+            this.fileDigests.save();
+        }
+    }
+
+    private PublishPlan planChanges(ConfluenceContentModel model, String spaceKey, String parentTitle, Predicate<ConfluencePage> changedPages, PublishPlan plan) {
+        plan.addReadRequests(1);
         String ancestorId = findPageIdByTitle(spaceKey, parentTitle);
+        Set<ConfluencePage> pagesToPlan = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectPagesToPlan(model.getPages(), changedPages, pagesToPlan);
+        // hash attachments of all pages at once, so that changed attachments of different pages are hashed in parallel
+        this.planner.hashFiles(pagesToPlan.stream()
+                .flatMap(page -> page.getAttachments().values().stream())
+                .map(Paths::get)
+                .distinct()
+                .collect(toList()));
         switch (this.publishingStrategy) {
             case APPEND_TO_ANCESTOR:
-                startPublishingUnderAncestorId(model.getPages(), spaceKey, ancestorId);
+                planPages(plan, model.getPages(), null, ancestorId, pagesToPlan);
                 break;
             case REPLACE_ANCESTOR:
-                startPublishingReplacingAncestorId(singleRootPage(model), spaceKey, ancestorId);
+                ConfluencePage rootPage = singleRootPage(model);
+                PageChange rootPageChange = this.planner.planAncestorPage(plan, rootPage, ancestorId);
+                planPages(plan, rootPage.getChildren(), rootPageChange, null, pagesToPlan);
                 break;
             default:
                 throw new IllegalArgumentException("Invalid publishing strategy '" + this.publishingStrategy + "'");
         }
+        if (this.orphanRemovalStrategy == REMOVE_ORPHANS) {
+            Map<String, PageChange> publishedPages = PublishPlanner.publishedPagesByContentId(plan);
+            if (this.publishingStrategy == PublishingStrategy.APPEND_TO_ANCESTOR) {
+                this.planner.planOrphanRemoval(plan, model.getPages(), ancestorId, publishedPages);
+            }
+            for (PageChange pageChange : new ArrayList<>(plan.getPageChanges())) {
+                if (pageChange.getAction() != PageAction.CREATE) {
+                    this.planner.planOrphanRemoval(plan, pageChange.getPage().getChildren(), pageChange.getContentId(), publishedPages);
+                }
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Execute changes computed by {@link #plan(ConfluenceContentModel, String, String)}.
+     * The journal is deleted on success and kept for resume on failure.
+     */
+    public void execute(PublishPlan plan) {
+        assertMandatoryParameter(plan != null, "plan");
+        try {
+            this.executor.execute(plan);
+        } catch (RuntimeException e) {
+            this.journal.close();
+            throw e;
+        }
+        this.journal.complete();
         this.publishConfluenceClientListener.publishCompleted();
     }
 
+    private void planPages(PublishPlan plan, List<ConfluencePage> pages, PageChange parent, String ancestorId, Set<ConfluencePage> pagesToPlan) {
+        for (ConfluencePage page : pages) {
+            if (pagesToPlan.contains(page)) {
+                PageChange pageChange = this.planner.planPage(plan, page, parent, ancestorId);
+                planPages(plan, page.getChildren(), pageChange, null, pagesToPlan);
+            }
+        }
+    }
+
+    /**
+     * Collect changed pages and their ancestors
+     *
+     * @return true if any of the pages is collected
+     */
+    private static boolean collectPagesToPlan(List<ConfluencePage> pages, Predicate<ConfluencePage> changedPages, Set<ConfluencePage> res) {
+        boolean collected = false;
+        for (ConfluencePage page : pages) {
+            if (collectPagesToPlan(page.getChildren(), changedPages, res) | changedPages.test(page)) {
+                res.add(page);
+                collected = true;
+            }
+        }
+        return collected;
+    }
+
+    /**
+     * Publish pages as soon as they appear in the pipeline. Each page is planned and executed on its own.
+     * Orphans are removed after the last page is published, when all children of every page are known.
+     * Published pages found under an orphan are moved out of it first.
+     * Nothing is removed if the producer fails.
+     */
+    public void publish(PublishPipeline pipeline, String spaceKey, String parentTitle) {
+        assertMandatoryParameter(pipeline != null, "pipeline");
+        assertMandatoryParameter(isNotBlank(spaceKey), "spaceKey");
+        assertMandatoryParameter(isNotBlank(parentTitle), "parentTitle");
+        try {
+            String ancestorId = findPageIdByTitle(spaceKey, parentTitle);
+            PublishPlan plan = new PublishPlan(spaceKey);
+            List<ConfluencePage> rootPages = new ArrayList<>();
+            Map<ConfluencePage, PageChange> pageChanges = new IdentityHashMap<>();
+            PublishPipeline.Item item = pipeline.take();
+            while (!item.last) {
+                ConfluencePage page = item.page;
+                if (this.executor.isDeadlineNear()) {
+                    throw this.executor.deadlineExceeded(plan, Collections.singletonList(page.getTitle()), true);
+                }
+                PageChange pageChange;
+                if (item.parent == null) {
+                    rootPages.add(page);
+                    pageChange = planRootPage(plan, page, rootPages.size(), ancestorId);
+                } else {
+                    PageChange parentPageChange = pageChanges.get(item.parent);
+                    if (parentPageChange == null) {
+                        throw new IllegalStateException("Page '" + page.getTitle() + "' is submitted before its parent '" + item.parent.getTitle() + "'");
+                    }
+                    pageChange = this.planner.planPage(plan, page, parentPageChange, null);
+                }
+                this.executor.executePage(plan, pageChange);
+                pageChanges.put(page, pageChange);
+                item = pipeline.take();
+            }
+            if (item.failure != null) {
+                throw new IllegalStateException("Publishing is stopped because conversion failed", item.failure);
+            }
+            if (rootPages.isEmpty() && this.publishingStrategy == PublishingStrategy.REPLACE_ANCESTOR) {
+                throw new IllegalArgumentException("No root page found, but '" + PublishingStrategy.REPLACE_ANCESTOR + "' publishing strategy requires one single root page");
+            }
+            if (this.orphanRemovalStrategy == REMOVE_ORPHANS) {
+                Map<String, PageChange> publishedPages = PublishPlanner.publishedPagesByContentId(plan);
+                if (this.publishingStrategy == PublishingStrategy.APPEND_TO_ANCESTOR) {
+                    this.planner.planOrphanRemoval(plan, rootPages, ancestorId, publishedPages);
+                }
+                plan.getPageChanges().stream()
+                        .filter(pageChange -> pageChange.getAction() != PageAction.CREATE)
+                        .forEach(pageChange -> this.planner.planOrphanRemoval(plan, pageChange.getPage().getChildren(), pageChange.getContentId(), publishedPages));
+                this.executor.movePages(plan);
+                this.executor.deletePages(plan);
+            }
+        } catch (RuntimeException e) {
+            this.journal.close();
+            throw e;
+        } finally {
+            pipeline.close();
+            this.fileDigests.save();
+        }
+        this.journal.complete();
+        this.publishConfluenceClientListener.publishCompleted();
+    }
+
+    private PageChange planRootPage(PublishPlan plan, ConfluencePage rootPage, int rootPageNumber, String ancestorId) {
+        switch (this.publishingStrategy) {
+            case APPEND_TO_ANCESTOR:
+                return this.planner.planPage(plan, rootPage, null, ancestorId);
+            case REPLACE_ANCESTOR:
+                if (rootPageNumber > 1) {
+                    throw new IllegalArgumentException("Multiple root pages found, but '" + PublishingStrategy.REPLACE_ANCESTOR + "' publishing strategy only supports one single root page");
+                }
+                return this.planner.planAncestorPage(plan, rootPage, ancestorId);
+            default:
+                throw new IllegalArgumentException("Invalid publishing strategy '" + this.publishingStrategy + "'");
+        }
+    }
+
     private String findPageIdByTitle(String spaceKey, String parentTitle) {
         String ancestorId;
         try {
@@ -122,184 +318,4 @@ public class PublishConfluenceClient {
         return rootPages.get(0);
     }
 
-    private void startPublishingReplacingAncestorId(ConfluencePage rootPage, String spaceKey, String ancestorId) {
-        if (rootPage != null) {
-            updatePage(ancestorId, null, rootPage);
-
-            addOrUpdateLabels(ancestorId, rootPage.getLabels());
-
-            deleteConfluenceAttachmentsNotPresentUnderPage(ancestorId, rootPage.getAttachments());
-            addAttachments(ancestorId, rootPage.getAttachments());
-
-            startPublishingUnderAncestorId(rootPage.getChildren(), spaceKey, ancestorId);
-        }
-    }
-
-    private void startPublishingUnderAncestorId(List<ConfluencePage> pages, String spaceKey, String ancestorId) {
-        if (this.orphanRemovalStrategy == REMOVE_ORPHANS) {
-            deleteConfluencePagesNotPresentUnderAncestor(pages, ancestorId);
-        }
-        pages.forEach(page -> {
-            String contentId = addOrUpdatePageUnderAncestor(spaceKey, ancestorId, page);
-
-            addOrUpdateLabels(contentId, page.getLabels());
-
-            deleteConfluenceAttachmentsNotPresentUnderPage(contentId, page.getAttachments());
-            addAttachments(contentId, page.getAttachments());
-
-            startPublishingUnderAncestorId(page.getChildren(), spaceKey, contentId);
-        });
-    }
-
-    private void deleteConfluencePagesNotPresentUnderAncestor(List<ConfluencePage> pagesToKeep, String ancestorId) {
-        List<ConfluenceApiPage> childPagesOnConfluence = this.apiInternalClient.getChildPages(ancestorId);
-
-        List<ConfluenceApiPage> childPagesOnConfluenceToDelete = childPagesOnConfluence.stream()
-                                                                                       .filter(childPageOnConfluence -> pagesToKeep.stream().noneMatch(page -> page.getTitle().equals(childPageOnConfluence.getTitle())))
-                                                                                       .collect(toList());
-
-        childPagesOnConfluenceToDelete.forEach(pageToDelete -> {
-            List<ConfluenceApiPage> pageScheduledForDeletionChildPagesOnConfluence = this.apiInternalClient.getChildPages(pageToDelete.getContentId());
-            pageScheduledForDeletionChildPagesOnConfluence.forEach(parentPageToDelete -> this.deleteConfluencePagesNotPresentUnderAncestor(emptyList(), pageToDelete.getContentId()));
-            this.apiInternalClient.deletePage(pageToDelete.getContentId());
-            this.publishConfluenceClientListener.pageDeleted(pageToDelete);
-        });
-    }
-
-    private void deleteConfluenceAttachmentsNotPresentUnderPage(String contentId, Map<String, String> attachments) {
-        List<ConfluenceAttachment> confluenceAttachments = this.apiInternalClient.getAttachments(contentId);
-
-        confluenceAttachments.stream()
-                .filter(confluenceAttachment -> attachments.keySet().stream().noneMatch(attachmentFileName -> attachmentFileName.equals(confluenceAttachment.getTitle())))
-                .forEach(confluenceAttachment -> {
-                    this.apiInternalClient.deletePropertyByKey(contentId, getAttachmentHashKey(confluenceAttachment.getTitle()));
-                    this.apiInternalClient.deleteAttachment(confluenceAttachment.getId());
-                    this.publishConfluenceClientListener.attachmentDeleted(confluenceAttachment.getTitle(), contentId);
-                });
-    }
-
-    private String addOrUpdatePageUnderAncestor(String spaceKey, String ancestorId, ConfluencePage page) {
-        String contentId;
-
-        try {
-            contentId = this.apiInternalClient.getPageByTitle(spaceKey, page.getTitle());
-            updatePage(contentId, ancestorId, page);
-        } catch (NotFoundException e) {
-            String content = fileContent(page.getContentFilePath(), UTF_8);
-            contentId = this.apiInternalClient.addPageUnderAncestor(spaceKey, ancestorId, page.getTitle(), content, page.getType(), this.versionMessage );
-            this.apiInternalClient.setPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY, hash(content));
-            this.publishConfluenceClientListener.pageAdded(new ConfluenceApiPage(contentId, page.getTitle(), INITIAL_PAGE_VERSION));
-        }
-
-        return contentId;
-    }
-
-    private void updatePage(String contentId, String ancestorId, ConfluencePage page) {
-        String content = fileContent(page.getContentFilePath(), UTF_8);
-        ConfluenceApiPage existingPage = this.apiInternalClient.getPageWithViewContent(contentId);
-        String existingContentHash = this.apiInternalClient.getPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY);
-        String newContentHash = hash(content);
-
-        if (notSameHash(existingContentHash, newContentHash) || !existingPage.getTitle().equals(page.getTitle())) {
-            if (page.isSkipUpdate()){
-                this.publishConfluenceClientListener.pageSkippedUpdate(existingPage);
-                return;
-            }
-            this.apiInternalClient.deletePropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY);
-            int newPageVersion = existingPage.getVersion() + 1;
-            this.apiInternalClient.updatePage(contentId, ancestorId, page.getTitle(), content, page.getType(), newPageVersion, this.versionMessage, this.notifyWatchers);
-            this.apiInternalClient.setPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY, newContentHash);
-            this.publishConfluenceClientListener.pageUpdated(existingPage, new ConfluenceApiPage(contentId, page.getTitle(), newPageVersion));
-        } else {
-            this.publishConfluenceClientListener.pageNotModified(existingPage);
-        }
-    }
-
-    private void addAttachments(String contentId, Map<String, String> attachments) {
-        attachments.forEach((attachmentFileName, attachmentPath) -> addOrUpdateAttachment(contentId, attachmentPath, attachmentFileName));
-    }
-
-    private void addOrUpdateAttachment(String contentId, String attachmentPath, String attachmentFileName) {
-        Path absoluteAttachmentPath = absoluteAttachmentPath(attachmentPath);
-        String newAttachmentHash = hash(fileInputStream(absoluteAttachmentPath));
-
-        try {
-            ConfluenceAttachment existingAttachment = this.apiInternalClient.getAttachmentByFileName(contentId, attachmentFileName);
-            String attachmentId = existingAttachment.getId();
-            String existingAttachmentHash = this.apiInternalClient.getPropertyByKey(contentId, getAttachmentHashKey(attachmentFileName));
-
-            if (notSameHash(existingAttachmentHash, newAttachmentHash)) {
-                if (existingAttachmentHash != null) {
-                    this.apiInternalClient.deletePropertyByKey(contentId, getAttachmentHashKey(attachmentFileName));
-                }
-                this.apiInternalClient.updateAttachmentContent(contentId, attachmentId, fileInputStream(absoluteAttachmentPath), this.notifyWatchers);
-                this.apiInternalClient.setPropertyByKey(contentId, getAttachmentHashKey(attachmentFileName), newAttachmentHash);
-                this.publishConfluenceClientListener.attachmentUpdated(attachmentFileName, contentId);
-            }
-            else {
-                this.publishConfluenceClientListener.attachmentNotModified(attachmentFileName, contentId);
-            }
-
-        } catch (NotFoundException e) {
-            this.apiInternalClient.deletePropertyByKey(contentId, getAttachmentHashKey(attachmentFileName));
-            this.apiInternalClient.addAttachment(contentId, attachmentFileName, fileInputStream(absoluteAttachmentPath));
-            this.apiInternalClient.setPropertyByKey(contentId, getAttachmentHashKey(attachmentFileName), newAttachmentHash);
-            this.publishConfluenceClientListener.attachmentAdded(attachmentFileName, contentId);
-        }
-    }
-
-    private static String getAttachmentHashKey(String attachmentFileName) {
-        return hash(attachmentFileName) + ATTACHMENT_HASH_SUFFIX;
-    }
-
-    private Path absoluteAttachmentPath(String attachmentPath) {
-        return Paths.get(attachmentPath);
-    }
-
-    private void addOrUpdateLabels(String contentId, List<String> labels) {
-        List<String> existingLabels = this.apiInternalClient.getLabels(contentId);
-
-        existingLabels.stream()
-                .filter((existingLabel) -> !(labels.contains(existingLabel)))
-                .forEach((labelToDelete) -> this.apiInternalClient.deleteLabel(contentId, labelToDelete));
-
-        List<String> labelsToAdd = labels.stream()
-                .filter((label) -> !(existingLabels.contains(label)))
-                .collect(toList());
-
-        if (labelsToAdd.size() > 0) {
-            this.apiInternalClient.addLabels(contentId, labelsToAdd);
-        }
-    }
-
-    private static boolean notSameHash(String actualHash, String newHash) {
-        return actualHash == null || !actualHash.equals(newHash);
-    }
-
-    private static String hash(String content) {
-        return sha256Hex(content);
-    }
-
-    private static String hash(InputStream content) {
-        try {
-            return sha256Hex(content);
-        } catch (IOException e) {
-            throw new RuntimeException("Could not compute hash from input stream", e);
-        } finally {
-            try {
-                content.close();
-            } catch (IOException ignored) {
-            }
-        }
-    }
-
-    private static FileInputStream fileInputStream(Path filePath) {
-        try {
-            return new FileInputStream(filePath.toFile());
-        } catch (FileNotFoundException e) {
-            throw new RuntimeException("Could not find attachment ", e);
-        }
-    }
-
-
 }
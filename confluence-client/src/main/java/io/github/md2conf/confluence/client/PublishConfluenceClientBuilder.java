@@ -1,6 +1,7 @@
 package io.github.md2conf.confluence.client;
 
 import io.github.md2conf.confluence.client.http.ApiInternalClient;
+import io.github.md2conf.model.util.FileDigestCache;
 
 public final class PublishConfluenceClientBuilder {
     private PublishingStrategy publishingStrategy;
@@ -9,6 +10,10 @@ public final class PublishConfluenceClientBuilder {
     private PublishConfluenceClientListener publishConfluenceClientListener;
     private String versionMessage;
     private boolean notifyWatchers;
+    private PublishJournal journal = PublishJournal.NOOP;
+    private int orphanRemovalConcurrency = PublishConfluenceClient.DEFAULT_ORPHAN_REMOVAL_CONCURRENCY;
+    private FileDigestCache fileDigests = FileDigestCache.inMemory();
+    private PublishDeadline deadline = PublishDeadline.NONE;
 
     private PublishConfluenceClientBuilder() {
     }
@@ -48,7 +53,27 @@ public final class PublishConfluenceClientBuilder {
         return this;
     }
 
+    public PublishConfluenceClientBuilder withJournal(PublishJournal journal) {
+        this.journal = journal;
+        return this;
+    }
+
+    public PublishConfluenceClientBuilder withOrphanRemovalConcurrency(int orphanRemovalConcurrency) {
+        this.orphanRemovalConcurrency = orphanRemovalConcurrency;
+        return this;
+    }
+
+    public PublishConfluenceClientBuilder withFileDigests(FileDigestCache fileDigests) {
+        this.fileDigests = fileDigests;
+        return this;
+    }
+
+    public PublishConfluenceClientBuilder withDeadline(PublishDeadline deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
     public PublishConfluenceClient build() {
-        return new PublishConfluenceClient(publishingStrategy, orphanRemovalStrategy, apiInternalClient, publishConfluenceClientListener, versionMessage, notifyWatchers);
+        return new PublishConfluenceClient(publishingStrategy, orphanRemovalStrategy, apiInternalClient, publishConfluenceClientListener, versionMessage, notifyWatchers, journal, orphanRemovalConcurrency, fileDigests, deadline);
     }
 }
@@ -0,0 +1,46 @@
+package io.github.md2conf.confluence.client;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Time by which publishing must end. No page is started when less than a margin is left until the deadline, so the
+ * page in progress can be completed in time.
+ */
+public final class PublishDeadline {
+
+    public static final Duration DEFAULT_MARGIN = Duration.ofSeconds(60);
+    public static final PublishDeadline NONE = new PublishDeadline(null, Duration.ZERO);
+
+    private final Instant deadline;
+    private final Duration margin;
+
+    private PublishDeadline(Instant deadline, Duration margin) {
+        this.deadline = deadline;
+        this.margin = margin;
+    }
+
+    /**
+     * @param deadline - time by which publishing must end, null for no deadline
+     * @param margin   - time needed to complete a page
+     */
+    public static PublishDeadline at(Instant deadline, Duration margin) {
+        return deadline != null ? new PublishDeadline(deadline, margin) : NONE;
+    }
+
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return true if no more work should be started
+     */
+    boolean isNear() {
+        return this.deadline != null && Instant.now().plus(this.margin).isAfter(this.deadline);
+    }
+
+    @Override
+    public String toString() {
+        return this.deadline != null ? this.deadline + " (margin " + this.margin.getSeconds() + "s)" : "none";
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.md2conf.confluence.client;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Publishing is stopped before the {@link PublishDeadline}. Work completed so far is recorded in the journal, so
+ * publishing can be resumed.
+ */
+public class PublishDeadlineExceededException extends RuntimeException {
+
+    private final List<String> pagesLeftUndone;
+    private final int pageDeletionsLeftUndone;
+
+    /**
+     * @param morePagesLeftUndone - true if pages which are not known yet are left undone, like pages in a pipeline
+     */
+    PublishDeadlineExceededException(PublishDeadline deadline, List<String> pagesLeftUndone, int pageDeletionsLeftUndone, boolean morePagesLeftUndone) {
+        super(message(deadline, pagesLeftUndone, pageDeletionsLeftUndone, morePagesLeftUndone));
+        this.pagesLeftUndone = pagesLeftUndone;
+        this.pageDeletionsLeftUndone = pageDeletionsLeftUndone;
+    }
+
+    private static String message(PublishDeadline deadline, List<String> pagesLeftUndone, int pageDeletionsLeftUndone, boolean morePagesLeftUndone) {
+        String pages = pagesLeftUndone.stream().map(title -> "'" + title + "'").collect(Collectors.joining(", "));
+        if (morePagesLeftUndone) {
+            pages = pages.isEmpty() ? "pages not converted yet" : pages + " and pages not converted yet";
+        }
+        return "Publishing is stopped because deadline " + deadline + " is near. Left undone: "
+                + pagesLeftUndone.size() + " pages" + (pages.isEmpty() ? "" : " (" + pages + ")")
+                + ", " + pageDeletionsLeftUndone + " orphan page deletions. Publish again with resume to continue";
+    }
+
+    /**
+     * @return titles of pages not added or updated
+     */
+    public List<String> getPagesLeftUndone() {
+        return pagesLeftUndone;
+    }
+
+    public int getPageDeletionsLeftUndone() {
+        return pageDeletionsLeftUndone;
+    }
+}
@@ -0,0 +1,316 @@
+package io.github.md2conf.confluence.client;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only journal of completed publish operations, one JSON record per line.
+ * <p>
+ * A record is appended when an operation is completed together with its hash property: page added or updated,
+ * labels changed, attachment uploaded, all attachments of a page processed. Records are written immediately, so
+ * they survive a crash of the JVM, and fsynced every {@link #DEFAULT_SYNC_BATCH_SIZE} records and on close, so
+ * at most one batch is lost on a crash of the OS. A torn last line is dropped on resume.
+ * <p>
+ * On resume {@link PublishPlanner} trusts the records which match the local content and skips the remote checks
+ * of completed operations. The journal is deleted after successful publishing.
+ */
+public class PublishJournal implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(PublishJournal.class);
+
+    public static final int DEFAULT_SYNC_BATCH_SIZE = 32;
+
+    /**
+     * Journal which records nothing
+     */
+    public static final PublishJournal NOOP = new PublishJournal(null, null, DEFAULT_SYNC_BATCH_SIZE);
+
+    private static final String BEGIN = "BEGIN";
+    private static final String PAGE = "PAGE";
+    private static final String LABELS = "LABELS";
+    private static final String ATTACHMENT = "ATTACHMENT";
+    private static final String ATTACHMENTS = "ATTACHMENTS";
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final Path path;
+    private final String scope;
+    private final int syncBatchSize;
+    private FileChannel channel;
+    private final Map<String, Record> pages = new HashMap<>();
+    private final Map<String, String> hashes = new HashMap<>();
+    private int unsyncedRecords;
+
+    private PublishJournal(Path path, String scope, int syncBatchSize) {
+        this.path = path;
+        this.scope = scope;
+        this.syncBatchSize = syncBatchSize;
+    }
+
+    /**
+     * Open journal for publishing to the given target.
+     *
+     * @param scope  - identifies publishing target, like Confluence URL, space key and parent page title.
+     *                 Journal of another target is not resumed.
+     * @param resume - load records of the previous publishing and append to them, otherwise start a new journal
+     */
+    public static PublishJournal open(Path path, String scope, boolean resume) {
+        return open(path, scope, resume, DEFAULT_SYNC_BATCH_SIZE);
+    }
+
+    static PublishJournal open(Path path, String scope, boolean resume, int syncBatchSize) {
+        try {
+            List<Record> records = new ArrayList<>();
+            long validLength = resume && Files.isRegularFile(path) ? readRecords(path, records) : 0;
+            boolean resumed = !records.isEmpty() && BEGIN.equals(records.get(0).type) && Objects.equals(scope, records.get(0).scope);
+            PublishJournal journal = new PublishJournal(path, scope, syncBatchSize);
+            if (resumed) {
+                journal.channel = FileChannel.open(path, WRITE);
+                journal.channel.truncate(validLength);
+                journal.channel.position(validLength);
+                records.forEach(journal::load);
+                logger.info("Resuming publishing to {} with {} journal records from {}", scope, records.size() - 1, path);
+            } else {
+                if (resume) {
+                    logger.warn("No journal of publishing to {} found at {}, publishing from the start", scope, path);
+                }
+                Files.deleteIfExists(path);
+            }
+            return journal;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not open publish journal " + path, e);
+        }
+    }
+
+    /**
+     * @return completed page with the given title and content hash, or null
+     */
+    synchronized Record completedPage(String title, String contentHash) {
+        Record record = pages.get(title);
+        return record != null && record.hash.equals(contentHash) ? record : null;
+    }
+
+    synchronized boolean isLabelsCompleted(String contentId, String labelsHash) {
+        return labelsHash.equals(hashes.get(LABELS + contentId));
+    }
+
+    synchronized boolean isAttachmentCompleted(String contentId, String fileName, String attachmentHash) {
+        return attachmentHash.equals(hashes.get(ATTACHMENT + contentId + "/" + fileName));
+    }
+
+    synchronized boolean isAttachmentsCompleted(String contentId, String attachmentsHash) {
+        return attachmentsHash.equals(hashes.get(ATTACHMENTS + contentId));
+    }
+
+    synchronized void pageCompleted(String title, String contentId, int version, String contentHash) {
+        Record record = new Record(PAGE);
+        record.title = title;
+        record.contentId = contentId;
+        record.version = version;
+        record.hash = contentHash;
+        if (!record.equals(pages.get(title))) {
+            appendAndLoad(record);
+        }
+    }
+
+    synchronized void labelsCompleted(String contentId, String labelsHash) {
+        if (!isLabelsCompleted(contentId, labelsHash)) {
+            Record record = new Record(LABELS);
+            record.contentId = contentId;
+            record.hash = labelsHash;
+            appendAndLoad(record);
+        }
+    }
+
+    synchronized void attachmentCompleted(String contentId, String fileName, String attachmentHash) {
+        if (!isAttachmentCompleted(contentId, fileName, attachmentHash)) {
+            Record record = new Record(ATTACHMENT);
+            record.contentId = contentId;
+            record.fileName = fileName;
+            record.hash = attachmentHash;
+            appendAndLoad(record);
+        }
+    }
+
+    synchronized void attachmentsCompleted(String contentId, String attachmentsHash) {
+        if (!isAttachmentsCompleted(contentId, attachmentsHash)) {
+            Record record = new Record(ATTACHMENTS);
+            record.contentId = contentId;
+            record.hash = attachmentsHash;
+            appendAndLoad(record);
+        }
+    }
+
+    /**
+     * Close and delete the journal after successful publishing
+     */
+    public synchronized void complete() {
+        close();
+        if (path != null) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                logger.warn("Could not delete publish journal {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Fsync and close the journal, keeping it for resume
+     */
+    @Override
+    public synchronized void close() {
+        if (channel != null && channel.isOpen()) {
+            try {
+                sync();
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not close publish journal " + path, e);
+            }
+        }
+    }
+
+    private void appendAndLoad(Record record) {
+        if (path == null) {
+            return;
+        }
+        try {
+            if (channel == null) {
+                create();
+            }
+            append(record);
+            if (unsyncedRecords >= syncBatchSize) {
+                sync();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write publish journal " + path, e);
+        }
+        load(record);
+    }
+
+    /**
+     * The file is created with the first completed operation, so that nothing is left if nothing is done
+     */
+    private void create() throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        channel = FileChannel.open(path, CREATE, WRITE, TRUNCATE_EXISTING);
+        Record begin = new Record(BEGIN);
+        begin.scope = scope;
+        append(begin);
+    }
+
+    private void append(Record record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap((OBJECT_MAPPER.writeValueAsString(record) + "\n").getBytes(UTF_8));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        unsyncedRecords++;
+    }
+
+    private void sync() throws IOException {
+        if (unsyncedRecords > 0) {
+            channel.force(false);
+            unsyncedRecords = 0;
+        }
+    }
+
+    private void load(Record record) {
+        switch (record.type) {
+            case PAGE:
+                pages.put(record.title, record);
+                break;
+            case LABELS:
+            case ATTACHMENTS:
+                hashes.put(record.type + record.contentId, record.hash);
+                break;
+            case ATTACHMENT:
+                hashes.put(ATTACHMENT + record.contentId + "/" + record.fileName, record.hash);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Read complete records, stopping at a torn or malformed line.
+     *
+     * @return length of the complete records
+     */
+    private static long readRecords(Path path, List<Record> records) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        int start = 0;
+        for (int end = 0; end < bytes.length; end++) {
+            if (bytes[end] != '\n') {
+                continue;
+            }
+            String line = new String(bytes, start, end - start, UTF_8);
+            try {
+                records.add(OBJECT_MAPPER.readValue(line, Record.class));
+            } catch (IOException e) {
+                break;
+            }
+            start = end + 1;
+        }
+        if (start < bytes.length) {
+            logger.warn("Ignoring incomplete publish journal record at offset {} of {}", start, path);
+        }
+        return start;
+    }
+
+    /**
+     * Line of the journal
+     */
+    static class Record {
+        public String type;
+        public String scope;
+        public String title;
+        public String contentId;
+        public Integer version;
+        public String fileName;
+        public String hash;
+
+        Record() {
+        }
+
+        Record(String type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Record record = (Record) o;
+            return Objects.equals(type, record.type) && Objects.equals(scope, record.scope) && Objects.equals(title, record.title)
+                    && Objects.equals(contentId, record.contentId) && Objects.equals(version, record.version)
+                    && Objects.equals(fileName, record.fileName) && Objects.equals(hash, record.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, scope, title, contentId, version, fileName, hash);
+        }
+    }
+}
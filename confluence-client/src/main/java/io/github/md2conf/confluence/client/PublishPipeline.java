@@ -0,0 +1,104 @@
+package io.github.md2conf.confluence.client;
+
+import io.github.md2conf.model.ConfluencePage;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Bounded queue of converted pages between a converter and {@link PublishConfluenceClient}.
+ * <p>
+ * Producer submits pages parent first and finishes with {@link #complete()} or {@link #fail(Throwable)}.
+ * Producer is blocked while the queue is full, so conversion doesn't run too far ahead of publishing.
+ * Publisher closes the pipeline when done, which releases a blocked producer. After that producer can't submit pages
+ * anymore. Producer blocked on a full queue is also released by interrupting it.
+ */
+public class PublishPipeline {
+
+    public static final int DEFAULT_CAPACITY = 16;
+
+    private final BlockingQueue<Item> queue;
+    private volatile boolean closed = false;
+
+    public PublishPipeline() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public PublishPipeline(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Pipeline capacity must be positive, but was " + capacity);
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Submit converted page, blocks while the queue is full.
+     *
+     * @param page   - converted page
+     * @param parent - parent page submitted earlier or null for top level page
+     */
+    public void submit(ConfluencePage page, ConfluencePage parent) {
+        if (!put(new Item(page, parent, null, false))) {
+            throw new IllegalStateException("Publish pipeline is closed");
+        }
+    }
+
+    /**
+     * No more pages will be submitted. Ignored if publisher is already done.
+     */
+    public void complete() {
+        put(new Item(null, null, null, true));
+    }
+
+    /**
+     * Producer failed, publisher stops without removing orphans. Ignored if publisher is already done.
+     */
+    public void fail(Throwable cause) {
+        put(new Item(null, null, cause, true));
+    }
+
+    /**
+     * Release blocked producer, called by publisher. Clearing the queue makes room for the item the producer waits to
+     * put, the next item is refused.
+     */
+    void close() {
+        closed = true;
+        queue.clear();
+    }
+
+    Item take() {
+        try {
+            return queue.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for converted page", e);
+        }
+    }
+
+    private boolean put(Item item) {
+        if (closed) {
+            return false;
+        }
+        try {
+            queue.put(item);
+            return !closed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while submitting converted page", e);
+        }
+    }
+
+    static class Item {
+        final ConfluencePage page;
+        final ConfluencePage parent;
+        final Throwable failure;
+        final boolean last;
+
+        Item(ConfluencePage page, ConfluencePage parent, Throwable failure, boolean last) {
+            this.page = page;
+            this.parent = parent;
+            this.failure = failure;
+            this.last = last;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package io.github.md2conf.confluence.client;
+
+import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
+import io.github.md2conf.confluence.client.http.ConfluenceAttachment;
+import io.github.md2conf.model.ConfluencePage;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Changes needed to publish a content model, computed against the current state of Confluence.
+ * <p>
+ * Page changes are ordered parents first, each with its label and attachment changes. Orphan pages to delete
+ * are ordered leaves first and deleted after all page changes. Created pages get content id on execution.
+ *
+ * @see PublishConfluenceClient#plan
+ * @see PublishConfluenceClient#execute
+ */
+public class PublishPlan {
+
+    public enum PageAction {
+        CREATE,
+        UPDATE,
+        /**
+         * Page content is not changed, but the page is located under an orphan page, which is going to be deleted
+         */
+        MOVE,
+        /**
+         * Page content is changed, but page update is skipped, see {@link ConfluencePage#isSkipUpdate()}
+         */
+        SKIP_UPDATE,
+        NONE
+    }
+
+    public enum AttachmentAction {
+        ADD,
+        UPDATE,
+        NONE
+    }
+
+    private final String spaceKey;
+    private final List<PageChange> pageChanges = new ArrayList<>();
+    private final List<ConfluenceApiPage> pagesToDelete = new ArrayList<>();
+    private final Map<ConfluenceApiPage, Integer> pageToDeleteHeights = new IdentityHashMap<>();
+    private int readRequestCount;
+
+    PublishPlan(String spaceKey) {
+        this.spaceKey = spaceKey;
+    }
+
+    public String getSpaceKey() {
+        return spaceKey;
+    }
+
+    public List<PageChange> getPageChanges() {
+        return pageChanges;
+    }
+
+    public List<ConfluenceApiPage> getPagesToDelete() {
+        return pagesToDelete;
+    }
+
+    /**
+     * @param height - height of the orphan subtree under the page, 0 for a leaf
+     */
+    void addPageToDelete(ConfluenceApiPage page, int height) {
+        pagesToDelete.add(page);
+        pageToDeleteHeights.put(page, height);
+    }
+
+    /**
+     * @return pages to delete grouped by height, leaves first. Every page comes after all its children,
+     * so pages of the same group can be deleted in parallel.
+     */
+    List<List<ConfluenceApiPage>> pagesToDeleteLeavesFirst() {
+        TreeMap<Integer, List<ConfluenceApiPage>> res = new TreeMap<>();
+        pagesToDelete.forEach(page -> res.computeIfAbsent(pageToDeleteHeights.getOrDefault(page, 0), height -> new ArrayList<>()).add(page));
+        return new ArrayList<>(res.values());
+    }
+
+    /**
+     * @return number of Confluence API calls made to compute the plan, a paged list counts as one call
+     */
+    public int getReadRequestCount() {
+        return readRequestCount;
+    }
+
+    void addReadRequests(int count) {
+        this.readRequestCount += count;
+    }
+
+    /**
+     * @return number of requests needed to execute the plan
+     */
+    public int estimatedRequestCount() {
+        return pageChanges.stream().mapToInt(PageChange::estimatedRequestCount).sum() + pagesToDelete.size();
+    }
+
+    /**
+     * @return bytes of page content and attachments to upload on execution
+     */
+    public long estimatedUploadBytes() {
+        return pageChanges.stream().mapToLong(PageChange::estimatedUploadBytes).sum();
+    }
+
+    public boolean isEmpty() {
+        return estimatedRequestCount() == 0;
+    }
+
+    /**
+     * @return human-readable list of changes with estimated request count and upload size
+     */
+    public String describe() {
+        StringBuilder sb = new StringBuilder();
+        for (PageChange pageChange : pageChanges) {
+            if (pageChange.action != PageAction.NONE) {
+                sb.append(String.format("%-11s page '%s'%n", pageChange.action, pageChange.page.getTitle()));
+            } else if (pageChange.rehash) {
+                sb.append(String.format("%-11s hash of page '%s'%n", "REHASH", pageChange.page.getTitle()));
+            }
+            pageChange.labelsToAdd.forEach(label -> sb.append(String.format("%-11s label '%s' on page '%s'%n", "ADD", label, pageChange.page.getTitle())));
+            pageChange.labelsToDelete.forEach(label -> sb.append(String.format("%-11s label '%s' on page '%s'%n", "DELETE", label, pageChange.page.getTitle())));
+            pageChange.attachmentsToDelete.forEach(attachment -> sb.append(String.format("%-11s attachment '%s' of page '%s'%n", "DELETE", attachment.getTitle(), pageChange.page.getTitle())));
+            pageChange.attachmentChanges.stream()
+                    .filter(attachmentChange -> attachmentChange.action != AttachmentAction.NONE)
+                    .forEach(attachmentChange -> sb.append(String.format("%-11s attachment '%s' of page '%s', %d bytes%n",
+                            attachmentChange.action, attachmentChange.fileName, pageChange.page.getTitle(), attachmentChange.size)));
+            pageChange.attachmentChanges.stream()
+                    .filter(attachmentChange -> attachmentChange.action == AttachmentAction.NONE && attachmentChange.rehash)
+                    .forEach(attachmentChange -> sb.append(String.format("%-11s hash of attachment '%s' of page '%s'%n",
+                            "REHASH", attachmentChange.fileName, pageChange.page.getTitle())));
+        }
+        pagesToDelete.forEach(page -> sb.append(String.format("%-11s page '%s'%n", "DELETE", page.getTitle())));
+        long unchanged = pageChanges.stream().filter(pageChange -> pageChange.action == PageAction.NONE).count();
+        sb.append(String.format("%d pages, %d not modified. Estimated %d requests, %.1f KB to upload. %d API calls made to plan.",
+                pageChanges.size(), unchanged, estimatedRequestCount(), estimatedUploadBytes() / 1024.0, readRequestCount));
+        return sb.toString();
+    }
+
+    @Override
+    public String toString() {
+        return describe();
+    }
+
+    /**
+     * Page to add or update with its labels and attachments
+     */
+    public static class PageChange {
+
+        final ConfluencePage page;
+        final PageChange parent;
+        final String ancestorId;
+        PageAction action;
+        String contentId;
+        ConfluenceApiPage existingPage;
+        String contentHash;
+        /**
+         * Content is not changed, but its hash is stored by another algorithm and is to be replaced
+         */
+        boolean rehash;
+        long contentBytes;
+        /**
+         * Content of the page file, kept while the page is planned, so that the file is read once
+         */
+        byte[] content;
+        final List<String> labelsToAdd = new ArrayList<>();
+        final List<String> labelsToDelete = new ArrayList<>();
+        final List<ConfluenceAttachment> attachmentsToDelete = new ArrayList<>();
+        final List<AttachmentChange> attachmentChanges = new ArrayList<>();
+
+        /**
+         * @param parent     - change of the parent page, null if parent is not published
+         * @param ancestorId - content id of the parent page if parent is not published, null for updated ancestor
+         */
+        PageChange(ConfluencePage page, PageChange parent, String ancestorId) {
+            this.page = page;
+            this.parent = parent;
+            this.ancestorId = ancestorId;
+        }
+
+        public ConfluencePage getPage() {
+            return page;
+        }
+
+        public PageAction getAction() {
+            return action;
+        }
+
+        /**
+         * @return content id of the page, null for created page until the plan is executed
+         */
+        public String getContentId() {
+            return contentId;
+        }
+
+        public List<String> getLabelsToAdd() {
+            return labelsToAdd;
+        }
+
+        public List<String> getLabelsToDelete() {
+            return labelsToDelete;
+        }
+
+        public List<ConfluenceAttachment> getAttachmentsToDelete() {
+            return attachmentsToDelete;
+        }
+
+        public List<AttachmentChange> getAttachmentChanges() {
+            return attachmentChanges;
+        }
+
+        String resolveAncestorId() {
+            return parent != null ? parent.contentId : ancestorId;
+        }
+
+        int estimatedRequestCount() {
+            int res;
+            switch (action) {
+                case CREATE:
+                    res = 2; // add page, set hash
+                    break;
+                case UPDATE:
+                case MOVE:
+                    res = 3; // delete hash, update page, set hash
+                    break;
+                case NONE:
+                    res = rehash ? 2 : 0; // delete hash, set hash
+                    break;
+                default:
+                    res = 0;
+            }
+            res += labelsToDelete.size() + (labelsToAdd.isEmpty() ? 0 : 1);
+            res += attachmentsToDelete.size() * 2;
+            res += attachmentChanges.stream().mapToInt(AttachmentChange::estimatedRequestCount).sum();
+            return res;
+        }
+
+        long estimatedUploadBytes() {
+            long res = action == PageAction.CREATE || action == PageAction.UPDATE || action == PageAction.MOVE ? contentBytes : 0;
+            return res + attachmentChanges.stream()
+                    .filter(attachmentChange -> attachmentChange.action != AttachmentAction.NONE)
+                    .mapToLong(attachmentChange -> attachmentChange.size)
+                    .sum();
+        }
+    }
+
+    /**
+     * Attachment of the page to add or update
+     */
+    public static class AttachmentChange {
+
+        final String fileName;
+        final String path;
+        final String hash;
+        final long size;
+        AttachmentAction action;
+        String attachmentId;
+        boolean deleteHashProperty;
+        /**
+         * Attachment is not changed, but its hash is stored by another algorithm and is to be replaced
+         */
+        boolean rehash;
+
+        AttachmentChange(String fileName, String path, String hash, long size) {
+            this.fileName = fileName;
+            this.path = path;
+            this.hash = hash;
+            this.size = size;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public AttachmentAction getAction() {
+            return action;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        int estimatedRequestCount() {
+            if (action == AttachmentAction.NONE) {
+                return rehash ? 2 : 0; // delete hash, set hash
+            }
+            return (deleteHashProperty ? 1 : 0) + 2; // upload, set hash
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package io.github.md2conf.confluence.client;
+
+import io.github.md2conf.confluence.client.PublishPlan.AttachmentAction;
+import io.github.md2conf.confluence.client.PublishPlan.AttachmentChange;
+import io.github.md2conf.confluence.client.PublishPlan.PageAction;
+import io.github.md2conf.confluence.client.PublishPlan.PageChange;
+import io.github.md2conf.confluence.client.http.ApiInternalClient;
+import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
+import io.github.md2conf.confluence.client.http.ConfluenceAttachment;
+import io.github.md2conf.confluence.client.jfr.AttachmentTransferEvent;
+import io.github.md2conf.confluence.client.jfr.PagePublishEvent;
+import io.github.md2conf.model.ConfluencePage;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static io.github.md2conf.confluence.client.PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY;
+import static io.github.md2conf.confluence.client.PublishConfluenceClient.INITIAL_PAGE_VERSION;
+import static io.github.md2conf.confluence.client.PublishPlanner.attachmentHashKey;
+import static io.github.md2conf.confluence.client.PublishPlanner.attachmentsHash;
+import static io.github.md2conf.confluence.client.PublishPlanner.fileInputStream;
+import static io.github.md2conf.confluence.client.PublishPlanner.labelsHash;
+import static java.util.Collections.emptyList;
+
+/**
+ * Executes {@link PublishPlan}: sends write requests, records completed operations in {@link PublishJournal}
+ * and notifies {@link PublishConfluenceClientListener}.
+ */
+class PublishPlanExecutor {
+
+    private final ApiInternalClient apiInternalClient;
+    private final PublishConfluenceClientListener publishConfluenceClientListener;
+    private final PublishJournal journal;
+    private final String versionMessage;
+    private final boolean notifyWatchers;
+    private final int deleteConcurrency;
+    private final PublishDeadline deadline;
+
+    /**
+     * @param deleteConcurrency - max number of orphan pages or labels of a page deleted in parallel
+     * @param deadline          - no page or deletion is started when the deadline is near
+     */
+    PublishPlanExecutor(ApiInternalClient apiInternalClient, PublishConfluenceClientListener publishConfluenceClientListener,
+                        PublishJournal journal, String versionMessage, boolean notifyWatchers, int deleteConcurrency,
+                        PublishDeadline deadline) {
+        this.apiInternalClient = apiInternalClient;
+        this.publishConfluenceClientListener = publishConfluenceClientListener;
+        this.journal = journal;
+        this.versionMessage = versionMessage;
+        this.notifyWatchers = notifyWatchers;
+        this.deleteConcurrency = Math.max(1, deleteConcurrency);
+        this.deadline = deadline != null ? deadline : PublishDeadline.NONE;
+    }
+
+    void execute(PublishPlan plan) {
+        List<PageChange> pageChanges = plan.getPageChanges();
+        for (int i = 0; i < pageChanges.size(); i++) {
+            if (isDeadlineNear()) {
+                List<String> pagesLeftUndone = pageChanges.subList(i, pageChanges.size()).stream()
+                        .map(pageChange -> pageChange.page.getTitle())
+                        .collect(Collectors.toList());
+                throw deadlineExceeded(plan, pagesLeftUndone, false);
+            }
+            executePage(plan, pageChanges.get(i));
+        }
+        deletePages(plan);
+    }
+
+    boolean isDeadlineNear() {
+        return this.deadline.isNear();
+    }
+
+    /**
+     * @param pagesLeftUndone     - titles of pages not executed
+     * @param morePagesLeftUndone - true if more pages would be planned later
+     */
+    PublishDeadlineExceededException deadlineExceeded(PublishPlan plan, List<String> pagesLeftUndone, boolean morePagesLeftUndone) {
+        return new PublishDeadlineExceededException(this.deadline, pagesLeftUndone, plan.getPagesToDelete().size(), morePagesLeftUndone);
+    }
+
+    /**
+     * Add or update the page, then its labels and attachments. Reported as a {@link PagePublishEvent}.
+     */
+    void executePage(PublishPlan plan, PageChange pageChange) {
+        ConfluencePage page = pageChange.page;
+        PagePublishEvent event = new PagePublishEvent();
+        event.begin();
+        PagePublishEvent.enterPage(page.getTitle());
+        try {
+            executePageContent(plan, pageChange);
+            executeLabels(pageChange);
+            executeAttachments(pageChange);
+            event.end();
+            if (event.shouldCommit()) {
+                event.pageTitle = page.getTitle();
+                event.contentId = pageChange.contentId;
+                event.commit();
+            }
+        } finally {
+            PagePublishEvent.exitPage();
+        }
+    }
+
+    /**
+     * Move pages, which orphan removal found under an orphan after they were executed, out of the orphan.
+     * Labels and attachments of these pages are already executed.
+     */
+    void movePages(PublishPlan plan) {
+        List<PageChange> pagesToMove = plan.getPageChanges().stream()
+                .filter(pageChange -> pageChange.action == PageAction.MOVE)
+                .collect(Collectors.toList());
+        if (!pagesToMove.isEmpty() && isDeadlineNear()) {
+            throw deadlineExceeded(plan, pagesToMove.stream().map(pageChange -> pageChange.page.getTitle()).collect(Collectors.toList()), false);
+        }
+        for (PageChange pageChange : pagesToMove) {
+            PagePublishEvent.enterPage(pageChange.page.getTitle());
+            try {
+                executePageContent(plan, pageChange);
+            } finally {
+                PagePublishEvent.exitPage();
+            }
+        }
+    }
+
+    /**
+     * Delete orphans leaves first. Pages of the same height are deleted in parallel, up to the delete concurrency.
+     * Next height is started when all deletions of the previous one succeeded.
+     */
+    void deletePages(PublishPlan plan) {
+        if (!plan.getPagesToDelete().isEmpty() && isDeadlineNear()) {
+            throw deadlineExceeded(plan, emptyList(), false);
+        }
+        deleteConcurrently(plan.pagesToDeleteLeavesFirst(), this::deletePage);
+    }
+
+    /**
+     * Items of a batch are deleted in parallel, batches one after another. Workers report to the page of the caller.
+     */
+    private <T> void deleteConcurrently(List<List<T>> batches, Consumer<T> delete) {
+        int threads = Math.min(this.deleteConcurrency, batches.stream().mapToInt(List::size).max().orElse(0));
+        if (threads <= 1) {
+            batches.forEach(batch -> batch.forEach(delete));
+            return;
+        }
+        String pageTitle = PagePublishEvent.currentPageTitle();
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            for (List<T> batch : batches) {
+                List<CompletableFuture<Void>> deletions = batch.stream()
+                        .map(item -> CompletableFuture.runAsync(() -> {
+                            PagePublishEvent.enterPage(pageTitle);
+                            try {
+                                delete.accept(item);
+                            } finally {
+                                PagePublishEvent.exitPage();
+                            }
+                        }, executorService))
+                        .collect(Collectors.toList());
+                try {
+                    CompletableFuture.allOf(deletions.toArray(new CompletableFuture[0])).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    void deletePage(ConfluenceApiPage page) {
+        this.apiInternalClient.deletePage(page.getContentId());
+        this.publishConfluenceClientListener.pageDeleted(page);
+    }
+
+    private void executePageContent(PublishPlan plan, PageChange pageChange) {
+        ConfluencePage page = pageChange.page;
+        switch (pageChange.action) {
+            case CREATE:
+                pageChange.contentId = this.apiInternalClient.addPageUnderAncestor(plan.getSpaceKey(), pageChange.resolveAncestorId(), page.getTitle(), Paths.get(page.getContentFilePath()), page.getType(), this.versionMessage);
+                this.apiInternalClient.setPropertyByKey(pageChange.contentId, CONTENT_HASH_PROPERTY_KEY, pageChange.contentHash);
+                this.journal.pageCompleted(page.getTitle(), pageChange.contentId, INITIAL_PAGE_VERSION, pageChange.contentHash);
+                this.publishConfluenceClientListener.pageAdded(new ConfluenceApiPage(pageChange.contentId, page.getTitle(), INITIAL_PAGE_VERSION));
+                break;
+            case UPDATE:
+            case MOVE:
+                String contentId = pageChange.contentId;
+                this.apiInternalClient.deletePropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY);
+                int newPageVersion = pageChange.existingPage.getVersion() + 1;
+                this.apiInternalClient.updatePage(contentId, pageChange.resolveAncestorId(), page.getTitle(), Paths.get(page.getContentFilePath()), page.getType(), newPageVersion, this.versionMessage, this.notifyWatchers);
+                this.apiInternalClient.setPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY, pageChange.contentHash);
+                this.journal.pageCompleted(page.getTitle(), contentId, newPageVersion, pageChange.contentHash);
+                this.publishConfluenceClientListener.pageUpdated(pageChange.existingPage, new ConfluenceApiPage(contentId, page.getTitle(), newPageVersion));
+                break;
+            case SKIP_UPDATE:
+                this.publishConfluenceClientListener.pageSkippedUpdate(pageChange.existingPage);
+                break;
+            case NONE:
+                if (pageChange.rehash) {
+                    this.apiInternalClient.deletePropertyByKey(pageChange.contentId, CONTENT_HASH_PROPERTY_KEY);
+                    this.apiInternalClient.setPropertyByKey(pageChange.contentId, CONTENT_HASH_PROPERTY_KEY, pageChange.contentHash);
+                }
+                this.journal.pageCompleted(page.getTitle(), pageChange.contentId, pageChange.existingPage.getVersion(), pageChange.contentHash);
+                this.publishConfluenceClientListener.pageNotModified(pageChange.existingPage);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid page action '" + pageChange.action + "'");
+        }
+    }
+
+    private void executeLabels(PageChange pageChange) {
+        deleteConcurrently(List.of(pageChange.labelsToDelete), labelToDelete -> this.apiInternalClient.deleteLabel(pageChange.contentId, labelToDelete));
+        if (!pageChange.labelsToAdd.isEmpty()) {
+            this.apiInternalClient.addLabels(pageChange.contentId, pageChange.labelsToAdd);
+        }
+        this.journal.labelsCompleted(pageChange.contentId, labelsHash(pageChange.page.getLabels()));
+    }
+
+    private void executeAttachments(PageChange pageChange) {
+        String contentId = pageChange.contentId;
+        for (ConfluenceAttachment confluenceAttachment : pageChange.attachmentsToDelete) {
+            this.apiInternalClient.deletePropertyByKey(contentId, attachmentHashKey(confluenceAttachment.getTitle()));
+            this.apiInternalClient.deleteAttachment(confluenceAttachment.getId());
+            this.publishConfluenceClientListener.attachmentDeleted(confluenceAttachment.getTitle(), contentId);
+        }
+        for (AttachmentChange attachmentChange : pageChange.attachmentChanges) {
+            if (attachmentChange.action == AttachmentAction.NONE) {
+                if (attachmentChange.rehash) {
+                    this.apiInternalClient.deletePropertyByKey(contentId, attachmentHashKey(attachmentChange.fileName));
+                    this.apiInternalClient.setPropertyByKey(contentId, attachmentHashKey(attachmentChange.fileName), attachmentChange.hash);
+                }
+                this.journal.attachmentCompleted(contentId, attachmentChange.fileName, attachmentChange.hash);
+                this.publishConfluenceClientListener.attachmentNotModified(attachmentChange.fileName, contentId);
+                continue;
+            }
+            String attachmentHashKey = attachmentHashKey(attachmentChange.fileName);
+            if (attachmentChange.deleteHashProperty) {
+                this.apiInternalClient.deletePropertyByKey(contentId, attachmentHashKey);
+            }
+            Path attachmentPath = Paths.get(attachmentChange.path);
+            AttachmentTransferEvent event = new AttachmentTransferEvent();
+            event.begin();
+            if (attachmentChange.action == AttachmentAction.UPDATE) {
+                this.apiInternalClient.updateAttachmentContent(contentId, attachmentChange.attachmentId, fileInputStream(attachmentPath), this.notifyWatchers);
+            } else {
+                this.apiInternalClient.addAttachment(contentId, attachmentChange.fileName, fileInputStream(attachmentPath));
+            }
+            event.end();
+            if (event.shouldCommit()) {
+                event.direction = AttachmentTransferEvent.UPLOAD;
+                event.fileName = attachmentChange.fileName;
+                event.bytes = attachmentChange.size;
+                event.pageTitle = PagePublishEvent.currentPageTitle();
+                event.commit();
+            }
+            this.apiInternalClient.setPropertyByKey(contentId, attachmentHashKey, attachmentChange.hash);
+            this.journal.attachmentCompleted(contentId, attachmentChange.fileName, attachmentChange.hash);
+            if (attachmentChange.action == AttachmentAction.UPDATE) {
+                this.publishConfluenceClientListener.attachmentUpdated(attachmentChange.fileName, contentId);
+            } else {
+                this.publishConfluenceClientListener.attachmentAdded(attachmentChange.fileName, contentId);
+            }
+        }
+        this.journal.attachmentsCompleted(contentId, attachmentsHash(pageChange.attachmentChanges));
+    }
+}
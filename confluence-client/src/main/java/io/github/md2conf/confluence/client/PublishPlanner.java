@@ -0,0 +1,397 @@
+package io.github.md2conf.confluence.client;
+
+import io.github.md2conf.confluence.client.PublishPlan.AttachmentAction;
+import io.github.md2conf.confluence.client.PublishPlan.AttachmentChange;
+import io.github.md2conf.confluence.client.PublishPlan.PageAction;
+import io.github.md2conf.confluence.client.PublishPlan.PageChange;
+import io.github.md2conf.confluence.client.http.ApiInternalClient;
+import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
+import io.github.md2conf.confluence.client.http.ConfluenceAttachment;
+import io.github.md2conf.confluence.client.http.NotFoundException;
+import io.github.md2conf.confluence.client.jfr.HashEvent;
+import io.github.md2conf.confluence.client.jfr.PagePublishEvent;
+import io.github.md2conf.model.ConfluencePage;
+import io.github.md2conf.model.util.ContentHashAlgorithm;
+import io.github.md2conf.model.util.FileDigestCache;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static io.github.md2conf.confluence.client.PublishConfluenceClient.ATTACHMENT_HASH_SUFFIX;
+import static io.github.md2conf.confluence.client.PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY;
+import static io.github.md2conf.confluence.client.utils.InputStreamUtils.fileBytes;
+import static java.util.Collections.emptyList;
+import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
+
+/**
+ * Computes {@link PublishPlan} by comparing pages with Confluence. Sends only read requests.
+ */
+class PublishPlanner {
+
+    private final ApiInternalClient apiInternalClient;
+    private final PublishJournal journal;
+    private final FileDigestCache fileDigests;
+
+    PublishPlanner(ApiInternalClient apiInternalClient, PublishJournal journal, FileDigestCache fileDigests) {
+        this.apiInternalClient = apiInternalClient;
+        this.journal = journal;
+        this.fileDigests = fileDigests;
+    }
+
+    /**
+     * Plan page with its labels and attachments and add it to the plan.
+     *
+     * @param parent     - change of the parent page, null for top level page
+     * @param ancestorId - content id of the parent of top level page
+     */
+    PageChange planPage(PublishPlan plan, ConfluencePage page, PageChange parent, String ancestorId) {
+        PageChange pageChange = new PageChange(page, parent, ancestorId);
+        PagePublishEvent.enterPage(page.getTitle());
+        try {
+            hashContent(pageChange);
+            PublishJournal.Record completedPage = this.journal.completedPage(page.getTitle(), pageChange.contentHash);
+            if (completedPage != null) {
+                resumePageContent(pageChange, completedPage);
+            } else {
+                String contentId;
+                try {
+                    plan.addReadRequests(1);
+                    contentId = this.apiInternalClient.getPageByTitle(plan.getSpaceKey(), page.getTitle());
+                } catch (NotFoundException e) {
+                    contentId = null;
+                }
+                planPageContent(plan, pageChange, contentId);
+            }
+            planLabels(plan, pageChange);
+            planAttachments(plan, pageChange);
+        } finally {
+            pageChange.content = null;
+            PagePublishEvent.exitPage();
+        }
+        plan.getPageChanges().add(pageChange);
+        return pageChange;
+    }
+
+    /**
+     * Plan update of existing page which is the ancestor, with its labels and attachments, and add it to the plan.
+     */
+    PageChange planAncestorPage(PublishPlan plan, ConfluencePage page, String ancestorId) {
+        PageChange pageChange = new PageChange(page, null, null);
+        PagePublishEvent.enterPage(page.getTitle());
+        try {
+            hashContent(pageChange);
+            PublishJournal.Record completedPage = this.journal.completedPage(page.getTitle(), pageChange.contentHash);
+            if (completedPage != null && completedPage.contentId.equals(ancestorId)) {
+                resumePageContent(pageChange, completedPage);
+            } else {
+                planPageContent(plan, pageChange, ancestorId);
+            }
+            planLabels(plan, pageChange);
+            planAttachments(plan, pageChange);
+        } finally {
+            pageChange.content = null;
+            PagePublishEvent.exitPage();
+        }
+        plan.getPageChanges().add(pageChange);
+        return pageChange;
+    }
+
+    /**
+     * Plan deletion of child pages on Confluence, which are not present in pages to keep and not published elsewhere.
+     * Children of deleted pages are deleted first. Not modified published page found there is moved.
+     * The subtree of every orphan is listed by one descendant query.
+     *
+     * @param pagesToKeep     - pages which are expected under the parent
+     * @param parentContentId - parent page on Confluence
+     * @param publishedPages  - page changes by content id, see {@link #publishedPagesByContentId(PublishPlan)}
+     */
+    void planOrphanRemoval(PublishPlan plan, List<ConfluencePage> pagesToKeep, String parentContentId, Map<String, PageChange> publishedPages) {
+        Set<String> titlesToKeep = pagesToKeep.stream().map(ConfluencePage::getTitle).collect(Collectors.toSet());
+        plan.addReadRequests(1);
+        for (ConfluenceApiPage childPage : this.apiInternalClient.getChildPages(parentContentId)) {
+            if (!titlesToKeep.contains(childPage.getTitle()) && !markMoved(childPage, publishedPages)) {
+                plan.addReadRequests(1);
+                planPageRemoval(plan, childPage, this.apiInternalClient.getDescendantPagesByParentId(childPage.getContentId()), publishedPages);
+            }
+        }
+    }
+
+    /**
+     * @param childPagesByParentId - orphan subtree, see {@link ApiInternalClient#getDescendantPagesByParentId(String)}
+     * @return height of the deleted subtree under the page, -1 if the page is published and kept
+     */
+    private int planPageRemoval(PublishPlan plan, ConfluenceApiPage page, Map<String, List<ConfluenceApiPage>> childPagesByParentId,
+                                Map<String, PageChange> publishedPages) {
+        if (markMoved(page, publishedPages)) {
+            return -1;
+        }
+        int height = 0;
+        for (ConfluenceApiPage childPage : childPagesByParentId.getOrDefault(page.getContentId(), emptyList())) {
+            height = Math.max(height, planPageRemoval(plan, childPage, childPagesByParentId, publishedPages) + 1);
+        }
+        plan.addPageToDelete(page, height);
+        return height;
+    }
+
+    /**
+     * Published page located under an orphan is moved out of it before the orphan is deleted
+     */
+    private static boolean markMoved(ConfluenceApiPage page, Map<String, PageChange> publishedPages) {
+        PageChange publishedPage = publishedPages.get(page.getContentId());
+        if (publishedPage == null) {
+            return false;
+        }
+        if (publishedPage.action == PageAction.NONE) {
+            publishedPage.action = PageAction.MOVE;
+        }
+        return true;
+    }
+
+    static Map<String, PageChange> publishedPagesByContentId(PublishPlan plan) {
+        return plan.getPageChanges().stream()
+                .filter(pageChange -> pageChange.contentId != null)
+                .collect(Collectors.toMap(pageChange -> pageChange.contentId, pageChange -> pageChange, (a, b) -> a));
+    }
+
+    private void hashContent(PageChange pageChange) {
+        byte[] content = fileBytes(pageChange.page.getContentFilePath());
+        pageChange.contentHash = hash(this.fileDigests.getAlgorithm(), content);
+        pageChange.contentBytes = content.length;
+        pageChange.content = content;
+    }
+
+    /**
+     * Page content is published by the previous run, according to the journal
+     */
+    private static void resumePageContent(PageChange pageChange, PublishJournal.Record completedPage) {
+        pageChange.contentId = completedPage.contentId;
+        pageChange.existingPage = new ConfluenceApiPage(completedPage.contentId, pageChange.page.getTitle(), completedPage.version);
+        pageChange.action = PageAction.NONE;
+    }
+
+    private void planPageContent(PublishPlan plan, PageChange pageChange, String contentId) {
+        ConfluencePage page = pageChange.page;
+        if (contentId == null) {
+            pageChange.action = PageAction.CREATE;
+            return;
+        }
+        pageChange.contentId = contentId;
+        plan.addReadRequests(2);
+        pageChange.existingPage = this.apiInternalClient.getPageWithViewContent(contentId);
+        String existingContentHash = this.apiInternalClient.getPropertyByKey(contentId, CONTENT_HASH_PROPERTY_KEY);
+        boolean contentChanged = notSameHash(existingContentHash, pageChange.contentHash);
+        if (contentChanged && (sameHashOfOtherAlgorithm(existingContentHash, algorithm -> hash(algorithm, pageChange.content))
+                || sameHashOfJoinedLines(existingContentHash, pageChange.content))) {
+            contentChanged = false;
+            pageChange.rehash = true;
+        }
+        if (contentChanged || !pageChange.existingPage.getTitle().equals(page.getTitle())) {
+            pageChange.action = page.isSkipUpdate() ? PageAction.SKIP_UPDATE : PageAction.UPDATE;
+        } else {
+            pageChange.action = PageAction.NONE;
+        }
+    }
+
+    private void planLabels(PublishPlan plan, PageChange pageChange) {
+        List<String> labels = pageChange.page.getLabels();
+        if (pageChange.action == PageAction.CREATE) {
+            pageChange.labelsToAdd.addAll(labels);
+            return;
+        }
+        if (this.journal.isLabelsCompleted(pageChange.contentId, labelsHash(labels))) {
+            return;
+        }
+        List<String> expandedLabels = pageChange.existingPage != null ? pageChange.existingPage.getLabels() : null;
+        if (expandedLabels == null) {
+            plan.addReadRequests(1);
+        }
+        Set<String> existingLabels = new LinkedHashSet<>(expandedLabels != null ? expandedLabels : this.apiInternalClient.getLabels(pageChange.contentId));
+        Set<String> labelsToKeep = new LinkedHashSet<>(labels);
+        if (existingLabels.equals(labelsToKeep)) {
+            return;
+        }
+        existingLabels.stream()
+                .filter(existingLabel -> !labelsToKeep.contains(existingLabel))
+                .forEach(pageChange.labelsToDelete::add);
+        labelsToKeep.stream()
+                .filter(label -> !existingLabels.contains(label))
+                .forEach(pageChange.labelsToAdd::add);
+    }
+
+    private void planAttachments(PublishPlan plan, PageChange pageChange) {
+        Map<String, String> attachments = pageChange.page.getAttachments();
+        String contentId = pageChange.contentId;
+        Map<Path, String> attachmentHashes = hashFiles(attachments.values().stream().map(Paths::get).collect(Collectors.toList()));
+        attachments.forEach((attachmentFileName, attachmentPath) -> {
+            Path absoluteAttachmentPath = Paths.get(attachmentPath);
+            pageChange.attachmentChanges.add(new AttachmentChange(attachmentFileName, attachmentPath,
+                    attachmentHashes.get(absoluteAttachmentPath), absoluteAttachmentPath.toFile().length()));
+        });
+        if (pageChange.action == PageAction.CREATE) {
+            pageChange.attachmentChanges.forEach(attachmentChange -> attachmentChange.action = AttachmentAction.ADD);
+            return;
+        }
+        if (this.journal.isAttachmentsCompleted(contentId, attachmentsHash(pageChange.attachmentChanges))) {
+            pageChange.attachmentChanges.forEach(attachmentChange -> attachmentChange.action = AttachmentAction.NONE);
+            return;
+        }
+        plan.addReadRequests(1);
+        this.apiInternalClient.getAttachments(contentId).stream()
+                .filter(confluenceAttachment -> !attachments.containsKey(confluenceAttachment.getTitle()))
+                .forEach(pageChange.attachmentsToDelete::add);
+        for (AttachmentChange attachmentChange : pageChange.attachmentChanges) {
+            String attachmentFileName = attachmentChange.fileName;
+            if (this.journal.isAttachmentCompleted(contentId, attachmentFileName, attachmentChange.hash)) {
+                attachmentChange.action = AttachmentAction.NONE;
+                continue;
+            }
+            try {
+                plan.addReadRequests(1);
+                ConfluenceAttachment existingAttachment = this.apiInternalClient.getAttachmentByFileName(contentId, attachmentFileName);
+                attachmentChange.attachmentId = existingAttachment.getId();
+                plan.addReadRequests(1);
+                String existingAttachmentHash = this.apiInternalClient.getPropertyByKey(contentId, attachmentHashKey(attachmentFileName));
+                Path attachmentPath = Paths.get(attachmentChange.path);
+                if (notSameHash(existingAttachmentHash, attachmentChange.hash)
+                        && sameHashOfOtherAlgorithm(existingAttachmentHash, algorithm -> this.fileDigests.digestAll(List.of(attachmentPath), algorithm).get(attachmentPath))) {
+                    attachmentChange.action = AttachmentAction.NONE;
+                    attachmentChange.rehash = true;
+                } else if (notSameHash(existingAttachmentHash, attachmentChange.hash)) {
+                    attachmentChange.action = AttachmentAction.UPDATE;
+                    attachmentChange.deleteHashProperty = existingAttachmentHash != null;
+                } else {
+                    attachmentChange.action = AttachmentAction.NONE;
+                }
+            } catch (NotFoundException e) {
+                attachmentChange.action = AttachmentAction.ADD;
+                attachmentChange.deleteHashProperty = true;
+            }
+        }
+    }
+
+    static String attachmentHashKey(String attachmentFileName) {
+        return sha256Hex(attachmentFileName) + ATTACHMENT_HASH_SUFFIX;
+    }
+
+    static String labelsHash(List<String> labels) {
+        return sha256Hex(labels.stream().sorted().collect(Collectors.joining("\n")));
+    }
+
+    static String attachmentsHash(List<AttachmentChange> attachmentChanges) {
+        return sha256Hex(attachmentChanges.stream()
+                .map(attachmentChange -> attachmentChange.fileName + "=" + attachmentChange.hash)
+                .sorted()
+                .collect(Collectors.joining("\n")));
+    }
+
+    private static boolean notSameHash(String actualHash, String newHash) {
+        return actualHash == null || !actualHash.equals(newHash);
+    }
+
+    /**
+     * Lazy migration to another hash algorithm: hash stored by the previous algorithm is checked by computing it again,
+     * and if content is not changed, only the stored hash is replaced.
+     *
+     * @param actualHash - stored hash
+     * @param hash       - computes hash of the content by the given algorithm
+     * @return true if the stored hash is computed by another known algorithm and matches the content
+     */
+    private boolean sameHashOfOtherAlgorithm(String actualHash, Function<ContentHashAlgorithm, String> hash) {
+        if (actualHash == null) {
+            return false;
+        }
+        return ContentHashAlgorithm.of(actualHash)
+                .filter(algorithm -> algorithm != this.fileDigests.getAlgorithm())
+                .map(algorithm -> actualHash.equals(hash.apply(algorithm)))
+                .orElse(false);
+    }
+
+    /**
+     * Before content was hashed as is, it was hashed as lines joined with {@code \n}. Such hash is replaced without
+     * republishing, if content differs only by line endings.
+     *
+     * @return true if the stored hash is computed from the joined lines of the content
+     */
+    private static boolean sameHashOfJoinedLines(String actualHash, byte[] content) {
+        if (actualHash == null) {
+            return false;
+        }
+        return ContentHashAlgorithm.of(actualHash)
+                .map(algorithm -> actualHash.equals(hash(algorithm, joinedLines(content))))
+                .orElse(false);
+    }
+
+    /**
+     * @return content with {@code \r\n} and {@code \r} line endings replaced by {@code \n}, without the trailing line
+     * break, as lines of {@link io.github.md2conf.confluence.client.utils.InputStreamUtils#fileContent(String, java.nio.charset.Charset)}
+     */
+    static byte[] joinedLines(byte[] content) {
+        byte[] res = new byte[content.length];
+        int length = 0;
+        for (int i = 0; i < content.length; i++) {
+            if (content[i] == '\r') {
+                res[length++] = '\n';
+                if (i + 1 < content.length && content[i + 1] == '\n') {
+                    i++;
+                }
+            } else {
+                res[length++] = content[i];
+            }
+        }
+        if (length > 0 && res[length - 1] == '\n') {
+            length--;
+        }
+        return Arrays.copyOf(res, length);
+    }
+
+    private static String hash(ContentHashAlgorithm algorithm, byte[] content) {
+        HashEvent event = new HashEvent();
+        event.begin();
+        String hash = algorithm.hash(content);
+        event.end();
+        if (event.shouldCommit()) {
+            event.algorithm = algorithm.getPrefix();
+            event.bytes = content.length;
+            event.pageTitle = PagePublishEvent.currentPageTitle();
+            event.commit();
+        }
+        return hash;
+    }
+
+    /**
+     * Hash files, changed ones in parallel. Digests of unchanged files are taken from the cache.
+     */
+    Map<Path, String> hashFiles(Collection<Path> files) {
+        HashEvent event = new HashEvent();
+        long hashedBytesBefore = this.fileDigests.hashedBytes();
+        event.begin();
+        Map<Path, String> hashes = this.fileDigests.digestAll(files);
+        event.end();
+        long hashedBytes = this.fileDigests.hashedBytes() - hashedBytesBefore;
+        if (hashedBytes > 0 && event.shouldCommit()) {
+            event.algorithm = this.fileDigests.getAlgorithm().getPrefix();
+            event.bytes = hashedBytes;
+            event.pageTitle = PagePublishEvent.currentPageTitle();
+            event.commit();
+        }
+        return hashes;
+    }
+
+    static FileInputStream fileInputStream(Path filePath) {
+        try {
+            return new FileInputStream(filePath.toFile());
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException("Could not find attachment ", e);
+        }
+    }
+}
@@ -18,19 +18,34 @@ package io.github.md2conf.confluence.client.http;
 
 import io.github.md2conf.model.ConfluenceContentModel;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Alain Sahli
  */
-public interface ApiInternalClient {
+public interface ApiInternalClient extends Closeable {
 
     String addPageUnderAncestor(String spaceKey, String ancestorId, String title, String content, ConfluenceContentModel.Type type, String versionMessage);
 
+    /**
+     * Same as {@link #addPageUnderAncestor(String, String, String, String, ConfluenceContentModel.Type, String)}, content
+     * is streamed from the UTF-8 encoded file into the request
+     */
+    String addPageUnderAncestor(String spaceKey, String ancestorId, String title, Path contentFile, ConfluenceContentModel.Type type, String versionMessage);
+
     void updatePage(String contentId, String ancestorId, String title, String content, ConfluenceContentModel.Type type, int newVersion, String versionMessage, boolean notifyWatchers);
 
+    /**
+     * Same as {@link #updatePage(String, String, String, String, ConfluenceContentModel.Type, int, String, boolean)}, content
+     * is streamed from the UTF-8 encoded file into the request
+     */
+    void updatePage(String contentId, String ancestorId, String title, Path contentFile, ConfluenceContentModel.Type type, int newVersion, String versionMessage, boolean notifyWatchers);
+
     void deletePage(String contentId);
 
     String getPageByTitle(String spaceKey, String title) throws NotFoundException, MultipleResultsException;
@@ -50,6 +65,13 @@ public interface ApiInternalClient {
 
     List<ConfluenceApiPage> getChildPages(String contentId);
 
+    /**
+     * Whole subtree under the page, listed by one paged query instead of a child listing per page
+     *
+     * @return child pages by parent content id, in listing order
+     */
+    Map<String, List<ConfluenceApiPage>> getDescendantPagesByParentId(String contentId);
+
     List<ConfluenceAttachment> getAttachments(String contentId);
 
     void setPropertyByKey(String contentId, String key, String value);
@@ -64,4 +86,11 @@ public interface ApiInternalClient {
 
     void deleteLabel(String contentId, String label);
 
+    /**
+     * Release threads and connections of the client
+     */
+    @Override
+    default void close() {
+    }
+
 }
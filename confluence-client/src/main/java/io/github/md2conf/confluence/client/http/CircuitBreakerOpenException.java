@@ -0,0 +1,11 @@
+package io.github.md2conf.confluence.client.http;
+
+/**
+ * Request is not sent, because requests of its class failed repeatedly, see {@link RequestIsolation}
+ */
+public class CircuitBreakerOpenException extends RuntimeException {
+
+    CircuitBreakerOpenException(String requestClass, int failureThreshold) {
+        super("Circuit breaker of " + requestClass + " is open after " + failureThreshold + " consecutive failures, request is not sent");
+    }
+}
@@ -16,6 +16,8 @@
 
 package io.github.md2conf.confluence.client.http;
 
+import java.util.List;
+
 /**
  * @author Alain Sahli
  */
@@ -25,16 +27,22 @@ public class ConfluenceApiPage {
     private final String title;
     private final String content;
     private final int version;
+    private final List<String> labels;
 
     public ConfluenceApiPage(String contentId, String title, int version) {
         this(contentId, title, null, version);
     }
 
     public ConfluenceApiPage(String contentId, String title, String content, int version) {
+        this(contentId, title, content, version, null);
+    }
+
+    public ConfluenceApiPage(String contentId, String title, String content, int version, List<String> labels) {
         this.contentId = contentId;
         this.title = title;
         this.content = content;
         this.version = version;
+        this.labels = labels;
     }
 
     public String getContentId() {
@@ -53,6 +61,13 @@ public class ConfluenceApiPage {
         return this.version;
     }
 
+    /**
+     * @return all labels of the page if they were fetched together with the page, otherwise null
+     */
+    public List<String> getLabels() {
+        return this.labels;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,46 @@
+package io.github.md2conf.confluence.client.http;
+
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Counts bytes of the wrapped entity read or written through it
+ */
+class CountingHttpEntity extends HttpEntityWrapper {
+
+    private CountingInputStream countingInputStream;
+    private long writtenBytes;
+
+    CountingHttpEntity(HttpEntity wrappedEntity) {
+        super(wrappedEntity);
+    }
+
+    @Override
+    public InputStream getContent() throws IOException {
+        if (countingInputStream == null) {
+            countingInputStream = new CountingInputStream(super.getContent());
+        }
+        return countingInputStream;
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        CountingOutputStream countingOutputStream = new CountingOutputStream(outStream);
+        super.writeTo(countingOutputStream);
+        writtenBytes += countingOutputStream.getCount();
+    }
+
+    /**
+     * @return bytes read or written, or content length if content is not consumed
+     */
+    long byteCount() {
+        long count = writtenBytes + (countingInputStream != null ? countingInputStream.getCount() : 0);
+        return count > 0 ? count : Math.max(0, getContentLength());
+    }
+}
@@ -49,6 +49,7 @@ import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.URISyntaxException;
 import java.net.URLEncoder;
+import java.nio.file.Path;
 import java.util.List;
 
 import static io.github.md2conf.confluence.client.http.HttpRequestFactory.PagePayloadBuilder.pagePayloadBuilder;
@@ -77,44 +78,29 @@ class HttpRequestFactory {
     }
 
     HttpPost addPageUnderAncestorRequest(String spaceKey, String ancestorId, String title, String content, ConfluenceContentModel.Type type, String versionMessage) {
-        assertMandatoryParameter(isNotBlank(spaceKey), "spaceKey");
-        assertMandatoryParameter(isNotBlank(ancestorId), "ancestorId");
-        assertMandatoryParameter(isNotBlank(title), "title");
-        assertMandatoryParameter(type != null, "type");
+        PagePayload pagePayload = addPagePayload(spaceKey, ancestorId, title, type, versionMessage);
 
-        PagePayload pagePayload = pagePayloadBuilder()
-                .spaceKey(spaceKey)
-                .ancestorId(ancestorId)
-                .title(title)
-                .content(content)
-                .type(type)
-                .version(INITAL_VERSION)
-                .versionMessage(versionMessage)
-                .notifyWatchers(true)
-                .build();
+        return addPageHttpPost(this.confluenceRestApiEndpoint, PageContentEntity.ofString(pagePayload, content));
+    }
 
-        return addPageHttpPost(this.confluenceRestApiEndpoint, pagePayload);
+    HttpPost addPageUnderAncestorRequest(String spaceKey, String ancestorId, String title, Path contentFile, ConfluenceContentModel.Type type, String versionMessage) {
+        assertMandatoryParameter(contentFile != null, "contentFile");
+        PagePayload pagePayload = addPagePayload(spaceKey, ancestorId, title, type, versionMessage);
+
+        return addPageHttpPost(this.confluenceRestApiEndpoint, PageContentEntity.ofFile(pagePayload, contentFile));
     }
 
     HttpPut updatePageRequest(String contentId, String ancestorId, String title, String content, ConfluenceContentModel.Type type, int newVersion, String versionMessage, boolean notifyWatchers) {
-        assertMandatoryParameter(isNotBlank(contentId), "contentId");
-        assertMandatoryParameter(isNotBlank(title), "title");
+        PagePayload pagePayload = updatePagePayload(contentId, ancestorId, title, type, newVersion, versionMessage, notifyWatchers);
 
-        PagePayload pagePayload = pagePayloadBuilder()
-                .ancestorId(ancestorId)
-                .title(title)
-                .content(content)
-                .type(type)
-                .version(newVersion)
-                .versionMessage(versionMessage)
-                .notifyWatchers(notifyWatchers)
-                .build();
+        return updatePageHttpPut(this.confluenceRestApiEndpoint, contentId, PageContentEntity.ofString(pagePayload, content));
+    }
 
-        HttpPut updatePageRequest = new HttpPut(this.confluenceRestApiEndpoint + "/content/" + contentId);
-        updatePageRequest.setEntity(httpEntityWithJsonPayload(pagePayload));
-        updatePageRequest.addHeader(APPLICATION_JSON_UTF8_HEADER);
+    HttpPut updatePageRequest(String contentId, String ancestorId, String title, Path contentFile, ConfluenceContentModel.Type type, int newVersion, String versionMessage, boolean notifyWatchers) {
+        assertMandatoryParameter(contentFile != null, "contentFile");
+        PagePayload pagePayload = updatePagePayload(contentId, ancestorId, title, type, newVersion, versionMessage, notifyWatchers);
 
-        return updatePageRequest;
+        return updatePageHttpPut(this.confluenceRestApiEndpoint, contentId, PageContentEntity.ofFile(pagePayload, contentFile));
     }
 
     HttpDelete deletePageRequest(String contentId) {
@@ -237,6 +223,27 @@ class HttpRequestFactory {
         return getChildPagesByIdRequest;
     }
 
+    HttpGet getDescendantPagesByIdRequest(String parentContentId, Integer limit, Integer start, String expandOptions) {
+        assertMandatoryParameter(isNotBlank(parentContentId), "parentContentId");
+        URIBuilder uriBuilder = createUriBuilder(this.confluenceRestApiEndpoint + "/content/" + parentContentId + "/descendant/page");
+
+        if (limit != null) {
+            uriBuilder.addParameter("limit", limit.toString());
+        }
+        if (start != null) {
+            uriBuilder.addParameter("start", start.toString());
+        }
+        if (isNotBlank(expandOptions)) {
+            uriBuilder.addParameter("expand", expandOptions);
+        }
+
+        try {
+            return new HttpGet(uriBuilder.build().toString());
+        } catch (URISyntaxException e) {
+            throw new RuntimeException("Invalid URL", e);
+        }
+    }
+
     public HttpGet getAttachmentsRequest(String contentId, Integer limit, Integer start, String expandOptions) {
         assertMandatoryParameter(isNotBlank(contentId), "contentId");
         URIBuilder uriBuilder = createUriBuilder(this.confluenceRestApiEndpoint + "/content/" + contentId + "/child/attachment");
@@ -323,14 +330,59 @@ class HttpRequestFactory {
         return new HttpDelete(this.confluenceRestApiEndpoint + "/content/" + contentId + "/label?name=" + urlEncode(label));
     }
 
-    private static HttpPost addPageHttpPost(String confluenceRestApiEndpoint, PagePayload pagePayload) {
+    /**
+     * @return payload of a new page without body value, which is streamed by {@link PageContentEntity}
+     */
+    private static PagePayload addPagePayload(String spaceKey, String ancestorId, String title, ConfluenceContentModel.Type type, String versionMessage) {
+        assertMandatoryParameter(isNotBlank(spaceKey), "spaceKey");
+        assertMandatoryParameter(isNotBlank(ancestorId), "ancestorId");
+        assertMandatoryParameter(isNotBlank(title), "title");
+        assertMandatoryParameter(type != null, "type");
+
+        return pagePayloadBuilder()
+                .spaceKey(spaceKey)
+                .ancestorId(ancestorId)
+                .title(title)
+                .type(type)
+                .version(INITAL_VERSION)
+                .versionMessage(versionMessage)
+                .notifyWatchers(true)
+                .build();
+    }
+
+    /**
+     * @return payload of an updated page without body value, which is streamed by {@link PageContentEntity}
+     */
+    private static PagePayload updatePagePayload(String contentId, String ancestorId, String title, ConfluenceContentModel.Type type, int newVersion, String versionMessage, boolean notifyWatchers) {
+        assertMandatoryParameter(isNotBlank(contentId), "contentId");
+        assertMandatoryParameter(isNotBlank(title), "title");
+
+        return pagePayloadBuilder()
+                .ancestorId(ancestorId)
+                .title(title)
+                .type(type)
+                .version(newVersion)
+                .versionMessage(versionMessage)
+                .notifyWatchers(notifyWatchers)
+                .build();
+    }
+
+    private static HttpPost addPageHttpPost(String confluenceRestApiEndpoint, HttpEntity pageEntity) {
         HttpPost postRequest = new HttpPost(confluenceRestApiEndpoint + "/content");
-        postRequest.setEntity(httpEntityWithJsonPayload(pagePayload));
+        postRequest.setEntity(pageEntity);
         postRequest.addHeader(APPLICATION_JSON_UTF8_HEADER);
 
         return postRequest;
     }
 
+    private static HttpPut updatePageHttpPut(String confluenceRestApiEndpoint, String contentId, HttpEntity pageEntity) {
+        HttpPut updatePageRequest = new HttpPut(confluenceRestApiEndpoint + "/content/" + contentId);
+        updatePageRequest.setEntity(pageEntity);
+        updatePageRequest.addHeader(APPLICATION_JSON_UTF8_HEADER);
+
+        return updatePageRequest;
+    }
+
     private static BasicHttpEntity httpEntityWithJsonPayload(Object payload) {
         String jsonPayload = toJsonString(payload);
         BasicHttpEntity entity = new BasicHttpEntity();
@@ -383,7 +435,6 @@ class HttpRequestFactory {
     static class PagePayloadBuilder {
 
         private String title;
-        private String content;
         private ConfluenceContentModel.Type type;
         private String spaceKey;
         private String ancestorId;
@@ -397,12 +448,6 @@ class HttpRequestFactory {
             return this;
         }
 
-        public PagePayloadBuilder content(String content) {
-            this.content = content;
-
-            return this;
-        }
-
         public PagePayloadBuilder type(ConfluenceContentModel.Type type) {
             this.type = type;
 
@@ -444,14 +489,10 @@ class HttpRequestFactory {
             Body body = new Body();
             switch (type) {
                 case STORAGE:
-                    Storage storage = new Storage();
-                    storage.setValue(this.content);
-                    body.setStorage(storage);
+                    body.setStorage(new Storage());
                     break;
                 case WIKI:
-                    Wiki wiki = new Wiki();
-                    wiki.setValue(this.content);
-                    body.setWiki(wiki);
+                    body.setWiki(new Wiki());
                     break;
                 default:
                     throw new IllegalArgumentException("Type is not defined");
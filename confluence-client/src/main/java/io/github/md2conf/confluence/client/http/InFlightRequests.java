@@ -0,0 +1,47 @@
+package io.github.md2conf.confluence.client.http;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Merges identical requests sent concurrently into a single request. The first caller sends the request, and callers
+ * arriving while it is in flight wait for its buffered response or failure instead of sending their own request.
+ */
+class InFlightRequests {
+
+    private final ConcurrentMap<String, CompletableFuture<ResponseCache.Entry>> requests = new ConcurrentHashMap<>();
+
+    /**
+     * @param key      - identity of the request, requests with equal keys must have equal responses
+     * @param send     - sends the request and buffers the response
+     * @param onJoined - called when the response of a request already in flight is used
+     */
+    ResponseCache.Entry send(String key, Supplier<ResponseCache.Entry> send, Runnable onJoined) {
+        CompletableFuture<ResponseCache.Entry> own = new CompletableFuture<>();
+        CompletableFuture<ResponseCache.Entry> inFlight = this.requests.putIfAbsent(key, own);
+        if (inFlight != null) {
+            onJoined.run();
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        }
+        try {
+            ResponseCache.Entry response = send.get();
+            own.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.requests.remove(key, own);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package io.github.md2conf.confluence.client.http;
+
+import io.github.md2conf.confluence.client.http.RequestTimeouts.OperationClass;
+
+import static io.github.md2conf.confluence.client.http.RequestTimeouts.OperationClass.ATTACHMENT;
+import static io.github.md2conf.confluence.client.http.RequestTimeouts.OperationClass.BODY;
+import static io.github.md2conf.confluence.client.http.RequestTimeouts.OperationClass.METADATA;
+
+/**
+ * Confluence REST API operations, named after {@link HttpRequestFactory} methods. Used as metric names.
+ */
+enum Operation {
+    ADD_PAGE_UNDER_ANCESTOR("addPageUnderAncestor", BODY),
+    UPDATE_PAGE("updatePage", BODY),
+    DELETE_PAGE("deletePage", METADATA),
+    ADD_ATTACHMENT("addAttachment", ATTACHMENT),
+    UPDATE_ATTACHMENT_CONTENT("updateAttachmentContent", ATTACHMENT),
+    DELETE_ATTACHMENT("deleteAttachment", METADATA),
+    GET_PAGE_BY_TITLE("getPageByTitle", METADATA),
+    GET_ATTACHMENT_BY_FILE_NAME("getAttachmentByFileName", METADATA),
+    GET_BY_DOWNLOAD_URL("getByDownloadUrl", ATTACHMENT),
+    GET_PAGE_BY_ID("getPageById", BODY),
+    GET_CHILD_PAGES_BY_ID("getChildPagesById", BODY),
+    GET_DESCENDANT_PAGES_BY_ID("getDescendantPagesById", BODY),
+    GET_ATTACHMENTS("getAttachments", METADATA),
+    GET_PROPERTY_BY_KEY("getPropertyByKey", METADATA),
+    SET_PROPERTY_BY_KEY("setPropertyByKey", METADATA),
+    DELETE_PROPERTY_BY_KEY("deletePropertyByKey", METADATA),
+    GET_LABELS("getLabels", METADATA),
+    ADD_LABELS("addLabels", METADATA),
+    DELETE_LABEL("deleteLabel", METADATA);
+
+    private final String operationName;
+    private final OperationClass operationClass;
+
+    Operation(String operationName, OperationClass operationClass) {
+        this.operationName = operationName;
+        this.operationClass = operationClass;
+    }
+
+    String operationName() {
+        return operationName;
+    }
+
+    /**
+     * @return class of the operation, which defines its timeout
+     */
+    OperationClass operationClass() {
+        return operationClass;
+    }
+}
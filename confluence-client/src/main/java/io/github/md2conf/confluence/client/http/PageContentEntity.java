@@ -0,0 +1,132 @@
+package io.github.md2conf.confluence.client.http;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.github.md2conf.confluence.client.http.payloads.PagePayload;
+import org.apache.http.entity.AbstractHttpEntity;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * JSON entity of a page, which streams the page content into the request body, escaping it on the fly.
+ * <p>
+ * The payload is serialized without the body value, and the value is read from the content file each time the entity
+ * is written, so the entity is repeatable and the content is never held in memory as a whole.
+ */
+class PageContentEntity extends AbstractHttpEntity {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
+    private static final String BODY_FIELD = "body";
+    private static final String VALUE_FIELD = "value";
+
+    private final PagePayload envelope;
+    private final ContentSource content;
+
+    private PageContentEntity(PagePayload envelope, ContentSource content) {
+        this.envelope = envelope;
+        this.content = content;
+    }
+
+    /**
+     * @param envelope    - payload without body value
+     * @param contentFile - UTF-8 encoded body value
+     */
+    static PageContentEntity ofFile(PagePayload envelope, Path contentFile) {
+        return new PageContentEntity(envelope, () -> new InputStreamReader(Files.newInputStream(contentFile), UTF_8));
+    }
+
+    static PageContentEntity ofString(PagePayload envelope, String content) {
+        return new PageContentEntity(envelope, () -> new StringReader(content == null ? "" : content));
+    }
+
+    @Override
+    public boolean isRepeatable() {
+        return true;
+    }
+
+    @Override
+    public boolean isStreaming() {
+        return false;
+    }
+
+    @Override
+    public long getContentLength() {
+        return -1;
+    }
+
+    /**
+     * Buffers the whole entity, intended for diagnostics only
+     */
+    @Override
+    public InputStream getContent() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeTo(outputStream);
+        return new ByteArrayInputStream(outputStream.toByteArray());
+    }
+
+    @Override
+    public void writeTo(OutputStream outStream) throws IOException {
+        ObjectNode envelopeNode = OBJECT_MAPPER.valueToTree(this.envelope);
+        try (JsonGenerator generator = OBJECT_MAPPER.getFactory().createGenerator(outStream, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartObject();
+            for (Iterator<Map.Entry<String, JsonNode>> fields = envelopeNode.fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (BODY_FIELD.equals(field.getKey())) {
+                    writeBody(generator, field.getValue());
+                } else {
+                    generator.writeFieldName(field.getKey());
+                    generator.writeTree(field.getValue());
+                }
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    /**
+     * Writes body with a single representation, like {@code {"storage": {"representation": "storage", "value": "..."}}}
+     */
+    private void writeBody(JsonGenerator generator, JsonNode body) throws IOException {
+        generator.writeObjectFieldStart(BODY_FIELD);
+        for (Iterator<Map.Entry<String, JsonNode>> representations = body.fields(); representations.hasNext(); ) {
+            Map.Entry<String, JsonNode> representation = representations.next();
+            generator.writeObjectFieldStart(representation.getKey());
+            for (Iterator<Map.Entry<String, JsonNode>> fields = representation.getValue().fields(); fields.hasNext(); ) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (!VALUE_FIELD.equals(field.getKey())) {
+                    generator.writeFieldName(field.getKey());
+                    generator.writeTree(field.getValue());
+                }
+            }
+            generator.writeFieldName(VALUE_FIELD);
+            try (Reader reader = this.content.open()) {
+                generator.writeString(reader, -1);
+            }
+            generator.writeEndObject();
+        }
+        generator.writeEndObject();
+    }
+
+    @FunctionalInterface
+    private interface ContentSource {
+        Reader open() throws IOException;
+    }
+}
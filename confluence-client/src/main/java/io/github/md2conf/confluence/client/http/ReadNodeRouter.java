@@ -0,0 +1,120 @@
+package io.github.md2conf.confluence.client.http;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static java.util.Collections.unmodifiableList;
+
+/**
+ * Spreads GET requests over the nodes of a Confluence Data Center cluster, while writes keep going to the root URL.
+ * <p>
+ * A request goes to the node with the least requests in flight, and among those to the node with the lowest average
+ * latency. A node is ejected for {@link #EJECTION_NANOS} after {@link #FAILURE_THRESHOLD} consecutive failures, a failure
+ * being an I/O error or a 5xx response. After ejection a single failure ejects the node again. If all nodes are ejected,
+ * requests go to the root URL.
+ */
+public class ReadNodeRouter {
+
+    static final int FAILURE_THRESHOLD = 3;
+    static final long EJECTION_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final double LATENCY_WEIGHT = 0.2;
+
+    private final List<Node> nodes;
+
+    /**
+     * @param nodeUrls - root URLs of the nodes, each serving the same Confluence as the root URL of the client
+     */
+    public ReadNodeRouter(List<String> nodeUrls) {
+        this.nodes = unmodifiableList(nodeUrls.stream().map(Node::new).collect(Collectors.toList()));
+    }
+
+    /**
+     * @return node to send the next request to, which must be {@link Node#completed(int, long) completed} or
+     * {@link Node#cancelled() cancelled}, null if all nodes are ejected
+     */
+    Node select() {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Node selected = null;
+            for (Node node : this.nodes) {
+                if (node.isEjected(now)) {
+                    continue;
+                }
+                if (selected == null || node.inFlight.get() < selected.inFlight.get()
+                        || node.inFlight.get() == selected.inFlight.get() && node.averageLatencyNanos < selected.averageLatencyNanos) {
+                    selected = node;
+                }
+            }
+            if (selected != null) {
+                selected.inFlight.incrementAndGet();
+            }
+            return selected;
+        }
+    }
+
+    /**
+     * @return root URLs of nodes which are not ejected
+     */
+    List<String> availableNodes() {
+        long now = System.nanoTime();
+        return this.nodes.stream().filter(node -> !node.isEjected(now)).map(node -> node.url).collect(Collectors.toList());
+    }
+
+    static final class Node {
+        private final String url;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private volatile double averageLatencyNanos;
+        private int consecutiveFailures;
+        private volatile long ejectedUntilNanos;
+        private volatile boolean ejected;
+
+        private Node(String url) {
+            this.url = withoutTrailingSlash(url);
+        }
+
+        /**
+         * @return URI of the node, or the given URI if it does not start with the root URL
+         */
+        String route(String uri, String rootUrl) {
+            String root = withoutTrailingSlash(rootUrl);
+            return uri.startsWith(root) ? this.url + uri.substring(root.length()) : uri;
+        }
+
+        /**
+         * @param statusCode    - status code of the response, or {@link io.github.md2conf.confluence.client.metrics.RequestMetrics#NO_RESPONSE}
+         * @param durationNanos - time from sending the request to response processing completion
+         */
+        synchronized void completed(int statusCode, long durationNanos) {
+            this.inFlight.decrementAndGet();
+            this.averageLatencyNanos = this.averageLatencyNanos == 0 ? durationNanos
+                    : LATENCY_WEIGHT * durationNanos + (1 - LATENCY_WEIGHT) * this.averageLatencyNanos;
+            if (statusCode > 0 && statusCode < 500) {
+                this.consecutiveFailures = 0;
+                this.ejected = false;
+                return;
+            }
+            this.consecutiveFailures++;
+            if (this.consecutiveFailures >= FAILURE_THRESHOLD) {
+                this.ejected = true;
+                this.ejectedUntilNanos = System.nanoTime() + EJECTION_NANOS;
+            }
+        }
+
+        /**
+         * The request is not sent to the node, its outcome does not count
+         */
+        void cancelled() {
+            this.inFlight.decrementAndGet();
+        }
+
+        private boolean isEjected(long now) {
+            return this.ejected && now - this.ejectedUntilNanos < 0;
+        }
+    }
+
+    private static String withoutTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
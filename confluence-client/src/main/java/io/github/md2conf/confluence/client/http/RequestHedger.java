@@ -0,0 +1,197 @@
+package io.github.md2conf.confluence.client.http;
+
+import io.github.md2conf.confluence.client.jfr.PagePublishEvent;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static org.apache.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Sends a duplicate of a GET request, which is not answered within the 95th percentile of latencies observed so far for
+ * the same {@link Operation}, and uses the response which arrives first. Duplicates can be sent to another node of a Confluence Data Center
+ * cluster. The slower request is not aborted, it completes in the background.
+ * <p>
+ * Duplicates are limited by a budget relative to the number of GET requests, so hedging adds bounded load. No request
+ * is hedged before {@link #MIN_OBSERVED_LATENCIES} latencies of its operation are observed.
+ * <p>
+ * Requests are sent by a thread pool, which is shut down on {@link #close()}.
+ */
+public class RequestHedger implements Closeable {
+
+    static final int MIN_OBSERVED_LATENCIES = 20;
+    private static final double HEDGE_PERCENTILE = 95.0;
+
+    private final double budget;
+    private final String alternateUrl;
+    private final Map<Operation, ConcurrentHistogram> latencyMicros = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "md2conf-hedged-request");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * @param budget       - max number of duplicate requests as a fraction of GET requests, like 0.05 for 5%
+     * @param alternateUrl - root URL of another node to send duplicates to, null to send them to the same URL
+     */
+    public RequestHedger(double budget, String alternateUrl) {
+        this.budget = budget;
+        this.alternateUrl = alternateUrl != null ? withoutTrailingSlash(alternateUrl) : null;
+    }
+
+    /**
+     * @return number of duplicate requests sent
+     */
+    long hedges() {
+        return this.hedges.get();
+    }
+
+    /**
+     * @param operation - operation of the request, latencies are observed per operation
+     * @param request   - GET request
+     * @param rootUrl   - root URL of the request, replaced with the alternate URL in the duplicate request
+     * @param send      - sends a request and buffers its response
+     * @param onHedged  - called when a duplicate request is sent
+     */
+    ResponseCache.Entry send(Operation operation, HttpRequestBase request, String rootUrl, Function<HttpRequestBase, ResponseCache.Entry> send, Runnable onHedged) {
+        this.requests.incrementAndGet();
+        ConcurrentHistogram latencyMicros = this.latencyMicros.computeIfAbsent(operation, key -> new ConcurrentHistogram(2));
+        if (latencyMicros.getTotalCount() < MIN_OBSERVED_LATENCIES || this.executor.isShutdown()) {
+            return timed(latencyMicros, request, send);
+        }
+        long hedgeDelayMicros = latencyMicros.getValueAtPercentile(HEDGE_PERCENTILE);
+        // copied before the request is sent, because sending adds headers on another thread
+        HttpRequestBase duplicate = duplicate(request, rootUrl);
+        String pageTitle = PagePublishEvent.currentPageTitle();
+
+        CompletableFuture<ResponseCache.Entry> primary = submit(latencyMicros, request, send, pageTitle);
+        try {
+            return primary.get(hedgeDelayMicros, MICROSECONDS);
+        } catch (TimeoutException e) {
+            if (!tryAcquireHedge()) {
+                return join(primary);
+            }
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RequestFailedException(request, null, e);
+        }
+
+        onHedged.run();
+        CompletableFuture<ResponseCache.Entry> secondary = submit(latencyMicros, duplicate, send, pageTitle);
+        return join(firstSuccessful(primary, secondary));
+    }
+
+    private boolean tryAcquireHedge() {
+        long allowed = (long) (this.requests.get() * this.budget);
+        long used;
+        do {
+            used = this.hedges.get();
+            if (used >= allowed) {
+                return false;
+            }
+        } while (!this.hedges.compareAndSet(used, used + 1));
+        return true;
+    }
+
+    private CompletableFuture<ResponseCache.Entry> submit(ConcurrentHistogram latencyMicros, HttpRequestBase request,
+                                                          Function<HttpRequestBase, ResponseCache.Entry> send, String pageTitle) {
+        return CompletableFuture.supplyAsync(() -> {
+            PagePublishEvent.enterPage(pageTitle);
+            try {
+                return timed(latencyMicros, request, send);
+            } finally {
+                PagePublishEvent.exitPage();
+            }
+        }, this.executor);
+    }
+
+    private static ResponseCache.Entry timed(ConcurrentHistogram latencyMicros, HttpRequestBase request, Function<HttpRequestBase, ResponseCache.Entry> send) {
+        long start = System.nanoTime();
+        ResponseCache.Entry response = send.apply(request);
+        latencyMicros.recordValue(Math.max(0, (System.nanoTime() - start) / 1000));
+        return response;
+    }
+
+    /**
+     * Requests in flight complete in the background, requests sent after closing are not hedged
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+    }
+
+    private HttpRequestBase duplicate(HttpRequestBase request, String rootUrl) {
+        String uri = request.getURI().toString();
+        String root = withoutTrailingSlash(rootUrl);
+        HttpGet duplicate = new HttpGet(this.alternateUrl != null && uri.startsWith(root) ? this.alternateUrl + uri.substring(root.length()) : uri);
+        for (Header header : request.getAllHeaders()) {
+            if (!AUTHORIZATION.equalsIgnoreCase(header.getName())) {
+                duplicate.addHeader(header);
+            }
+        }
+        duplicate.setConfig(request.getConfig());
+        return duplicate;
+    }
+
+    /**
+     * @return future completed with the first response, or with the last failure if both requests fail
+     */
+    private static CompletableFuture<ResponseCache.Entry> firstSuccessful(CompletableFuture<ResponseCache.Entry> primary,
+                                                                         CompletableFuture<ResponseCache.Entry> secondary) {
+        CompletableFuture<ResponseCache.Entry> first = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        BiConsumer<ResponseCache.Entry, Throwable> complete = (response, failure) -> {
+            if (failure == null) {
+                first.complete(response);
+            } else if (failures.incrementAndGet() == 2) {
+                first.completeExceptionally(failure);
+            }
+        };
+        primary.whenComplete(complete);
+        secondary.whenComplete(complete);
+        return first;
+    }
+
+    private static ResponseCache.Entry join(CompletableFuture<ResponseCache.Entry> response) {
+        try {
+            return response.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable failure) {
+        if (failure instanceof CompletionException && failure.getCause() != null) {
+            failure = failure.getCause();
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        return failure instanceof RuntimeException ? (RuntimeException) failure : new IllegalStateException(failure);
+    }
+
+    private static String withoutTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.md2conf.confluence.client.http;
+
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Isolates requests of page writes, attachment writes and reads from each other, so that failures or slowness of one
+ * class of requests don't affect the others.
+ * <p>
+ * Each class has a circuit breaker: after {@code failureThreshold} consecutive failures, a failure being an I/O error,
+ * a timeout or a 5xx response, requests of the class are rejected without being sent for {@code openDuration}. Then a
+ * single probe request is sent, which closes the breaker on success and opens it again on failure.
+ * <p>
+ * Each class has a bulkhead: a max number of requests in flight, so slow attachment uploads cannot take all
+ * connections of the pool while pages are read.
+ * <p>
+ * The breaker of reads is shared by all nodes of a {@link ReadNodeRouter}: it protects against the cluster failing as a
+ * whole, like its shared database being down. A single failing node is ejected by the router after
+ * {@link ReadNodeRouter#FAILURE_THRESHOLD} consecutive failures, while reads answered by the other nodes reset the
+ * consecutive failures of the breaker, so with the default threshold a bad node does not open the breaker.
+ */
+public class RequestIsolation {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    public static final int DEFAULT_MAX_CONCURRENT_ATTACHMENT_WRITES = 2;
+
+    private final Map<RequestClass, Compartment> compartments = new EnumMap<>(RequestClass.class);
+
+    /**
+     * @param failureThreshold              - consecutive failures which open a circuit breaker, 0 to disable circuit breakers
+     * @param openDuration                  - time requests are rejected after a circuit breaker opens
+     * @param maxConcurrentReads            - max number of GET requests in flight, 0 for no limit
+     * @param maxConcurrentPageWrites       - max number of write requests in flight other than attachments, 0 for no limit
+     * @param maxConcurrentAttachmentWrites - max number of attachment writes in flight, 0 for no limit
+     */
+    public RequestIsolation(int failureThreshold, Duration openDuration, int maxConcurrentReads, int maxConcurrentPageWrites, int maxConcurrentAttachmentWrites) {
+        this.compartments.put(RequestClass.READS, new Compartment(RequestClass.READS, failureThreshold, openDuration, maxConcurrentReads));
+        this.compartments.put(RequestClass.PAGE_WRITES, new Compartment(RequestClass.PAGE_WRITES, failureThreshold, openDuration, maxConcurrentPageWrites));
+        this.compartments.put(RequestClass.ATTACHMENT_WRITES, new Compartment(RequestClass.ATTACHMENT_WRITES, failureThreshold, openDuration, maxConcurrentAttachmentWrites));
+    }
+
+    Compartment compartment(Operation operation, String method) {
+        return this.compartments.get(RequestClass.of(operation, method));
+    }
+
+    enum RequestClass {
+        READS("reads"),
+        PAGE_WRITES("page writes"),
+        ATTACHMENT_WRITES("attachment writes");
+
+        private final String description;
+
+        RequestClass(String description) {
+            this.description = description;
+        }
+
+        static RequestClass of(Operation operation, String method) {
+            if (HttpGet.METHOD_NAME.equals(method)) {
+                return READS;
+            }
+            switch (operation) {
+                case ADD_ATTACHMENT:
+                case UPDATE_ATTACHMENT_CONTENT:
+                case DELETE_ATTACHMENT:
+                    return ATTACHMENT_WRITES;
+                default:
+                    return PAGE_WRITES;
+            }
+        }
+
+        @Override
+        public String toString() {
+            return description;
+        }
+    }
+
+    private enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Place of a request in a compartment, returned by {@link Compartment#acquire(HttpRequestBase)}
+     */
+    static final class Permit {
+        private final boolean probe;
+        private final long epoch;
+
+        private Permit(boolean probe, long epoch) {
+            this.probe = probe;
+            this.epoch = epoch;
+        }
+
+        /**
+         * @return true if the request is the probe of a half-open circuit breaker
+         */
+        boolean isProbe() {
+            return probe;
+        }
+    }
+
+    /**
+     * Circuit breaker and bulkhead of a class of requests. Every {@link #acquire(HttpRequestBase)} must be followed by
+     * {@link #completed(Permit, int)} or {@link #cancelled(Permit)}.
+     * <p>
+     * Every state change starts a new epoch. The outcome of a request acquired in an earlier epoch is ignored, so a slow
+     * request sent before the breaker opened cannot close or reopen it, and only the probe moves a half-open breaker.
+     */
+    static final class Compartment {
+        private final RequestClass requestClass;
+        private final int failureThreshold;
+        private final long openNanos;
+        private final Semaphore permits;
+        private State state = State.CLOSED;
+        private long epoch;
+        private int consecutiveFailures;
+        private long openedAtNanos;
+        private boolean probeInFlight;
+
+        private Compartment(RequestClass requestClass, int failureThreshold, Duration openDuration, int maxConcurrent) {
+            this.requestClass = requestClass;
+            this.failureThreshold = failureThreshold;
+            this.openNanos = openDuration.toNanos();
+            this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+        }
+
+        /**
+         * Waits for a place in the bulkhead
+         *
+         * @throws CircuitBreakerOpenException if the circuit breaker is open, before and after waiting
+         */
+        Permit acquire(HttpRequestBase request) {
+            if (isOpen(System.nanoTime())) {
+                throw new CircuitBreakerOpenException(this.requestClass.toString(), this.failureThreshold);
+            }
+            if (this.permits != null) {
+                try {
+                    this.permits.acquire();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RequestFailedException(request, null, e);
+                }
+            }
+            synchronized (this) {
+                if (isOpen(System.nanoTime())) {
+                    release();
+                    throw new CircuitBreakerOpenException(this.requestClass.toString(), this.failureThreshold);
+                }
+                if (this.state == State.CLOSED) {
+                    return new Permit(false, this.epoch);
+                }
+                moveTo(State.HALF_OPEN);
+                this.probeInFlight = true;
+                return new Permit(true, this.epoch);
+            }
+        }
+
+        /**
+         * @param permit     - value returned by {@link #acquire(HttpRequestBase)}
+         * @param statusCode - status code of the response, or {@link io.github.md2conf.confluence.client.metrics.RequestMetrics#NO_RESPONSE}
+         */
+        void completed(Permit permit, int statusCode) {
+            try {
+                synchronized (this) {
+                    if (permit.epoch != this.epoch || this.state == State.HALF_OPEN && !permit.probe) {
+                        return;
+                    }
+                    boolean success = statusCode > 0 && statusCode < 500;
+                    if (this.state == State.HALF_OPEN) {
+                        this.probeInFlight = false;
+                        this.consecutiveFailures = success ? 0 : this.consecutiveFailures + 1;
+                        moveTo(success ? State.CLOSED : State.OPEN);
+                        return;
+                    }
+                    if (success) {
+                        this.consecutiveFailures = 0;
+                        return;
+                    }
+                    this.consecutiveFailures++;
+                    if (this.failureThreshold > 0 && this.consecutiveFailures >= this.failureThreshold) {
+                        moveTo(State.OPEN);
+                    }
+                }
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * The request is not sent, its outcome does not count
+         *
+         * @param permit - value returned by {@link #acquire(HttpRequestBase)}
+         */
+        void cancelled(Permit permit) {
+            try {
+                synchronized (this) {
+                    if (permit.probe && permit.epoch == this.epoch) {
+                        this.probeInFlight = false;
+                    }
+                }
+            } finally {
+                release();
+            }
+        }
+
+        private void moveTo(State state) {
+            this.state = state;
+            this.epoch++;
+            if (state == State.OPEN) {
+                this.openedAtNanos = System.nanoTime();
+            }
+        }
+
+        private synchronized boolean isOpen(long now) {
+            return this.state == State.OPEN && now - this.openedAtNanos < this.openNanos
+                    || this.state == State.HALF_OPEN && this.probeInFlight;
+        }
+
+        private void release() {
+            if (this.permits != null) {
+                this.permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.md2conf.confluence.client.http;
+
+import java.time.Instant;
+import java.util.OptionalInt;
+
+/**
+ * Socket timeouts of REST API requests by class of operation, and an optional deadline of the whole run.
+ * <p>
+ * A request waits for data at most the timeout of its operation class and never past the deadline. No request is sent
+ * after the deadline. A timeout of 0 means no timeout, as in the http client, so such a request waits at most until the
+ * deadline.
+ */
+public class RequestTimeouts {
+
+    public static final int DEFAULT_METADATA_TIMEOUT_MILLIS = 60 * 1000;
+    public static final int DEFAULT_BODY_TIMEOUT_MILLIS = 2 * 60 * 1000;
+    public static final int DEFAULT_ATTACHMENT_TIMEOUT_MILLIS = 10 * 60 * 1000;
+    public static final RequestTimeouts DEFAULT = new RequestTimeouts(DEFAULT_METADATA_TIMEOUT_MILLIS, DEFAULT_BODY_TIMEOUT_MILLIS,
+            DEFAULT_ATTACHMENT_TIMEOUT_MILLIS, null);
+
+    private final int metadataTimeoutMillis;
+    private final int bodyTimeoutMillis;
+    private final int attachmentTimeoutMillis;
+    private final Instant deadline;
+
+    /**
+     * @param metadataTimeoutMillis   - socket timeout of lookups and small writes, like properties and labels, 0 for no timeout
+     * @param bodyTimeoutMillis       - socket timeout of requests with page content, like page fetch and update, 0 for no timeout
+     * @param attachmentTimeoutMillis - socket timeout of attachment uploads and downloads, 0 for no timeout
+     * @param deadline                - time after which no request is sent, null for no deadline
+     * @throws IllegalArgumentException if a timeout is negative
+     */
+    public RequestTimeouts(int metadataTimeoutMillis, int bodyTimeoutMillis, int attachmentTimeoutMillis, Instant deadline) {
+        if (metadataTimeoutMillis < 0 || bodyTimeoutMillis < 0 || attachmentTimeoutMillis < 0) {
+            throw new IllegalArgumentException("Timeouts must be positive or 0 for no timeout, got metadata " + metadataTimeoutMillis
+                    + ", body " + bodyTimeoutMillis + ", attachment " + attachmentTimeoutMillis);
+        }
+        this.metadataTimeoutMillis = metadataTimeoutMillis;
+        this.bodyTimeoutMillis = bodyTimeoutMillis;
+        this.attachmentTimeoutMillis = attachmentTimeoutMillis;
+        this.deadline = deadline;
+    }
+
+    public Instant getDeadline() {
+        return deadline;
+    }
+
+    /**
+     * @return socket timeout of the operation capped by the time left until the deadline, 0 for no timeout, or empty if
+     * the deadline passed
+     */
+    OptionalInt socketTimeoutMillis(Operation operation) {
+        int timeoutMillis;
+        switch (operation.operationClass()) {
+            case BODY:
+                timeoutMillis = this.bodyTimeoutMillis;
+                break;
+            case ATTACHMENT:
+                timeoutMillis = this.attachmentTimeoutMillis;
+                break;
+            default:
+                timeoutMillis = this.metadataTimeoutMillis;
+        }
+        if (this.deadline == null) {
+            return OptionalInt.of(timeoutMillis);
+        }
+        long millisLeft = this.deadline.toEpochMilli() - System.currentTimeMillis();
+        if (millisLeft <= 0) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of((int) (timeoutMillis == 0 ? Math.min(millisLeft, Integer.MAX_VALUE) : Math.min(timeoutMillis, millisLeft)));
+    }
+
+    enum OperationClass {
+        METADATA,
+        BODY,
+        ATTACHMENT
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.md2conf.confluence.client.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.HttpVersion;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * In-memory cache of successful GET responses, limited by the total size of response bodies. Least recently used
+ * responses are evicted first.
+ * <p>
+ * A cached response is reused without a request until the client sends any other request than GET, because writes
+ * can change any cached response. After that, a response with {@code ETag} or {@code Last-Modified} header is
+ * revalidated with a conditional request, and other responses are fetched again.
+ */
+public class ResponseCache {
+
+    public static final long DEFAULT_MAX_BYTES = 16 * 1024 * 1024;
+
+    private final long maxBytes;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * @param maxBytes - max total size of cached response bodies
+     */
+    public ResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized Entry get(String key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(String key, Entry entry) {
+        Entry previous = entries.remove(key);
+        if (previous != null) {
+            totalBytes -= previous.body.length;
+        }
+        if (entry.body.length > maxBytes) {
+            return;
+        }
+        entries.put(key, entry);
+        totalBytes += entry.body.length;
+        for (Iterator<Entry> eldest = entries.values().iterator(); totalBytes > maxBytes && eldest.hasNext(); ) {
+            totalBytes -= eldest.next().body.length;
+            eldest.remove();
+        }
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * Buffered response, which is cached or shared by concurrent identical requests
+     */
+    static final class Entry {
+        private final int statusCode;
+        private final String reasonPhrase;
+        private final byte[] body;
+        private final Header contentType;
+        private final String etag;
+        private final String lastModified;
+        private final long generation;
+
+        private Entry(int statusCode, String reasonPhrase, byte[] body, Header contentType, String etag, String lastModified, long generation) {
+            this.statusCode = statusCode;
+            this.reasonPhrase = reasonPhrase;
+            this.body = body;
+            this.contentType = contentType;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.generation = generation;
+        }
+
+        /**
+         * Reads the body of the response
+         *
+         * @param generation - count of writes completed before the request is sent
+         */
+        static Entry of(HttpResponse response, long generation) throws IOException {
+            StatusLine statusLine = response.getStatusLine();
+            HttpEntity entity = response.getEntity();
+            byte[] body = entity != null ? EntityUtils.toByteArray(entity) : new byte[0];
+            return new Entry(statusLine.getStatusCode(), statusLine.getReasonPhrase(), body,
+                    response.getFirstHeader(HttpHeaders.CONTENT_TYPE), headerValue(response, HttpHeaders.ETAG),
+                    headerValue(response, HttpHeaders.LAST_MODIFIED), generation);
+        }
+
+        /**
+         * @return true if no write is sent since the response was received
+         */
+        boolean isFresh(long generation) {
+            return this.generation == generation;
+        }
+
+        boolean isNotModified() {
+            return statusCode == HttpStatus.SC_NOT_MODIFIED;
+        }
+
+        boolean isCacheable() {
+            return statusCode == HttpStatus.SC_OK;
+        }
+
+        boolean canRevalidate() {
+            return etag != null || lastModified != null;
+        }
+
+        void addValidators(HttpRequestBase request) {
+            if (etag != null) {
+                request.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
+        }
+
+        Entry revalidated(long generation) {
+            return new Entry(statusCode, reasonPhrase, body, contentType, etag, lastModified, generation);
+        }
+
+        /**
+         * @return new response with the buffered body, each response can be consumed independently
+         */
+        HttpResponse toResponse() {
+            BasicHttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, statusCode, reasonPhrase);
+            ByteArrayEntity entity = new ByteArrayEntity(body);
+            if (contentType != null) {
+                entity.setContentType(contentType);
+                response.addHeader(contentType);
+            }
+            response.setEntity(entity);
+            return response;
+        }
+
+        private static String headerValue(HttpResponse response, String name) {
+            Header header = response.getFirstHeader(name);
+            return header != null ? header.getValue() : null;
+        }
+    }
+}
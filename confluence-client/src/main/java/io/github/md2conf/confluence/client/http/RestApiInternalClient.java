@@ -20,6 +20,11 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.util.concurrent.RateLimiter;
+import io.github.md2conf.confluence.client.jfr.AttachmentTransferEvent;
+import io.github.md2conf.confluence.client.jfr.PagePublishEvent;
+import io.github.md2conf.confluence.client.jfr.RestCallEvent;
+import io.github.md2conf.confluence.client.metrics.RequestMetrics;
+import io.github.md2conf.confluence.client.metrics.RequestMetrics.CacheResult;
 import io.github.md2conf.confluence.client.utils.AssertUtils;
 import io.github.md2conf.model.ConfluenceContentModel;
 import org.apache.commons.io.FileUtils;
@@ -30,6 +35,7 @@ import org.apache.http.StatusLine;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
@@ -45,9 +51,16 @@ import javax.net.ssl.SSLContext;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -63,12 +76,27 @@ import static org.apache.http.client.config.CookieSpecs.STANDARD;
  */
 public class RestApiInternalClient implements ApiInternalClient {
 
+    private static final RequestConfig DEFAULT_REQUEST_CONFIG = RequestConfig.custom()
+            .setConnectionRequestTimeout(20 * 1000)
+            .setConnectTimeout(20 * 1000)
+            .setCookieSpec(STANDARD)
+            .build();
+
     private final CloseableHttpClient httpClient;
     private final String username;
     private final String passwordOrPersonalAccessToken;
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final HttpRequestFactory httpRequestFactory;
     private final RateLimiter rateLimiter;
+    private final RequestMetrics requestMetrics;
+    private final ResponseCache responseCache;
+    private final RequestHedger requestHedger;
+    private final ReadNodeRouter readNodeRouter;
+    private final RequestTimeouts requestTimeouts;
+    private final RequestIsolation requestIsolation;
+    private final String rootConfluenceUrl;
+    private final InFlightRequests inFlightRequests = new InFlightRequests();
+    private final AtomicLong writeGeneration = new AtomicLong();
 
     public RestApiInternalClient(String rootConfluenceUrl, boolean disableSslVerification, boolean enableHttpClientSystemProperties, Double maxRequestsPerSecond, Integer connectionTTL, String username, String passwordOrPersonalAccessToken) {
         this(rootConfluenceUrl, null, disableSslVerification, enableHttpClientSystemProperties, maxRequestsPerSecond, connectionTTL, username, passwordOrPersonalAccessToken);
@@ -76,16 +104,30 @@ public class RestApiInternalClient implements ApiInternalClient {
 
     public RestApiInternalClient(String rootConfluenceUrl, ProxyConfiguration proxyConfiguration, boolean disableSslVerification, boolean enableHttpClientSystemProperties, Double maxRequestsPerSecond, Integer connectionTTL, String username, String passwordOrPersonalAccessToken) {
         this(rootConfluenceUrl, defaultHttpClient(proxyConfiguration, disableSslVerification, enableHttpClientSystemProperties, connectionTTL), maxRequestsPerSecond, username,
-            passwordOrPersonalAccessToken);
+            passwordOrPersonalAccessToken, RequestMetrics.NOOP, null, null, null, RequestTimeouts.DEFAULT, null);
     }
 
     public RestApiInternalClient(String rootConfluenceUrl, CloseableHttpClient httpClient, Double maxRequestsPerSecond, String username, String passwordOrPersonalAccessToken) {
+        this(rootConfluenceUrl, httpClient, maxRequestsPerSecond, username, passwordOrPersonalAccessToken, RequestMetrics.NOOP, null, null, null, null, null);
+    }
+
+    /**
+     * See {@link RestApiInternalClientBuilder}
+     */
+    RestApiInternalClient(String rootConfluenceUrl, CloseableHttpClient httpClient, Double maxRequestsPerSecond, String username, String passwordOrPersonalAccessToken, RequestMetrics requestMetrics, ResponseCache responseCache, RequestHedger requestHedger, ReadNodeRouter readNodeRouter, RequestTimeouts requestTimeouts, RequestIsolation requestIsolation) {
         AssertUtils.assertMandatoryParameter(httpClient != null, "httpClient");
 
         this.httpClient = httpClient;
         this.rateLimiter = maxRequestsPerSecond != null ? RateLimiter.create(maxRequestsPerSecond) : null;
         this.username = username;
         this.passwordOrPersonalAccessToken = passwordOrPersonalAccessToken;
+        this.requestMetrics = requestMetrics != null ? requestMetrics : RequestMetrics.NOOP;
+        this.responseCache = responseCache;
+        this.requestHedger = requestHedger;
+        this.readNodeRouter = readNodeRouter;
+        this.requestTimeouts = requestTimeouts;
+        this.requestIsolation = requestIsolation;
+        this.rootConfluenceUrl = rootConfluenceUrl;
 
         this.httpRequestFactory = new HttpRequestFactory(rootConfluenceUrl);
         configureObjectMapper();
@@ -95,11 +137,32 @@ public class RestApiInternalClient implements ApiInternalClient {
         this.objectMapper.setSerializationInclusion(JsonInclude.Include.NON_EMPTY);
     }
 
+    /**
+     * Shuts down request hedging and closes the http client
+     */
+    @Override
+    public void close() {
+        if (this.requestHedger != null) {
+            this.requestHedger.close();
+        }
+        try {
+            this.httpClient.close();
+        } catch (IOException ignored) {
+        }
+    }
+
     @Override
     public String addPageUnderAncestor(String spaceKey, String ancestorId, String title, String content, ConfluenceContentModel.Type type, String versionMessage) {
-        HttpPost addPageUnderSpaceRequest = this.httpRequestFactory.addPageUnderAncestorRequest(spaceKey, ancestorId, title, content, type, versionMessage);
+        return addPageUnderAncestor(this.httpRequestFactory.addPageUnderAncestorRequest(spaceKey, ancestorId, title, content, type, versionMessage));
+    }
 
-        return sendRequestAndFailIfNot20x(addPageUnderSpaceRequest, (response) -> {
+    @Override
+    public String addPageUnderAncestor(String spaceKey, String ancestorId, String title, Path contentFile, ConfluenceContentModel.Type type, String versionMessage) {
+        return addPageUnderAncestor(this.httpRequestFactory.addPageUnderAncestorRequest(spaceKey, ancestorId, title, contentFile, type, versionMessage));
+    }
+
+    private String addPageUnderAncestor(HttpPost addPageUnderSpaceRequest) {
+        return sendRequestAndFailIfNot20x(Operation.ADD_PAGE_UNDER_ANCESTOR, addPageUnderSpaceRequest, (response) -> {
             String contentId = extractIdFromJsonNode(parseJsonResponse(response));
 
             return contentId;
@@ -109,20 +172,26 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void updatePage(String contentId, String ancestorId, String title, String content, ConfluenceContentModel.Type type, int newVersion, String versionMessage, boolean notifyWatchers) {
         HttpPut updatePageRequest = this.httpRequestFactory.updatePageRequest(contentId, ancestorId, title, content, type, newVersion, versionMessage, notifyWatchers);
-        sendRequestAndFailIfNot20x(updatePageRequest);
+        sendRequestAndFailIfNot20x(Operation.UPDATE_PAGE, updatePageRequest);
+    }
+
+    @Override
+    public void updatePage(String contentId, String ancestorId, String title, Path contentFile, ConfluenceContentModel.Type type, int newVersion, String versionMessage, boolean notifyWatchers) {
+        HttpPut updatePageRequest = this.httpRequestFactory.updatePageRequest(contentId, ancestorId, title, contentFile, type, newVersion, versionMessage, notifyWatchers);
+        sendRequestAndFailIfNot20x(Operation.UPDATE_PAGE, updatePageRequest);
     }
 
     @Override
     public void deletePage(String contentId) {
         HttpDelete deletePageRequest = this.httpRequestFactory.deletePageRequest(contentId);
-        sendRequestAndFailIfNot20x(deletePageRequest);
+        sendRequestAndFailIfNot20x(Operation.DELETE_PAGE, deletePageRequest);
     }
 
     @Override
     public String getPageByTitle(String spaceKey, String title) throws NotFoundException, MultipleResultsException {
         HttpGet pageByTitleRequest = this.httpRequestFactory.getPageByTitleRequest(spaceKey, title);
 
-        return sendRequestAndFailIfNot20x(pageByTitleRequest, (response) -> {
+        return sendRequestAndFailIfNot20x(Operation.GET_PAGE_BY_TITLE, pageByTitleRequest, (response) -> {
             JsonNode jsonNode = parseJsonResponse(response);
 
             int numberOfResults = jsonNode.get("size").asInt();
@@ -143,13 +212,22 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void saveUrlToFile(String downloadUrl, File outputFile) {
         HttpGet getByDownloadUrl = this.httpRequestFactory.getByDownloadUrl(downloadUrl);
-        sendRequestAndFailIfNot20x(getByDownloadUrl, (response) -> {
+        sendRequestAndFailIfNot20x(Operation.GET_BY_DOWNLOAD_URL, getByDownloadUrl, (response) -> {
             HttpEntity httpEntity = response.getEntity();
+            AttachmentTransferEvent event = new AttachmentTransferEvent();
+            event.begin();
             try (InputStream inputStream= httpEntity.getContent()){
                 FileUtils.copyToFile(inputStream, outputFile);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+            event.end();
+            if (event.shouldCommit()) {
+                event.direction = AttachmentTransferEvent.DOWNLOAD;
+                event.fileName = outputFile.getName();
+                event.bytes = outputFile.length();
+                event.commit();
+            }
             return null;
         });
     }
@@ -157,7 +235,7 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void addAttachment(String contentId, String attachmentFileName, InputStream attachmentContent) {
         HttpPost addAttachmentRequest = this.httpRequestFactory.addAttachmentRequest(contentId, attachmentFileName, attachmentContent);
-        sendRequestAndFailIfNot20x(addAttachmentRequest, (response) -> {
+        sendRequestAndFailIfNot20x(Operation.ADD_ATTACHMENT, addAttachmentRequest, (response) -> {
             closeInputStream(attachmentContent);
 
             return null;
@@ -167,7 +245,7 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void updateAttachmentContent(String contentId, String attachmentId, InputStream attachmentContent, boolean notifyWatchers) {
         HttpPost updateAttachmentContentRequest = this.httpRequestFactory.updateAttachmentContentRequest(contentId, attachmentId, attachmentContent, notifyWatchers);
-        sendRequestAndFailIfNot20x(updateAttachmentContentRequest, (response) -> {
+        sendRequestAndFailIfNot20x(Operation.UPDATE_ATTACHMENT_CONTENT, updateAttachmentContentRequest, (response) -> {
             closeInputStream(attachmentContent);
 
             return null;
@@ -177,14 +255,14 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void deleteAttachment(String attachmentId) {
         HttpDelete deleteAttachmentRequest = this.httpRequestFactory.deleteAttachmentRequest(attachmentId);
-        sendRequestAndFailIfNot20x(deleteAttachmentRequest);
+        sendRequestAndFailIfNot20x(Operation.DELETE_ATTACHMENT, deleteAttachmentRequest);
     }
 
     @Override
     public ConfluenceAttachment getAttachmentByFileName(String contentId, String attachmentFileName) throws NotFoundException, MultipleResultsException {
         HttpGet attachmentByFileNameRequest = this.httpRequestFactory.getAttachmentByFileNameRequest(contentId, attachmentFileName, "version");
 
-        return sendRequestAndFailIfNot20x(attachmentByFileNameRequest, (response) -> {
+        return sendRequestAndFailIfNot20x(Operation.GET_ATTACHMENT_BY_FILE_NAME, attachmentByFileNameRequest, (response) -> {
             JsonNode jsonNode = parseJsonResponse(response);
 
             int numberOfResults = jsonNode.get("size").asInt();
@@ -204,8 +282,8 @@ public class RestApiInternalClient implements ApiInternalClient {
 
     @Override
     public ConfluenceApiPage getPageWithViewContent(String contentId) {
-        HttpGet pageByIdRequest = this.httpRequestFactory.getPageByIdRequest(contentId, "body.view,version");
-        return sendRequestAndFailIfNot20x(pageByIdRequest, (response) ->
+        HttpGet pageByIdRequest = this.httpRequestFactory.getPageByIdRequest(contentId, "body.view,version,metadata.labels");
+        return sendRequestAndFailIfNot20x(Operation.GET_PAGE_BY_ID, pageByIdRequest, (response) ->
                 extractConfluencePageWithContent(parseJsonResponse(response)));
     }
 
@@ -236,12 +314,12 @@ public class RestApiInternalClient implements ApiInternalClient {
         }
     }
 
-    private void sendRequestAndFailIfNot20x(HttpRequestBase httpRequest) {
-        sendRequestAndFailIfNot20x(httpRequest, (response) -> null);
+    private void sendRequestAndFailIfNot20x(Operation operation, HttpRequestBase httpRequest) {
+        sendRequestAndFailIfNot20x(operation, httpRequest, (response) -> null);
     }
 
-    private <T> T sendRequestAndFailIfNot20x(HttpRequestBase request, Function<HttpResponse, T> responseHandler) {
-        return sendRequest(request, (response) -> {
+    private <T> T sendRequestAndFailIfNot20x(Operation operation, HttpRequestBase request, Function<HttpResponse, T> responseHandler) {
+        return sendRequest(operation, request, (response) -> {
             StatusLine statusLine = response.getStatusLine();
             if (statusLine.getStatusCode() < 200 || statusLine.getStatusCode() > 206) {
                 throw new RequestFailedException(request, response, null);
@@ -251,17 +329,186 @@ public class RestApiInternalClient implements ApiInternalClient {
         });
     }
 
-    <T> T sendRequest(HttpRequestBase httpRequest, Function<HttpResponse, T> responseHandler) {
-        httpRequest.addHeader(AUTHORIZATION, authorizationHeaderValue(this.username, this.passwordOrPersonalAccessToken));
+    <T> T sendRequest(Operation operation, HttpRequestBase httpRequest, Function<HttpResponse, T> responseHandler) {
+        if (operation == Operation.GET_BY_DOWNLOAD_URL) {
+            return execute(operation, httpRequest, responseHandler);
+        }
+        if (!HttpGet.METHOD_NAME.equals(httpRequest.getMethod())) {
+            try {
+                return execute(operation, httpRequest, responseHandler);
+            } finally {
+                this.writeGeneration.incrementAndGet();
+            }
+        }
+
+        // a GET is never merged with a GET sent before a write, which could return outdated content
+        String key = httpRequest.getURI().toString();
+        long generation = this.writeGeneration.get();
+        ResponseCache.Entry response = this.inFlightRequests.send(generation + " " + key,
+                () -> fetch(operation, httpRequest, key, generation),
+                () -> this.requestMetrics.responseCacheLookup(operation.operationName(), CacheResult.COALESCED));
+        return responseHandler.apply(response.toResponse());
+    }
+
+    private ResponseCache.Entry fetch(Operation operation, HttpRequestBase httpRequest, String key, long generation) {
+        ResponseCache.Entry cached = this.responseCache != null ? this.responseCache.get(key) : null;
+        if (cached != null && cached.isFresh(generation)) {
+            this.requestMetrics.responseCacheLookup(operation.operationName(), CacheResult.HIT);
+            return cached;
+        }
+        if (cached != null && cached.canRevalidate()) {
+            cached.addValidators(httpRequest);
+        }
+        ResponseCache.Entry entry = this.requestHedger != null
+                ? this.requestHedger.send(operation, httpRequest, this.rootConfluenceUrl, (request) -> executeBuffered(operation, request, generation),
+                        () -> this.requestMetrics.requestHedged(operation.operationName()))
+                : executeBuffered(operation, httpRequest, generation);
+        if (entry.isNotModified() && cached != null) {
+            this.responseCache.put(key, cached.revalidated(generation));
+            this.requestMetrics.responseCacheLookup(operation.operationName(), CacheResult.REVALIDATED);
+            return cached;
+        }
+        if (this.responseCache != null) {
+            this.requestMetrics.responseCacheLookup(operation.operationName(), CacheResult.MISS);
+            if (entry.isCacheable()) {
+                this.responseCache.put(key, entry);
+            }
+        }
+        return entry;
+    }
+
+    private ResponseCache.Entry executeBuffered(Operation operation, HttpRequestBase httpRequest, long generation) {
+        return execute(operation, httpRequest, (response) -> {
+            try {
+                return ResponseCache.Entry.of(response, generation);
+            } catch (IOException e) {
+                throw new RequestFailedException(httpRequest, null, e);
+            }
+        });
+    }
+
+    private <T> T execute(Operation operation, HttpRequestBase httpRequest, Function<HttpResponse, T> responseHandler) {
+        if (this.readNodeRouter == null || !HttpGet.METHOD_NAME.equals(httpRequest.getMethod())) {
+            return send(operation, httpRequest, responseHandler);
+        }
+        ReadNodeRouter.Node node = this.readNodeRouter.select();
+        if (node == null) {
+            return send(operation, httpRequest, responseHandler);
+        }
+        httpRequest.setURI(URI.create(node.route(httpRequest.getURI().toString(), this.rootConfluenceUrl)));
+        int[] statusCode = {RequestMetrics.NO_RESPONSE};
+        boolean[] transmitted = {false};
+        long start = System.nanoTime();
+        try {
+            return send(operation, httpRequest, (response) -> {
+                statusCode[0] = response.getStatusLine().getStatusCode();
+                return responseHandler.apply(response);
+            }, () -> transmitted[0] = true);
+        } finally {
+            // a request rejected by its circuit breaker or past the deadline never reached the node
+            if (transmitted[0]) {
+                node.completed(statusCode[0], System.nanoTime() - start);
+            } else {
+                node.cancelled();
+            }
+        }
+    }
+
+    private <T> T send(Operation operation, HttpRequestBase httpRequest, Function<HttpResponse, T> responseHandler) {
+        return send(operation, httpRequest, responseHandler, () -> {
+        });
+    }
+
+    /**
+     * @param onTransmit - called when the request is about to be transmitted, after isolation and deadline checks
+     */
+    private <T> T send(Operation operation, HttpRequestBase httpRequest, Function<HttpResponse, T> responseHandler, Runnable onTransmit) {
+        if (this.requestIsolation == null) {
+            prepare(operation, httpRequest);
+            onTransmit.run();
+            return transmit(operation, httpRequest, responseHandler);
+        }
+        RequestIsolation.Compartment compartment = this.requestIsolation.compartment(operation, httpRequest.getMethod());
+        RequestIsolation.Permit permit;
+        try {
+            permit = compartment.acquire(httpRequest);
+        } catch (CircuitBreakerOpenException e) {
+            this.requestMetrics.requestRejected(operation.operationName());
+            throw new RequestFailedException(httpRequest, null, e);
+        }
+        try {
+            prepare(operation, httpRequest);
+        } catch (RuntimeException e) {
+            compartment.cancelled(permit);
+            throw e;
+        }
+        onTransmit.run();
+        int[] statusCode = {RequestMetrics.NO_RESPONSE};
+        try {
+            return transmit(operation, httpRequest, (response) -> {
+                statusCode[0] = response.getStatusLine().getStatusCode();
+                return responseHandler.apply(response);
+            });
+        } finally {
+            compartment.completed(permit, statusCode[0]);
+        }
+    }
 
+    private void prepare(Operation operation, HttpRequestBase httpRequest) {
         if (this.rateLimiter != null) {
             this.rateLimiter.acquire(1);
         }
+        if (this.requestTimeouts != null) {
+            applyTimeout(operation, httpRequest);
+        }
+    }
+
+    private <T> T transmit(Operation operation, HttpRequestBase httpRequest, Function<HttpResponse, T> responseHandler) {
+        httpRequest.addHeader(AUTHORIZATION, authorizationHeaderValue(this.username, this.passwordOrPersonalAccessToken));
 
+        RestCallEvent event = new RestCallEvent();
+        if (this.requestMetrics == RequestMetrics.NOOP && !event.isEnabled()) {
+            try (CloseableHttpResponse response = this.httpClient.execute(httpRequest)) {
+                return responseHandler.apply(response);
+            } catch (IOException e) {
+                throw new RequestFailedException(httpRequest, null, e);
+            }
+        }
+
+        CountingHttpEntity requestEntity = null;
+        if (httpRequest instanceof HttpEntityEnclosingRequestBase && ((HttpEntityEnclosingRequestBase) httpRequest).getEntity() != null) {
+            requestEntity = new CountingHttpEntity(((HttpEntityEnclosingRequestBase) httpRequest).getEntity());
+            ((HttpEntityEnclosingRequestBase) httpRequest).setEntity(requestEntity);
+        }
+        int statusCode = RequestMetrics.NO_RESPONSE;
+        CountingHttpEntity responseEntity = null;
+        event.begin();
+        long start = System.nanoTime();
         try (CloseableHttpResponse response = this.httpClient.execute(httpRequest)) {
+            statusCode = response.getStatusLine().getStatusCode();
+            if (response.getEntity() != null) {
+                responseEntity = new CountingHttpEntity(response.getEntity());
+                response.setEntity(responseEntity);
+            }
             return responseHandler.apply(response);
         } catch (IOException e) {
             throw new RequestFailedException(httpRequest, null, e);
+        } finally {
+            long durationNanos = System.nanoTime() - start;
+            long requestBytes = requestEntity != null ? requestEntity.byteCount() : 0;
+            long responseBytes = responseEntity != null ? responseEntity.byteCount() : 0;
+            this.requestMetrics.requestCompleted(operation.operationName(), statusCode, requestBytes, responseBytes, durationNanos);
+            event.end();
+            if (event.shouldCommit()) {
+                event.operation = operation.operationName();
+                event.method = httpRequest.getMethod();
+                event.uri = httpRequest.getURI().toString();
+                event.statusCode = statusCode;
+                event.requestBytes = requestBytes;
+                event.responseBytes = responseBytes;
+                event.pageTitle = PagePublishEvent.currentPageTitle();
+                event.commit();
+            }
         }
     }
 
@@ -283,6 +530,23 @@ public class RestApiInternalClient implements ApiInternalClient {
         return childPages;
     }
 
+    @Override
+    public Map<String, List<ConfluenceApiPage>> getDescendantPagesByParentId(String contentId) {
+        int start = 0;
+        int limit = 100;
+
+        Map<String, List<ConfluenceApiPage>> childPagesByParentId = new LinkedHashMap<>();
+        boolean fetchMore = true;
+        while (fetchMore) {
+            int size = getNextDescendantPages(contentId, limit, start, childPagesByParentId);
+
+            start+=limit;
+            fetchMore = size == limit;
+        }
+
+        return childPagesByParentId;
+    }
+
     @Override
     public List<ConfluenceAttachment> getAttachments(String contentId) {
         int start = 0;
@@ -311,7 +575,7 @@ public class RestApiInternalClient implements ApiInternalClient {
         }
         HttpGet getChildPagesByIdRequest = this.httpRequestFactory.getChildPagesByIdRequest(contentId, limit, start, expandOptions);
 
-        return sendRequestAndFailIfNot20x(getChildPagesByIdRequest, (response) -> {
+        return sendRequestAndFailIfNot20x(Operation.GET_CHILD_PAGES_BY_ID, getChildPagesByIdRequest, (response) -> {
             JsonNode jsonNode = parseJsonResponse(response);
             Function<JsonNode,ConfluenceApiPage> extractor = jsonNode1 -> {
                 if (withContent) {
@@ -326,11 +590,26 @@ public class RestApiInternalClient implements ApiInternalClient {
         });
     }
 
+    private int getNextDescendantPages(String contentId, int limit, int start, Map<String, List<ConfluenceApiPage>> childPagesByParentId) {
+        HttpGet getDescendantPagesByIdRequest = this.httpRequestFactory.getDescendantPagesByIdRequest(contentId, limit, start, "version,ancestors");
+
+        return sendRequestAndFailIfNot20x(Operation.GET_DESCENDANT_PAGES_BY_ID, getDescendantPagesByIdRequest, (response) -> {
+            JsonNode results = parseJsonResponse(response).withArray("results");
+            results.forEach((page) -> {
+                JsonNode ancestors = page.path("ancestors");
+                String parentId = ancestors.size() > 0 ? ancestors.get(ancestors.size() - 1).path("id").asText() : contentId;
+                childPagesByParentId.computeIfAbsent(parentId, id -> new ArrayList<>()).add(extractConfluencePageWithoutContent(page));
+            });
+
+            return results.size();
+        });
+    }
+
     private List<ConfluenceAttachment> getNextAttachments(String contentId, int limit, int start) {
         List<ConfluenceAttachment> attachments = new ArrayList<>(limit);
         HttpGet getAttachmentsRequest = this.httpRequestFactory.getAttachmentsRequest(contentId, limit, start, "version");
 
-        return sendRequestAndFailIfNot20x(getAttachmentsRequest, (response) -> {
+        return sendRequestAndFailIfNot20x(Operation.GET_ATTACHMENTS, getAttachmentsRequest, (response) -> {
             JsonNode jsonNode = parseJsonResponse(response);
             jsonNode.withArray("results").forEach(attachment -> attachments.add(extractConfluenceAttachment(attachment)));
 
@@ -341,14 +620,14 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void setPropertyByKey(String contentId, String key, String value) {
         HttpPost setPropertyByKeyRequest = this.httpRequestFactory.setPropertyByKeyRequest(contentId, key, value);
-        sendRequestAndFailIfNot20x(setPropertyByKeyRequest);
+        sendRequestAndFailIfNot20x(Operation.SET_PROPERTY_BY_KEY, setPropertyByKeyRequest);
     }
 
     @Override
     public String getPropertyByKey(String contentId, String key) {
         HttpGet propertyByKeyRequest = this.httpRequestFactory.getPropertyByKeyRequest(contentId, key);
 
-        return sendRequest(propertyByKeyRequest, (response) -> {
+        return sendRequest(Operation.GET_PROPERTY_BY_KEY, propertyByKeyRequest, (response) -> {
             if (response.getStatusLine().getStatusCode() == 200) {
                 return extractPropertyValueFromJsonNode(parseJsonResponse(response));
             } else {
@@ -360,13 +639,13 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void deletePropertyByKey(String contentId, String key) {
         HttpDelete deletePropertyByKeyRequest = this.httpRequestFactory.deletePropertyByKeyRequest(contentId, key);
-        sendRequest(deletePropertyByKeyRequest, (ignored) -> null);
+        sendRequest(Operation.DELETE_PROPERTY_BY_KEY, deletePropertyByKeyRequest, (ignored) -> null);
     }
 
     @Override
     public List<String> getLabels(String contentId) {
         HttpGet getLabelsRequest = this.httpRequestFactory.getLabelsRequest(contentId);
-        return sendRequest(getLabelsRequest, response -> {
+        return sendRequest(Operation.GET_LABELS, getLabelsRequest, response -> {
             List<String> labels = new ArrayList<>();
 
             JsonNode jsonNode = parseJsonResponse(response);
@@ -379,13 +658,13 @@ public class RestApiInternalClient implements ApiInternalClient {
     @Override
     public void addLabels(String contentId, List<String> labels) {
         HttpPost addLabelRequest = this.httpRequestFactory.addLabelsRequest(contentId, labels);
-        sendRequestAndFailIfNot20x(addLabelRequest);
+        sendRequestAndFailIfNot20x(Operation.ADD_LABELS, addLabelRequest);
     }
 
     @Override
     public void deleteLabel(String contentId, String label) {
         HttpDelete deleteLabelRequest = this.httpRequestFactory.deleteLabelRequest(contentId, label);
-        sendRequestAndFailIfNot20x(deleteLabelRequest);
+        sendRequestAndFailIfNot20x(Operation.DELETE_LABEL, deleteLabelRequest);
     }
 
     private static ConfluenceApiPage extractConfluencePageWithContent(JsonNode jsonNode) {
@@ -393,8 +672,23 @@ public class RestApiInternalClient implements ApiInternalClient {
         String title = extractTitleFromJsonNode(jsonNode);
         String content = jsonNode.path("body").path("view").get("value").asText();
         int version = extractVersionFromJsonNode(jsonNode);
+        List<String> labels = extractExpandedLabels(jsonNode);
 
-        return new ConfluenceApiPage(id, title, content, version);
+        return new ConfluenceApiPage(id, title, content, version, labels);
+    }
+
+    /**
+     * @return labels expanded with {@code metadata.labels}, null if not expanded or not all labels fit into the first page
+     */
+    private static List<String> extractExpandedLabels(JsonNode jsonNode) {
+        JsonNode labelsNode = jsonNode.path("metadata").path("labels");
+        if (!labelsNode.has("results") || labelsNode.path("_links").has("next")
+                || (labelsNode.has("limit") && labelsNode.path("size").asInt() >= labelsNode.path("limit").asInt())) {
+            return null;
+        }
+        List<String> labels = new ArrayList<>();
+        labelsNode.withArray("results").forEach(label -> labels.add(label.get("name").asText()));
+        return labels;
     }
 
     private static ConfluenceApiPage extractConfluencePageWithoutContent(JsonNode jsonNode) {
@@ -437,15 +731,21 @@ public class RestApiInternalClient implements ApiInternalClient {
         }
     }
 
-    private static CloseableHttpClient defaultHttpClient(ProxyConfiguration proxyConfiguration, boolean disableSslVerification, boolean enableHttpClientSystemProperties, Integer connectionTTL) {
-        RequestConfig requestConfig = RequestConfig.custom()
-                .setConnectionRequestTimeout(20 * 1000)
-                .setConnectTimeout(20 * 1000)
-                .setCookieSpec(STANDARD)
-                .build();
+    /**
+     * Request config overrides the default config of the http client as a whole, so it's based on the default config
+     */
+    private void applyTimeout(Operation operation, HttpRequestBase httpRequest) {
+        OptionalInt socketTimeoutMillis = this.requestTimeouts.socketTimeoutMillis(operation);
+        if (socketTimeoutMillis.isEmpty()) {
+            throw new RequestFailedException(httpRequest, null, new TimeoutException("Deadline " + this.requestTimeouts.getDeadline() + " passed"));
+        }
+        RequestConfig requestConfig = httpRequest.getConfig() != null ? httpRequest.getConfig() : DEFAULT_REQUEST_CONFIG;
+        httpRequest.setConfig(RequestConfig.copy(requestConfig).setSocketTimeout(socketTimeoutMillis.getAsInt()).build());
+    }
 
+    static CloseableHttpClient defaultHttpClient(ProxyConfiguration proxyConfiguration, boolean disableSslVerification, boolean enableHttpClientSystemProperties, Integer connectionTTL) {
         HttpClientBuilder builder = HttpClients.custom()
-                .setDefaultRequestConfig(requestConfig);
+                .setDefaultRequestConfig(DEFAULT_REQUEST_CONFIG);
 
         if (enableHttpClientSystemProperties) {
             builder.useSystemProperties();
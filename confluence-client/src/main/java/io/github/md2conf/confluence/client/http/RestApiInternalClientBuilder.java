@@ -0,0 +1,130 @@
+package io.github.md2conf.confluence.client.http;
+
+import io.github.md2conf.confluence.client.http.RestApiInternalClient.ProxyConfiguration;
+import io.github.md2conf.confluence.client.metrics.RequestMetrics;
+import org.apache.http.impl.client.CloseableHttpClient;
+
+public final class RestApiInternalClientBuilder {
+    private String rootConfluenceUrl;
+    private CloseableHttpClient httpClient;
+    private ProxyConfiguration proxyConfiguration;
+    private boolean disableSslVerification;
+    private boolean enableHttpClientSystemProperties = true;
+    private Integer connectionTTL;
+    private Double maxRequestsPerSecond;
+    private String username;
+    private String passwordOrPersonalAccessToken;
+    private RequestMetrics requestMetrics = RequestMetrics.NOOP;
+    private ResponseCache responseCache;
+    private RequestHedger requestHedger;
+    private ReadNodeRouter readNodeRouter;
+    private RequestTimeouts requestTimeouts = RequestTimeouts.DEFAULT;
+    private RequestIsolation requestIsolation;
+
+    private RestApiInternalClientBuilder() {
+    }
+
+    public static RestApiInternalClientBuilder aRestApiInternalClient() {
+        return new RestApiInternalClientBuilder();
+    }
+
+    public RestApiInternalClientBuilder withRootConfluenceUrl(String rootConfluenceUrl) {
+        this.rootConfluenceUrl = rootConfluenceUrl;
+        return this;
+    }
+
+    /**
+     * @param httpClient - http client to send requests with, null to create one from the proxy, SSL and connection settings
+     */
+    public RestApiInternalClientBuilder withHttpClient(CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withProxyConfiguration(ProxyConfiguration proxyConfiguration) {
+        this.proxyConfiguration = proxyConfiguration;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withDisableSslVerification(boolean disableSslVerification) {
+        this.disableSslVerification = disableSslVerification;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withEnableHttpClientSystemProperties(boolean enableHttpClientSystemProperties) {
+        this.enableHttpClientSystemProperties = enableHttpClientSystemProperties;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withConnectionTTL(Integer connectionTTL) {
+        this.connectionTTL = connectionTTL;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withMaxRequestsPerSecond(Double maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withUsername(String username) {
+        this.username = username;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withPasswordOrPersonalAccessToken(String passwordOrPersonalAccessToken) {
+        this.passwordOrPersonalAccessToken = passwordOrPersonalAccessToken;
+        return this;
+    }
+
+    public RestApiInternalClientBuilder withRequestMetrics(RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+        return this;
+    }
+
+    /**
+     * @param responseCache - cache of GET responses, null to send every GET, except identical GETs sent concurrently
+     */
+    public RestApiInternalClientBuilder withResponseCache(ResponseCache responseCache) {
+        this.responseCache = responseCache;
+        return this;
+    }
+
+    /**
+     * @param requestHedger - hedging of slow GET requests, null to wait for every response. Closed with the client.
+     */
+    public RestApiInternalClientBuilder withRequestHedger(RequestHedger requestHedger) {
+        this.requestHedger = requestHedger;
+        return this;
+    }
+
+    /**
+     * @param readNodeRouter - nodes to send GET requests to, null to send them to the root URL
+     */
+    public RestApiInternalClientBuilder withReadNodeRouter(ReadNodeRouter readNodeRouter) {
+        this.readNodeRouter = readNodeRouter;
+        return this;
+    }
+
+    /**
+     * @param requestTimeouts - socket timeouts by operation and deadline of requests, null to keep request config of the http client
+     */
+    public RestApiInternalClientBuilder withRequestTimeouts(RequestTimeouts requestTimeouts) {
+        this.requestTimeouts = requestTimeouts;
+        return this;
+    }
+
+    /**
+     * @param requestIsolation - circuit breakers and bulkheads by class of requests, null to send every request
+     */
+    public RestApiInternalClientBuilder withRequestIsolation(RequestIsolation requestIsolation) {
+        this.requestIsolation = requestIsolation;
+        return this;
+    }
+
+    public RestApiInternalClient build() {
+        CloseableHttpClient client = httpClient != null ? httpClient :
+                RestApiInternalClient.defaultHttpClient(proxyConfiguration, disableSslVerification, enableHttpClientSystemProperties, connectionTTL);
+        return new RestApiInternalClient(rootConfluenceUrl, client, maxRequestsPerSecond, username, passwordOrPersonalAccessToken, requestMetrics,
+                responseCache, requestHedger, readNodeRouter, requestTimeouts, requestIsolation);
+    }
+}
@@ -0,0 +1,35 @@
+package io.github.md2conf.confluence.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for upload or download of an attachment
+ */
+@Name("io.github.md2conf.AttachmentTransfer")
+@Label("Attachment Transfer")
+@Category({"md2conf", "Confluence"})
+@Description("Upload or download of an attachment")
+@StackTrace(false)
+public class AttachmentTransferEvent extends jdk.jfr.Event {
+
+    public static final String UPLOAD = "upload";
+    public static final String DOWNLOAD = "download";
+
+    @Label("Direction")
+    public String direction;
+
+    @Label("File Name")
+    public String fileName;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Page Title")
+    public String pageTitle;
+}
@@ -0,0 +1,29 @@
+package io.github.md2conf.confluence.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for hashing of page or attachment content
+ */
+@Name("io.github.md2conf.Hash")
+@Label("Content Hash")
+@Category({"md2conf", "Confluence"})
+@Description("Hash computation of page or attachment content to detect changes")
+@StackTrace(false)
+public class HashEvent extends jdk.jfr.Event {
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+
+    @Label("Page Title")
+    public String pageTitle;
+}
@@ -0,0 +1,44 @@
+package io.github.md2conf.confluence.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for publishing of a single page with its labels and attachments
+ */
+@Name("io.github.md2conf.PagePublish")
+@Label("Page Publish")
+@Category({"md2conf", "Confluence"})
+@Description("Publishing of a page with its labels and attachments")
+@StackTrace(false)
+public class PagePublishEvent extends jdk.jfr.Event {
+
+    private static final ThreadLocal<String> CURRENT_PAGE_TITLE = new ThreadLocal<>();
+
+    @Label("Page Title")
+    public String pageTitle;
+
+    @Label("Content Id")
+    public String contentId;
+
+    /**
+     * @return title of the page being published by the current thread, null outside of page publishing
+     */
+    public static String currentPageTitle() {
+        return CURRENT_PAGE_TITLE.get();
+    }
+
+    /**
+     * Remember the title of the page published by the current thread, so nested events can refer to it
+     */
+    public static void enterPage(String pageTitle) {
+        CURRENT_PAGE_TITLE.set(pageTitle);
+    }
+
+    public static void exitPage() {
+        CURRENT_PAGE_TITLE.remove();
+    }
+}
@@ -0,0 +1,44 @@
+package io.github.md2conf.confluence.client.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for a Confluence REST API request
+ */
+@Name("io.github.md2conf.RestCall")
+@Label("Confluence REST Call")
+@Category({"md2conf", "Confluence"})
+@Description("Confluence REST API request, from sending the request to handling of the response")
+@StackTrace(false)
+public class RestCallEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Method")
+    public String method;
+
+    @Label("URI")
+    public String uri;
+
+    @Label("Status Code")
+    @Description("HTTP status code, -1 if no response is received")
+    public int statusCode;
+
+    @Label("Request Bytes")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Bytes")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Page Title")
+    @Description("Title of the page being published, if any")
+    public String pageTitle;
+}
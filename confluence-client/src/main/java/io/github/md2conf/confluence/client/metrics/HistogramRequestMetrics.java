@@ -0,0 +1,282 @@
+package io.github.md2conf.confluence.client.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in {@link RequestMetrics}: per operation counters, byte counts and HdrHistogram latency distributions.
+ */
+public class HistogramRequestMetrics implements RequestMetrics {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    private final Map<String, OperationRecorder> recorders = new ConcurrentHashMap<>();
+
+    @Override
+    public void requestCompleted(String operation, int statusCode, long requestBytes, long responseBytes, long durationNanos) {
+        recorders.computeIfAbsent(operation, k -> new OperationRecorder())
+                .record(statusCode, requestBytes, responseBytes, durationNanos);
+    }
+
+    @Override
+    public void responseCacheLookup(String operation, CacheResult result) {
+        recorders.computeIfAbsent(operation, k -> new OperationRecorder())
+                .recordCacheLookup(result);
+    }
+
+    @Override
+    public void requestHedged(String operation) {
+        recorders.computeIfAbsent(operation, k -> new OperationRecorder())
+                .recordHedge();
+    }
+
+    @Override
+    public void requestRejected(String operation) {
+        recorders.computeIfAbsent(operation, k -> new OperationRecorder())
+                .recordRejection();
+    }
+
+    /**
+     * @return copy of statistics by operation name, sorted by name
+     */
+    public Map<String, OperationStatistics> statistics() {
+        Map<String, OperationStatistics> result = new TreeMap<>();
+        recorders.forEach((operation, recorder) -> result.put(operation, recorder.snapshot(operation)));
+        return result;
+    }
+
+    public void reset() {
+        recorders.clear();
+    }
+
+    /**
+     * @return table of requests by operation, empty string when nothing is recorded
+     */
+    public String summary() {
+        Map<String, OperationStatistics> statistics = statistics();
+        if (statistics.isEmpty()) {
+            return "";
+        }
+        long count = 0;
+        long failed = 0;
+        long clientErrors = 0;
+        long requestBytes = 0;
+        long responseBytes = 0;
+        long cacheHits = 0;
+        long cacheRevalidated = 0;
+        long cacheCoalesced = 0;
+        long cacheMisses = 0;
+        long hedged = 0;
+        long rejected = 0;
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-28s %8s %8s %8s %10s %10s %8s %8s %8s %8s%n",
+                "operation", "count", "failed", "4xx", "sent KB", "recv KB", "p50 ms", "p90 ms", "p99 ms", "max ms"));
+        for (OperationStatistics s : statistics.values()) {
+            sb.append(String.format("%-28s %8d %8d %8d %10.1f %10.1f %8.1f %8.1f %8.1f %8.1f%n",
+                    s.getOperation(), s.getCount(), s.getFailedCount(), s.getClientErrorCount(), s.getRequestBytes() / 1024.0, s.getResponseBytes() / 1024.0,
+                    s.latencyMillis(50), s.latencyMillis(90), s.latencyMillis(99), s.maxLatencyMillis()));
+            count += s.getCount();
+            failed += s.getFailedCount();
+            clientErrors += s.getClientErrorCount();
+            requestBytes += s.getRequestBytes();
+            responseBytes += s.getResponseBytes();
+            cacheHits += s.getCacheHits();
+            cacheRevalidated += s.getCacheRevalidated();
+            cacheCoalesced += s.getCacheCoalesced();
+            cacheMisses += s.getCacheMisses();
+            hedged += s.getHedgedCount();
+            rejected += s.getRejectedCount();
+        }
+        String cacheSummary = "";
+        long cacheLookups = cacheHits + cacheRevalidated + cacheCoalesced + cacheMisses;
+        if (cacheLookups > 0) {
+            cacheSummary = String.format("Response cache: %d hits, %d revalidated, %d coalesced, %d misses, hit ratio %.1f%%%n",
+                    cacheHits, cacheRevalidated, cacheCoalesced, cacheMisses,
+                    100.0 * (cacheHits + cacheRevalidated + cacheCoalesced) / cacheLookups);
+        }
+        String hedgeSummary = hedged > 0 ? String.format("Hedged GET requests: %d%n", hedged) : "";
+        String rejectionSummary = rejected > 0 ? String.format("Requests rejected by open circuit breakers: %d%n", rejected) : "";
+        return String.format("Confluence REST API: %d requests, %d failed, %d answered with 4xx, %.1f KB sent, %.1f KB received%n",
+                count, failed, clientErrors, requestBytes / 1024.0, responseBytes / 1024.0) + cacheSummary + hedgeSummary + rejectionSummary + sb;
+    }
+
+    private static class OperationRecorder {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder failedCount = new LongAdder();
+        private final LongAdder clientErrorCount = new LongAdder();
+        private final LongAdder requestBytes = new LongAdder();
+        private final LongAdder responseBytes = new LongAdder();
+        private final LongAdder cacheHits = new LongAdder();
+        private final LongAdder cacheRevalidated = new LongAdder();
+        private final LongAdder cacheCoalesced = new LongAdder();
+        private final LongAdder cacheMisses = new LongAdder();
+        private final LongAdder hedgedCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+        private final ConcurrentHistogram latencyMicros = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+        void record(int statusCode, long requestBytes, long responseBytes, long durationNanos) {
+            count.increment();
+            if (statusCode == NO_RESPONSE || statusCode >= 500) {
+                failedCount.increment();
+            } else if (statusCode >= 400) {
+                clientErrorCount.increment();
+            }
+            this.requestBytes.add(requestBytes);
+            this.responseBytes.add(responseBytes);
+            latencyMicros.recordValue(Math.max(0, durationNanos / 1000));
+        }
+
+        void recordCacheLookup(CacheResult result) {
+            switch (result) {
+                case HIT:
+                    cacheHits.increment();
+                    break;
+                case REVALIDATED:
+                    cacheRevalidated.increment();
+                    break;
+                case COALESCED:
+                    cacheCoalesced.increment();
+                    break;
+                default:
+                    cacheMisses.increment();
+            }
+        }
+
+        void recordHedge() {
+            hedgedCount.increment();
+        }
+
+        void recordRejection() {
+            rejectedCount.increment();
+        }
+
+        OperationStatistics snapshot(String operation) {
+            return new OperationStatistics(operation, count.sum(), failedCount.sum(), clientErrorCount.sum(), requestBytes.sum(), responseBytes.sum(),
+                    cacheHits.sum(), cacheRevalidated.sum(), cacheCoalesced.sum(), cacheMisses.sum(), hedgedCount.sum(), rejectedCount.sum(),
+                    latencyMicros.copy());
+        }
+    }
+
+    public static class OperationStatistics {
+        private final String operation;
+        private final long count;
+        private final long failedCount;
+        private final long clientErrorCount;
+        private final long requestBytes;
+        private final long responseBytes;
+        private final long cacheHits;
+        private final long cacheRevalidated;
+        private final long cacheCoalesced;
+        private final long cacheMisses;
+        private final long hedgedCount;
+        private final long rejectedCount;
+        private final Histogram latencyMicros;
+
+        OperationStatistics(String operation, long count, long failedCount, long clientErrorCount, long requestBytes, long responseBytes,
+                            long cacheHits, long cacheRevalidated, long cacheCoalesced, long cacheMisses, long hedgedCount, long rejectedCount,
+                            Histogram latencyMicros) {
+            this.operation = operation;
+            this.count = count;
+            this.failedCount = failedCount;
+            this.clientErrorCount = clientErrorCount;
+            this.requestBytes = requestBytes;
+            this.responseBytes = responseBytes;
+            this.cacheHits = cacheHits;
+            this.cacheRevalidated = cacheRevalidated;
+            this.cacheCoalesced = cacheCoalesced;
+            this.cacheMisses = cacheMisses;
+            this.hedgedCount = hedgedCount;
+            this.rejectedCount = rejectedCount;
+            this.latencyMicros = latencyMicros;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return number of requests failed with I/O error or answered with 5xx status
+         */
+        public long getFailedCount() {
+            return failedCount;
+        }
+
+        /**
+         * @return number of requests answered with 4xx status, like 404 of a page or property which does not exist yet
+         */
+        public long getClientErrorCount() {
+            return clientErrorCount;
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        /**
+         * @return number of responses taken from the response cache without a request
+         */
+        public long getCacheHits() {
+            return cacheHits;
+        }
+
+        /**
+         * @return number of cached responses used after 304 Not Modified
+         */
+        public long getCacheRevalidated() {
+            return cacheRevalidated;
+        }
+
+        /**
+         * @return number of responses shared with an identical request in flight
+         */
+        public long getCacheCoalesced() {
+            return cacheCoalesced;
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses;
+        }
+
+        /**
+         * @return number of duplicates sent for slow GET requests, duplicates are also counted as requests
+         */
+        public long getHedgedCount() {
+            return hedgedCount;
+        }
+
+        /**
+         * @return number of requests not sent because of an open circuit breaker, not counted as requests
+         */
+        public long getRejectedCount() {
+            return rejectedCount;
+        }
+
+        /**
+         * @return latency distribution in microseconds
+         */
+        public Histogram getLatencyMicros() {
+            return latencyMicros;
+        }
+
+        public double latencyMillis(double percentile) {
+            return latencyMicros.getValueAtPercentile(percentile) / 1000.0;
+        }
+
+        public double maxLatencyMillis() {
+            return latencyMicros.getMaxValue() / 1000.0;
+        }
+    }
+}
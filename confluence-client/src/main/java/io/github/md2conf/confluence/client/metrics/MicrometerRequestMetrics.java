@@ -0,0 +1,81 @@
+package io.github.md2conf.confluence.client.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RequestMetrics} adapter for Micrometer. Requires {@code io.micrometer:micrometer-core} on the classpath.
+ * <p>
+ * Records timer {@code md2conf.confluence.requests} and distribution summaries {@code md2conf.confluence.request.bytes}
+ * and {@code md2conf.confluence.response.bytes}, tagged with operation name and status code, and counter
+ * {@code md2conf.confluence.response.cache} tagged with operation name and cache result, and counter
+ * {@code md2conf.confluence.requests.hedged} and {@code md2conf.confluence.requests.rejected} tagged with operation name.
+ */
+public class MicrometerRequestMetrics implements RequestMetrics {
+
+    public static final String REQUESTS = "md2conf.confluence.requests";
+    public static final String REQUEST_BYTES = "md2conf.confluence.request.bytes";
+    public static final String RESPONSE_BYTES = "md2conf.confluence.response.bytes";
+    public static final String RESPONSE_CACHE = "md2conf.confluence.response.cache";
+    public static final String HEDGED_REQUESTS = "md2conf.confluence.requests.hedged";
+    public static final String REJECTED_REQUESTS = "md2conf.confluence.requests.rejected";
+
+    private final MeterRegistry registry;
+
+    public MicrometerRequestMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void requestCompleted(String operation, int statusCode, long requestBytes, long responseBytes, long durationNanos) {
+        String status = statusCode == NO_RESPONSE ? "IO_ERROR" : String.valueOf(statusCode);
+        Timer.builder(REQUESTS)
+                .description("Confluence REST API requests")
+                .tag("operation", operation)
+                .tag("status", status)
+                .register(registry)
+                .record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(REQUEST_BYTES)
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .register(registry)
+                .record(requestBytes);
+        DistributionSummary.builder(RESPONSE_BYTES)
+                .baseUnit("bytes")
+                .tag("operation", operation)
+                .register(registry)
+                .record(responseBytes);
+    }
+
+    @Override
+    public void responseCacheLookup(String operation, CacheResult result) {
+        Counter.builder(RESPONSE_CACHE)
+                .description("Confluence REST API GET responses by response cache result")
+                .tag("operation", operation)
+                .tag("result", result.name())
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void requestHedged(String operation) {
+        Counter.builder(HEDGED_REQUESTS)
+                .description("Duplicates of slow Confluence REST API GET requests")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    @Override
+    public void requestRejected(String operation) {
+        Counter.builder(REJECTED_REQUESTS)
+                .description("Confluence REST API requests not sent because of an open circuit breaker")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.md2conf.confluence.client.metrics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+/**
+ * Receives accounting of every request sent to Confluence REST API.
+ * <p>
+ * Operation names are the names of request factory methods, like {@code getPageByTitle} or {@code addAttachment}.
+ * Implementations must be thread-safe. See {@link HistogramRequestMetrics} and {@link MicrometerRequestMetrics}.
+ */
+@FunctionalInterface
+public interface RequestMetrics {
+
+    int NO_RESPONSE = -1;
+
+    RequestMetrics NOOP = (operation, statusCode, requestBytes, responseBytes, durationNanos) -> {
+    };
+
+    /**
+     * @param operation     - operation name
+     * @param statusCode    - HTTP status code, or {@link #NO_RESPONSE} when request failed with I/O error
+     * @param requestBytes  - size of request body
+     * @param responseBytes - size of response body
+     * @param durationNanos - time from sending request to response processing completion
+     */
+    void requestCompleted(String operation, int statusCode, long requestBytes, long responseBytes, long durationNanos);
+
+    /**
+     * Called for every GET request answered with the response cache enabled, and for every GET answered with the
+     * response of an identical GET in flight, in addition to {@link #requestCompleted(String, int, long, long, long)}
+     * if a request is sent
+     *
+     * @param operation - operation name
+     * @param result    - how the response is obtained
+     */
+    default void responseCacheLookup(String operation, CacheResult result) {
+    }
+
+    /**
+     * Called when a duplicate of a slow GET request is sent, in addition to
+     * {@link #requestCompleted(String, int, long, long, long)} of both requests
+     *
+     * @param operation - operation name
+     */
+    default void requestHedged(String operation) {
+    }
+
+    /**
+     * Called when a request is not sent, because the circuit breaker of its operation class is open
+     *
+     * @param operation - operation name
+     */
+    default void requestRejected(String operation) {
+    }
+
+    /**
+     * @return metrics which delegate to every non-null metrics
+     */
+    static RequestMetrics composite(RequestMetrics... metrics) {
+        List<RequestMetrics> delegates = Arrays.stream(metrics)
+                .filter(Objects::nonNull)
+                .filter(m -> m != NOOP)
+                .collect(Collectors.toList());
+        if (delegates.isEmpty()) {
+            return NOOP;
+        }
+        if (delegates.size() == 1) {
+            return delegates.get(0);
+        }
+        return new RequestMetrics() {
+            @Override
+            public void requestCompleted(String operation, int statusCode, long requestBytes, long responseBytes, long durationNanos) {
+                delegates.forEach(d -> d.requestCompleted(operation, statusCode, requestBytes, responseBytes, durationNanos));
+            }
+
+            @Override
+            public void responseCacheLookup(String operation, CacheResult result) {
+                delegates.forEach(d -> d.responseCacheLookup(operation, result));
+            }
+
+            @Override
+            public void requestHedged(String operation) {
+                delegates.forEach(d -> d.requestHedged(operation));
+            }
+
+            @Override
+            public void requestRejected(String operation) {
+                delegates.forEach(d -> d.requestRejected(operation));
+            }
+        };
+    }
+
+    enum CacheResult {
+        /**
+         * Cached response is used without a request
+         */
+        HIT,
+        /**
+         * Cached response is used after a conditional request answered with 304 Not Modified
+         */
+        REVALIDATED,
+        /**
+         * Response of an identical request in flight is used without a request
+         */
+        COALESCED,
+        /**
+         * Response is received from Confluence
+         */
+        MISS
+    }
+}
@@ -23,6 +23,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.stream.Collectors;
 
 /**
@@ -42,6 +44,9 @@ public final class InputStreamUtils {
         }
     }
 
+    /**
+     * @return lines of the file joined with {@code \n}, without the trailing line break
+     */
     public static String fileContent(String filePath, Charset encoding) {
         try (FileInputStream fileInputStream = new FileInputStream(new File(filePath))) {
             return inputStreamAsString(fileInputStream, encoding);
@@ -50,4 +55,15 @@ public final class InputStreamUtils {
         }
     }
 
+    /**
+     * @return content of the file as is, line endings are not changed
+     */
+    public static byte[] fileBytes(String filePath) {
+        try {
+            return Files.readAllBytes(Path.of(filePath));
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read file", e);
+        }
+    }
+
 }
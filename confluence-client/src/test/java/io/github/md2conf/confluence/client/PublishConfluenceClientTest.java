@@ -23,36 +23,54 @@ import io.github.md2conf.confluence.client.http.RestApiInternalClient;
 import io.github.md2conf.model.ConfluenceContentModel;
 import io.github.md2conf.model.ConfluenceContentModel.Type;
 import io.github.md2conf.model.ConfluencePage;
+import io.github.md2conf.model.util.ContentHashAlgorithm;
+import io.github.md2conf.model.util.FileDigestCache;
 import io.github.md2conf.model.util.ModelFilesystemUtil;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.InOrder;
 
+import java.io.ByteArrayInputStream;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import static io.github.md2conf.confluence.client.OrphanRemovalStrategy.KEEP_ORPHANS;
 import static io.github.md2conf.confluence.client.OrphanRemovalStrategy.REMOVE_ORPHANS;
+import static io.github.md2conf.confluence.client.PublishConfluenceClientBuilder.aConfluenceClient;
 import static io.github.md2conf.confluence.client.utils.InputStreamUtils.inputStreamAsString;
 import static io.github.md2conf.model.ConfluenceContentModel.Type.STORAGE;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.codec.digest.DigestUtils.sha256Hex;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.inOrder;
@@ -110,7 +128,7 @@ public class PublishConfluenceClientTest {
         RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
-        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), any(Type.class), anyString())).thenReturn("2345");
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), anyString())).thenReturn("2345");
 
         PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
 
@@ -122,19 +140,47 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq(TEST_SPACE), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
+        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq(TEST_SPACE), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
         verify(publishConfluenceClientListenerMock, times(1)).pageAdded(eq(new ConfluenceApiPage("2345", "Some Confluence Content", null, PublishConfluenceClient.INITIAL_PAGE_VERSION)));
         verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(publishConfluenceClientListenerMock);
     }
 
+    @Test
+    public void publish_deadlineWithinMargin_stopsBeforeFirstPageAndReportsPagesLeftUndone() {
+        // arrange
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
+        PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
+
+        PublishConfluenceClient confluenceClient = aConfluenceClient()
+                .withPublishingStrategy(PublishingStrategy.APPEND_TO_ANCESTOR)
+                .withOrphanRemovalStrategy(KEEP_ORPHANS)
+                .withInternalApiClient(confluenceRestClientMock)
+                .withConfluenceClientListener(publishConfluenceClientListenerMock)
+                .withNotifyWatchers(true)
+                .withDeadline(PublishDeadline.at(Instant.now().plusSeconds(30), PublishDeadline.DEFAULT_MARGIN))
+                .build();
+        ConfluenceContentModel model = readFromFilePrefix("one-page-ancestor-id");
+
+        // act
+        PublishDeadlineExceededException exception = assertThrows(PublishDeadlineExceededException.class,
+                () -> confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE));
+
+        // assert
+        assertThat(exception.getPagesLeftUndone(), contains("Some Confluence Content"));
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), anyString());
+        verify(publishConfluenceClientListenerMock, never()).publishCompleted();
+    }
+
     @Test
     public void publish_oneNewPageMarkedAsSkipped_delegatesToConfluenceRestClient() {
         // arrange
         RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
-        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), any(Type.class), anyString())).thenReturn("2345");
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), anyString())).thenReturn("2345");
 
         PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
 
@@ -147,7 +193,7 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq(TEST_SPACE), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
+        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq(TEST_SPACE), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
         verify(publishConfluenceClientListenerMock, times(1)).pageAdded(eq(new ConfluenceApiPage("2345", "Some Confluence Content", null, PublishConfluenceClient.INITIAL_PAGE_VERSION)));
         verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(publishConfluenceClientListenerMock);
@@ -174,7 +220,7 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, times(0)).addPageUnderAncestor(anyString(), anyString(),anyString(), anyString(), any(), anyString());
+        verify(confluenceRestClientMock, times(0)).addPageUnderAncestor(anyString(), anyString(),anyString(), any(Path.class), any(), anyString());
         verify(publishConfluenceClientListenerMock, times(1)).pageSkippedUpdate(any());
         verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
         verifyNoMoreInteractions(publishConfluenceClientListenerMock);
@@ -187,7 +233,7 @@ public class PublishConfluenceClientTest {
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Other Confluence Content")).thenThrow(new NotFoundException());
-        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), any(Type.class), anyString())).thenReturn("2345", "3456");
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), anyString())).thenReturn("2345", "3456");
 
         PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
 
@@ -198,8 +244,8 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq("~personalSpace"), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
-        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq("~personalSpace"), eq(PARENT_PAGE_ID), eq("Some Other Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
+        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq("~personalSpace"), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
+        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(eq("~personalSpace"), eq(PARENT_PAGE_ID), eq("Some Other Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
         verify(publishConfluenceClientListenerMock, times(1)).pageAdded(eq(new ConfluenceApiPage("2345", "Some Confluence Content", null, PublishConfluenceClient.INITIAL_PAGE_VERSION)));
         verify(publishConfluenceClientListenerMock, times(1)).pageAdded(eq(new ConfluenceApiPage("3456", "Some Other Confluence Content", null, PublishConfluenceClient.INITIAL_PAGE_VERSION)));
         verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
@@ -236,7 +282,7 @@ public class PublishConfluenceClientTest {
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Other Confluence Content")).thenThrow(new NotFoundException());
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Child Content")).thenThrow(new NotFoundException());
-        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), any(Type.class), anyString())).thenReturn("2345", "3456");
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), anyString())).thenReturn("2345", "3456");
 
         PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
 
@@ -250,14 +296,14 @@ public class PublishConfluenceClientTest {
         ArgumentCaptor<String> spaceKeyArgumentCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> ancestorIdArgumentCaptor = ArgumentCaptor.forClass(String.class);
         ArgumentCaptor<String> titleArgumentCaptor = ArgumentCaptor.forClass(String.class);
-        ArgumentCaptor<String> contentArgumentCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Path> contentArgumentCaptor = ArgumentCaptor.forClass(Path.class);
         ArgumentCaptor<Type> contentTypeArgumentCaptor = ArgumentCaptor.forClass(Type.class);
         ArgumentCaptor<String> messageArgumentCaptor = ArgumentCaptor.forClass(String.class);
         verify(confluenceRestClientMock, times(2)).addPageUnderAncestor(spaceKeyArgumentCaptor.capture(), ancestorIdArgumentCaptor.capture(), titleArgumentCaptor.capture(), contentArgumentCaptor.capture(), contentTypeArgumentCaptor.capture(), messageArgumentCaptor.capture());
         assertThat(spaceKeyArgumentCaptor.getAllValues(), contains("~personalSpace", "~personalSpace"));
         assertThat(ancestorIdArgumentCaptor.getAllValues(), contains("1234", "2345"));
         assertThat(titleArgumentCaptor.getAllValues(), contains("Some Confluence Content", "Some Child Content"));
-        assertThat(contentArgumentCaptor.getAllValues(), contains("<h1>Some Confluence Content</h1>", "<h1>Some Child Content</h1>"));
+        assertThat(contentArgumentCaptor.getAllValues().stream().map(PublishConfluenceClientTest::fileContentOf).collect(toList()), contains("<h1>Some Confluence Content</h1>", "<h1>Some Child Content</h1>"));
         assertThat(contentTypeArgumentCaptor.getAllValues(), Matchers.hasItems(STORAGE));
         assertThat(messageArgumentCaptor.getAllValues(), contains("version message", "version message"));
 
@@ -271,7 +317,7 @@ public class PublishConfluenceClientTest {
     public void publish_metadataOnePageWithNewAttachmentsAndAncestorIdAsRoot_attachesAttachmentToContent() {
         // arrange
         RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
-        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), anyString(), any(Type.class), nullable(String.class))).thenReturn("4321");
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), nullable(String.class))).thenReturn("4321");
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Other Confluence Content")).thenThrow(new NotFoundException());
@@ -291,7 +337,7 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model,TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock).addPageUnderAncestor("~personalSpace", PARENT_PAGE_ID, "Some Confluence Content", "<h1>Some Confluence Content</h1>", STORAGE, null);
+        verify(confluenceRestClientMock).addPageUnderAncestor(eq("~personalSpace"), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(null));
         verify(confluenceRestClientMock, times(2)).addAttachment(contentId.capture(), attachmentFileName.capture(), attachmentContent.capture());
         assertThat(contentId.getAllValues(), contains("4321", "4321"));
         assertThat(inputStreamAsString(attachmentContent.getAllValues().get(attachmentFileName.getAllValues().indexOf("attachmentOne.txt")), UTF_8), is("attachment1"));
@@ -326,8 +372,8 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model,TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, never()).addPageUnderAncestor(eq("~personalSpace"), eq("1234"), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), any(Type.class), eq("version message"));
-        verify(confluenceRestClientMock, times(1)).updatePage(eq("3456"), eq("1234"), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq("version message"), eq(true));
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(eq("~personalSpace"), eq("1234"), eq("Existing Page"), contentOf("<h1>Some Confluence Content</h1>"), any(Type.class), eq("version message"));
+        verify(confluenceRestClientMock, times(1)).updatePage(eq("3456"), eq("1234"), eq("Existing Page"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq("version message"), eq(true));
 
         verify(publishConfluenceClientListenerMock, times(1)).pageUpdated(eq(existingPage), eq(new ConfluenceApiPage("3456", "Existing Page", null, 2)));
         verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
@@ -353,8 +399,8 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model,TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, never()).addPageUnderAncestor(eq("~personalSpace"), eq("1234"), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), any(Type.class), eq("version message"));
-        verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq("version message"), eq(true));
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(eq("~personalSpace"), eq("1234"), eq("Existing Page"), contentOf("<h1>Some Confluence Content</h1>"), any(Type.class), eq("version message"));
+        verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Existing Page"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq("version message"), eq(true));
 
         verify(publishConfluenceClientListenerMock, times(1)).pageUpdated(eq(existingPage), eq(new ConfluenceApiPage("1234", "Existing Page", null, 2)));
         verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
@@ -380,8 +426,8 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model,TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, never()).addPageUnderAncestor(eq("~personalSpace"), eq("1234"), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), any(Type.class), eq(null));
-        verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Existing Page"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq(null), eq(true));
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(eq("~personalSpace"), eq("1234"), eq("Existing Page"), contentOf("<h1>Some Confluence Content</h1>"), any(Type.class), eq(null));
+        verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Existing Page"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq(null), eq(true));
 
         verify(publishConfluenceClientListenerMock, times(1)).pageUpdated(eq(existingPage), eq(new ConfluenceApiPage("1234", "Existing Page", null, 2)));
         verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
@@ -406,8 +452,8 @@ public class PublishConfluenceClientTest {
         confluenceClient.publish(model,TEST_SPACE, PARENT_PAGE_TITLE);
 
         // assert
-        verify(confluenceRestClientMock, never()).addPageUnderAncestor(any(), any(), any(), any(), any(Type.class), any());
-        verify(confluenceRestClientMock).updatePage(eq("72189173"), eq(null), eq("Some Confluence Content"), eq("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq(null), eq(true));
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(any(), any(), any(), any(Path.class), any(Type.class), any());
+        verify(confluenceRestClientMock).updatePage(eq("72189173"), eq(null), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), eq(null), eq(true));
         verify(publishConfluenceClientListenerMock).pageUpdated(existingPage, new ConfluenceApiPage("72189173", "Some Confluence Content", null, 2));
         verify(publishConfluenceClientListenerMock).publishCompleted();
         verifyNoMoreInteractions(publishConfluenceClientListenerMock);
@@ -438,6 +484,113 @@ public class PublishConfluenceClientTest {
         verify(confluenceRestClientMock, never()).updateAttachmentContent(any(), any(), any(), anyBoolean());
     }
 
+    @Test
+    public void publish_whenHashesAreStoredByOtherAlgorithmAndContentIsSame_replacesOnlyHashes() {
+        // arrange
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn("72189173");
+        when(confluenceRestClientMock.getPageWithViewContent("72189173")).thenReturn(new ConfluenceApiPage("72189173", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+
+        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentOne.txt")).thenReturn(new ConfluenceAttachment("att1", "attachmentOne.txt", "/download/attachmentOne.txt", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", ATTACHMENT_ONE_SHA256_HASH)).thenReturn(sha256Hex("attachment1"));
+
+        when(confluenceRestClientMock.getAttachmentByFileName("72189173", "attachmentTwo.txt")).thenReturn(new ConfluenceAttachment("att2", "attachmentTwo.txt", "/download/attachmentTwo.txt", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", ATTACHMENT_TWO_SHA256_HASH)).thenReturn(sha256Hex("changed attachment2"));
+
+        PublishConfluenceClient confluenceClient = PublishConfluenceClientBuilder.aConfluenceClient()
+                .withPublishingStrategy(PublishingStrategy.REPLACE_ANCESTOR)
+                .withOrphanRemovalStrategy(KEEP_ORPHANS)
+                .withInternalApiClient(confluenceRestClientMock)
+                .withFileDigests(FileDigestCache.inMemory(ContentHashAlgorithm.MURMUR3_128))
+                .build();
+        ConfluenceContentModel model = readFromFilePrefix("root-ancestor-id-page-with-attachments");
+
+        // act
+        PublishPlan plan = confluenceClient.plan(model, TEST_SPACE, PARENT_PAGE_TITLE);
+        confluenceClient.execute(plan);
+
+        // assert
+        assertThat(plan.describe(), Matchers.containsString("REHASH      hash of page 'Some Confluence Content'"));
+        verify(confluenceRestClientMock, never()).updatePage(any(), any(), any(), any(Path.class), any(), anyInt(), any(), anyBoolean());
+        verify(confluenceRestClientMock).deletePropertyByKey("72189173", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY);
+        verify(confluenceRestClientMock).setPropertyByKey(eq("72189173"), eq(PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY), ArgumentMatchers.startsWith("murmur3_128:"));
+        verify(confluenceRestClientMock).deletePropertyByKey("72189173", ATTACHMENT_ONE_SHA256_HASH);
+        verify(confluenceRestClientMock).setPropertyByKey("72189173", ATTACHMENT_ONE_SHA256_HASH, ContentHashAlgorithm.MURMUR3_128.hash("attachment1"));
+        verify(confluenceRestClientMock, never()).updateAttachmentContent(eq("72189173"), eq("att1"), any(), anyBoolean());
+        verify(confluenceRestClientMock).updateAttachmentContent(eq("72189173"), eq("att2"), any(), anyBoolean());
+        verify(confluenceRestClientMock).setPropertyByKey("72189173", ATTACHMENT_TWO_SHA256_HASH, ContentHashAlgorithm.MURMUR3_128.hash("attachment2"));
+    }
+
+    @Test
+    public void publish_whenHashIsStoredForJoinedLinesAndContentDiffersOnlyByLineEndings_replacesOnlyHash(@TempDir Path tempDir) throws Exception {
+        // arrange
+        Path contentFile = tempDir.resolve("content.html");
+        Files.writeString(contentFile, "<h1>Title</h1>\r\n<p>text</p>\r\n");
+        ConfluenceContentModel model = readFromFilePrefix("root-ancestor-id-page-with-attachments");
+        model.getPages().get(0).setContentFilePath(contentFile.toString());
+        model.getPages().get(0).setAttachments(Map.of());
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn("72189173");
+        when(confluenceRestClientMock.getPageWithViewContent("72189173")).thenReturn(new ConfluenceApiPage("72189173", "Some Confluence Content", "<h1>Title</h1>", 1));
+        when(confluenceRestClientMock.getPropertyByKey("72189173", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY)).thenReturn(sha256Hex("<h1>Title</h1>\n<p>text</p>"));
+        PublishConfluenceClient confluenceClient = PublishConfluenceClientBuilder.aConfluenceClient()
+                .withPublishingStrategy(PublishingStrategy.REPLACE_ANCESTOR)
+                .withOrphanRemovalStrategy(KEEP_ORPHANS)
+                .withInternalApiClient(confluenceRestClientMock)
+                .build();
+
+        // act
+        PublishPlan plan = confluenceClient.plan(model, TEST_SPACE, PARENT_PAGE_TITLE);
+        confluenceClient.execute(plan);
+
+        // assert
+        assertThat(plan.getPageChanges().get(0).contentHash, is(sha256Hex("<h1>Title</h1>\r\n<p>text</p>\r\n")));
+        assertThat(plan.describe(), Matchers.containsString("REHASH      hash of page 'Some Confluence Content'"));
+        verify(confluenceRestClientMock, never()).updatePage(any(), any(), any(), any(Path.class), any(), anyInt(), any(), anyBoolean());
+        verify(confluenceRestClientMock).setPropertyByKey("72189173", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY, sha256Hex("<h1>Title</h1>\r\n<p>text</p>\r\n"));
+    }
+
+    @Test
+    public void joinedLines_ofContent_isSameAsLinesJoinedByReader() {
+        for (String content : List.of("", "\n", "a", "a\n", "a\r\n\r\nb\r\n", "a\r\rb\n\n", "a\rb\r", "a\n\r\nb")) {
+            // act
+            byte[] joinedLines = PublishPlanner.joinedLines(content.getBytes(UTF_8));
+
+            // assert
+            assertThat(new String(joinedLines, UTF_8), is(inputStreamAsString(new ByteArrayInputStream(content.getBytes(UTF_8)), UTF_8)));
+        }
+    }
+
+    @Test
+    public void plan_withFileDigestCache_savesDigestsOfAttachmentsForNextPublishing(@TempDir Path tempDir) throws Exception {
+        // arrange
+        Path attachmentOne = tempDir.resolve("attachmentOne.txt");
+        Files.writeString(attachmentOne, "attachment1");
+        Files.setLastModifiedTime(attachmentOne, FileTime.from(Instant.now().minusSeconds(60)));
+        Path cacheFile = tempDir.resolve(FileDigestCache.DEFAULT_FILE_NAME);
+        ConfluenceContentModel model = readFromFilePrefix("root-ancestor-id-page-with-attachments");
+        model.getPages().get(0).setAttachments(Map.of("attachmentOne.txt", attachmentOne.toString()));
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
+        PublishConfluenceClient confluenceClient = PublishConfluenceClientBuilder.aConfluenceClient()
+                .withPublishingStrategy(PublishingStrategy.APPEND_TO_ANCESTOR)
+                .withOrphanRemovalStrategy(KEEP_ORPHANS)
+                .withInternalApiClient(confluenceRestClientMock)
+                .withFileDigests(FileDigestCache.load(cacheFile))
+                .build();
+
+        // act
+        PublishPlan plan = confluenceClient.plan(model, TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // assert
+        assertThat(plan.getPageChanges().get(0).getAttachmentChanges().get(0).hash, is(sha256Hex("attachment1")));
+        assertThat(FileDigestCache.load(cacheFile).cachedDigest(attachmentOne).orElse(null), is(sha256Hex("attachment1")));
+    }
+
     @Test
     public void publish_whenExistingAttachmentsHaveMissingHashProperty_updatesAttachmentsAndHashProperties() {
         // arrange
@@ -618,8 +771,9 @@ public class PublishConfluenceClientTest {
         RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
         when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(existingParentPage));
-        when(confluenceRestClientMock.getChildPages("2345")).thenReturn(singletonList(existingChildPage));
-        when(confluenceRestClientMock.getChildPages("3456")).thenReturn(singletonList(existingChildChildPage));
+        when(confluenceRestClientMock.getDescendantPagesByParentId("2345")).thenReturn(Map.of(
+                "2345", singletonList(existingChildPage),
+                "3456", singletonList(existingChildChildPage)));
 
         PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
 
@@ -641,6 +795,44 @@ public class PublishConfluenceClientTest {
         verifyNoMoreInteractions(publishConfluenceClientListenerMock);
     }
 
+    @Test
+    public void publish_removedPageWithSubtree_listsSubtreeOnceAndDeletesLeavesFirst() {
+        // arrange
+        ConfluenceApiPage removedPage = new ConfluenceApiPage("2345", "Removed Page", null, 1);
+        ConfluenceApiPage removedChildPage = new ConfluenceApiPage("3456", "Removed Child Page", null, 1);
+        ConfluenceApiPage removedLeafPage = new ConfluenceApiPage("4567", "Removed Leaf Page", null, 1);
+        ConfluenceApiPage removedChildChildPage = new ConfluenceApiPage("5678", "Removed Child Child Page", null, 1);
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getChildPages(PARENT_PAGE_ID)).thenReturn(singletonList(removedPage));
+        when(confluenceRestClientMock.getDescendantPagesByParentId("2345")).thenReturn(Map.of(
+                "2345", List.of(removedChildPage, removedLeafPage),
+                "3456", singletonList(removedChildChildPage)));
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock);
+        PublishPlan plan = confluenceClient.plan(readFromFilePrefix("zero-page"), TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // act
+        confluenceClient.execute(plan);
+
+        // assert
+        assertThat(plan.pagesToDeleteLeavesFirst(), contains(
+                contains(removedChildChildPage, removedLeafPage),
+                contains(removedChildPage),
+                contains(removedPage)));
+        verify(confluenceRestClientMock, times(1)).getChildPages(PARENT_PAGE_ID);
+        verify(confluenceRestClientMock, never()).getChildPages("2345");
+        verify(confluenceRestClientMock, never()).getChildPages("3456");
+        InOrder inOrder = inOrder(confluenceRestClientMock);
+        inOrder.verify(confluenceRestClientMock).deletePage("5678");
+        inOrder.verify(confluenceRestClientMock).deletePage("3456");
+        inOrder.verify(confluenceRestClientMock).deletePage("2345");
+        InOrder leafInOrder = inOrder(confluenceRestClientMock);
+        leafInOrder.verify(confluenceRestClientMock).deletePage("4567");
+        leafInOrder.verify(confluenceRestClientMock).deletePage("3456");
+    }
+
     @Test
     public void publish_metadataWithMultipleRemovedPagesInHierarchyForAppendToAncestorPublishingStrategyAndKeepOrphansEnabled_doesNotDeleteRemovedPages() {
         // arrange
@@ -650,8 +842,9 @@ public class PublishConfluenceClientTest {
 
         RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
         when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(existingParentPage));
-        when(confluenceRestClientMock.getChildPages("2345")).thenReturn(singletonList(existingChildPage));
-        when(confluenceRestClientMock.getChildPages("3456")).thenReturn(singletonList(existingChildChildPage));
+        when(confluenceRestClientMock.getDescendantPagesByParentId("2345")).thenReturn(Map.of(
+                "2345", singletonList(existingChildPage),
+                "3456", singletonList(existingChildChildPage)));
 
         PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
 
@@ -678,7 +871,7 @@ public class PublishConfluenceClientTest {
         when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
         when(confluenceRestClientMock.getPageWithViewContent("1234")).thenReturn(ancestorPage);
         when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(existingParentPage));
-        when(confluenceRestClientMock.getChildPages("2345")).thenReturn(singletonList(existingChildPage));
+        when(confluenceRestClientMock.getDescendantPagesByParentId("2345")).thenReturn(Map.of("2345", singletonList(existingChildPage)));
 
         PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
 
@@ -688,7 +881,7 @@ public class PublishConfluenceClientTest {
         // act
         confluenceClient.publish(model,TEST_SPACE, PARENT_PAGE_TITLE);
         // assert
-        verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Ancestor Page"), eq("<h1>Some Ancestor Content</h1>"), eq(STORAGE), eq(2), eq("version message"), eq(true));
+        verify(confluenceRestClientMock, times(1)).updatePage(eq("1234"), eq(null), eq("Ancestor Page"), contentOf("<h1>Some Ancestor Content</h1>"), eq(STORAGE), eq(2), eq("version message"), eq(true));
         verify(confluenceRestClientMock, times(1)).deletePage(eq("2345"));
         verify(confluenceRestClientMock, times(1)).deletePage(eq("3456"));
 
@@ -722,6 +915,31 @@ public class PublishConfluenceClientTest {
         verify(confluenceRestClientMock, times(1)).addLabels(eq("2345"), eq(asList("label-one", "label-two")));
     }
 
+    @Test
+    public void publish_labelsExpandedWithPage_doesNotFetchLabelsAndDeletesRemovedLabels() {
+        // arrange
+        ConfluenceApiPage unchangedLabelsPage = new ConfluenceApiPage("2345", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1, asList("label-two", "label-one"));
+        ConfluenceApiPage changedLabelsPage = new ConfluenceApiPage("2345", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1, asList("label-one", "obsolete-one", "obsolete-two"));
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle("~personalSpace", "Some Confluence Content")).thenReturn("2345");
+        when(confluenceRestClientMock.getPageWithViewContent("2345")).thenReturn(unchangedLabelsPage, changedLabelsPage);
+        when(confluenceRestClientMock.getPropertyByKey("2345", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY)).thenReturn("7a901829ba6a0b6f7f084ae4313bdb5d83bc2c4ea21b452ba7073c0b0c60faae");
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock);
+        ConfluenceContentModel model = readFromFilePrefix("page-with-labels");
+
+        // act
+        confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
+        confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // assert
+        verify(confluenceRestClientMock, never()).getLabels(anyString());
+        verify(confluenceRestClientMock, times(1)).deleteLabel(eq("2345"), eq("obsolete-one"));
+        verify(confluenceRestClientMock, times(1)).deleteLabel(eq("2345"), eq("obsolete-two"));
+        verify(confluenceRestClientMock, times(1)).addLabels(eq("2345"), eq(singletonList("label-two")));
+    }
+
     @Test
     public void publish_labels_withLabelsOnPage() {
         // arrange
@@ -746,6 +964,303 @@ public class PublishConfluenceClientTest {
         verify(confluenceRestClientMock, times(1)).addLabels(eq("2345"), eq(singletonList("label-one")));
     }
 
+    @Test
+    public void plan_metadataWithNewAndExistingPages_sendsOnlyReadRequestsAndEstimatesWrites() {
+        // arrange
+        ConfluenceApiPage existingPage = new ConfluenceApiPage("3456", "Some Child Content", "<h1>Some Child Content</h1>", 1);
+        ConfluenceApiPage removedPage = new ConfluenceApiPage("4567", "Removed Page", null, 1);
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Child Content")).thenReturn("3456");
+        when(confluenceRestClientMock.getPageWithViewContent("3456")).thenReturn(existingPage);
+        when(confluenceRestClientMock.getPropertyByKey("3456", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY)).thenReturn("someWrongHash");
+        when(confluenceRestClientMock.getChildPages(PARENT_PAGE_ID)).thenReturn(singletonList(removedPage));
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock);
+        ConfluenceContentModel model = readFromFilePrefix("root-ancestor-id-multiple-pages");
+
+        // act
+        PublishPlan plan = confluenceClient.plan(model, TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // assert
+        verify(confluenceRestClientMock, never()).addPageUnderAncestor(any(), any(), any(), any(Path.class), any(), any());
+        verify(confluenceRestClientMock, never()).updatePage(any(), any(), any(), any(Path.class), any(), anyInt(), any(), anyBoolean());
+        verify(confluenceRestClientMock, never()).deletePage(any());
+        verify(confluenceRestClientMock, never()).setPropertyByKey(any(), any(), any());
+        assertThat(plan.getPageChanges().stream().map(PublishPlan.PageChange::getAction).collect(toList()), contains(PublishPlan.PageAction.CREATE, PublishPlan.PageAction.UPDATE));
+        assertThat(plan.getPagesToDelete(), contains(removedPage));
+        assertThat(plan.estimatedRequestCount(), is(6));
+        assertThat(plan.estimatedUploadBytes(), is((long) ("<h1>Some Confluence Content</h1>".length() + "<h1>Some Child Content</h1>".length())));
+    }
+
+    @Test
+    public void execute_planWithCreatedParent_addsChildUnderCreatedPage() {
+        // arrange
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Child Content")).thenThrow(new NotFoundException());
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), nullable(String.class))).thenReturn("2345", "3456");
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock);
+        PublishPlan plan = confluenceClient.plan(readFromFilePrefix("root-ancestor-id-multiple-pages"), TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // act
+        confluenceClient.execute(plan);
+
+        // assert
+        InOrder inOrder = inOrder(confluenceRestClientMock);
+        inOrder.verify(confluenceRestClientMock).addPageUnderAncestor(eq(TEST_SPACE), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), any(Path.class), eq(STORAGE), nullable(String.class));
+        inOrder.verify(confluenceRestClientMock).addPageUnderAncestor(eq(TEST_SPACE), eq("2345"), eq("Some Child Content"), any(Path.class), eq(STORAGE), nullable(String.class));
+        verify(confluenceRestClientMock, never()).getLabels(anyString());
+        verify(confluenceRestClientMock, never()).getAttachments(anyString());
+        assertThat(plan.getPageChanges().get(1).getContentId(), is("3456"));
+    }
+
+    @Test
+    public void publish_notModifiedPageUnderRemovedPage_isMovedBeforeRemovedPageIsDeleted() {
+        // arrange
+        ConfluenceApiPage removedPage = new ConfluenceApiPage("4567", "Removed Page", null, 1);
+        ConfluenceApiPage existingPage = new ConfluenceApiPage("3456", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1);
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenReturn("3456");
+        when(confluenceRestClientMock.getPageWithViewContent("3456")).thenReturn(existingPage);
+        when(confluenceRestClientMock.getPropertyByKey("3456", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+        when(confluenceRestClientMock.getChildPages(PARENT_PAGE_ID)).thenReturn(singletonList(removedPage));
+        when(confluenceRestClientMock.getDescendantPagesByParentId("4567")).thenReturn(Map.of("4567", singletonList(existingPage)));
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock);
+        ConfluenceContentModel model = readFromFilePrefix("one-page-ancestor-id");
+
+        // act
+        confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // assert
+        InOrder inOrder = inOrder(confluenceRestClientMock);
+        inOrder.verify(confluenceRestClientMock).updatePage(eq("3456"), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), nullable(String.class), eq(true));
+        inOrder.verify(confluenceRestClientMock).deletePage("4567");
+        verify(confluenceRestClientMock, never()).deletePage("3456");
+    }
+
+    @Test
+    public void plan_onlyChildPageChanged_plansChangedPageWithAncestorsAndKeepsUnchangedPages() {
+        // arrange
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Child Content")).thenThrow(new NotFoundException());
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock);
+        ConfluenceContentModel model = readFromFilePrefix("root-ancestor-id-multiple-pages");
+
+        // act
+        PublishPlan nothingChangedPlan = confluenceClient.plan(model, TEST_SPACE, PARENT_PAGE_TITLE, page -> false);
+        PublishPlan childChangedPlan = confluenceClient.plan(model, TEST_SPACE, PARENT_PAGE_TITLE, page -> page.getTitle().equals("Some Child Content"));
+
+        // assert
+        assertThat(nothingChangedPlan.getPageChanges(), is(empty()));
+        assertThat(nothingChangedPlan.getPagesToDelete(), is(empty()));
+        assertThat(childChangedPlan.getPageChanges().stream().map(pageChange -> pageChange.getPage().getTitle()).collect(toList()), contains("Some Confluence Content", "Some Child Content"));
+        verify(confluenceRestClientMock, times(1)).getPageByTitle(TEST_SPACE, "Some Confluence Content");
+    }
+
+    @Test
+    public void publish_resumeAfterFailure_skipsRemoteChecksOfCompletedPages(@TempDir Path tempDir) {
+        // arrange
+        Path journalPath = tempDir.resolve("publish.journal");
+        ConfluenceContentModel model = readFromFilePrefix("root-ancestor-id-multiple-pages");
+
+        RestApiInternalClient failingConfluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(failingConfluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(failingConfluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
+        when(failingConfluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Child Content")).thenThrow(new NotFoundException());
+        when(failingConfluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), nullable(String.class)))
+                .thenReturn("2345")
+                .thenThrow(new RuntimeException("connection reset"));
+        PublishConfluenceClient failingConfluenceClient = aConfluenceClient()
+                .withPublishingStrategy(PublishingStrategy.APPEND_TO_ANCESTOR)
+                .withOrphanRemovalStrategy(REMOVE_ORPHANS)
+                .withInternalApiClient(failingConfluenceRestClientMock)
+                .withConfluenceClientListener(mock(PublishConfluenceClientListener.class))
+                .withNotifyWatchers(true)
+                .withJournal(PublishJournal.open(journalPath, "scope", false))
+                .build();
+        assertThrows(RuntimeException.class, () -> failingConfluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE));
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Child Content")).thenThrow(new NotFoundException());
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), nullable(String.class))).thenReturn("3456");
+        PublishConfluenceClient confluenceClient = aConfluenceClient()
+                .withPublishingStrategy(PublishingStrategy.APPEND_TO_ANCESTOR)
+                .withOrphanRemovalStrategy(REMOVE_ORPHANS)
+                .withInternalApiClient(confluenceRestClientMock)
+                .withConfluenceClientListener(mock(PublishConfluenceClientListener.class))
+                .withNotifyWatchers(true)
+                .withJournal(PublishJournal.open(journalPath, "scope", true))
+                .build();
+
+        // act
+        confluenceClient.publish(model, TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // assert
+        verify(confluenceRestClientMock, never()).getPageByTitle(TEST_SPACE, "Some Confluence Content");
+        verify(confluenceRestClientMock, never()).getPageWithViewContent("2345");
+        verify(confluenceRestClientMock, never()).getLabels("2345");
+        verify(confluenceRestClientMock, never()).getAttachments("2345");
+        verify(confluenceRestClientMock, times(1)).addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), nullable(String.class));
+        verify(confluenceRestClientMock).addPageUnderAncestor(eq(TEST_SPACE), eq("2345"), eq("Some Child Content"), any(Path.class), eq(STORAGE), nullable(String.class));
+        assertThat(Files.exists(journalPath), is(false));
+    }
+
+    @Test
+    public void publish_pipelineWithMultiplePagesInHierarchy_delegatesToConfluenceRestClient() throws Exception {
+        // arrange
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenThrow(new NotFoundException());
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Child Content")).thenThrow(new NotFoundException());
+        when(confluenceRestClientMock.addPageUnderAncestor(anyString(), anyString(), anyString(), any(Path.class), any(Type.class), anyString())).thenReturn("2345", "3456");
+
+        PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock, publishConfluenceClientListenerMock, "version message");
+        ConfluenceContentModel model = readFromFilePrefix("root-ancestor-id-multiple-pages");
+        PublishPipeline pipeline = new PublishPipeline(1);
+
+        // act
+        Thread producer = new Thread(() -> {
+            submitPages(pipeline, model.getPages(), null);
+            pipeline.complete();
+        });
+        producer.start();
+        confluenceClient.publish(pipeline, TEST_SPACE, PARENT_PAGE_TITLE);
+        producer.join();
+
+        // assert
+        InOrder inOrder = inOrder(confluenceRestClientMock);
+        inOrder.verify(confluenceRestClientMock).addPageUnderAncestor(eq(TEST_SPACE), eq("1234"), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq("version message"));
+        inOrder.verify(confluenceRestClientMock).addPageUnderAncestor(eq(TEST_SPACE), eq("2345"), eq("Some Child Content"), contentOf("<h1>Some Child Content</h1>"), eq(STORAGE), eq("version message"));
+        inOrder.verify(confluenceRestClientMock).getChildPages(eq("1234"));
+
+        verify(publishConfluenceClientListenerMock, times(1)).pageAdded(eq(new ConfluenceApiPage("2345", "Some Confluence Content", null, PublishConfluenceClient.INITIAL_PAGE_VERSION)));
+        verify(publishConfluenceClientListenerMock, times(1)).pageAdded(eq(new ConfluenceApiPage("3456", "Some Child Content", null, PublishConfluenceClient.INITIAL_PAGE_VERSION)));
+        verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
+        verifyNoMoreInteractions(publishConfluenceClientListenerMock);
+    }
+
+    @Test
+    public void publish_pipelineWithRemovedPages_sendsDeletePageRequestAfterLastPage() {
+        // arrange
+        ConfluenceApiPage existingParentPage = new ConfluenceApiPage("2345", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 2);
+        ConfluenceApiPage existingChildPage = new ConfluenceApiPage("3456", "Some Child Content", "<h1>Some Child Content</h1>", 3);
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(existingParentPage));
+        when(confluenceRestClientMock.getDescendantPagesByParentId("2345")).thenReturn(Map.of("2345", singletonList(existingChildPage)));
+
+        PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock, publishConfluenceClientListenerMock, "version message");
+        PublishPipeline pipeline = new PublishPipeline();
+        pipeline.complete();
+
+        // act
+        confluenceClient.publish(pipeline, TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // assert
+        verify(confluenceRestClientMock, times(1)).deletePage(eq("2345"));
+        verify(confluenceRestClientMock, times(1)).deletePage(eq("3456"));
+        verify(publishConfluenceClientListenerMock, times(1)).publishCompleted();
+    }
+
+    @Test
+    public void publish_pipelineWithNotModifiedPageUnderRemovedPage_movesPageBeforeRemovedPageIsDeleted() {
+        // arrange
+        ConfluenceApiPage removedPage = new ConfluenceApiPage("4567", "Removed Page", null, 1);
+        ConfluenceApiPage existingPage = new ConfluenceApiPage("3456", "Some Confluence Content", "<h1>Some Confluence Content</h1>", 1);
+
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, "Some Confluence Content")).thenReturn("3456");
+        when(confluenceRestClientMock.getPageWithViewContent("3456")).thenReturn(existingPage);
+        when(confluenceRestClientMock.getPropertyByKey("3456", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY)).thenReturn(SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+        when(confluenceRestClientMock.getChildPages(PARENT_PAGE_ID)).thenReturn(singletonList(removedPage));
+        when(confluenceRestClientMock.getDescendantPagesByParentId("4567")).thenReturn(Map.of("4567", singletonList(existingPage)));
+
+        PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock, publishConfluenceClientListenerMock, null);
+        ConfluenceContentModel model = readFromFilePrefix("one-page-ancestor-id");
+        PublishPipeline pipeline = new PublishPipeline();
+        submitPages(pipeline, model.getPages(), null);
+        pipeline.complete();
+
+        // act
+        confluenceClient.publish(pipeline, TEST_SPACE, PARENT_PAGE_TITLE);
+
+        // assert
+        InOrder inOrder = inOrder(confluenceRestClientMock);
+        inOrder.verify(confluenceRestClientMock).updatePage(eq("3456"), eq(PARENT_PAGE_ID), eq("Some Confluence Content"), contentOf("<h1>Some Confluence Content</h1>"), eq(STORAGE), eq(2), nullable(String.class), eq(true));
+        inOrder.verify(confluenceRestClientMock).setPropertyByKey("3456", PublishConfluenceClient.CONTENT_HASH_PROPERTY_KEY, SOME_CONFLUENCE_CONTENT_SHA256_HASH);
+        inOrder.verify(confluenceRestClientMock).deletePage("4567");
+        verify(confluenceRestClientMock, never()).deletePage("3456");
+        verify(publishConfluenceClientListenerMock).pageUpdated(existingPage, new ConfluenceApiPage("3456", "Some Confluence Content", null, 2));
+    }
+
+    @Test
+    public void publish_pipelineWithFailedConversion_doesNotDeletePages() {
+        // arrange
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenReturn(PARENT_PAGE_ID);
+        when(confluenceRestClientMock.getChildPages("1234")).thenReturn(singletonList(new ConfluenceApiPage("2345", "Some Confluence Content", null, 2)));
+
+        PublishConfluenceClientListener publishConfluenceClientListenerMock = mock(PublishConfluenceClientListener.class);
+
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock, publishConfluenceClientListenerMock, "version message");
+        PublishPipeline pipeline = new PublishPipeline();
+        pipeline.fail(new IllegalStateException("conversion failed"));
+
+        // act
+        Throwable exception = assertThrows(IllegalStateException.class, () -> confluenceClient.publish(pipeline, TEST_SPACE, PARENT_PAGE_TITLE));
+
+        // assert
+        assertThat(exception.getCause().getMessage(), is("conversion failed"));
+        verify(confluenceRestClientMock, never()).deletePage(anyString());
+        verifyNoMoreInteractions(publishConfluenceClientListenerMock);
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(new ConfluencePage(), null));
+    }
+
+    @Test
+    public void publish_pipelineWithFailedPublishing_releasesBlockedProducer() throws Exception {
+        // arrange
+        RestApiInternalClient confluenceRestClientMock = mock(RestApiInternalClient.class);
+        when(confluenceRestClientMock.getPageByTitle(TEST_SPACE, PARENT_PAGE_TITLE)).thenThrow(new NotFoundException());
+        PublishConfluenceClient confluenceClient = confluencePublisher(confluenceRestClientMock);
+        PublishPipeline pipeline = new PublishPipeline(1);
+        pipeline.submit(new ConfluencePage(), null);
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> pipeline.submit(new ConfluencePage(), null));
+
+        // act
+        assertThrows(RuntimeException.class, () -> confluenceClient.publish(pipeline, TEST_SPACE, PARENT_PAGE_TITLE));
+
+        // assert
+        producer.handle((result, e) -> result).get(10, TimeUnit.SECONDS);
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(new ConfluencePage(), null));
+    }
+
+    private static void submitPages(PublishPipeline pipeline, List<ConfluencePage> pages, ConfluencePage parent) {
+        pages.forEach(page -> {
+            pipeline.submit(page, parent);
+            submitPages(pipeline, page.getChildren(), page);
+        });
+    }
+
     private static PublishConfluenceClient confluencePublisher(RestApiInternalClient confluenceRestClient) {
         return confluencePublisher(PublishingStrategy.APPEND_TO_ANCESTOR, REMOVE_ORPHANS, confluenceRestClient, mock(PublishConfluenceClientListener.class), null, true);
     }
@@ -791,4 +1306,16 @@ public class PublishConfluenceClientTest {
         });
     }
 
+    private static Path contentOf(String content) {
+        return argThat(contentFile -> contentFile != null && content.equals(fileContentOf(contentFile)));
+    }
+
+    private static String fileContentOf(Path contentFile) {
+        try {
+            return Files.readString(contentFile, UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
 }
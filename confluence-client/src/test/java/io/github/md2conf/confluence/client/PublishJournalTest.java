@@ -0,0 +1,100 @@
+package io.github.md2conf.confluence.client;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublishJournalTest {
+
+    private static final String SCOPE = "http://confluence ~SPACE Parent";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void completed_operations_are_resumed() {
+        Path path = tempDir.resolve("publish.journal");
+        PublishJournal journal = PublishJournal.open(path, SCOPE, false);
+        journal.pageCompleted("Page", "1234", 2, "contentHash");
+        journal.labelsCompleted("1234", "labelsHash");
+        journal.attachmentCompleted("1234", "image.png", "attachmentHash");
+        journal.attachmentsCompleted("1234", "attachmentsHash");
+        journal.close();
+
+        PublishJournal resumed = PublishJournal.open(path, SCOPE, true);
+
+        PublishJournal.Record page = resumed.completedPage("Page", "contentHash");
+        assertThat(page).isNotNull();
+        assertThat(page.contentId).isEqualTo("1234");
+        assertThat(page.version).isEqualTo(2);
+        assertThat(resumed.completedPage("Page", "otherHash")).isNull();
+        assertThat(resumed.isLabelsCompleted("1234", "labelsHash")).isTrue();
+        assertThat(resumed.isAttachmentCompleted("1234", "image.png", "attachmentHash")).isTrue();
+        assertThat(resumed.isAttachmentCompleted("1234", "image.png", "otherHash")).isFalse();
+        assertThat(resumed.isAttachmentsCompleted("1234", "attachmentsHash")).isTrue();
+        resumed.close();
+    }
+
+    @Test
+    void journal_is_started_again_without_resume_or_for_another_scope() {
+        Path path = tempDir.resolve("publish.journal");
+        PublishJournal journal = PublishJournal.open(path, SCOPE, false);
+        journal.pageCompleted("Page", "1234", 2, "contentHash");
+        journal.close();
+
+        PublishJournal otherScope = PublishJournal.open(path, "http://confluence ~OTHER Parent", true);
+        assertThat(otherScope.completedPage("Page", "contentHash")).isNull();
+        otherScope.close();
+
+        PublishJournal notResumed = PublishJournal.open(path, SCOPE, false);
+        assertThat(notResumed.completedPage("Page", "contentHash")).isNull();
+        notResumed.close();
+        assertThat(path).doesNotExist();
+    }
+
+    @Test
+    void torn_last_record_is_dropped() throws Exception {
+        Path path = tempDir.resolve("publish.journal");
+        PublishJournal journal = PublishJournal.open(path, SCOPE, false);
+        journal.pageCompleted("Page", "1234", 2, "contentHash");
+        journal.close();
+        Files.write(path, "{\"type\":\"PAGE\",\"title\":\"Torn".getBytes(UTF_8), StandardOpenOption.APPEND);
+
+        PublishJournal resumed = PublishJournal.open(path, SCOPE, true);
+        resumed.pageCompleted("Other Page", "2345", 1, "otherContentHash");
+        resumed.close();
+
+        PublishJournal resumedAgain = PublishJournal.open(path, SCOPE, true);
+        assertThat(resumedAgain.completedPage("Page", "contentHash")).isNotNull();
+        assertThat(resumedAgain.completedPage("Other Page", "otherContentHash")).isNotNull();
+        resumedAgain.close();
+        assertThat(Files.readAllLines(path, UTF_8)).hasSize(3).noneMatch(line -> line.contains("Torn"));
+    }
+
+    @Test
+    void records_are_written_before_sync_and_not_repeated() throws Exception {
+        Path path = tempDir.resolve("publish.journal");
+        PublishJournal journal = PublishJournal.open(path, SCOPE, false, 100);
+
+        journal.pageCompleted("Page", "1234", 2, "contentHash");
+        journal.pageCompleted("Page", "1234", 2, "contentHash");
+
+        assertThat(Files.readAllLines(path, UTF_8)).hasSize(2);
+        journal.complete();
+        assertThat(path).doesNotExist();
+    }
+
+    @Test
+    void noop_journal_records_nothing() {
+        PublishJournal.NOOP.pageCompleted("Page", "1234", 2, "contentHash");
+
+        assertThat(PublishJournal.NOOP.completedPage("Page", "contentHash")).isNull();
+        PublishJournal.NOOP.complete();
+    }
+}
@@ -16,18 +16,24 @@
 
 package io.github.md2conf.confluence.client.http;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.github.md2conf.confluence.client.utils.InputStreamUtils;
 import io.github.md2conf.model.ConfluenceContentModel;
+import org.apache.http.HttpEntity;
 import org.apache.http.client.methods.HttpDelete;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
@@ -183,6 +189,35 @@ public class HttpRequestFactoryTest {
         assertThat(jsonPayload, isSameJsonAs(expectedJsonPayload));
     }
 
+    @Test
+    public void updatePageRequest_withContentFile_streamsEscapedContentRepeatedly(@TempDir Path tempDir) throws Exception {
+        // arrange
+        String content = "<p class=\"x\">line\r\n\ttab \\ é中😀</p>\n";
+        Path contentFile = tempDir.resolve("content.xhtml");
+        Files.writeString(contentFile, content, UTF_8);
+
+        // act
+        HttpPut updatePageRequest = this.httpRequestFactory.updatePageRequest("1234", "1", "title", contentFile, ConfluenceContentModel.Type.STORAGE, 2, "version message", false);
+
+        // assert
+        HttpEntity entity = updatePageRequest.getEntity();
+        assertTrue(entity.isRepeatable());
+        assertThat(updatePageRequest.getFirstHeader("Content-Type").getValue(), is(APPLICATION_JSON_UTF8));
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        entity.writeTo(first);
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        entity.writeTo(second);
+        assertThat(second.toString(UTF_8), is(first.toString(UTF_8)));
+
+        JsonNode payload = new ObjectMapper().readTree(first.toByteArray());
+        assertThat(payload.path("body").path("storage").path("value").asText(), is(content));
+        assertThat(payload.path("body").path("storage").path("representation").asText(), is("storage"));
+        assertThat(payload.path("title").asText(), is("title"));
+        assertThat(payload.path("version").path("number").asInt(), is(2));
+        assertThat(payload.path("version").path("minorEdit").asBoolean(), is(true));
+        assertThat(payload.path("ancestors").get(0).path("id").asText(), is("1"));
+    }
+
     @Test
     public void updatePageRequest_withEmptyContentId_throwsIllegalArgumentException() {
         Throwable exception = assertThrows(IllegalArgumentException.class, () -> {
@@ -533,6 +568,18 @@ public class HttpRequestFactoryTest {
         assertThat(getChildPagesByIdRequest.getURI().toString(), is(CONFLUENCE_REST_API_ENDPOINT + "/content/" + parentContentId + "/child/page?expand=" + expandOptions));
     }
 
+    @Test
+    public void getDescendantPagesByIdRequest_withLimitAndPageNumberAndExpandOptions_returnsValidHttpGet() {
+        // arrange
+        String parentContentId = "1234";
+
+        // act
+        HttpGet getDescendantPagesByIdRequest = this.httpRequestFactory.getDescendantPagesByIdRequest(parentContentId, 100, 200, "version,ancestors");
+
+        // assert
+        assertThat(getDescendantPagesByIdRequest.getURI().toString(), is(CONFLUENCE_REST_API_ENDPOINT + "/content/" + parentContentId + "/descendant/page?limit=100&start=200&expand=version%2Cancestors"));
+    }
+
     @Test
     public void getChildPagesByIdRequest_withLimitAndPageNumber_returnsHttpGetWithPageNumberAndLimit() {
         // arrange
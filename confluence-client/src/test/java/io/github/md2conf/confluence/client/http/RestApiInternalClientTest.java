@@ -16,6 +16,8 @@
 
 package io.github.md2conf.confluence.client.http;
 
+import io.github.md2conf.confluence.client.metrics.HistogramRequestMetrics;
+import io.github.md2conf.confluence.client.metrics.RequestMetrics;
 import io.github.md2conf.confluence.client.utils.InputStreamUtils;
 import io.github.md2conf.model.ConfluenceContentModel;
 import org.apache.http.HttpEntity;
@@ -33,13 +35,26 @@ import org.mockito.ArgumentCaptor;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static io.github.md2conf.confluence.client.http.RestApiInternalClientBuilder.aRestApiInternalClient;
 import static java.lang.System.currentTimeMillis;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
@@ -47,13 +62,19 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -261,6 +282,26 @@ public class RestApiInternalClientTest {
         assertThat(confluenceApiPage.getVersion(), is(1));
     }
 
+    @Test
+    public void getPageWithViewContent_withExpandedLabels_returnsLabelsOnlyIfAllLabelsAreExpanded() throws Exception {
+        // arrange
+        String page = "{\"id\": \"1234\", \"title\": \"Some title\", \"version\": {\"number\": 1}, \"body\": {\"view\": {\"value\": \"Some content\"}}, " +
+                "\"metadata\": {\"labels\": {\"results\": [{\"name\": \"label-one\"}, {\"name\": \"label-two\"}], \"start\": 0, \"limit\": %d, \"size\": 2}}}";
+        CloseableHttpClient httpClientMock = recordHttpClientForMultipleResponsesWithContentAndStatusCode(asList(String.format(page, 200), String.format(page, 2)), asList(200, 200));
+        RestApiInternalClient confluenceRestClient = new RestApiInternalClient(CONFLUENCE_ROOT_URL, httpClientMock, null, null, null);
+        ArgumentCaptor<HttpGet> httpGetArgumentCaptor = ArgumentCaptor.forClass(HttpGet.class);
+
+        // act
+        ConfluenceApiPage pageWithAllLabels = confluenceRestClient.getPageWithViewContent("1234");
+        ConfluenceApiPage pageWithMoreLabels = confluenceRestClient.getPageWithViewContent("1234");
+
+        // assert
+        assertThat(pageWithAllLabels.getLabels(), contains("label-one", "label-two"));
+        assertThat(pageWithMoreLabels.getLabels(), is(nullValue()));
+        verify(httpClientMock, times(2)).execute(httpGetArgumentCaptor.capture());
+        assertThat(httpGetArgumentCaptor.getAllValues().get(0).getURI().toString(), containsString("metadata.labels"));
+    }
+
     @Test
     public void getChildPages_withValidParametersAndFirstResultSizeSmallerThanLimit_returnsListOfChildPagesWithTitleContentVersionAndId() throws Exception {
         // arrange
@@ -322,6 +363,27 @@ public class RestApiInternalClientTest {
         assertThat(httpGetArgumentCaptor.getAllValues().get(1).getURI().toString(), containsString("start=25"));
     }
 
+    @Test
+    public void getDescendantPagesByParentId_withNestedPages_returnsChildPagesGroupedByLastAncestor() throws Exception {
+        // arrange
+        String resultSet = "{\"results\": [" +
+                "{\"id\": \"2\", \"title\": \"Child\", \"version\": {\"number\": 1}, \"ancestors\": [{\"id\": \"0\"}, {\"id\": \"1234\"}]}," +
+                "{\"id\": \"3\", \"title\": \"Child Child\", \"version\": {\"number\": 2}, \"ancestors\": [{\"id\": \"0\"}, {\"id\": \"1234\"}, {\"id\": \"2\"}]}" +
+                "], \"size\": 2}";
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode(resultSet, 200);
+        RestApiInternalClient confluenceRestClient = new RestApiInternalClient(CONFLUENCE_ROOT_URL, httpClientMock, null, null, null);
+        ArgumentCaptor<HttpGet> httpGetArgumentCaptor = ArgumentCaptor.forClass(HttpGet.class);
+
+        // act
+        Map<String, List<ConfluenceApiPage>> childPagesByParentId = confluenceRestClient.getDescendantPagesByParentId("1234");
+
+        // assert
+        assertThat(childPagesByParentId.get("1234"), contains(new ConfluenceApiPage("2", "Child", 1)));
+        assertThat(childPagesByParentId.get("2"), contains(new ConfluenceApiPage("3", "Child Child", 2)));
+        verify(httpClientMock, times(1)).execute(httpGetArgumentCaptor.capture());
+        assertThat(httpGetArgumentCaptor.getValue().getURI().toString(), containsString("/descendant/page"));
+    }
+
     @Test
     public void getAttachments_withValidParametersAndFirstResultIsSmallerThanLimit_returnsAttachments() throws Exception {
         // arrange
@@ -386,13 +448,13 @@ public class RestApiInternalClientTest {
     @Test
     public void sendRequest_withProvidedUsernameAndPassword_setsCredentialsProvider() throws Exception {
         // arrange
-        CloseableHttpClient closeableHttpClient = anyCloseableHttpClient();
+        CloseableHttpClient closeableHttpClient = recordHttpClientForSingleResponseWithContentAndStatusCode("", 200);
         RestApiInternalClient confluenceRestClient = new RestApiInternalClient("http://confluence.com", closeableHttpClient, null, "username", "password");
         HttpGet httpRequest = new HttpGet("http://confluence.com");
         ArgumentCaptor<HttpRequestBase> httpRequestArgumentCaptor = ArgumentCaptor.forClass(HttpRequestBase.class);
 
         // act
-        confluenceRestClient.sendRequest(httpRequest, (response) -> null);
+        confluenceRestClient.sendRequest(Operation.GET_PAGE_BY_ID, httpRequest, (response) -> null);
 
         // assert
         verify(closeableHttpClient, times(1)).execute(httpRequestArgumentCaptor.capture());
@@ -406,13 +468,13 @@ public class RestApiInternalClientTest {
     @Test
     public void sendRequest_withProvidedPasswordButNoUsername_setsCredentialsProvider() throws Exception {
         // arrange
-        CloseableHttpClient closeableHttpClient = anyCloseableHttpClient();
+        CloseableHttpClient closeableHttpClient = recordHttpClientForSingleResponseWithContentAndStatusCode("", 200);
         RestApiInternalClient confluenceRestClient = new RestApiInternalClient("http://confluence.com", closeableHttpClient, null, "", "personalAccessToken");
         HttpGet httpRequest = new HttpGet("http://confluence.com");
         ArgumentCaptor<HttpRequestBase> httpRequestArgumentCaptor = ArgumentCaptor.forClass(HttpRequestBase.class);
 
         // act
-        confluenceRestClient.sendRequest(httpRequest, (response) -> null);
+        confluenceRestClient.sendRequest(Operation.GET_PAGE_BY_ID, httpRequest, (response) -> null);
 
         // assert
         verify(closeableHttpClient, times(1)).execute(httpRequestArgumentCaptor.capture());
@@ -424,16 +486,16 @@ public class RestApiInternalClientTest {
     }
 
     @Test
-    public void sendRequest_withRateLimitEnabled_blocksBeforeSendingSecondRequest() {
+    public void sendRequest_withRateLimitEnabled_blocksBeforeSendingSecondRequest() throws Exception {
         // arrange
-        CloseableHttpClient closeableHttpClient = anyCloseableHttpClient();
+        CloseableHttpClient closeableHttpClient = recordHttpClientForSingleResponseWithContentAndStatusCode("", 200);
         RestApiInternalClient confluenceRestClient = new RestApiInternalClient("http://confluence.com", closeableHttpClient, 0.5, null, null);
         HttpGet httpRequest = new HttpGet("http://confluence.com");
 
         // act
         long startTime = currentTimeMillis();
-        confluenceRestClient.sendRequest(httpRequest, (response) -> null);
-        confluenceRestClient.sendRequest(httpRequest, (response) -> null);
+        confluenceRestClient.sendRequest(Operation.GET_PAGE_BY_ID, httpRequest, (response) -> null);
+        confluenceRestClient.sendRequest(Operation.GET_PAGE_BY_ID, httpRequest, (response) -> null);
         long endTime = currentTimeMillis();
 
         // assert
@@ -523,6 +585,40 @@ public class RestApiInternalClientTest {
         assertThat(exception.getCause(), is(equalTo(expected)));
     }
 
+    @Test
+    public void sendRequest_withRequestMetrics_recordsOperationNameAndStatusCode() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("{\"results\": [{\"id\":\"1234\"}], \"size\": 1}", 200);
+        HistogramRequestMetrics requestMetrics = new HistogramRequestMetrics();
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestMetrics(requestMetrics)
+                .build();
+
+        // act
+        confluenceRestClient.getPageByTitle("~personalSpace", "Some title");
+
+        // assert
+        assertThat(requestMetrics.statistics().keySet(), contains("getPageByTitle"));
+        assertThat(requestMetrics.statistics().get("getPageByTitle").getCount(), is(1L));
+        assertThat(requestMetrics.statistics().get("getPageByTitle").getFailedCount(), is(0L));
+    }
+
+    @Test
+    public void sendRequest_withRequestMetricsAndIOException_recordsFailure() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientForRequestException(new IOException("expected"));
+        RequestMetrics requestMetrics = mock(RequestMetrics.class);
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestMetrics(requestMetrics)
+                .build();
+
+        // act
+        assertThrows(RequestFailedException.class, () -> confluenceRestClient.deletePage("1234"));
+
+        // assert
+        verify(requestMetrics).requestCompleted(eq("deletePage"), eq(RequestMetrics.NO_RESPONSE), anyLong(), anyLong(), anyLong());
+    }
+
     @Test
     public void addPageUnderAncestor_withUnsuccessfulResponse_throwsExceptionWithResponseInformation() throws Exception {
         Throwable exception = assertThrows(RequestFailedException.class, () -> {
@@ -577,6 +673,478 @@ public class RestApiInternalClientTest {
         verify(httpClientMock, times(1)).execute(any(HttpDelete.class));
     }
 
+    @Test
+    public void getPropertyByKey_withResponseCache_reusesResponseUntilWriteAndThenRevalidatesWithETag() throws Exception {
+        // arrange
+        CloseableHttpResponse okResponse = recordResponseWithETag("{\"value\": \"hash\"}", 200, "\"v1\"");
+        CloseableHttpResponse writeResponse = recordResponseWithETag("", 204, null);
+        CloseableHttpResponse notModifiedResponse = recordResponseWithETag("", 304, null);
+        CloseableHttpClient httpClientMock = anyCloseableHttpClient();
+        when(httpClientMock.execute(any(HttpRequestBase.class))).thenReturn(okResponse, writeResponse, notModifiedResponse);
+        HistogramRequestMetrics requestMetrics = new HistogramRequestMetrics();
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestMetrics(requestMetrics)
+                .withResponseCache(new ResponseCache(ResponseCache.DEFAULT_MAX_BYTES))
+                .build();
+
+        // act
+        String first = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+        String second = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+        confluenceRestClient.deletePropertyByKey("1234", "other");
+        String third = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        assertThat(first, is("hash"));
+        assertThat(second, is("hash"));
+        assertThat(third, is("hash"));
+        ArgumentCaptor<HttpRequestBase> requests = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClientMock, times(3)).execute(requests.capture());
+        assertThat(requests.getAllValues().get(0).getFirstHeader("If-None-Match"), is(nullValue()));
+        assertThat(requests.getAllValues().get(2).getFirstHeader("If-None-Match").getValue(), is("\"v1\""));
+        HistogramRequestMetrics.OperationStatistics statistics = requestMetrics.statistics().get("getPropertyByKey");
+        assertThat(statistics.getCacheHits(), is(1L));
+        assertThat(statistics.getCacheRevalidated(), is(1L));
+        assertThat(statistics.getCacheMisses(), is(1L));
+        assertThat(statistics.getFailedCount(), is(0L));
+        assertThat(requestMetrics.summary(), containsString("Response cache: 1 hits, 1 revalidated, 0 coalesced, 1 misses"));
+    }
+
+    @Test
+    public void getPropertyByKey_withResponseCacheAndWithoutValidators_fetchesAgainAfterWrite() throws Exception {
+        // arrange
+        CloseableHttpResponse oldResponse = recordResponseWithETag("{\"value\": \"old\"}", 200, null);
+        CloseableHttpResponse writeResponse = recordResponseWithETag("", 200, null);
+        CloseableHttpResponse newResponse = recordResponseWithETag("{\"value\": \"new\"}", 200, null);
+        CloseableHttpClient httpClientMock = anyCloseableHttpClient();
+        when(httpClientMock.execute(any(HttpRequestBase.class))).thenReturn(oldResponse, writeResponse, newResponse);
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withResponseCache(new ResponseCache(ResponseCache.DEFAULT_MAX_BYTES))
+                .build();
+
+        // act
+        String first = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+        confluenceRestClient.setPropertyByKey("1234", "content-hash", "new");
+        String second = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        assertThat(first, is("old"));
+        assertThat(second, is("new"));
+        verify(httpClientMock, times(2)).execute(any(HttpGet.class));
+    }
+
+    @Test
+    public void getPropertyByKey_whileIdenticalRequestIsInFlight_sharesItsResponse() throws Exception {
+        // arrange
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch joined = new CountDownLatch(1);
+        CloseableHttpResponse okResponse = recordResponseWithETag("{\"value\": \"hash\"}", 200, null);
+        CloseableHttpClient httpClientMock = anyCloseableHttpClient();
+        when(httpClientMock.execute(any(HttpRequestBase.class))).thenAnswer((invocation) -> {
+            sending.countDown();
+            joined.await(5, SECONDS);
+            return okResponse;
+        });
+        RequestMetrics requestMetrics = new RequestMetrics() {
+            @Override
+            public void requestCompleted(String operation, int statusCode, long requestBytes, long responseBytes, long durationNanos) {
+            }
+
+            @Override
+            public void responseCacheLookup(String operation, CacheResult result) {
+                if (result == CacheResult.COALESCED) {
+                    joined.countDown();
+                }
+            }
+        };
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestMetrics(requestMetrics)
+                .build();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // act
+        Future<String> first = executor.submit(() -> confluenceRestClient.getPropertyByKey("1234", "content-hash"));
+        sending.await(5, SECONDS);
+        String second = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        assertThat(first.get(5, SECONDS), is("hash"));
+        assertThat(second, is("hash"));
+        assertThat(joined.getCount(), is(0L));
+        verify(httpClientMock, times(1)).execute(any(HttpGet.class));
+        executor.shutdown();
+    }
+
+    @Test
+    public void getPropertyByKey_withRequestHedgerAndSlowResponse_usesResponseOfDuplicateSentToAlternateUrl() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientWithSlowResponseAfterFastResponses();
+        HistogramRequestMetrics requestMetrics = new HistogramRequestMetrics();
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestMetrics(requestMetrics)
+                .withRequestHedger(new RequestHedger(0.5, "http://node2.confluence.com/"))
+                .build();
+        for (int i = 0; i < RequestHedger.MIN_OBSERVED_LATENCIES; i++) {
+            confluenceRestClient.getPropertyByKey("1234", "content-hash");
+        }
+
+        // act
+        String value = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        assertThat(value, is("hedged"));
+        ArgumentCaptor<HttpRequestBase> requests = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClientMock, times(RequestHedger.MIN_OBSERVED_LATENCIES + 2)).execute(requests.capture());
+        HttpRequestBase hedgedRequest = requests.getAllValues().get(RequestHedger.MIN_OBSERVED_LATENCIES + 1);
+        assertThat(hedgedRequest.getURI().toString(), startsWith("http://node2.confluence.com/rest/api/content/1234/property/content-hash"));
+        assertThat(hedgedRequest.getHeaders("Authorization").length, is(1));
+        assertThat(requestMetrics.statistics().get("getPropertyByKey").getHedgedCount(), is(1L));
+    }
+
+    @Test
+    public void getPropertyByKey_withRequestHedgerAndExhaustedBudget_waitsForSlowResponse() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientWithSlowResponseAfterFastResponses();
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestHedger(new RequestHedger(0.01, null))
+                .build();
+        for (int i = 0; i < RequestHedger.MIN_OBSERVED_LATENCIES; i++) {
+            confluenceRestClient.getPropertyByKey("1234", "content-hash");
+        }
+
+        // act
+        String value = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        assertThat(value, is("slow"));
+        verify(httpClientMock, times(RequestHedger.MIN_OBSERVED_LATENCIES + 1)).execute(any(HttpGet.class));
+    }
+
+    @Test
+    public void getPropertyByKey_withRequestHedgerAndLatenciesOfOtherOperationOnly_waitsForSlowResponse() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = anyCloseableHttpClient();
+        when(httpClientMock.execute(any(HttpRequestBase.class))).thenAnswer((invocation) -> {
+            HttpRequestBase request = invocation.getArgument(0);
+            if (request.getURI().getPath().endsWith("/label")) {
+                return recordResponseWithETag("{\"results\": []}", 200, null);
+            }
+            if (request.getURI().getHost().equals("node2.confluence.com")) {
+                return recordResponseWithETag("{\"value\": \"hedged\"}", 200, null);
+            }
+            Thread.sleep(300);
+            return recordResponseWithETag("{\"value\": \"slow\"}", 200, null);
+        });
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestHedger(new RequestHedger(0.5, "http://node2.confluence.com/"))
+                .build();
+        for (int i = 0; i < RequestHedger.MIN_OBSERVED_LATENCIES; i++) {
+            confluenceRestClient.getLabels("1234");
+        }
+
+        // act
+        String value = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        assertThat(value, is("slow"));
+        verify(httpClientMock, times(RequestHedger.MIN_OBSERVED_LATENCIES + 1)).execute(any(HttpGet.class));
+    }
+
+    @Test
+    public void close_closesHttpClientAndStopsHedging() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientWithSlowResponseAfterFastResponses();
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestHedger(new RequestHedger(0.5, "http://node2.confluence.com/"))
+                .build();
+        for (int i = 0; i < RequestHedger.MIN_OBSERVED_LATENCIES; i++) {
+            confluenceRestClient.getPropertyByKey("1234", "content-hash");
+        }
+
+        // act
+        confluenceRestClient.close();
+        String value = confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        verify(httpClientMock).close();
+        assertThat(value, is("slow"));
+        verify(httpClientMock, times(RequestHedger.MIN_OBSERVED_LATENCIES + 1)).execute(any(HttpGet.class));
+    }
+
+    private static CloseableHttpClient recordHttpClientWithSlowResponseAfterFastResponses() throws IOException {
+        List<CloseableHttpResponse> fastResponses = IntStream.range(0, RequestHedger.MIN_OBSERVED_LATENCIES)
+                .mapToObj(i -> recordResponseWithETag("{\"value\": \"fast\"}", 200, null))
+                .collect(toList());
+        CloseableHttpResponse slowResponse = recordResponseWithETag("{\"value\": \"slow\"}", 200, null);
+        CloseableHttpResponse hedgedResponse = recordResponseWithETag("{\"value\": \"hedged\"}", 200, null);
+        AtomicInteger calls = new AtomicInteger();
+        CloseableHttpClient httpClientMock = anyCloseableHttpClient();
+        when(httpClientMock.execute(any(HttpRequestBase.class))).thenAnswer((invocation) -> {
+            HttpRequestBase request = invocation.getArgument(0);
+            if (request.getURI().getHost().equals("node2.confluence.com")) {
+                return hedgedResponse;
+            }
+            int call = calls.getAndIncrement();
+            if (call < fastResponses.size()) {
+                return fastResponses.get(call);
+            }
+            Thread.sleep(300);
+            return slowResponse;
+        });
+        return httpClientMock;
+    }
+
+    @Test
+    public void getPropertyByKey_withReadNodeRouter_spreadsGetsOverNodesAndSendsWritesToRootUrl() throws Exception {
+        // arrange
+        List<CloseableHttpResponse> responses = IntStream.range(0, 5)
+                .mapToObj(i -> recordResponseWithETag("{\"value\": \"hash\"}", 200, null))
+                .collect(toList());
+        CloseableHttpClient httpClientMock = anyCloseableHttpClient();
+        when(httpClientMock.execute(any(HttpRequestBase.class))).thenReturn(responses.get(0), responses.subList(1, responses.size()).toArray(new CloseableHttpResponse[0]));
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withReadNodeRouter(new ReadNodeRouter(asList("http://node1.confluence.com", "http://node2.confluence.com/")))
+                .build();
+
+        // act
+        for (int i = 0; i < 4; i++) {
+            confluenceRestClient.getPropertyByKey("1234", "content-hash");
+        }
+        confluenceRestClient.deletePropertyByKey("1234", "content-hash");
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> requests = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClientMock, times(5)).execute(requests.capture());
+        List<String> getHosts = requests.getAllValues().subList(0, 4).stream().map(request -> request.getURI().getHost()).collect(toList());
+        assertThat(getHosts, hasItem("node1.confluence.com"));
+        assertThat(getHosts, hasItem("node2.confluence.com"));
+        assertThat(requests.getAllValues().get(0).getURI().getPath(), is("/rest/api/content/1234/property/content-hash"));
+        assertThat(requests.getAllValues().get(4).getURI().getHost(), is("confluence.com"));
+    }
+
+    @Test
+    public void readNodeRouter_ejectsNodeAfterConsecutiveIoErrorsOr5xxResponses() {
+        // arrange
+        ReadNodeRouter readNodeRouter = new ReadNodeRouter(singletonList("http://node1.confluence.com"));
+        for (int i = 0; i < ReadNodeRouter.FAILURE_THRESHOLD; i++) {
+            readNodeRouter.select().completed(404, 1000);
+        }
+        List<String> availableNodesAfterClientErrors = readNodeRouter.availableNodes();
+
+        // act
+        readNodeRouter.select().completed(RequestMetrics.NO_RESPONSE, 1000);
+        readNodeRouter.select().completed(503, 1000);
+        readNodeRouter.select().completed(502, 1000);
+
+        // assert
+        assertThat(availableNodesAfterClientErrors, contains("http://node1.confluence.com"));
+        assertThat(readNodeRouter.availableNodes().isEmpty(), is(true));
+        assertThat(readNodeRouter.select(), is(nullValue()));
+    }
+
+    @Test
+    public void sendRequest_withRequestTimeouts_setsSocketTimeoutOfOperationClass() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("{\"value\": \"hash\"}", 200);
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestTimeouts(new RequestTimeouts(1000, 2000, 3000, null))
+                .build();
+
+        // act
+        confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        ArgumentCaptor<HttpRequestBase> request = ArgumentCaptor.forClass(HttpRequestBase.class);
+        verify(httpClientMock, times(1)).execute(request.capture());
+        assertThat(request.getValue().getConfig().getSocketTimeout(), is(1000));
+    }
+
+    @Test
+    public void sendRequest_afterDeadline_failsWithoutSendingRequest() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = anyCloseableHttpClient();
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestTimeouts(new RequestTimeouts(1000, 2000, 3000, Instant.now().minusSeconds(1)))
+                .build();
+
+        // act
+        RequestFailedException exception = assertThrows(RequestFailedException.class, () -> confluenceRestClient.getPropertyByKey("1234", "content-hash"));
+
+        // assert
+        assertThat(exception.getCause(), instanceOf(TimeoutException.class));
+        verify(httpClientMock, never()).execute(any(HttpRequestBase.class));
+    }
+
+    @Test
+    public void requestTimeouts_socketTimeoutIsCappedByDeadline() {
+        // arrange
+        RequestTimeouts requestTimeouts = new RequestTimeouts(1000, 2000, 600_000, Instant.now().plusSeconds(60));
+
+        // act
+        int metadataTimeout = requestTimeouts.socketTimeoutMillis(Operation.GET_PROPERTY_BY_KEY).getAsInt();
+        int attachmentTimeout = requestTimeouts.socketTimeoutMillis(Operation.ADD_ATTACHMENT).getAsInt();
+
+        // assert
+        assertThat(metadataTimeout, is(1000));
+        assertThat(attachmentTimeout, is(lessThanOrEqualTo(60_000)));
+    }
+
+    @Test
+    public void requestTimeouts_zeroTimeoutMeansNoTimeoutCappedByDeadline() {
+        // arrange
+        RequestTimeouts withoutDeadline = new RequestTimeouts(0, 0, 0, null);
+        RequestTimeouts withDeadline = new RequestTimeouts(0, 0, 0, Instant.now().plusSeconds(60));
+        RequestTimeouts afterDeadline = new RequestTimeouts(0, 0, 0, Instant.now().minusSeconds(1));
+
+        // act
+        OptionalInt uncapped = withoutDeadline.socketTimeoutMillis(Operation.GET_PROPERTY_BY_KEY);
+        OptionalInt capped = withDeadline.socketTimeoutMillis(Operation.GET_PROPERTY_BY_KEY);
+        OptionalInt expired = afterDeadline.socketTimeoutMillis(Operation.GET_PROPERTY_BY_KEY);
+
+        // assert
+        assertThat(uncapped.getAsInt(), is(0));
+        assertThat(capped.getAsInt(), is(greaterThan(0)));
+        assertThat(capped.getAsInt(), is(lessThanOrEqualTo(60_000)));
+        assertThat(expired.isPresent(), is(false));
+    }
+
+    @Test
+    public void requestTimeouts_negativeTimeout_isRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new RequestTimeouts(-1, 1000, 1000, null));
+    }
+
+    @Test
+    public void deleteAttachment_afterConsecutiveServerErrors_isRejectedWithoutRequestWhileReadsAreSent() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("", 500);
+        HistogramRequestMetrics requestMetrics = new HistogramRequestMetrics();
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withRequestMetrics(requestMetrics)
+                .withRequestIsolation(new RequestIsolation(2, Duration.ofMinutes(1), 0, 0, 1))
+                .build();
+        assertThrows(RequestFailedException.class, () -> confluenceRestClient.deleteAttachment("att1"));
+        assertThrows(RequestFailedException.class, () -> confluenceRestClient.deleteAttachment("att2"));
+
+        // act
+        RequestFailedException exception = assertThrows(RequestFailedException.class, () -> confluenceRestClient.deleteAttachment("att3"));
+        confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // assert
+        assertThat(exception.getCause(), instanceOf(CircuitBreakerOpenException.class));
+        verify(httpClientMock, times(3)).execute(any(HttpRequestBase.class));
+        assertThat(requestMetrics.statistics().get("deleteAttachment").getRejectedCount(), is(1L));
+    }
+
+    @Test
+    public void getPropertyByKey_rejectedByOpenReadBreaker_isNotCountedAsFailureOfReadNode() throws Exception {
+        // arrange
+        CloseableHttpClient httpClientMock = recordHttpClientForSingleResponseWithContentAndStatusCode("", 500);
+        ReadNodeRouter readNodeRouter = new ReadNodeRouter(singletonList("http://node1.confluence.com"));
+        RestApiInternalClient confluenceRestClient = aRestApiInternalClient().withRootConfluenceUrl(CONFLUENCE_ROOT_URL).withHttpClient(httpClientMock)
+                .withReadNodeRouter(readNodeRouter)
+                .withRequestIsolation(new RequestIsolation(1, Duration.ofMinutes(1), 0, 0, 0))
+                .build();
+        confluenceRestClient.getPropertyByKey("1234", "content-hash");
+
+        // act
+        for (int i = 0; i < ReadNodeRouter.FAILURE_THRESHOLD; i++) {
+            RequestFailedException exception = assertThrows(RequestFailedException.class, () -> confluenceRestClient.getPropertyByKey("1234", "content-hash"));
+            assertThat(exception.getCause(), instanceOf(CircuitBreakerOpenException.class));
+        }
+
+        // assert
+        verify(httpClientMock, times(1)).execute(any(HttpRequestBase.class));
+        assertThat(readNodeRouter.availableNodes(), contains("http://node1.confluence.com"));
+    }
+
+    @Test
+    public void requestIsolation_afterOpenDuration_sendsSingleProbeAndClosesOnSuccess() {
+        // arrange
+        RequestIsolation.Compartment compartment = new RequestIsolation(1, Duration.ZERO, 0, 0, 0)
+                .compartment(Operation.ADD_ATTACHMENT, "POST");
+        HttpRequestBase request = new HttpPost(CONFLUENCE_ROOT_URL);
+        compartment.completed(compartment.acquire(request), RequestMetrics.NO_RESPONSE);
+
+        // act
+        RequestIsolation.Permit probe = compartment.acquire(request);
+        assertThrows(CircuitBreakerOpenException.class, () -> compartment.acquire(request));
+        compartment.completed(probe, 200);
+
+        // assert
+        assertThat(probe.isProbe(), is(true));
+        assertThat(compartment.acquire(request).isProbe(), is(false));
+    }
+
+    @Test
+    public void requestIsolation_requestsAcquiredBeforeBreakerOpened_doNotMoveHalfOpenBreaker() {
+        // arrange
+        RequestIsolation.Compartment compartment = new RequestIsolation(1, Duration.ZERO, 0, 0, 0)
+                .compartment(Operation.ADD_ATTACHMENT, "POST");
+        HttpRequestBase request = new HttpPost(CONFLUENCE_ROOT_URL);
+        RequestIsolation.Permit slowSuccess = compartment.acquire(request);
+        RequestIsolation.Permit slowFailure = compartment.acquire(request);
+        compartment.completed(compartment.acquire(request), RequestMetrics.NO_RESPONSE);
+        RequestIsolation.Permit probe = compartment.acquire(request);
+
+        // act
+        compartment.completed(slowSuccess, 200);
+        compartment.completed(slowFailure, 500);
+
+        // assert
+        assertThat(probe.isProbe(), is(true));
+        assertThrows(CircuitBreakerOpenException.class, () -> compartment.acquire(request));
+        compartment.completed(probe, 200);
+        assertThat(compartment.acquire(request).isProbe(), is(false));
+    }
+
+    @Test
+    public void requestIsolation_failureOfRequestAcquiredBeforeBreakerClosed_doesNotReopenBreaker() {
+        // arrange
+        RequestIsolation.Compartment compartment = new RequestIsolation(1, Duration.ZERO, 0, 0, 0)
+                .compartment(Operation.ADD_ATTACHMENT, "POST");
+        HttpRequestBase request = new HttpPost(CONFLUENCE_ROOT_URL);
+        RequestIsolation.Permit slowFailure = compartment.acquire(request);
+        compartment.completed(compartment.acquire(request), 503);
+        compartment.completed(compartment.acquire(request), 200);
+
+        // act
+        compartment.completed(slowFailure, RequestMetrics.NO_RESPONSE);
+
+        // assert
+        assertThat(compartment.acquire(request).isProbe(), is(false));
+    }
+
+    @Test
+    public void responseCache_evictsLeastRecentlyUsedResponsesOverBudget() throws Exception {
+        // arrange
+        ResponseCache responseCache = new ResponseCache(10);
+
+        // act
+        responseCache.put("a", ResponseCache.Entry.of(recordResponseWithETag("aaaa", 200, null), 0));
+        responseCache.put("b", ResponseCache.Entry.of(recordResponseWithETag("bbbb", 200, null), 0));
+        responseCache.get("a");
+        responseCache.put("c", ResponseCache.Entry.of(recordResponseWithETag("cccc", 200, null), 0));
+        responseCache.put("d", ResponseCache.Entry.of(recordResponseWithETag("too large response", 200, null), 0));
+
+        // assert
+        assertThat(responseCache.get("a") != null, is(true));
+        assertThat(responseCache.get("b"), is(nullValue()));
+        assertThat(responseCache.get("c") != null, is(true));
+        assertThat(responseCache.get("d"), is(nullValue()));
+        assertThat(responseCache.totalBytes(), is(8L));
+    }
+
+    private static CloseableHttpResponse recordResponseWithETag(String contentPayload, int statusCode, String etag) {
+        CloseableHttpResponse httpResponseMock = mock(CloseableHttpResponse.class);
+        HttpEntity httpEntityMock = recordHttpEntityForContent(contentPayload);
+        when(httpResponseMock.getEntity()).thenReturn(httpEntityMock);
+        StatusLine statusLineMock = recordStatusLine(statusCode, null);
+        when(httpResponseMock.getStatusLine()).thenReturn(statusLineMock);
+        if (etag != null) {
+            when(httpResponseMock.getFirstHeader("ETag")).thenReturn(new BasicHeader("ETag", etag));
+        }
+        return httpResponseMock;
+    }
+
     private String generateJsonAttachmentResults(int numberOfAttachment) {
         return IntStream.range(1, numberOfAttachment + 1)
                 .boxed()
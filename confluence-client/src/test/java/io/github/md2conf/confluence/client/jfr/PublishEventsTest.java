@@ -0,0 +1,77 @@
+package io.github.md2conf.confluence.client.jfr;
+
+import io.github.md2conf.confluence.client.OrphanRemovalStrategy;
+import io.github.md2conf.confluence.client.PublishConfluenceClient;
+import io.github.md2conf.confluence.client.PublishingStrategy;
+import io.github.md2conf.confluence.client.http.ApiInternalClient;
+import io.github.md2conf.confluence.client.http.NotFoundException;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.ConfluencePage;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PublishEventsTest {
+
+    @Test
+    void publish_emits_page_hash_and_attachment_events(@TempDir Path tempDir) throws Exception {
+        Path content = Files.writeString(tempDir.resolve("page.wiki"), "h1. Page");
+        Path attachment = Files.write(tempDir.resolve("file.txt"), new byte[1024]);
+        ConfluencePage page = new ConfluencePage();
+        page.setTitle("Page");
+        page.setContentFilePath(content.toString());
+        page.setType(ConfluenceContentModel.Type.WIKI);
+        page.setAttachments(Map.of("file.txt", attachment.toString()));
+        ApiInternalClient apiInternalClient = mock(ApiInternalClient.class);
+        when(apiInternalClient.getPageByTitle("SPACE", "Parent")).thenReturn("1");
+        when(apiInternalClient.getPageByTitle("SPACE", "Page")).thenThrow(new NotFoundException());
+        when(apiInternalClient.addPageUnderAncestor(eq("SPACE"), eq("1"), eq("Page"), any(Path.class), any(), nullable(String.class))).thenReturn("2");
+        when(apiInternalClient.getAttachmentByFileName("2", "file.txt")).thenThrow(new NotFoundException());
+        PublishConfluenceClient publishConfluenceClient = new PublishConfluenceClient(PublishingStrategy.APPEND_TO_ANCESTOR,
+                OrphanRemovalStrategy.KEEP_ORPHANS, apiInternalClient, null, null, false);
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(PagePublishEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(HashEvent.class).withThreshold(Duration.ZERO);
+            recording.enable(AttachmentTransferEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            publishConfluenceClient.publish(new ConfluenceContentModel(List.of(page)), "SPACE", "Parent");
+            recording.stop();
+            Path dump = tempDir.resolve("recording.jfr");
+            recording.dump(dump);
+            events = RecordingFile.readAllEvents(dump);
+        }
+
+        Map<String, List<RecordedEvent>> eventsByName = events.stream()
+                .collect(Collectors.groupingBy(event -> event.getEventType().getName()));
+        assertThat(eventsByName).containsOnlyKeys("io.github.md2conf.PagePublish", "io.github.md2conf.Hash", "io.github.md2conf.AttachmentTransfer");
+        RecordedEvent pagePublish = eventsByName.get("io.github.md2conf.PagePublish").get(0);
+        assertThat(pagePublish.getString("pageTitle")).isEqualTo("Page");
+        assertThat(pagePublish.getString("contentId")).isEqualTo("2");
+        assertThat(eventsByName.get("io.github.md2conf.Hash"))
+                .extracting(event -> event.getLong("bytes"))
+                .containsExactlyInAnyOrder(8L, 1024L);
+        RecordedEvent upload = eventsByName.get("io.github.md2conf.AttachmentTransfer").get(0);
+        assertThat(upload.getString("direction")).isEqualTo(AttachmentTransferEvent.UPLOAD);
+        assertThat(upload.getString("fileName")).isEqualTo("file.txt");
+        assertThat(upload.getLong("bytes")).isEqualTo(1024);
+        assertThat(upload.getString("pageTitle")).isEqualTo("Page");
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.md2conf.confluence.client.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HistogramRequestMetricsTest {
+
+    @Test
+    void statistics_are_recorded_by_operation() {
+        HistogramRequestMetrics metrics = new HistogramRequestMetrics();
+
+        metrics.requestCompleted("getPageByTitle", 200, 0, 100, TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.requestCompleted("getPageByTitle", 200, 0, 100, TimeUnit.MILLISECONDS.toNanos(30));
+        metrics.requestCompleted("getPageByTitle", 404, 0, 0, TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.requestCompleted("addAttachment", 500, 2048, 50, TimeUnit.MILLISECONDS.toNanos(200));
+        metrics.requestCompleted("addAttachment", RequestMetrics.NO_RESPONSE, 2048, 0, TimeUnit.MILLISECONDS.toNanos(5));
+
+        assertThat(metrics.statistics()).containsOnlyKeys("addAttachment", "getPageByTitle");
+        HistogramRequestMetrics.OperationStatistics getPageByTitle = metrics.statistics().get("getPageByTitle");
+        assertThat(getPageByTitle.getCount()).isEqualTo(3);
+        assertThat(getPageByTitle.getFailedCount()).isZero();
+        assertThat(getPageByTitle.getClientErrorCount()).isEqualTo(1);
+        assertThat(getPageByTitle.getResponseBytes()).isEqualTo(200);
+        assertThat(getPageByTitle.latencyMillis(50)).isBetween(19.9, 20.1);
+        assertThat(getPageByTitle.maxLatencyMillis()).isBetween(29.9, 30.1);
+        HistogramRequestMetrics.OperationStatistics addAttachment = metrics.statistics().get("addAttachment");
+        assertThat(addAttachment.getFailedCount()).isEqualTo(2);
+        assertThat(addAttachment.getClientErrorCount()).isZero();
+        assertThat(addAttachment.getRequestBytes()).isEqualTo(4096);
+    }
+
+    @Test
+    void summary_lists_operations() {
+        HistogramRequestMetrics metrics = new HistogramRequestMetrics();
+        assertThat(metrics.summary()).isEmpty();
+
+        metrics.requestCompleted("getPageByTitle", 200, 0, 1024, TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.requestCompleted("updatePage", 409, 2048, 0, TimeUnit.MILLISECONDS.toNanos(10));
+        metrics.requestCompleted("updatePage", 503, 0, 0, TimeUnit.MILLISECONDS.toNanos(10));
+
+        assertThat(metrics.summary())
+                .startsWith("Confluence REST API: 3 requests, 1 failed, 1 answered with 4xx, 2.0 KB sent, 1.0 KB received")
+                .contains("getPageByTitle", "updatePage", "4xx", "p99 ms");
+        metrics.reset();
+        assertThat(metrics.summary()).isEmpty();
+    }
+
+    @Test
+    void composite_delegates_to_every_metrics() {
+        HistogramRequestMetrics first = new HistogramRequestMetrics();
+        HistogramRequestMetrics second = new HistogramRequestMetrics();
+
+        RequestMetrics.composite(first, null, RequestMetrics.NOOP, second).requestCompleted("getLabels", 200, 0, 10, 1000);
+
+        assertThat(first.statistics()).containsKey("getLabels");
+        assertThat(second.statistics()).containsKey("getLabels");
+        assertThat(RequestMetrics.composite(null, RequestMetrics.NOOP)).isSameAs(RequestMetrics.NOOP);
+        assertThat(RequestMetrics.composite(first, null)).isSameAs(first);
+    }
+
+    @Test
+    void micrometer_adapter_registers_meters() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MicrometerRequestMetrics metrics = new MicrometerRequestMetrics(registry);
+
+        metrics.requestCompleted("getLabels", 200, 0, 10, TimeUnit.MILLISECONDS.toNanos(20));
+        metrics.requestCompleted("getLabels", RequestMetrics.NO_RESPONSE, 0, 0, TimeUnit.MILLISECONDS.toNanos(20));
+
+        assertThat(registry.get(MicrometerRequestMetrics.REQUESTS).tag("operation", "getLabels").tag("status", "200").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get(MicrometerRequestMetrics.REQUESTS).tag("status", "IO_ERROR").timer().count())
+                .isEqualTo(1);
+        assertThat(registry.get(MicrometerRequestMetrics.RESPONSE_BYTES).summary().totalAmount()).isEqualTo(10);
+    }
+}
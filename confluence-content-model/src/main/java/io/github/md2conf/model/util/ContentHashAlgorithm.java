@@ -0,0 +1,71 @@
+package io.github.md2conf.model.util;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Algorithm of content hashes used to detect changes of pages and attachments.
+ * <p>
+ * Hashes are prefixed with the algorithm name, like {@code murmur3_128:5a6b...}. SHA-256 hashes have no prefix,
+ * as they had before the algorithm became configurable, so they stay readable by older versions.
+ */
+public enum ContentHashAlgorithm {
+
+    SHA256("sha256", Hashing.sha256()),
+    /**
+     * Not cryptographic, several times faster than SHA-256. Enough to detect changes.
+     */
+    MURMUR3_128("murmur3_128", Hashing.murmur3_128());
+
+    private static final char PREFIX_SEPARATOR = ':';
+
+    private final String prefix;
+    private final HashFunction hashFunction;
+
+    ContentHashAlgorithm(String prefix, HashFunction hashFunction) {
+        this.prefix = prefix;
+        this.hashFunction = hashFunction;
+    }
+
+    /**
+     * @return algorithm of the hash, empty if the algorithm is unknown. Not prefixed hash is SHA-256.
+     */
+    public static Optional<ContentHashAlgorithm> of(String hash) {
+        int separator = hash.indexOf(PREFIX_SEPARATOR);
+        if (separator < 0) {
+            return Optional.of(SHA256);
+        }
+        String prefix = hash.substring(0, separator);
+        return Arrays.stream(values()).filter(algorithm -> algorithm.prefix.equals(prefix)).findFirst();
+    }
+
+    public String getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * @return prefixed hash of UTF-8 encoded content
+     */
+    public String hash(String content) {
+        return format(hashFunction.hashString(content, UTF_8));
+    }
+
+    public String hash(byte[] content) {
+        return format(hashFunction.hashBytes(content));
+    }
+
+    Hasher newHasher() {
+        return hashFunction.newHasher();
+    }
+
+    String format(HashCode hashCode) {
+        return this == SHA256 ? hashCode.toString() : prefix + PREFIX_SEPARATOR + hashCode;
+    }
+}
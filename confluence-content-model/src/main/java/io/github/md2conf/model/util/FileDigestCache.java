@@ -0,0 +1,340 @@
+package io.github.md2conf.model.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.hash.Hasher;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache of digests of files, stored as JSON file in the output directory. Digests are hashes of file content
+ * prefixed with the algorithm, see {@link ContentHashAlgorithm}.
+ * <p>
+ * A digest is reused while the file has the same real path, size, modification time and file key (inode),
+ * otherwise the file is hashed again. Digests of files modified shortly before hashing are not saved, because such files
+ * can be modified again without a visible change of the modification time.
+ */
+@Slf4j
+public class FileDigestCache {
+
+    public static final String DEFAULT_FILE_NAME = ".md2conf-file-digests.json";
+    /**
+     * Digests of files modified within this interval before hashing are not saved
+     */
+    static final long RACY_INTERVAL_MILLIS = 2000;
+    /**
+     * Files of this size and larger are hashed from memory-mapped buffers
+     */
+    static final long MEMORY_MAPPING_THRESHOLD = 1024 * 1024;
+    private static final long MEMORY_MAPPING_CHUNK_SIZE = 64 * 1024 * 1024;
+    private static final int CACHE_FORMAT_VERSION = 2;
+    private static final ObjectMapper JSON_OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path cacheFile;
+    private final ContentHashAlgorithm algorithm;
+    private final int parallelism;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong hashedBytes = new AtomicLong();
+    private volatile boolean modified;
+
+    FileDigestCache(Path cacheFile, ContentHashAlgorithm algorithm, int parallelism) {
+        this.cacheFile = cacheFile;
+        this.algorithm = algorithm;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    public static FileDigestCache load(Path cacheFile) {
+        return load(cacheFile, ContentHashAlgorithm.SHA256);
+    }
+
+    /**
+     * @param cacheFile - cache file, created on {@link #save()} if missing
+     * @param algorithm - algorithm of digests, others can be computed on demand
+     * @return cache with digests of the previous runs. Unreadable cache file is ignored.
+     */
+    public static FileDigestCache load(Path cacheFile, ContentHashAlgorithm algorithm) {
+        FileDigestCache res = new FileDigestCache(cacheFile, algorithm, Runtime.getRuntime().availableProcessors());
+        if (!Files.isRegularFile(cacheFile)) {
+            return res;
+        }
+        try {
+            State state = JSON_OBJECT_MAPPER.readValue(cacheFile.toFile(), State.class);
+            if (state.version == CACHE_FORMAT_VERSION) {
+                res.entries.putAll(state.files);
+            }
+        } catch (IOException e) {
+            log.warn("Could not read file digests from {}, all files are hashed again", cacheFile, e);
+        }
+        return res;
+    }
+
+    public static FileDigestCache inMemory() {
+        return inMemory(ContentHashAlgorithm.SHA256);
+    }
+
+    /**
+     * @return cache which is not saved, digests are reused only within the run
+     */
+    public static FileDigestCache inMemory(ContentHashAlgorithm algorithm) {
+        return new FileDigestCache(null, algorithm, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ContentHashAlgorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return digest of the file content
+     */
+    public String digest(Path file) {
+        return digestAll(List.of(file)).get(file);
+    }
+
+    /**
+     * @return digest of the file if it is cached and the file is not changed since
+     */
+    public Optional<String> cachedDigest(Path file) {
+        try {
+            Fingerprint fingerprint = fingerprint(file);
+            Entry entry = entries.get(fingerprint.key);
+            return entry != null && entry.matches(fingerprint) ? Optional.ofNullable(entry.digests.get(algorithm.getPrefix())) : Optional.empty();
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public Map<Path, String> digestAll(Collection<Path> files) {
+        return digestAll(files, this.algorithm);
+    }
+
+    /**
+     * Changed and not cached files are hashed in parallel.
+     *
+     * @param algorithm - algorithm of digests, e.g. to compare with digests computed by another algorithm before
+     * @return digests by files, in the order of the files
+     */
+    public Map<Path, String> digestAll(Collection<Path> files, ContentHashAlgorithm algorithm) {
+        Map<Path, String> res = new LinkedHashMap<>();
+        Map<Path, Fingerprint> changed = new LinkedHashMap<>();
+        for (Path file : files) {
+            Fingerprint fingerprint;
+            try {
+                fingerprint = fingerprint(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not read attributes of file " + file, e);
+            }
+            Entry entry = entries.get(fingerprint.key);
+            String digest = entry != null && entry.matches(fingerprint) ? entry.digests.get(algorithm.getPrefix()) : null;
+            if (digest != null) {
+                res.put(file, digest);
+            } else {
+                res.put(file, null);
+                changed.put(file, fingerprint);
+            }
+        }
+        if (changed.isEmpty()) {
+            return res;
+        }
+        int threads = Math.min(this.parallelism, changed.size());
+        if (threads <= 1) {
+            changed.forEach((file, fingerprint) -> res.put(file, hashAndCache(file, fingerprint, algorithm)));
+            return res;
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        try {
+            Map<Path, CompletableFuture<String>> digests = new LinkedHashMap<>();
+            changed.forEach((file, fingerprint) -> digests.put(file, CompletableFuture.supplyAsync(() -> hashAndCache(file, fingerprint, algorithm), executorService)));
+            try {
+                digests.forEach((file, digest) -> res.put(file, digest.join()));
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw e;
+            }
+        } finally {
+            executorService.shutdown();
+        }
+        return res;
+    }
+
+    /**
+     * @return number of bytes hashed by this cache, cached digests are not counted
+     */
+    public long hashedBytes() {
+        return hashedBytes.get();
+    }
+
+    /**
+     * Write digests to the cache file, if any digest is added. Digests of removed files are dropped.
+     */
+    public void save() {
+        if (cacheFile == null || !modified) {
+            return;
+        }
+        State state = new State();
+        state.version = CACHE_FORMAT_VERSION;
+        entries.forEach((key, entry) -> {
+            if (entry.persistent && Files.isRegularFile(Path.of(key))) {
+                state.files.put(key, entry);
+            }
+        });
+        try {
+            Path directory = cacheFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, cacheFile.getFileName().toString(), ".tmp");
+            JSON_OBJECT_MAPPER.writeValue(tmp.toFile(), state);
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            modified = false;
+        } catch (IOException e) {
+            log.warn("Could not save file digests to {}, files are hashed again next time", cacheFile, e);
+        }
+    }
+
+    private String hashAndCache(Path file, Fingerprint fingerprint, ContentHashAlgorithm algorithm) {
+        long startMillis = System.currentTimeMillis();
+        String digest;
+        try {
+            digest = hash(file, fingerprint.size, algorithm);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not compute digest of file " + file, e);
+        }
+        hashedBytes.addAndGet(fingerprint.size);
+        try {
+            if (fingerprint(file).equals(fingerprint)) {
+                boolean racy = TimeUnit.NANOSECONDS.toMillis(fingerprint.modified) >= startMillis - RACY_INTERVAL_MILLIS;
+                entries.compute(fingerprint.key, (key, existing) -> {
+                    Entry entry = new Entry(fingerprint, !racy);
+                    if (existing != null && existing.matches(fingerprint)) {
+                        entry.digests.putAll(existing.digests);
+                    }
+                    entry.digests.put(algorithm.getPrefix(), digest);
+                    return entry;
+                });
+                if (!racy) {
+                    modified = true;
+                }
+            }
+        } catch (IOException e) {
+            log.debug("File {} is not cached", file, e);
+        }
+        return digest;
+    }
+
+    static String hash(Path file, long size, ContentHashAlgorithm algorithm) throws IOException {
+        Hasher hasher = algorithm.newHasher();
+        if (size >= MEMORY_MAPPING_THRESHOLD) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long channelSize = channel.size();
+                for (long position = 0; position < channelSize; position += MEMORY_MAPPING_CHUNK_SIZE) {
+                    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MEMORY_MAPPING_CHUNK_SIZE, channelSize - position));
+                    hasher.putBytes(buffer);
+                }
+            }
+        } else {
+            byte[] buffer = new byte[8192];
+            try (InputStream inputStream = Files.newInputStream(file)) {
+                for (int read = inputStream.read(buffer); read >= 0; read = inputStream.read(buffer)) {
+                    hasher.putBytes(buffer, 0, read);
+                }
+            }
+        }
+        return algorithm.format(hasher.hash());
+    }
+
+    private static Fingerprint fingerprint(Path file) throws IOException {
+        Path realPath = file.toRealPath();
+        BasicFileAttributes attributes = Files.readAttributes(realPath, BasicFileAttributes.class);
+        if (!attributes.isRegularFile()) {
+            throw new IOException("Not a regular file: " + file);
+        }
+        return new Fingerprint(realPath.toString(), attributes.size(), attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+                String.valueOf(attributes.fileKey()));
+    }
+
+    private static final class Fingerprint {
+        private final String key;
+        private final long size;
+        private final long modified;
+        private final String fileKey;
+
+        private Fingerprint(String key, long size, long modified, String fileKey) {
+            this.key = key;
+            this.size = size;
+            this.modified = modified;
+            this.fileKey = fileKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Fingerprint)) return false;
+            Fingerprint that = (Fingerprint) o;
+            return size == that.size && modified == that.modified && key.equals(that.key) && fileKey.equals(that.fileKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode();
+        }
+    }
+
+    static class Entry {
+        public long size;
+        public long modified;
+        public String fileKey;
+        /**
+         * Digests by algorithm prefix
+         */
+        public Map<String, String> digests = new TreeMap<>();
+        /**
+         * Recently modified files are cached only within the run
+         */
+        @JsonIgnore
+        boolean persistent = true;
+
+        Entry() {
+        }
+
+        Entry(Fingerprint fingerprint, boolean persistent) {
+            this.size = fingerprint.size;
+            this.modified = fingerprint.modified;
+            this.fileKey = fingerprint.fileKey;
+            this.persistent = persistent;
+        }
+
+        private boolean matches(Fingerprint fingerprint) {
+            return size == fingerprint.size && modified == fingerprint.modified && fingerprint.fileKey.equals(fileKey);
+        }
+    }
+
+    static class State {
+        public int version;
+        public Map<String, Entry> files = new TreeMap<>();
+    }
+}
@@ -53,6 +53,30 @@ public class ModelFilesystemUtil {
      * @return Path to saved file
      */
     public static File saveConfluenceContentModelAtPath(ConfluenceContentModel confluenceContentModel, Path outputPath) {
+        return saveConfluenceContentModelAtPath(serializeConfluenceContentModel(confluenceContentModel), outputPath);
+    }
+
+    /**
+     * Snapshot of the model, which can be saved while the model is still in use
+     *
+     * @param confluenceContentModel - confluenceContentModel to serialize
+     * @return pretty printed json of confluenceContentModel
+     */
+    public static byte[] serializeConfluenceContentModel(ConfluenceContentModel confluenceContentModel) {
+        ObjectWriter writer = JSON_OBJECT_MAPPER.writer(new DefaultPrettyPrinter());
+        try {
+            return writer.writeValueAsBytes(confluenceContentModel);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot serialize confluence content model", e);
+        }
+    }
+
+    /**
+     * @param confluenceContentModelJson - json of confluenceContentModel, see {@link #serializeConfluenceContentModel(ConfluenceContentModel)}
+     * @param outputPath - path to save confluenceContentModel
+     * @return Path to saved file
+     */
+    public static File saveConfluenceContentModelAtPath(byte[] confluenceContentModelJson, Path outputPath) {
         if (outputPath.toFile().exists() && !outputPath.toFile().isDirectory()) {
             throw new IllegalArgumentException("Output path is not a directory");
         }
@@ -60,9 +84,8 @@ public class ModelFilesystemUtil {
             createDirectories(outputPath);
         }
         File jsonFile = new File(outputPath.toFile(), DEFAULT_FILE_NAME);
-        ObjectWriter writer = JSON_OBJECT_MAPPER.writer(new DefaultPrettyPrinter());
         try {
-            writer.writeValue(jsonFile, confluenceContentModel);
+            Files.write(jsonFile.toPath(), confluenceContentModelJson);
         } catch (IOException e) {
             throw new RuntimeException("Cannot save json to file " + jsonFile.getAbsoluteFile().getName(), e);
         }
@@ -0,0 +1,20 @@
+package io.github.md2conf.model.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContentHashAlgorithmTest {
+
+    @Test
+    void hashes_are_prefixed_with_algorithm_except_sha256() {
+        String sha256 = ContentHashAlgorithm.SHA256.hash("abc");
+        String murmur = ContentHashAlgorithm.MURMUR3_128.hash("abc");
+
+        assertThat(sha256).isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+        assertThat(murmur).startsWith("murmur3_128:").hasSize("murmur3_128:".length() + 32);
+        assertThat(ContentHashAlgorithm.of(sha256)).contains(ContentHashAlgorithm.SHA256);
+        assertThat(ContentHashAlgorithm.of(murmur)).contains(ContentHashAlgorithm.MURMUR3_128);
+        assertThat(ContentHashAlgorithm.of("blake3:abc")).isEmpty();
+    }
+}
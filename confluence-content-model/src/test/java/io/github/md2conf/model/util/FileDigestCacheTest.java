@@ -0,0 +1,110 @@
+package io.github.md2conf.model.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileDigestCacheTest {
+
+    private static final String ABC_SHA256 = "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void digests_of_unchanged_files_are_reused_after_reload() throws Exception {
+        Path cacheFile = tempDir.resolve("out").resolve(FileDigestCache.DEFAULT_FILE_NAME);
+        Path a = writeOldFile("a.png", "abc");
+        Path b = writeOldFile("b.png", "bcd");
+
+        FileDigestCache cache = FileDigestCache.load(cacheFile);
+        Map<Path, String> digests = cache.digestAll(List.of(a, b));
+        assertThat(digests).containsOnlyKeys(a, b).containsEntry(a, ABC_SHA256);
+        assertThat(cache.hashedBytes()).isEqualTo(6);
+        cache.save();
+        assertThat(cacheFile).exists();
+
+        FileDigestCache reloaded = FileDigestCache.load(cacheFile);
+        assertThat(reloaded.cachedDigest(a)).contains(ABC_SHA256);
+        assertThat(reloaded.digestAll(List.of(a, b))).isEqualTo(digests);
+        assertThat(reloaded.hashedBytes()).isZero();
+
+        Files.writeString(b, "changed");
+        Files.setLastModifiedTime(b, FileTime.from(Instant.now().minusSeconds(60)));
+        assertThat(reloaded.cachedDigest(b)).isEmpty();
+        assertThat(reloaded.digest(b)).isNotEqualTo(digests.get(b));
+        assertThat(reloaded.hashedBytes()).isEqualTo("changed".length());
+    }
+
+    @Test
+    void digests_of_other_algorithm_are_computed_on_demand_and_cached_together() throws Exception {
+        Path cacheFile = tempDir.resolve(FileDigestCache.DEFAULT_FILE_NAME);
+        Path a = writeOldFile("a.png", "abc");
+
+        FileDigestCache cache = FileDigestCache.load(cacheFile, ContentHashAlgorithm.MURMUR3_128);
+        String murmur = cache.digest(a);
+        assertThat(murmur).startsWith("murmur3_128:").isEqualTo(ContentHashAlgorithm.MURMUR3_128.hash("abc"));
+        assertThat(cache.digestAll(List.of(a), ContentHashAlgorithm.SHA256)).containsEntry(a, ABC_SHA256);
+        cache.save();
+
+        FileDigestCache reloaded = FileDigestCache.load(cacheFile, ContentHashAlgorithm.MURMUR3_128);
+        assertThat(reloaded.cachedDigest(a)).contains(murmur);
+        assertThat(reloaded.digestAll(List.of(a), ContentHashAlgorithm.SHA256)).containsEntry(a, ABC_SHA256);
+        assertThat(reloaded.hashedBytes()).isZero();
+    }
+
+    @Test
+    void digests_of_recently_modified_files_are_not_saved() throws Exception {
+        Path cacheFile = tempDir.resolve(FileDigestCache.DEFAULT_FILE_NAME);
+        Path a = tempDir.resolve("a.png");
+        Files.writeString(a, "abc");
+
+        FileDigestCache cache = FileDigestCache.load(cacheFile);
+        assertThat(cache.digest(a)).isEqualTo(ABC_SHA256);
+        assertThat(cache.cachedDigest(a)).contains(ABC_SHA256);
+        cache.save();
+
+        assertThat(cacheFile).doesNotExist();
+        assertThat(FileDigestCache.load(cacheFile).cachedDigest(a)).isEmpty();
+    }
+
+    @Test
+    void large_files_are_hashed_from_mapped_memory() throws Exception {
+        byte[] content = new byte[(int) FileDigestCache.MEMORY_MAPPING_THRESHOLD * 3 + 17];
+        new Random(42).nextBytes(content);
+        Path file = tempDir.resolve("large.bin");
+        Files.write(file, content);
+
+        String expected = hex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertThat(FileDigestCache.hash(file, content.length, ContentHashAlgorithm.SHA256)).isEqualTo(expected);
+        assertThat(FileDigestCache.inMemory().digest(file)).isEqualTo(expected);
+        assertThat(FileDigestCache.hash(file, content.length, ContentHashAlgorithm.MURMUR3_128)).isEqualTo(ContentHashAlgorithm.MURMUR3_128.hash(content));
+        assertThat(FileDigestCache.hash(writeOldFile("abc.txt", "abc"), 3, ContentHashAlgorithm.SHA256)).isEqualTo(ABC_SHA256);
+    }
+
+    private Path writeOldFile(String name, String content) throws Exception {
+        Path path = tempDir.resolve(name);
+        Files.write(path, content.getBytes(UTF_8));
+        Files.setLastModifiedTime(path, FileTime.from(Instant.now().minusSeconds(3600)));
+        return path;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder res = new StringBuilder();
+        for (byte b : bytes) {
+            res.append(String.format("%02x", b));
+        }
+        return res.toString();
+    }
+}
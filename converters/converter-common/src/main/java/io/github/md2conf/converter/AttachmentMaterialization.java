@@ -0,0 +1,23 @@
+package io.github.md2conf.converter;
+
+/**
+ * How attachments are placed into the output directory.
+ */
+public enum AttachmentMaterialization {
+    /**
+     * Copy file content
+     */
+    COPY,
+    /**
+     * Create a hard link to the source file, copy if not possible (e.g. different file systems)
+     */
+    HARD_LINK,
+    /**
+     * Create a copy-on-write clone of the source file, copy if not supported by the file system
+     */
+    REFLINK,
+    /**
+     * Create a symbolic link to the source file
+     */
+    SYMLINK
+}
@@ -0,0 +1,177 @@
+package io.github.md2conf.converter;
+
+import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Places files into a target directory using the configured {@link AttachmentMaterialization}.
+ * <p>
+ * A target which is already identical to the source is left untouched. Files are identical when they are
+ * the same file (hard link), the symbolic link points to the source, or when size matches and either
+ * modification time or content matches.
+ */
+public class AttachmentMaterializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AttachmentMaterializer.class);
+
+    public static final AttachmentMaterializer COPY = new AttachmentMaterializer(AttachmentMaterialization.COPY);
+
+    private static final boolean IS_LINUX = System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux");
+    /**
+     * Smaller files are copied, as forking {@code cp} costs more than copying them
+     */
+    static final long REFLINK_MIN_SIZE = 64 * 1024;
+    /**
+     * Whether reflinks are supported by the file store of the target, known after the first attempt on the store
+     */
+    private static final Map<FileStore, Boolean> reflinkSupport = new ConcurrentHashMap<>();
+
+    private final AttachmentMaterialization materialization;
+
+    public AttachmentMaterializer(AttachmentMaterialization materialization) {
+        this.materialization = Objects.requireNonNull(materialization);
+    }
+
+    public AttachmentMaterialization getMaterialization() {
+        return materialization;
+    }
+
+    /**
+     * @param source          - source file
+     * @param targetDirectory - existing target directory
+     * @return path of the file in the target directory
+     * @throws IOException in case of IO error
+     */
+    public Path materializeToDirectory(Path source, Path targetDirectory) throws IOException {
+        Path target = targetDirectory.resolve(source.getFileName().toString());
+        materialize(source, target);
+        return target;
+    }
+
+    /**
+     * @param source - source file
+     * @param target - target file, replaced if exists and differs from source
+     * @return true if target was (re)created, false if target is already identical to source
+     * @throws IOException in case of IO error
+     */
+    public boolean materialize(Path source, Path target) throws IOException {
+        if (isIdentical(source, target)) {
+            return false;
+        }
+        Files.deleteIfExists(target);
+        switch (materialization) {
+            case HARD_LINK:
+                try {
+                    Files.createLink(target, source);
+                } catch (IOException | UnsupportedOperationException e) {
+                    logger.debug("Cannot create hard link {} to {}, fallback to copy", target, source, e);
+                    copy(source, target);
+                }
+                break;
+            case SYMLINK:
+                Files.createSymbolicLink(target, source.toAbsolutePath());
+                break;
+            case REFLINK:
+                if (!reflink(source, target)) {
+                    copy(source, target);
+                }
+                break;
+            default:
+                copy(source, target);
+        }
+        return true;
+    }
+
+    private boolean isIdentical(Path source, Path target) throws IOException {
+        if (Files.isSymbolicLink(target)) {
+            return materialization == AttachmentMaterialization.SYMLINK
+                    && Files.readSymbolicLink(target).equals(source.toAbsolutePath());
+        }
+        if (materialization == AttachmentMaterialization.SYMLINK || !Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            return false;
+        }
+        BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+        BasicFileAttributes targetAttributes = Files.readAttributes(target, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        if (sourceAttributes.fileKey() != null && sourceAttributes.fileKey().equals(targetAttributes.fileKey())) {
+            return true;
+        }
+        if (!targetAttributes.isRegularFile() || sourceAttributes.size() != targetAttributes.size()) {
+            return false;
+        }
+        if (sourceAttributes.lastModifiedTime().equals(targetAttributes.lastModifiedTime())) {
+            return true;
+        }
+        if (FileUtils.contentEquals(source.toFile(), target.toFile())) {
+            if (materialization != AttachmentMaterialization.HARD_LINK) {
+                // make the next check cheap
+                Files.setLastModifiedTime(target, sourceAttributes.lastModifiedTime());
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
+    /**
+     * There is no portable API for copy-on-write clones (FICLONE ioctl), so delegate to {@code cp --reflink=always}
+     * on Linux. When the first reflink on a file store fails, reflinks are not attempted again on that store. Later
+     * failures only make the file fall back to copy.
+     */
+    private static boolean reflink(Path source, Path target) throws IOException {
+        if (!IS_LINUX || Files.size(source) < REFLINK_MIN_SIZE) {
+            return false;
+        }
+        FileStore fileStore = Files.getFileStore(target.toAbsolutePath().getParent());
+        if (!reflinkSupport.getOrDefault(fileStore, true)) {
+            return false;
+        }
+        boolean created = false;
+        try {
+            Process process = new ProcessBuilder("cp", "--reflink=always", "--preserve=timestamps",
+                    source.toAbsolutePath().toString(), target.toAbsolutePath().toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            created = process.waitFor(1, TimeUnit.MINUTES) && process.exitValue() == 0;
+            if (!created) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot run cp to create reflink", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Boolean supported = reflinkSupport.putIfAbsent(fileStore, created);
+        if (created) {
+            return true;
+        }
+        if (supported == null) {
+            logger.info("Reflinks are not supported on {}, fallback to copy", fileStore);
+        } else {
+            logger.debug("Cannot create reflink {} to {}, fallback to copy", target, source);
+        }
+        try {
+            Files.deleteIfExists(target);
+        } catch (IOException e) {
+            logger.debug("Cannot remove {}", target, e);
+        }
+        return false;
+    }
+}
@@ -1,12 +1,10 @@
 package io.github.md2conf.converter;
 
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.file.PathUtils;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -30,6 +28,11 @@ public class AttachmentUtil {
 
     @SafeVarargs
     public static Set<Path> copyPageAttachments(Path destinationPagePath, List<Path>... sourceAttachments) throws IOException {
+        return materializePageAttachments(AttachmentMaterializer.COPY, destinationPagePath, sourceAttachments);
+    }
+
+    @SafeVarargs
+    public static Set<Path> materializePageAttachments(AttachmentMaterializer materializer, Path destinationPagePath, List<Path>... sourceAttachments) throws IOException {
         Set<Path> copiedAttachments = new HashSet<>();
         Set<Path> sources = Arrays.stream(sourceAttachments)
                 .flatMap(List::stream)
@@ -43,13 +46,16 @@ public class AttachmentUtil {
                     throw new IOException("Cannot create dirs for path " + directoryWithAttachments);
                 }
             }
-            copiedAttachments.add(PathUtils.copyFileToDirectory(sourceAttachment,
-                    directoryWithAttachments.toPath(), StandardCopyOption.REPLACE_EXISTING));
+            copiedAttachments.add(materializer.materializeToDirectory(sourceAttachment, directoryWithAttachments.toPath()));
         }
         return copiedAttachments;
     }
 
     public static List<Path> copyAttachmentsMap(Path destinationPagePath, Map<String, String> pathMap) throws IOException {
+        return materializeAttachmentsMap(AttachmentMaterializer.COPY, destinationPagePath, pathMap);
+    }
+
+    public static List<Path> materializeAttachmentsMap(AttachmentMaterializer materializer, Path destinationPagePath, Map<String, String> pathMap) throws IOException {
         if (pathMap.isEmpty()){
             return Collections.emptyList();
         }
@@ -64,8 +70,7 @@ public class AttachmentUtil {
         }
         for (String name : pathMap.keySet()) {
             Path sourcePath = Path.of(pathMap.get(name));
-            copiedAttachments.add(PathUtils.copyFileToDirectory(sourcePath,
-                    targetDir.toPath(), StandardCopyOption.REPLACE_EXISTING));
+            copiedAttachments.add(materializer.materializeToDirectory(sourcePath, targetDir.toPath()));
         }
         return copiedAttachments;
     }
@@ -0,0 +1,37 @@
+package io.github.md2conf.converter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+public class ContentFileUtil {
+
+    /**
+     * Write content to the file only if the file content differs, so the modification time of an unchanged file
+     * stays stable. Content is written to a new file which replaces the target, so a target linked to a source
+     * file (see {@link AttachmentMaterializer}) never modifies the source.
+     *
+     * @param path    - target file
+     * @param content - content to write
+     * @return true if file was written
+     * @throws IOException in case of IO error
+     */
+    public static boolean writeIfChanged(Path path, byte[] content) throws IOException {
+        if (!Files.isSymbolicLink(path) && Files.isRegularFile(path)
+                && Files.size(path) == content.length
+                && Arrays.equals(Files.readAllBytes(path), content)) {
+            return false;
+        }
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,20 @@
+package io.github.md2conf.converter;
+
+import io.github.md2conf.model.ConfluencePage;
+
+/**
+ * Receives pages as soon as they are converted. Parent page is always passed before its children.
+ */
+@FunctionalInterface
+public interface PageConvertedListener {
+
+    PageConvertedListener NOOP = (page, parent) -> {
+    };
+
+    /**
+     * @param page   - converted page, children are added to it later
+     * @param parent - converted parent page or null for top level page
+     */
+    void pageConverted(ConfluencePage page, ConfluencePage parent);
+
+}
@@ -2,11 +2,30 @@ package io.github.md2conf.converter;
 
 import io.github.md2conf.indexer.PagesStructure;
 import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.ConfluencePage;
 
 import java.io.IOException;
+import java.util.List;
 
 public interface PageStructureConverter {
 
     ConfluenceContentModel convert(PagesStructure pagesStructure) throws IOException;
 
+    /**
+     * Convert and notify listener about every converted page, parent pages first.
+     * Default implementation notifies listener after the whole structure is converted.
+     */
+    default ConfluenceContentModel convert(PagesStructure pagesStructure, PageConvertedListener listener) throws IOException {
+        ConfluenceContentModel model = convert(pagesStructure);
+        notifyPageConverted(model.getPages(), null, listener);
+        return model;
+    }
+
+    private static void notifyPageConverted(List<ConfluencePage> pages, ConfluencePage parent, PageConvertedListener listener) {
+        for (ConfluencePage page : pages) {
+            listener.pageConverted(page, parent);
+            notifyPageConverted(page.getChildren(), page, listener);
+        }
+    }
+
 }
@@ -0,0 +1,142 @@
+package io.github.md2conf.converter.cache;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed cache of converted pages.
+ * <p>
+ * An entry is addressed by the hash of the source bytes, the source location and the converter options.
+ * Titles of pages referenced by crosspage links are stored within the entry and checked on lookup,
+ * so an entry is reused only while the referenced subset of the title map is unchanged.
+ * Targets of links, which did not resolve, are stored as well, so an entry is not reused once such a target appears.
+ * <p>
+ * Entries not used since the last {@link #evictUnused()} are deleted by it, so entries of removed or changed pages
+ * don't pile up.
+ */
+public class ConversionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConversionCache.class);
+
+    public static final String DEFAULT_CACHE_DIRECTORY = ".md2conf-conversion-cache";
+    /**
+     * Bump on any change of the entry format or of the converters output.
+     */
+    private static final String CACHE_FORMAT_VERSION = "2";
+    private static final ObjectMapper JSON_OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path cacheDirectory;
+    private final Set<String> usedKeys = ConcurrentHashMap.newKeySet();
+
+    public ConversionCache(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * @param source           - source bytes
+     * @param sourcePath       - source path, local links are resolved against it
+     * @param converterOptions - converter options affecting the output
+     * @return cache key
+     */
+    public static String cacheKey(byte[] source, Path sourcePath, String converterOptions) {
+        MessageDigest digest = DigestUtils.getSha256Digest();
+        digest.update(CACHE_FORMAT_VERSION.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(sourcePath.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(converterOptions.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(source);
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    /**
+     * @param key      - cache key
+     * @param titleMap - current title map
+     * @return entry if present and still valid for the given title map
+     */
+    public Optional<ConversionCacheEntry> get(String key, Map<Path, String> titleMap) {
+        Path entryPath = entryPath(key);
+        if (!Files.isRegularFile(entryPath)) {
+            return Optional.empty();
+        }
+        ConversionCacheEntry entry;
+        try {
+            entry = JSON_OBJECT_MAPPER.readValue(entryPath.toFile(), ConversionCacheEntry.class);
+        } catch (IOException e) {
+            logger.warn("Cannot read conversion cache entry {}, ignoring it", entryPath, e);
+            return Optional.empty();
+        }
+        for (Map.Entry<String, String> referencedTitle : entry.getReferencedTitles().entrySet()) {
+            if (!Objects.equals(titleMap.get(Path.of(referencedTitle.getKey())), referencedTitle.getValue())) {
+                return Optional.empty();
+            }
+        }
+        for (String referencedFile : entry.getReferencedFiles()) {
+            if (!Files.isRegularFile(Path.of(referencedFile))) {
+                return Optional.empty();
+            }
+        }
+        for (String unresolvedPageLink : entry.getUnresolvedPageLinks()) {
+            if (titleMap.containsKey(Path.of(unresolvedPageLink))) {
+                return Optional.empty();
+            }
+        }
+        for (String unresolvedFileLink : entry.getUnresolvedFileLinks()) {
+            if (Files.isRegularFile(Path.of(unresolvedFileLink))) {
+                return Optional.empty();
+            }
+        }
+        usedKeys.add(key);
+        return Optional.of(entry);
+    }
+
+    public void put(String key, ConversionCacheEntry entry) throws IOException {
+        Path entryPath = entryPath(key);
+        Files.createDirectories(entryPath.getParent());
+        Path tmp = Files.createTempFile(entryPath.getParent(), key, ".tmp");
+        JSON_OBJECT_MAPPER.writeValue(tmp.toFile(), entry);
+        Files.move(tmp, entryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        usedKeys.add(key);
+    }
+
+    /**
+     * Delete entries, which were neither returned by {@link #get(String, Map)} nor put since the previous call.
+     * Call after a complete conversion only, otherwise entries of pages not converted yet are lost.
+     */
+    public void evictUnused() throws IOException {
+        if (Files.isDirectory(cacheDirectory)) {
+            try (Stream<Path> files = Files.walk(cacheDirectory)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    String fileName = file.getFileName().toString();
+                    if (!fileName.endsWith(".json") || !usedKeys.contains(fileName.substring(0, fileName.length() - ".json".length()))) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        }
+        usedKeys.clear();
+    }
+
+    private Path entryPath(String key) {
+        return cacheDirectory.resolve(key.substring(0, 2)).resolve(key + ".json");
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.md2conf.converter.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cached result of a single page conversion.
+ */
+public class ConversionCacheEntry {
+
+    /**
+     * Converted content, as it is written to the output file.
+     */
+    private String content;
+    /**
+     * Absolute paths of local files referenced by the page (images and attachment links).
+     */
+    private List<String> referencedFiles = new ArrayList<>();
+    /**
+     * Absolute paths of pages referenced by crosspage links, mapped to the titles used at conversion time.
+     */
+    private Map<String, String> referencedTitles = new HashMap<>();
+    /**
+     * Absolute paths of pages, which links left unresolved at conversion time would point to.
+     */
+    private List<String> unresolvedPageLinks = new ArrayList<>();
+    /**
+     * Absolute paths of files, which images and attachment links left unresolved at conversion time would point to.
+     */
+    private List<String> unresolvedFileLinks = new ArrayList<>();
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public List<String> getReferencedFiles() {
+        return referencedFiles;
+    }
+
+    public void setReferencedFiles(List<String> referencedFiles) {
+        this.referencedFiles = referencedFiles;
+    }
+
+    public Map<String, String> getReferencedTitles() {
+        return referencedTitles;
+    }
+
+    public void setReferencedTitles(Map<String, String> referencedTitles) {
+        this.referencedTitles = referencedTitles;
+    }
+
+    public List<String> getUnresolvedPageLinks() {
+        return unresolvedPageLinks;
+    }
+
+    public void setUnresolvedPageLinks(List<String> unresolvedPageLinks) {
+        this.unresolvedPageLinks = unresolvedPageLinks;
+    }
+
+    public List<String> getUnresolvedFileLinks() {
+        return unresolvedFileLinks;
+    }
+
+    public void setUnresolvedFileLinks(List<String> unresolvedFileLinks) {
+        this.unresolvedFileLinks = unresolvedFileLinks;
+    }
+}
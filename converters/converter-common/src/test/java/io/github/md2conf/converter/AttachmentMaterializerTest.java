@@ -0,0 +1,103 @@
+package io.github.md2conf.converter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AttachmentMaterializerTest {
+
+    @TempDir
+    private Path tmpDir;
+
+    private Path source() throws IOException {
+        Path source = tmpDir.resolve("source.txt");
+        Files.writeString(source, "content");
+        Files.createDirectories(tmpDir.resolve("target"));
+        return source;
+    }
+
+    @ParameterizedTest
+    @EnumSource(AttachmentMaterialization.class)
+    void materialize_twice_skips_identical_target(AttachmentMaterialization materialization) throws IOException {
+        Path source = source();
+        AttachmentMaterializer materializer = new AttachmentMaterializer(materialization);
+        Path target = tmpDir.resolve("target/source.txt");
+        assertThat(materializer.materialize(source, target)).isTrue();
+        assertThat(target).hasContent("content");
+        assertThat(materializer.materialize(source, target)).isFalse();
+        assertThat(materializer.materializeToDirectory(source, tmpDir.resolve("target"))).isEqualTo(target);
+    }
+
+    @Test
+    void hard_link_shares_file_with_source() throws IOException {
+        Path source = source();
+        Path target = new AttachmentMaterializer(AttachmentMaterialization.HARD_LINK).materializeToDirectory(source, tmpDir.resolve("target"));
+        assertThat(Files.isSameFile(source, target)).isTrue();
+        assertThat(Files.isSymbolicLink(target)).isFalse();
+    }
+
+    @Test
+    void symlink_points_to_source() throws IOException {
+        Path source = source();
+        Path target = new AttachmentMaterializer(AttachmentMaterialization.SYMLINK).materializeToDirectory(source, tmpDir.resolve("target"));
+        assertThat(Files.isSymbolicLink(target)).isTrue();
+        assertThat(Files.readSymbolicLink(target)).isEqualTo(source.toAbsolutePath());
+    }
+
+    @Test
+    void reflink_of_large_file_creates_independent_copy() throws IOException {
+        Path source = tmpDir.resolve("large.bin");
+        Files.write(source, new byte[(int) AttachmentMaterializer.REFLINK_MIN_SIZE * 2]);
+        Files.createDirectories(tmpDir.resolve("target"));
+        AttachmentMaterializer reflink = new AttachmentMaterializer(AttachmentMaterialization.REFLINK);
+        for (int i = 0; i < 2; i++) {
+            Path target = reflink.materializeToDirectory(source, tmpDir.resolve("target"));
+            assertThat(Files.isSameFile(source, target)).isFalse();
+            assertThat(Files.mismatch(source, target)).isEqualTo(-1L);
+            Files.delete(target);
+        }
+    }
+
+    @Test
+    void copy_replaces_changed_target_and_symlink() throws IOException {
+        Path source = source();
+        Path target = tmpDir.resolve("target/source.txt");
+        new AttachmentMaterializer(AttachmentMaterialization.SYMLINK).materialize(source, target);
+        AttachmentMaterializer copy = new AttachmentMaterializer(AttachmentMaterialization.COPY);
+        assertThat(copy.materialize(source, target)).isTrue();
+        assertThat(Files.isSymbolicLink(target)).isFalse();
+
+        Files.writeString(target, "changed");
+        assertThat(copy.materialize(source, target)).isTrue();
+        assertThat(target).hasContent("content");
+    }
+
+    @Test
+    void copy_with_same_content_but_other_mtime_is_identical() throws IOException {
+        Path source = source();
+        Path target = tmpDir.resolve("target/source.txt");
+        Files.writeString(target, "content");
+        Files.setLastModifiedTime(target, FileTime.fromMillis(1_000_000L));
+        assertThat(AttachmentMaterializer.COPY.materialize(source, target)).isFalse();
+        assertThat(Files.getLastModifiedTime(target)).isEqualTo(Files.getLastModifiedTime(source));
+    }
+
+    @Test
+    void writeIfChanged_does_not_modify_linked_source() throws IOException {
+        Path source = source();
+        Path target = new AttachmentMaterializer(AttachmentMaterialization.HARD_LINK).materializeToDirectory(source, tmpDir.resolve("target"));
+        assertThat(ContentFileUtil.writeIfChanged(target, "new content".getBytes(StandardCharsets.UTF_8))).isTrue();
+        assertThat(target).hasContent("new content");
+        assertThat(source).hasContent("content");
+        assertThat(ContentFileUtil.writeIfChanged(target, "new content".getBytes(StandardCharsets.UTF_8))).isFalse();
+    }
+}
@@ -0,0 +1,86 @@
+package io.github.md2conf.converter.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConversionCacheTest {
+
+    @TempDir
+    private Path tmpDir;
+
+    @Test
+    void cacheKey_depends_on_source_path_and_options() {
+        byte[] source = "# Title".getBytes(StandardCharsets.UTF_8);
+        String key = ConversionCache.cacheKey(source, Path.of("a.md"), "opts");
+        assertThat(key).isEqualTo(ConversionCache.cacheKey(source, Path.of("a.md"), "opts"));
+        assertThat(key).isNotEqualTo(ConversionCache.cacheKey("# Other".getBytes(StandardCharsets.UTF_8), Path.of("a.md"), "opts"));
+        assertThat(key).isNotEqualTo(ConversionCache.cacheKey(source, Path.of("b.md"), "opts"));
+        assertThat(key).isNotEqualTo(ConversionCache.cacheKey(source, Path.of("a.md"), "other opts"));
+    }
+
+    @Test
+    void get_returns_entry_while_referenced_titles_unchanged() throws IOException {
+        ConversionCache cache = new ConversionCache(tmpDir);
+        Path referenced = Path.of("b.md").toAbsolutePath();
+        ConversionCacheEntry entry = new ConversionCacheEntry();
+        entry.setContent("content");
+        entry.setReferencedTitles(Map.of(referenced.toString(), "Page B"));
+        cache.put("0123abcd", entry);
+
+        assertThat(cache.get("0123abcd", Map.of(referenced, "Page B"))).hasValueSatisfying(v -> assertThat(v.getContent()).isEqualTo("content"));
+        assertThat(cache.get("0123abcd", Map.of(referenced, "Renamed"))).isEmpty();
+        assertThat(cache.get("4567abcd", Map.of(referenced, "Page B"))).isEmpty();
+    }
+
+    @Test
+    void get_returns_empty_if_referenced_file_removed() throws IOException {
+        ConversionCache cache = new ConversionCache(tmpDir);
+        ConversionCacheEntry entry = new ConversionCacheEntry();
+        entry.setContent("content");
+        entry.setReferencedFiles(List.of(tmpDir.resolve("missing.png").toString()));
+        cache.put("0123abcd", entry);
+        assertThat(cache.get("0123abcd", Map.of())).isEmpty();
+    }
+
+    @Test
+    void get_returns_empty_once_unresolved_link_target_appears() throws IOException {
+        ConversionCache cache = new ConversionCache(tmpDir);
+        Path page = tmpDir.resolve("b.md").toAbsolutePath();
+        Path image = tmpDir.resolve("image.png").toAbsolutePath();
+        ConversionCacheEntry entry = new ConversionCacheEntry();
+        entry.setContent("content");
+        entry.setUnresolvedPageLinks(List.of(page.toString()));
+        entry.setUnresolvedFileLinks(List.of(image.toString()));
+        cache.put("0123abcd", entry);
+
+        assertThat(cache.get("0123abcd", Map.of())).isPresent();
+        assertThat(cache.get("0123abcd", Map.of(page, "Page B"))).isEmpty();
+        Files.write(image, new byte[]{1});
+        assertThat(cache.get("0123abcd", Map.of())).isEmpty();
+    }
+
+    @Test
+    void evictUnused_deletes_entries_not_used_since_previous_eviction() throws IOException {
+        ConversionCache cache = new ConversionCache(tmpDir);
+        ConversionCacheEntry entry = new ConversionCacheEntry();
+        entry.setContent("content");
+        cache.put("0123abcd", entry);
+        cache.put("4567abcd", entry);
+        cache.evictUnused();
+
+        cache.get("0123abcd", Map.of());
+        cache.evictUnused();
+
+        assertThat(cache.get("0123abcd", Map.of())).isPresent();
+        assertThat(cache.get("4567abcd", Map.of())).isEmpty();
+    }
+}
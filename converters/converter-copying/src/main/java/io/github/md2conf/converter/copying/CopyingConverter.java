@@ -1,6 +1,8 @@
 package io.github.md2conf.converter.copying;
 
+import io.github.md2conf.converter.AttachmentMaterializer;
 import io.github.md2conf.converter.AttachmentUtil;
+import io.github.md2conf.converter.ContentFileUtil;
 import io.github.md2conf.converter.PageStructureConverter;
 import io.github.md2conf.indexer.Page;
 import io.github.md2conf.indexer.PagesStructure;
@@ -10,12 +12,12 @@ import io.github.md2conf.title.processor.PageStructureTitleProcessor;
 import io.github.md2conf.title.processor.WikiTitleRemover;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.file.PathUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -27,12 +29,22 @@ public class CopyingConverter implements PageStructureConverter {
     private final PageStructureTitleProcessor pagesStructureTitleProcessor;
     private final Path outputPath;
     private final boolean needToRemoveTitle;
+    private final AttachmentMaterializer materializer;
 
 
     public CopyingConverter(PageStructureTitleProcessor pagesStructureTitleProcessor, Path outputPath, boolean needToRemoveTitle) {
+        this(pagesStructureTitleProcessor, outputPath, needToRemoveTitle, AttachmentMaterializer.COPY);
+    }
+
+    /**
+     * @param materializer - places content and attachments into the output directory
+     */
+    public CopyingConverter(PageStructureTitleProcessor pagesStructureTitleProcessor, Path outputPath, boolean needToRemoveTitle,
+                            AttachmentMaterializer materializer) {
         this.pagesStructureTitleProcessor = pagesStructureTitleProcessor;
         this.outputPath = outputPath;
         this.needToRemoveTitle = needToRemoveTitle;
+        this.materializer = materializer;
     }
 
     @Override
@@ -49,8 +61,15 @@ public class CopyingConverter implements PageStructureConverter {
 
     private ConfluencePage copyAndCreateConfluencePage(Page page, Path relativePart, Map<Path, String> titleMap) throws IOException {
         //copy
-        Path targetPath = PathUtils.copyFileToDirectory(page.path(), outputPath.resolve(relativePart), StandardCopyOption.REPLACE_EXISTING);
-        Set<Path> copiedAttachments = AttachmentUtil.copyPageAttachments(targetPath, page.attachments());
+        Path targetPath = outputPath.resolve(relativePart).resolve(page.path().getFileName().toString());
+        if (needToRemoveTitle) {
+            // content differs from the source, so it cannot be linked
+            String content = WikiTitleRemover.removeTitle(Files.readString(page.path()));
+            ContentFileUtil.writeIfChanged(targetPath, content.getBytes(StandardCharsets.UTF_8));
+        } else {
+            materializer.materialize(page.path(), targetPath);
+        }
+        Set<Path> copiedAttachments = AttachmentUtil.materializePageAttachments(materializer, targetPath, page.attachments());
         // create ConfluencePage
         ConfluencePage result = new ConfluencePage();
         result.setContentFilePath(targetPath.toString());
@@ -67,9 +86,6 @@ public class CopyingConverter implements PageStructureConverter {
                 result.getChildren().add(copyAndCreateConfluencePage(childPage, outputPath.relativize(childrenDir), titleMap));
             }
         }
-        if (needToRemoveTitle){
-            WikiTitleRemover.removeTitle(targetPath);
-        }
         return result;
     }
 
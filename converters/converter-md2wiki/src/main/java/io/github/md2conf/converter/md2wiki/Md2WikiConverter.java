@@ -9,8 +9,13 @@ import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.MutableDataSet;
 import com.vladsch.flexmark.util.misc.Extension;
+import io.github.md2conf.converter.AttachmentMaterializer;
 import io.github.md2conf.converter.AttachmentUtil;
+import io.github.md2conf.converter.ContentFileUtil;
+import io.github.md2conf.converter.PageConvertedListener;
 import io.github.md2conf.converter.PageStructureConverter;
+import io.github.md2conf.converter.cache.ConversionCache;
+import io.github.md2conf.converter.cache.ConversionCacheEntry;
 import io.github.md2conf.flexmart.ext.confluence.macros.ConfluenceMacroExtension;
 import io.github.md2conf.flexmart.ext.crosspage.links.CrosspageLinkExtension;
 import io.github.md2conf.flexmart.ext.curly.braced.escaper.CurlyBracedBlockExtension;
@@ -20,6 +25,7 @@ import io.github.md2conf.flexmart.ext.local.image.LocalImageExtension;
 import io.github.md2conf.flexmart.ext.plantuml.code.macro.PlantUmlCodeMacroExtension;
 import io.github.md2conf.indexer.Page;
 import io.github.md2conf.indexer.PagesStructure;
+import io.github.md2conf.indexer.PathIndex;
 import io.github.md2conf.model.ConfluenceContentModel;
 import io.github.md2conf.model.ConfluencePage;
 import io.github.md2conf.title.processor.PageStructureTitleProcessor;
@@ -29,17 +35,23 @@ import org.apache.commons.io.FilenameUtils;
 
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static com.vladsch.flexmark.html.HtmlRenderer.SUPPRESS_HTML_COMMENT_BLOCKS;
 import static com.vladsch.flexmark.html.HtmlRenderer.SUPPRESS_INLINE_HTML_COMMENTS;
+import static io.github.md2conf.converter.md2wiki.attachment.LocalPathUtil.collectCrosspageLinkPaths;
 import static io.github.md2conf.converter.md2wiki.attachment.LocalPathUtil.collectLocalAttachmentPaths;
 import static io.github.md2conf.converter.md2wiki.attachment.LocalPathUtil.collectLocalImagePaths;
+import static io.github.md2conf.converter.md2wiki.attachment.LocalPathUtil.collectUnresolvedFilePaths;
+import static io.github.md2conf.converter.md2wiki.attachment.LocalPathUtil.collectUnresolvedPageLinkPaths;
 
 public class Md2WikiConverter implements PageStructureConverter {
 
@@ -48,15 +60,42 @@ public class Md2WikiConverter implements PageStructureConverter {
     private final boolean needToRemoveTitle;
     private final boolean plantumlMacro;
     private final String plantumlCodeMacroName;
+    private final ConversionCache conversionCache;
+    private final AttachmentMaterializer attachmentMaterializer;
 
 
     public Md2WikiConverter(PageStructureTitleProcessor pagesStructureTitleProcessor,
                             Path outputPath, boolean needToRemoveTitle, boolean plantumlMacro, String plantumlCodeMacroName) {
+        this(pagesStructureTitleProcessor, outputPath, needToRemoveTitle, plantumlMacro, plantumlCodeMacroName, null);
+    }
+
+    public Md2WikiConverter(PageStructureTitleProcessor pagesStructureTitleProcessor,
+                            Path outputPath, boolean needToRemoveTitle, boolean plantumlMacro, String plantumlCodeMacroName,
+                            ConversionCache conversionCache) {
+        this(pagesStructureTitleProcessor, outputPath, needToRemoveTitle, plantumlMacro, plantumlCodeMacroName, conversionCache, AttachmentMaterializer.COPY);
+    }
+
+    /**
+     * @param conversionCache        - cache of converted pages, nullable
+     * @param attachmentMaterializer - places attachments into the output directory
+     */
+    public Md2WikiConverter(PageStructureTitleProcessor pagesStructureTitleProcessor,
+                            Path outputPath, boolean needToRemoveTitle, boolean plantumlMacro, String plantumlCodeMacroName,
+                            ConversionCache conversionCache, AttachmentMaterializer attachmentMaterializer) {
         this.pagesStructureTitleProcessor = pagesStructureTitleProcessor;
         this.outputPath = outputPath;
         this.needToRemoveTitle = needToRemoveTitle;
         this.plantumlMacro = plantumlMacro;
         this.plantumlCodeMacroName = plantumlCodeMacroName;
+        this.conversionCache = conversionCache;
+        this.attachmentMaterializer = attachmentMaterializer;
+    }
+
+    /**
+     * @return string representation of options affecting converted content, part of the conversion cache key
+     */
+    private String cacheOptions() {
+        return "md2wiki;removeTitle=" + needToRemoveTitle + ";plantumlMacro=" + plantumlMacro + ";plantumlCodeMacroName=" + plantumlCodeMacroName;
     }
 
     private MutableDataSet flexmarkOptions() {
@@ -82,50 +121,61 @@ public class Md2WikiConverter implements PageStructureConverter {
 
     @Override
     public ConfluenceContentModel convert(PagesStructure pagesStructure) throws IOException {
+        return convert(pagesStructure, PageConvertedListener.NOOP);
+    }
+
+    @Override
+    public ConfluenceContentModel convert(PagesStructure pagesStructure, PageConvertedListener listener) throws IOException {
         Map<Path, String> titleMap = pagesStructureTitleProcessor.toTitleMap(pagesStructure);
+        // crosspage links target only indexed pages, so no need to look for other files at the filesystem
+        PathIndex pathIndex = PathIndex.of(pagesStructure, false);
         List<ConfluencePage> confluencePages = new ArrayList<>();
         for (Page topLevelPage : pagesStructure.pages()) { //use "for" loop to throw exception to caller
             ConfluencePage confluencePage;
-            confluencePage = convertAndCreateConfluencePage(topLevelPage, Paths.get(""), titleMap);
+            confluencePage = convertAndCreateConfluencePage(topLevelPage, null, Paths.get(""), titleMap, pathIndex, listener);
             confluencePages.add(confluencePage);
         }
+        if (conversionCache != null) {
+            conversionCache.evictUnused();
+        }
         return new ConfluenceContentModel(confluencePages);
     }
 
     /**
      * @param page         - a Page
+     * @param parent       - converted parent page, null for top level page
      * @param relativePart - relative path to target path, used to process children recursively
      * @param titleMap     -  title Map
+     * @param pathIndex    - index of pages and attachments
+     * @param listener     - notified about the page before its children are converted
      * @return ConfluencePage
      */
-    private ConfluencePage convertAndCreateConfluencePage(Page page, Path relativePart, Map<Path, String> titleMap) throws IOException {
+    private ConfluencePage convertAndCreateConfluencePage(Page page, ConfluencePage parent, Path relativePart, Map<Path, String> titleMap,
+                                                          PathIndex pathIndex, PageConvertedListener listener) throws IOException {
 
+        PageConversionEvent event = new PageConversionEvent();
+        event.begin();
         //read markdown file from Page path
-        String markdown = FileUtils.readFileToString(page.path().toFile(), Charset.defaultCharset()); //todo extract charset as parameter
-
-        //Convert to wiki using FlexMark parser and renderer
-        DataHolder flexmarkOptions = flexmarkOptions()
-                .set(LocalAttachmentLinkExtension.CURRENT_FILE_PATH, page.path().getParent())
-                .set(LocalImageExtension.CURRENT_FILE_PATH, page.path().getParent())
-                .set(CrosspageLinkExtension.CURRENT_FILE_PATH, page.path().getParent())
-                .set(CrosspageLinkExtension.TITLE_MAP, titleMap)
-                .toImmutable();
-        Parser parser = Parser.builder(flexmarkOptions).build();
-        HtmlRenderer renderer = HtmlRenderer.builder(flexmarkOptions).build();
-        Node document = parser.parse(markdown);
-        String wiki = renderer.render(document);
-
-        //collect attachments from local images and local file links
-        List<Path> imagePaths = collectLocalImagePaths(document);
-        List<Path> localAttachmentPaths = collectLocalAttachmentPaths(document);
+        byte[] source = Files.readAllBytes(page.path());
+        String cacheKey = conversionCache == null ? null : ConversionCache.cacheKey(source, page.path(), cacheOptions());
+        ConversionCacheEntry cacheEntry = conversionCache == null ? null : conversionCache.get(cacheKey, titleMap).orElse(null);
+        boolean cacheHit = cacheEntry != null;
+        if (cacheEntry == null) {
+            cacheEntry = convertToWiki(new String(source, Charset.defaultCharset()), page.path(), titleMap, pathIndex); //todo extract charset as parameter
+            if (conversionCache != null) {
+                conversionCache.put(cacheKey, cacheEntry);
+            }
+        }
+        List<Path> referencedFiles = cacheEntry.getReferencedFiles().stream().map(Path::of).collect(Collectors.toList());
 
         //calculate output file names
         String targetFileName = FilenameUtils.getBaseName(page.path().toString()) + ".wiki";
         Path targetPath = outputPath.resolve(relativePart).resolve(targetFileName);
 
-        //copy converted content and attachments
-        FileUtils.writeStringToFile(targetPath.toFile(), wiki, Charset.defaultCharset());
-        Set<Path> copiedAttachments = AttachmentUtil.copyPageAttachments(targetPath, page.attachments(), imagePaths, localAttachmentPaths);
+        //write converted content, if changed, and copy attachments
+        byte[] converted = cacheEntry.getContent().getBytes(Charset.defaultCharset());
+        ContentFileUtil.writeIfChanged(targetPath, converted);
+        Set<Path> copiedAttachments = AttachmentUtil.materializePageAttachments(attachmentMaterializer, targetPath, page.attachments(), referencedFiles);
 
         // create ConfluencePage model
         ConfluencePage result = new ConfluencePage();
@@ -135,6 +185,16 @@ public class Md2WikiConverter implements PageStructureConverter {
         result.setType(ConfluenceContentModel.Type.WIKI);
         result.setAttachments(AttachmentUtil.toAttachmentsMap(copiedAttachments));
         result.setSkipUpdate(page.skipUpdate());
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = page.path().toString();
+            event.pageTitle = result.getTitle();
+            event.sourceBytes = source.length;
+            event.convertedBytes = converted.length;
+            event.cacheHit = cacheHit;
+            event.commit();
+        }
+        listener.pageConverted(result, parent);
         // process children
         if (page.children() != null && !page.children().isEmpty()) {
             String childrenDirAsStr = FilenameUtils.concat(
@@ -143,12 +203,42 @@ public class Md2WikiConverter implements PageStructureConverter {
             Path childrenDir = outputPath.resolve(childrenDirAsStr);
             FileUtils.forceMkdir(childrenDir.toFile());
             for (Page childPage : page.children()) {
-                result.getChildren().add(convertAndCreateConfluencePage(childPage, outputPath.relativize(childrenDir), titleMap));
+                result.getChildren().add(convertAndCreateConfluencePage(childPage, result, outputPath.relativize(childrenDir), titleMap, pathIndex, listener));
             }
         }
-        if (needToRemoveTitle) {
-            WikiTitleRemover.removeTitle(targetPath);
-        }
+        return result;
+    }
+
+    private ConversionCacheEntry convertToWiki(String markdown, Path pagePath, Map<Path, String> titleMap, PathIndex pathIndex) {
+        //Convert to wiki using FlexMark parser and renderer
+        DataHolder flexmarkOptions = flexmarkOptions()
+                .set(LocalAttachmentLinkExtension.CURRENT_FILE_PATH, pagePath.getParent())
+                .set(LocalImageExtension.CURRENT_FILE_PATH, pagePath.getParent())
+                .set(CrosspageLinkExtension.CURRENT_FILE_PATH, pagePath.getParent())
+                .set(CrosspageLinkExtension.TITLE_MAP, titleMap)
+                .set(CrosspageLinkExtension.PATH_INDEX, pathIndex)
+                .set(LocalAttachmentLinkExtension.PATH_INDEX, pathIndex.withFilesystemFallback(true))
+                .set(LocalImageExtension.PATH_INDEX, pathIndex.withFilesystemFallback(true))
+                .toImmutable();
+        Parser parser = Parser.builder(flexmarkOptions).build();
+        HtmlRenderer renderer = HtmlRenderer.builder(flexmarkOptions).build();
+        Node document = parser.parse(markdown);
+        String wiki = renderer.render(document);
+
+        ConversionCacheEntry result = new ConversionCacheEntry();
+        result.setContent(needToRemoveTitle ? WikiTitleRemover.removeTitle(wiki) : wiki);
+        //collect attachments from local images and local file links
+        List<String> referencedFiles = new ArrayList<>();
+        collectLocalImagePaths(document).forEach(p -> referencedFiles.add(p.toAbsolutePath().normalize().toString()));
+        collectLocalAttachmentPaths(document).forEach(p -> referencedFiles.add(p.toAbsolutePath().normalize().toString()));
+        result.setReferencedFiles(referencedFiles);
+        //remember titles of referenced pages, the entry is valid while these titles are unchanged
+        Map<String, String> referencedTitles = new HashMap<>();
+        collectCrosspageLinkPaths(document).forEach(p -> referencedTitles.put(p.toString(), titleMap.get(p)));
+        result.setReferencedTitles(referencedTitles);
+        //remember targets of links, which did not resolve, the entry is valid while these targets are still missing
+        result.setUnresolvedPageLinks(collectUnresolvedPageLinkPaths(document, pagePath.getParent()).stream().map(Path::toString).collect(Collectors.toList()));
+        result.setUnresolvedFileLinks(collectUnresolvedFilePaths(document, pagePath.getParent()).stream().map(Path::toString).collect(Collectors.toList()));
         return result;
     }
 
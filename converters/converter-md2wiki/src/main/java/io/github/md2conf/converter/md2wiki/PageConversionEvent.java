@@ -0,0 +1,37 @@
+package io.github.md2conf.converter.md2wiki;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for conversion of a single markdown page, without its children
+ */
+@Name("io.github.md2conf.PageConversion")
+@Label("Page Conversion")
+@Category({"md2conf", "Convert"})
+@Description("Conversion of a markdown page to Confluence Wiki and copying of its attachments")
+@StackTrace(false)
+class PageConversionEvent extends jdk.jfr.Event {
+
+    @Label("Path")
+    String path;
+
+    @Label("Page Title")
+    String pageTitle;
+
+    @Label("Source Bytes")
+    @DataAmount
+    long sourceBytes;
+
+    @Label("Converted Bytes")
+    @DataAmount
+    long convertedBytes;
+
+    @Label("Cache Hit")
+    @Description("Converted content is taken from the conversion cache")
+    boolean cacheHit;
+}
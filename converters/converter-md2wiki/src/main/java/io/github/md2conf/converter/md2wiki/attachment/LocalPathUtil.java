@@ -1,9 +1,14 @@
 package io.github.md2conf.converter.md2wiki.attachment;
 
+import com.vladsch.flexmark.ast.Image;
+import com.vladsch.flexmark.ast.Link;
+import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.ast.NodeVisitor;
 import com.vladsch.flexmark.util.ast.VisitHandler;
 import com.vladsch.flexmark.util.ast.Visitor;
+import com.vladsch.flexmark.util.misc.Utils;
+import io.github.md2conf.flexmart.ext.crosspage.links.CrosspageLink;
 import io.github.md2conf.flexmart.ext.local.attachments.LocalAttachmentLink;
 import io.github.md2conf.flexmart.ext.local.image.LocalImage;
 import org.jetbrains.annotations.NotNull;
@@ -11,11 +16,15 @@ import org.jetbrains.annotations.NotNull;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 
 public class LocalPathUtil {
 
+    private static final Pattern URL_WITH_SCHEME = Pattern.compile("^[a-zA-Z][a-zA-Z0-9+.-]*:.*");
+
     public static List<Path> collectLocalImagePaths(Node document) {
         PathCollectorVisitor<LocalImage> pathCollectorVisitor = new PathCollectorVisitor<>();
         VisitHandler<LocalImage> visitHandler = new VisitHandler<>(LocalImage.class, pathCollectorVisitor);
@@ -32,6 +41,75 @@ public class LocalPathUtil {
         return new ArrayList<>(pathCollectorVisitor.getPaths());
     }
 
+    public static List<Path> collectCrosspageLinkPaths(Node document) {
+        PathCollectorVisitor<CrosspageLink> pathCollectorVisitor = new PathCollectorVisitor<>();
+        VisitHandler<CrosspageLink> visitHandler = new VisitHandler<>(CrosspageLink.class, pathCollectorVisitor);
+        NodeVisitor visitor = new NodeVisitor(visitHandler);
+        visitor.visit(document);
+        return new ArrayList<>(pathCollectorVisitor.getPaths());
+    }
+
+    /**
+     * @param currentFilePath - directory of the page, local links are resolved against it
+     * @return absolute paths, which links to markdown files left as plain links would point to, if they existed as pages
+     */
+    public static List<Path> collectUnresolvedPageLinkPaths(Node document, Path currentFilePath) {
+        Set<Path> paths = new LinkedHashSet<>();
+        NodeVisitor visitor = new NodeVisitor(new VisitHandler<>(Link.class, link -> {
+            String url = link.getUrl().toString();
+            if (url.endsWith(".md") && isLocal(url)) {
+                addCandidatePaths(paths, currentFilePath, Utils.urlDecode(url, "UTF-8"), url);
+            }
+        }));
+        visitor.visit(document);
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * @param currentFilePath - directory of the page, local links are resolved against it
+     * @return absolute paths, which images and links to other files left as plain images and links would point to,
+     * if the files existed
+     */
+    public static List<Path> collectUnresolvedFilePaths(Node document, Path currentFilePath) {
+        Set<Path> paths = new LinkedHashSet<>();
+        NodeVisitor visitor = new NodeVisitor(
+                new VisitHandler<>(Link.class, link -> {
+                    String url = link.getUrl().toString();
+                    if (!url.endsWith(".md") && isLocal(url)) {
+                        addCandidatePaths(paths, currentFilePath, url, url);
+                    }
+                }),
+                new VisitHandler<>(Image.class, image -> {
+                    String url = image.getUrl().toString();
+                    if (!(image instanceof LocalImage) && isLocal(url)) {
+                        addCandidatePaths(paths, currentFilePath, url, url);
+                    }
+                }));
+        visitor.visit(document);
+        return new ArrayList<>(paths);
+    }
+
+    /**
+     * @param markdown        - markdown source of a page
+     * @param currentFilePath - directory of the page, local links are resolved against it
+     * @return absolute paths of markdown files linked from the page, whether they exist or not
+     */
+    public static List<Path> collectPageLinkPaths(String markdown, Path currentFilePath) {
+        // without the crosspage link extension every link to a markdown file stays a plain link
+        return collectUnresolvedPageLinkPaths(Parser.builder().build().parse(markdown), currentFilePath);
+    }
+
+    private static boolean isLocal(String url) {
+        return !url.isEmpty() && !url.startsWith("#") && !URL_WITH_SCHEME.matcher(url).matches();
+    }
+
+    private static void addCandidatePaths(Set<Path> paths, Path currentFilePath, String relativeUrl, String absoluteUrl) {
+        if (currentFilePath != null) {
+            paths.add(currentFilePath.resolve(relativeUrl).toAbsolutePath().normalize());
+        }
+        paths.add(Path.of(absoluteUrl).toAbsolutePath().normalize());
+    }
+
     public static class PathCollectorVisitor<N extends Node> implements Visitor<N> {
         private final Set<Path> paths;
 
@@ -48,6 +126,9 @@ public class LocalPathUtil {
             if (node instanceof LocalImage) {
                 path = ((LocalImage) node).getPath();
             }
+            if (node instanceof CrosspageLink) {
+                path = ((CrosspageLink) node).getPath();
+            }
             if (path != null) {
                 paths.add(path);
             }
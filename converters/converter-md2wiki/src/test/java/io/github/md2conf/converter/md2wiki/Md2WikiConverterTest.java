@@ -1,5 +1,6 @@
 package io.github.md2conf.converter.md2wiki;
 
+import io.github.md2conf.converter.cache.ConversionCache;
 import io.github.md2conf.indexer.DelegatingFileIndexer;
 import io.github.md2conf.indexer.FileIndexer;
 import io.github.md2conf.indexer.FileIndexerConfigurationProperties;
@@ -9,13 +10,18 @@ import io.github.md2conf.model.ConfluencePage;
 import io.github.md2conf.title.processor.DefaultPageStructureTitleProcessor;
 import io.github.md2conf.title.processor.PageStructureTitleProcessor;
 import io.github.md2conf.title.processor.TitleExtractStrategy;
+import org.apache.commons.io.FileUtils;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static io.github.md2conf.indexer.PathNameUtils.ATTACHMENTS_SUFFIX;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -60,6 +66,27 @@ class Md2WikiConverterTest {
         assertModelOfPageTree(model);
     }
 
+    @Test
+    void convert_markdown_page_tree_notifies_listener_parent_first() throws IOException {
+        Md2WikiConverter md2WikiConverter = new Md2WikiConverter(titleProcessor, outputPath, false,false, "");
+        var prop = new FileIndexerConfigurationProperties();
+        prop.setFileExtension("md");
+        FileIndexer fileIndexer = new DelegatingFileIndexer(prop);
+        PagesStructure pagesStructure = fileIndexer.indexPath(Paths.get("src/test/resources/markdown_page_tree"));
+        List<ConfluencePage> converted = new ArrayList<>();
+        ConfluenceContentModel model = md2WikiConverter.convert(pagesStructure, (page, parent) -> {
+            assertThat(Files.exists(Path.of(page.getContentFilePath()))).isTrue();
+            if (parent == null) {
+                assertThat(converted).isEmpty();
+            } else {
+                assertThat(converted).containsOnlyOnce(parent);
+            }
+            converted.add(page);
+        });
+        assertModelOfPageTree(model);
+        assertThat(converted).hasSize(4).first().isSameAs(model.getPages().get(0));
+    }
+
     private void assertModelOfPageTree(ConfluenceContentModel model) {
         assertThat(model).isNotNull();
         assertThat(model.getPages()).hasSize(1);
@@ -152,6 +179,54 @@ class Md2WikiConverterTest {
         assertThat(outputPath.resolve("b.wiki")).content().contains("Page A");
     }
 
+    @Test
+    void convert_markdown_crosslinks_with_conversion_cache(@TempDir Path inputPath) throws IOException {
+        FileUtils.copyDirectory(Paths.get("src/test/resources/markdown_crosslinks").toFile(), inputPath.toFile());
+        ConversionCache conversionCache = new ConversionCache(outputPath.resolve(ConversionCache.DEFAULT_CACHE_DIRECTORY));
+        Md2WikiConverter md2WikiConverter = new Md2WikiConverter(titleProcessorFromFirstHeader, outputPath, true, false, "", conversionCache);
+        var prop = new FileIndexerConfigurationProperties();
+        prop.setFileExtension("md");
+        FileIndexer fileIndexer = new DelegatingFileIndexer(prop);
+        md2WikiConverter.convert(fileIndexer.indexPath(inputPath));
+        assertThat(outputPath.resolve("a.wiki")).content().contains("Page B").doesNotContain("h1.");
+        FileTime lastModifiedTime = FileTime.fromMillis(1_000_000L);
+        Files.setLastModifiedTime(outputPath.resolve("a.wiki"), lastModifiedTime);
+        Files.setLastModifiedTime(outputPath.resolve("b.wiki"), lastModifiedTime);
+
+        md2WikiConverter.convert(fileIndexer.indexPath(inputPath));
+        assertThat(Files.getLastModifiedTime(outputPath.resolve("a.wiki"))).isEqualTo(lastModifiedTime);
+        assertThat(Files.getLastModifiedTime(outputPath.resolve("b.wiki"))).isEqualTo(lastModifiedTime);
+
+        // title of referenced page changed, so the cached result of a.md is not valid anymore
+        Files.writeString(inputPath.resolve("b.md"), "# Page C\n[a.md](a.md)");
+        md2WikiConverter.convert(fileIndexer.indexPath(inputPath));
+        assertThat(outputPath.resolve("a.wiki")).content().contains("Page C");
+        assertThat(Files.getLastModifiedTime(outputPath.resolve("a.wiki"))).isNotEqualTo(lastModifiedTime);
+    }
+
+    @Test
+    void convert_with_conversion_cache_reconverts_page_when_link_target_appears(@TempDir Path inputPath) throws IOException {
+        Files.writeString(inputPath.resolve("a.md"), "# Page A\n[to b](b.md) ![diagram](diagram.png)");
+        ConversionCache conversionCache = new ConversionCache(outputPath.resolve(ConversionCache.DEFAULT_CACHE_DIRECTORY));
+        Md2WikiConverter md2WikiConverter = new Md2WikiConverter(titleProcessorFromFirstHeader, outputPath, true, false, "", conversionCache);
+        var prop = new FileIndexerConfigurationProperties();
+        prop.setFileExtension("md");
+        FileIndexer fileIndexer = new DelegatingFileIndexer(prop);
+        md2WikiConverter.convert(fileIndexer.indexPath(inputPath));
+        assertThat(outputPath.resolve("a.wiki")).content().doesNotContain("Page B");
+
+        // linked page is added, a.md itself is unchanged
+        Files.writeString(inputPath.resolve("b.md"), "# Page B");
+        ConfluenceContentModel model = md2WikiConverter.convert(fileIndexer.indexPath(inputPath));
+        assertThat(outputPath.resolve("a.wiki")).content().contains("Page B");
+        assertThat(pageByTitle(model, "Page A").getAttachments()).isEmpty();
+
+        // linked image is added
+        Files.write(inputPath.resolve("diagram.png"), new byte[]{1, 2, 3});
+        model = md2WikiConverter.convert(fileIndexer.indexPath(inputPath));
+        assertThat(pageByTitle(model, "Page A").getAttachments()).containsKey("diagram.png");
+    }
+
     @Test
     void convert_markdown_plantuml_enabled() throws IOException {
         Md2WikiConverter md2WikiConverter = new Md2WikiConverter(titleProcessorFromFirstHeader, outputPath, false, true,"plantuml");
@@ -235,4 +310,8 @@ class Md2WikiConverterTest {
                 .doesNotContain("INLINE_HTML_COMMENT");
     }
 
-}
\ No newline at end of file
+
+    private static ConfluencePage pageByTitle(ConfluenceContentModel model, String title) {
+        return model.getPages().stream().filter(page -> title.equals(page.getTitle())).findFirst().orElseThrow();
+    }
+}
@@ -4,6 +4,7 @@ import com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter;
 import com.vladsch.flexmark.html2md.converter.LinkConversion;
 import com.vladsch.flexmark.util.data.DataHolder;
 import com.vladsch.flexmark.util.data.MutableDataSet;
+import io.github.md2conf.converter.AttachmentMaterializer;
 import io.github.md2conf.converter.ConfluenceModelConverter;
 import io.github.md2conf.converter.view2md.internal.PreparedPage;
 import io.github.md2conf.converter.view2md.internal.PreparedPageFactory;
@@ -31,7 +32,7 @@ import static com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter.LIST_
 import static com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter.OUTPUT_ATTRIBUTES_ID;
 import static com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter.SKIP_ATTRIBUTES;
 import static com.vladsch.flexmark.html2md.converter.FlexmarkHtmlConverter.WRAP_AUTO_LINKS;
-import static io.github.md2conf.converter.AttachmentUtil.copyAttachmentsMap;
+import static io.github.md2conf.converter.AttachmentUtil.materializeAttachmentsMap;
 
 public class View2MdConverter implements ConfluenceModelConverter {
 
@@ -48,9 +49,15 @@ public class View2MdConverter implements ConfluenceModelConverter {
             .set(EXT_INLINE_LINK, LinkConversion.MARKDOWN_EXPLICIT );
 
     private final MarkdownFormatter markdownFormatter;
+    private final AttachmentMaterializer attachmentMaterializer;
 
     public View2MdConverter(Path outputDir, DataHolder formatOptions) {
+        this(outputDir, formatOptions, AttachmentMaterializer.COPY);
+    }
+
+    public View2MdConverter(Path outputDir, DataHolder formatOptions, AttachmentMaterializer attachmentMaterializer) {
         this.outputDir = outputDir;
+        this.attachmentMaterializer = attachmentMaterializer;
         markdownFormatter = new MarkdownFormatter(formatOptions);
     }
 
@@ -74,7 +81,7 @@ public class View2MdConverter implements ConfluenceModelConverter {
         String html = FileUtils.readFileToString(page.getSourcePath().toFile(), Charset.defaultCharset());
         String md = FlexmarkHtmlConverter.builder(options).build().convert(html);
         md = "# " + page.getPageTitle() +"\n\n" + md;
-        List<Path> attachments = copyAttachmentsMap(page.getTargetPath(), page.getAttachments());
+        List<Path> attachments = materializeAttachmentsMap(attachmentMaterializer, page.getTargetPath(), page.getAttachments());
         String formattedText = markdownFormatter.format(md, attachments, pageIdPathMap, outputDir);
         FileUtils.writeStringToFile(page.getTargetPath().toFile(), formattedText, Charset.defaultCharset());
         List<DefaultPage> childrenPages = new ArrayList<>();
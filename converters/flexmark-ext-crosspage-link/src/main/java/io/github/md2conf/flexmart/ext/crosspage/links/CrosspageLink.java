@@ -4,8 +4,12 @@ import com.vladsch.flexmark.ast.InlineLinkNode;
 import com.vladsch.flexmark.ast.Link;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 
+import java.nio.file.Path;
+
 public class CrosspageLink extends InlineLinkNode {
 
+    private Path path;
+
     public CrosspageLink(Link other) {
         super(other.baseSubSequence(other.getStartOffset(), other.getEndOffset()),
                 other.baseSubSequence(other.getStartOffset(), other.getTextOpeningMarker().getEndOffset()),
@@ -20,6 +24,14 @@ public class CrosspageLink extends InlineLinkNode {
         );
     }
 
+    public Path getPath() {
+        return path;
+    }
+
+    public void setPath(Path path) {
+        this.path = path;
+    }
+
     @Override
     public void setTextChars(BasedSequence textChars) { //no-op
     }
@@ -6,6 +6,7 @@ import com.vladsch.flexmark.util.data.DataKey;
 import com.vladsch.flexmark.util.data.MutableDataHolder;
 import io.github.md2conf.flexmart.ext.crosspage.links.internal.CrosspageLinkPostProcessor;
 import io.github.md2conf.flexmart.ext.crosspage.links.internal.CrosspageLinkRenderer;
+import io.github.md2conf.indexer.PathIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Path;
@@ -19,6 +20,10 @@ public class CrosspageLinkExtension implements Parser.ParserExtension, HtmlRende
      * Path against local links will be resolved
      */
     final public static DataKey<Path> CURRENT_FILE_PATH = new DataKey<>("CURRENT_FILE_PATH", Paths.get(""));
+    /**
+     * Index of known files, local links are resolved against it
+     */
+    public static final DataKey<PathIndex> PATH_INDEX = new DataKey<>("PATH_INDEX", PathIndex.FILESYSTEM);
     /**
      * Pages structure
      */
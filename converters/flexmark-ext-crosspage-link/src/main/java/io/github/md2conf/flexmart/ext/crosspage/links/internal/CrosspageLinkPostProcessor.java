@@ -11,19 +11,22 @@ import com.vladsch.flexmark.util.misc.Utils;
 import com.vladsch.flexmark.util.sequence.BasedSequence;
 import io.github.md2conf.flexmart.ext.crosspage.links.CrosspageLink;
 import io.github.md2conf.flexmart.ext.crosspage.links.CrosspageLinkExtension;
+import io.github.md2conf.indexer.PathIndex;
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.Map;
 
 public class CrosspageLinkPostProcessor extends NodePostProcessor {
     private final Path currentFilePath;
+    private final PathIndex pathIndex;
     private final Map<Path,String> titleMap;
 
     public CrosspageLinkPostProcessor(Path currentFilePath,
+                                      PathIndex pathIndex,
                                       Map<Path,String> titleMap) {
         this.currentFilePath = currentFilePath;
+        this.pathIndex = pathIndex;
         this.titleMap = titleMap;
     }
 
@@ -43,9 +46,9 @@ public class CrosspageLinkPostProcessor extends NodePostProcessor {
             Path relative = currentFilePath.resolve(Utils.urlDecode(url, "UTF-8"));
             Path absolute = Path.of(url);
             final Path resolvedPath;
-            if (isRegularFileExists(relative)) {
+            if (pathIndex.isRegularFile(relative)) {
                 resolvedPath = relative.normalize();
-            } else if (isRegularFileExists(absolute)) {
+            } else if (pathIndex.isRegularFile(absolute)) {
                 resolvedPath = absolute.normalize();
             } else {
                 return;
@@ -57,6 +60,7 @@ public class CrosspageLinkPostProcessor extends NodePostProcessor {
 
                 CrosspageLink crosspageLink = new CrosspageLink((Link) node);
                 crosspageLink.setTitle(BasedSequence.of(titleMap.get(resolvedPath.toAbsolutePath())));
+                crosspageLink.setPath(resolvedPath.toAbsolutePath());
                 crosspageLink.takeChildren(node);
                 node.unlink();
                 if (parent != null) {
@@ -76,20 +80,26 @@ public class CrosspageLinkPostProcessor extends NodePostProcessor {
         }
     }
 
+    /**
+     * @deprecated use {@link PathIndex#isRegularFile(Path)} of {@link PathIndex#FILESYSTEM}
+     */
+    @Deprecated
     public static boolean isRegularFileExists(Path path) {
-        return Files.exists(path) && Files.isRegularFile(path);
+        return PathIndex.FILESYSTEM.isRegularFile(path);
     }
 
 
     public static class Factory extends NodePostProcessorFactory {
 
         private final Path currentFilePath;
+        private final PathIndex pathIndex;
         private final Map<Path,String> titleMap;
 
         @SuppressWarnings("unchecked")
         public Factory(DataHolder options) {
             super(false);
             currentFilePath = (Path) options.getAll().get(CrosspageLinkExtension.CURRENT_FILE_PATH);
+            pathIndex = CrosspageLinkExtension.PATH_INDEX.get(options);
             this.titleMap = (Map<Path, String>) options.getAll().get(CrosspageLinkExtension.TITLE_MAP);
             addNodes(Link.class);
         }
@@ -99,6 +109,7 @@ public class CrosspageLinkPostProcessor extends NodePostProcessor {
         public NodePostProcessor apply(@NotNull Document document) {
             return new CrosspageLinkPostProcessor(
                     currentFilePath,
+                    pathIndex,
                     titleMap);
         }
     }
@@ -9,17 +9,20 @@ import com.vladsch.flexmark.util.ast.NodeTracker;
 import com.vladsch.flexmark.util.data.DataHolder;
 import io.github.md2conf.flexmart.ext.local.attachments.LocalAttachmentLink;
 import io.github.md2conf.flexmart.ext.local.attachments.LocalAttachmentLinkExtension;
+import io.github.md2conf.indexer.PathIndex;
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class LocalAttachmentLinkPostProcessor extends NodePostProcessor {
 
     private final Path currentFilePath;
+    private final PathIndex pathIndex;
 
-    public LocalAttachmentLinkPostProcessor(Path currentFilePath) {
+    public LocalAttachmentLinkPostProcessor(Path currentFilePath,
+                                            PathIndex pathIndex) {
         this.currentFilePath = currentFilePath;
+        this.pathIndex = pathIndex;
     }
 
     public void process(@NotNull NodeTracker state, @NotNull Node node) {
@@ -34,9 +37,9 @@ public class LocalAttachmentLinkPostProcessor extends NodePostProcessor {
             Path relative = currentFilePath.resolve(url);
             Path absolute = Path.of(url);
             final Path resolvedPath;
-            if (isRegularFileExists(relative)) {
+            if (pathIndex.isRegularFile(relative)) {
                 resolvedPath = relative;
-            } else if (isRegularFileExists(absolute)) {
+            } else if (pathIndex.isRegularFile(absolute)) {
                 resolvedPath = absolute;
             } else {
                 return;
@@ -65,23 +68,29 @@ public class LocalAttachmentLinkPostProcessor extends NodePostProcessor {
         }
     }
 
+    /**
+     * @deprecated use {@link PathIndex#isRegularFile(Path)} of {@link PathIndex#FILESYSTEM}
+     */
+    @Deprecated
     public static boolean isRegularFileExists(Path path) {
-        return Files.exists(path) && Files.isRegularFile(path);
+        return PathIndex.FILESYSTEM.isRegularFile(path);
     }
 
     public static class Factory extends NodePostProcessorFactory {
         private final Path currentFilePath;
+        private final PathIndex pathIndex;
 
         public Factory(DataHolder options) {
             super(false);
             currentFilePath = (Path) options.getAll().get(LocalAttachmentLinkExtension.CURRENT_FILE_PATH);
+            pathIndex = LocalAttachmentLinkExtension.PATH_INDEX.get(options);
             addNodes(Link.class);
         }
 
         @NotNull
         @Override
         public NodePostProcessor apply(@NotNull Document document) {
-            return new LocalAttachmentLinkPostProcessor(currentFilePath);
+            return new LocalAttachmentLinkPostProcessor(currentFilePath, pathIndex);
         }
     }
 }
@@ -6,6 +6,7 @@ import com.vladsch.flexmark.util.data.DataKey;
 import com.vladsch.flexmark.util.data.MutableDataHolder;
 import io.github.md2conf.flexmart.ext.local.image.internal.LocalImagePostProcessor;
 import io.github.md2conf.flexmart.ext.local.image.internal.LocalImageRenderer;
+import io.github.md2conf.indexer.PathIndex;
 import org.jetbrains.annotations.NotNull;
 
 import java.nio.file.Path;
@@ -17,6 +18,10 @@ public class LocalImageExtension implements Parser.ParserExtension, HtmlRenderer
      * Path against local attachment link will be resolved
      */
     public static final DataKey<Path> CURRENT_FILE_PATH = new DataKey<>("CURRENT_FILE_PATH", Paths.get(""));
+    /**
+     * Index of known files, local links are resolved against it
+     */
+    public static final DataKey<PathIndex> PATH_INDEX = new DataKey<>("PATH_INDEX", PathIndex.FILESYSTEM);
     public static LocalImageExtension create() {
         return new LocalImageExtension();
     }
@@ -9,17 +9,20 @@ import com.vladsch.flexmark.util.ast.NodeTracker;
 import com.vladsch.flexmark.util.data.DataHolder;
 import io.github.md2conf.flexmart.ext.local.image.LocalImage;
 import io.github.md2conf.flexmart.ext.local.image.LocalImageExtension;
+import io.github.md2conf.indexer.PathIndex;
 import org.jetbrains.annotations.NotNull;
 
-import java.nio.file.Files;
 import java.nio.file.Path;
 
 public class LocalImagePostProcessor extends NodePostProcessor {
 
     private final Path currentFilePath;
+    private final PathIndex pathIndex;
 
-    public LocalImagePostProcessor(Path currentFilePath) {
+    public LocalImagePostProcessor(Path currentFilePath,
+                                   PathIndex pathIndex) {
         this.currentFilePath = currentFilePath;
+        this.pathIndex = pathIndex;
     }
 
     public void process(@NotNull NodeTracker state, @NotNull Node node) {
@@ -31,9 +34,9 @@ public class LocalImagePostProcessor extends NodePostProcessor {
             Path relative = currentFilePath.resolve(url);
             Path absolute = Path.of(url);
             final Path resolvedPath;
-            if (isRegularFileExists(relative)) {
+            if (pathIndex.isRegularFile(relative)) {
                 resolvedPath = relative;
-            } else if (isRegularFileExists(absolute)) {
+            } else if (pathIndex.isRegularFile(absolute)) {
                 resolvedPath = absolute;
             } else {
                 return;
@@ -63,23 +66,29 @@ public class LocalImagePostProcessor extends NodePostProcessor {
         }
     }
 
+    /**
+     * @deprecated use {@link PathIndex#isRegularFile(Path)} of {@link PathIndex#FILESYSTEM}
+     */
+    @Deprecated
     public static boolean isRegularFileExists(Path path) {
-        return Files.exists(path) && Files.isRegularFile(path);
+        return PathIndex.FILESYSTEM.isRegularFile(path);
     }
 
     public static class Factory extends NodePostProcessorFactory {
         private final Path currentFilePath;
+        private final PathIndex pathIndex;
 
         public Factory(DataHolder options) {
             super(false);
             currentFilePath = (Path) options.getAll().get(LocalImageExtension.CURRENT_FILE_PATH);
+            pathIndex = LocalImageExtension.PATH_INDEX.get(options);
             addNodes(Image.class);
         }
 
         @NotNull
         @Override
         public NodePostProcessor apply(@NotNull Document document) {
-            return new LocalImagePostProcessor(currentFilePath);
+            return new LocalImagePostProcessor(currentFilePath, pathIndex);
         }
     }
 }
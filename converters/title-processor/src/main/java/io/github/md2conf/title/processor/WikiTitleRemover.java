@@ -10,7 +10,6 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static io.github.md2conf.title.processor.WikiTitleUtil.isConfluenceWikiHeaderLine;
 
@@ -23,23 +22,32 @@ public class WikiTitleRemover {
      * @param path content path
      */
     public static void removeTitle(Path path) {
-        AtomicBoolean firstTitleFound = new AtomicBoolean(false);
-        try (Stream<String> lines = Files.lines(path)) {
-            String res = lines
-                    .filter(v -> {
-                        if (!firstTitleFound.get()) {
-                            if (isConfluenceWikiHeaderLine(v)){
-                                firstTitleFound.set(true);
-                                return false;
-                            };
-                        }
-                        return true;
-                    })
-                    .collect(Collectors.joining(System.lineSeparator()));
+        try {
+            String res = removeTitle(Files.readString(path));
             FileUtils.write(path.toFile(), res, StandardCharsets.UTF_8);
         } catch (IOException e) {
             logger.error("Cannot remove title from content at path {}", path);
             throw new RuntimeException(e);
         }
     }
+
+    /**
+     * remove first title from content
+     * @param content content
+     * @return content without first title
+     */
+    public static String removeTitle(String content) {
+        AtomicBoolean firstTitleFound = new AtomicBoolean(false);
+        return content.lines()
+                .filter(v -> {
+                    if (!firstTitleFound.get()) {
+                        if (isConfluenceWikiHeaderLine(v)){
+                            firstTitleFound.set(true);
+                            return false;
+                        };
+                    }
+                    return true;
+                })
+                .collect(Collectors.joining("\n"));
+    }
 }
@@ -0,0 +1,71 @@
+package io.github.md2conf.indexer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Immutable index of regular files known from a pages structure: pages and their attachments.
+ * Used to resolve local links without filesystem access. Paths unknown to the index are checked
+ * at the filesystem only when fallback is enabled.
+ */
+public final class PathIndex {
+
+    /**
+     * Empty index, every lookup goes to the filesystem.
+     */
+    public static final PathIndex FILESYSTEM = new PathIndex(Collections.emptySet(), true);
+
+    private final Set<Path> regularFiles;
+    private final boolean filesystemFallback;
+
+    private PathIndex(Set<Path> regularFiles, boolean filesystemFallback) {
+        this.regularFiles = regularFiles;
+        this.filesystemFallback = filesystemFallback;
+    }
+
+    public static PathIndex of(PagesStructure pagesStructure, boolean filesystemFallback) {
+        Set<Path> regularFiles = new HashSet<>();
+        for (Page page : pagesStructure.pages()) {
+            addPage(page, regularFiles);
+        }
+        return new PathIndex(Collections.unmodifiableSet(regularFiles), filesystemFallback);
+    }
+
+    private static void addPage(Page page, Set<Path> regularFiles) {
+        regularFiles.add(normalize(page.path()));
+        if (page.attachments() != null) {
+            page.attachments().forEach(v -> regularFiles.add(normalize(v)));
+        }
+        if (page.children() != null) {
+            for (Page child : page.children()) {
+                addPage(child, regularFiles);
+            }
+        }
+    }
+
+    /**
+     * @param filesystemFallback - check paths unknown to the index at the filesystem
+     * @return index with the same paths and given fallback mode
+     */
+    public PathIndex withFilesystemFallback(boolean filesystemFallback) {
+        return new PathIndex(regularFiles, filesystemFallback);
+    }
+
+    public boolean isRegularFile(Path path) {
+        if (regularFiles.contains(normalize(path))) {
+            return true;
+        }
+        return filesystemFallback && Files.isRegularFile(path);
+    }
+
+    public int size() {
+        return regularFiles.size();
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
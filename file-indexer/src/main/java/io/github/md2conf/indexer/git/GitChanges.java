@@ -0,0 +1,130 @@
+package io.github.md2conf.indexer.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.Status;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.CanonicalTreeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Files of a git working tree changed since a commit: changed between the commit and HEAD, and not committed yet.
+ * Renamed files are reported by both old and new path.
+ */
+public class GitChanges {
+
+    private static final Logger logger = LoggerFactory.getLogger(GitChanges.class);
+
+    private final String headCommit;
+    private final Set<Path> committedPaths;
+    private final Set<Path> uncommittedPaths;
+
+    GitChanges(String headCommit, Set<Path> committedPaths, Set<Path> uncommittedPaths) {
+        this.headCommit = headCommit;
+        this.committedPaths = committedPaths;
+        this.uncommittedPaths = uncommittedPaths;
+    }
+
+    /**
+     * @param directory  - directory inside a git working tree
+     * @param baseCommit - commit to compare with, null to collect only not committed changes
+     * @return changes, or empty if the directory is not inside a git working tree or the base commit is unknown
+     */
+    public static Optional<GitChanges> since(Path directory, String baseCommit) {
+        FileRepositoryBuilder repositoryBuilder = new FileRepositoryBuilder()
+                .readEnvironment()
+                .findGitDir(directory.toAbsolutePath().toFile());
+        if (repositoryBuilder.getGitDir() == null) {
+            logger.info("Directory {} is not inside a git working tree", directory);
+            return Optional.empty();
+        }
+        try (Repository repository = repositoryBuilder.build(); Git git = new Git(repository)) {
+            Path workTree = repository.getWorkTree().toPath().toAbsolutePath().normalize();
+            ObjectId head = repository.resolve(Constants.HEAD + "^{commit}");
+            if (head == null) {
+                logger.info("Repository {} has no commits", workTree);
+                return Optional.empty();
+            }
+            Set<Path> committedPaths = new HashSet<>();
+            if (baseCommit != null) {
+                ObjectId base = resolveCommit(repository, baseCommit);
+                if (base == null) {
+                    logger.info("Commit {} is not found in repository {}", baseCommit, workTree);
+                    return Optional.empty();
+                }
+                try (RevWalk revWalk = new RevWalk(repository); ObjectReader reader = repository.newObjectReader()) {
+                    CanonicalTreeParser baseTree = new CanonicalTreeParser(null, reader, revWalk.parseCommit(base).getTree());
+                    CanonicalTreeParser headTree = new CanonicalTreeParser(null, reader, revWalk.parseCommit(head).getTree());
+                    for (DiffEntry diffEntry : git.diff().setOldTree(baseTree).setNewTree(headTree).call()) {
+                        addPath(committedPaths, workTree, diffEntry.getOldPath());
+                        addPath(committedPaths, workTree, diffEntry.getNewPath());
+                    }
+                }
+            }
+            Status status = git.status().call();
+            Set<Path> uncommittedPaths = new HashSet<>();
+            addPaths(uncommittedPaths, workTree, status.getUncommittedChanges());
+            addPaths(uncommittedPaths, workTree, status.getUntracked());
+            return Optional.of(new GitChanges(head.getName(), committedPaths, uncommittedPaths));
+        } catch (IOException | GitAPIException e) {
+            logger.warn("Could not collect git changes of {} since {}", directory, baseCommit, e);
+            return Optional.empty();
+        }
+    }
+
+    private static ObjectId resolveCommit(Repository repository, String commit) throws IOException {
+        try {
+            return repository.resolve(commit + "^{commit}");
+        } catch (MissingObjectException e) {
+            return null;
+        }
+    }
+
+    private static void addPaths(Set<Path> res, Path workTree, Collection<String> repositoryPaths) {
+        repositoryPaths.forEach(repositoryPath -> addPath(res, workTree, repositoryPath));
+    }
+
+    private static void addPath(Set<Path> res, Path workTree, String repositoryPath) {
+        if (!DiffEntry.DEV_NULL.equals(repositoryPath)) {
+            res.add(workTree.resolve(repositoryPath).normalize());
+        }
+    }
+
+    public String getHeadCommit() {
+        return headCommit;
+    }
+
+    /**
+     * @return absolute paths changed between the base commit and HEAD
+     */
+    public Set<Path> getCommittedPaths() {
+        return committedPaths;
+    }
+
+    /**
+     * @return absolute paths changed, added or removed in the working tree or the index, and untracked paths
+     */
+    public Set<Path> getUncommittedPaths() {
+        return uncommittedPaths;
+    }
+
+    public boolean isChanged(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+        return committedPaths.contains(normalized) || uncommittedPaths.contains(normalized);
+    }
+}
@@ -42,6 +42,8 @@ public abstract class AbstractFileIndexer implements FileIndexer {
 
     @Override
     public DefaultPagesStructure indexPath(Path rootPath) {
+        IndexEvent event = new IndexEvent();
+        event.begin();
         final DefaultPagesStructure res;
         try {
             List<Path> pagePaths = pagePaths(rootPath);
@@ -62,6 +64,30 @@ public abstract class AbstractFileIndexer implements FileIndexer {
         }
         SkipUpdateMarker skipUpdateMarker = new SkipUpdateMarker(rootPath);
         skipUpdateMarker.visitAndMark(res);
+        event.end();
+        if (event.shouldCommit()) {
+            event.rootPath = rootPath.toString();
+            event.childLayout = String.valueOf(properties.getChildLayout());
+            event.pageCount = countPages(res.pages());
+            event.attachmentCount = countAttachments(res.pages());
+            event.commit();
+        }
+        return res;
+    }
+
+    private static int countPages(List<? extends Page> pages) {
+        int res = pages.size();
+        for (Page page : pages) {
+            res += countPages(page.children());
+        }
+        return res;
+    }
+
+    private static int countAttachments(List<? extends Page> pages) {
+        int res = 0;
+        for (Page page : pages) {
+            res += page.attachments().size() + countAttachments(page.children());
+        }
         return res;
     }
 
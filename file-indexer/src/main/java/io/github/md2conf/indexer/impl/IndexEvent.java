@@ -0,0 +1,30 @@
+package io.github.md2conf.indexer.impl;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for indexing of a directory with markdown files
+ */
+@Name("io.github.md2conf.Index")
+@Label("Index")
+@Category({"md2conf", "Index"})
+@Description("Indexing of a directory into pages structure")
+@StackTrace(false)
+class IndexEvent extends jdk.jfr.Event {
+
+    @Label("Root Path")
+    String rootPath;
+
+    @Label("Child Layout")
+    String childLayout;
+
+    @Label("Pages")
+    int pageCount;
+
+    @Label("Attachments")
+    int attachmentCount;
+}
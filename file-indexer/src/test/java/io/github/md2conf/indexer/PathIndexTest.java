@@ -0,0 +1,32 @@
+package io.github.md2conf.indexer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PathIndexTest {
+
+    private final PagesStructure pagesStructure = new DelegatingFileIndexer(FileIndexerConfigurationPropertiesFactory.aDefaultIndexerConfigurationProperties().build())
+            .indexPath(Path.of("src/test/resources/dir_with_attachments"));
+
+    @Test
+    void index_contains_pages_and_attachments() {
+        PathIndex pathIndex = PathIndex.of(pagesStructure, false);
+        assertThat(pathIndex.size()).isGreaterThan(pagesStructure.pages().size());
+        Page page = pagesStructure.pages().get(0);
+        assertThat(pathIndex.isRegularFile(page.path())).isTrue();
+        assertThat(pathIndex.isRegularFile(page.path().toAbsolutePath())).isTrue();
+        assertThat(pathIndex.isRegularFile(page.path().getParent().resolve("../" + page.path().getParent().getFileName()).resolve(page.path().getFileName()))).isTrue();
+    }
+
+    @Test
+    void unknown_path_resolved_only_with_filesystem_fallback() {
+        Path notIndexed = Path.of("src/test/resources/logback-test.xml");
+        assertThat(PathIndex.of(pagesStructure, false).isRegularFile(notIndexed)).isFalse();
+        assertThat(PathIndex.of(pagesStructure, false).withFilesystemFallback(true).isRegularFile(notIndexed)).isTrue();
+        assertThat(PathIndex.FILESYSTEM.isRegularFile(notIndexed)).isTrue();
+        assertThat(PathIndex.FILESYSTEM.isRegularFile(Path.of("src/test/resources/missing.md"))).isFalse();
+    }
+}
@@ -0,0 +1,66 @@
+package io.github.md2conf.indexer.git;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GitChangesTest {
+
+    @TempDir
+    Path repositoryDir;
+
+    @Test
+    void committed_and_uncommitted_changes_since_base_commit() throws Exception {
+        Path docs = Files.createDirectories(repositoryDir.resolve("docs"));
+        Files.writeString(docs.resolve("a.md"), "# A");
+        Files.writeString(docs.resolve("b.md"), "# B");
+        Files.writeString(docs.resolve("c.md"), "# C");
+        try (Git git = Git.init().setDirectory(repositoryDir.toFile()).call()) {
+            RevCommit base = commit(git, "base");
+            Files.writeString(docs.resolve("a.md"), "# A changed");
+            Files.delete(docs.resolve("b.md"));
+            RevCommit head = commit(git, "head");
+            Files.writeString(docs.resolve("c.md"), "# C changed");
+            Files.writeString(docs.resolve("d.md"), "# D");
+
+            GitChanges changes = GitChanges.since(docs, base.getName()).orElseThrow();
+
+            assertThat(changes.getHeadCommit()).isEqualTo(head.getName());
+            assertThat(changes.getCommittedPaths()).containsExactlyInAnyOrder(abs(docs.resolve("a.md")), abs(docs.resolve("b.md")));
+            assertThat(changes.getUncommittedPaths()).containsExactlyInAnyOrder(abs(docs.resolve("c.md")), abs(docs.resolve("d.md")));
+            assertThat(changes.isChanged(docs.resolve("a.md"))).isTrue();
+            assertThat(changes.isChanged(docs.resolve("c.md"))).isTrue();
+            assertThat(changes.isChanged(docs.resolve("e.md"))).isFalse();
+        }
+    }
+
+    @Test
+    void unknown_base_commit_or_no_repository() throws Exception {
+        Path docs = Files.createDirectories(repositoryDir.resolve("docs"));
+        assertThat(GitChanges.since(docs, null)).isEmpty();
+
+        Files.writeString(docs.resolve("a.md"), "# A");
+        try (Git git = Git.init().setDirectory(repositoryDir.toFile()).call()) {
+            commit(git, "base");
+
+            assertThat(GitChanges.since(docs, "0123456789abcdef0123456789abcdef01234567")).isEmpty();
+            assertThat(GitChanges.since(docs, null).orElseThrow().getCommittedPaths()).isEmpty();
+        }
+    }
+
+    private static RevCommit commit(Git git, String message) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        return git.commit().setMessage(message).setSign(false).setAuthor("md2conf", "md2conf@example.com").setCommitter("md2conf", "md2conf@example.com").call();
+    }
+
+    private static Path abs(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+}
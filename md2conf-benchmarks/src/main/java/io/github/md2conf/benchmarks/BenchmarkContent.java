@@ -0,0 +1,105 @@
+package io.github.md2conf.benchmarks;
+
+import org.apache.commons.io.FileUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Deterministic content used by benchmarks.
+ */
+public final class BenchmarkContent {
+
+    private BenchmarkContent() {
+    }
+
+    /**
+     * @param sections - number of sections, each section is about 1KB of markdown
+     * @return markdown page with headings, emphasis, links, lists, tables and code blocks
+     */
+    public static String markdownPage(String title, int sections) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# ").append(title).append("\n\n");
+        for (int i = 0; i < sections; i++) {
+            sb.append("## Section ").append(i).append("\n\n");
+            sb.append("Lorem ipsum **dolor** sit amet, _consectetur_ adipiscing elit. See [external link](https://example.com/")
+              .append(i).append(") and `inline code`. Sed do eiusmod tempor incididunt ut labore et dolore ~~magna~~ aliqua.\n\n");
+            sb.append("* first item\n* second item with **bold**\n    * nested item\n* third item\n\n");
+            sb.append("| Column A | Column B | Column C |\n|----------|----------|----------|\n");
+            for (int row = 0; row < 3; row++) {
+                sb.append("| a").append(row).append(" | b").append(row).append(" | c").append(row).append(" |\n");
+            }
+            sb.append("\n```java\npublic class Section").append(i).append(" {\n    int value = ").append(i).append(";\n}\n```\n\n");
+            sb.append("> Quote with {curly braces} to escape.\n\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @param sections - number of sections, each section is about 1KB of html
+     * @return html similar to Confluence page rendered in view format
+     */
+    public static String viewPage(int sections) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < sections; i++) {
+            sb.append("<h2 id=\"section-").append(i).append("\">Section ").append(i).append("</h2>");
+            sb.append("<p>Lorem ipsum <strong>dolor</strong> sit amet, <em>consectetur</em> adipiscing elit. See <a href=\"https://example.com/")
+              .append(i).append("\">external link</a> and <code>inline code</code>. Sed do eiusmod tempor incididunt ut labore.</p>");
+            sb.append("<ul><li>first item</li><li>second item with <strong>bold</strong><ul><li>nested item</li></ul></li><li>third item</li></ul>");
+            sb.append("<div class=\"table-wrap\"><table class=\"confluenceTable\"><tbody><tr><th class=\"confluenceTh\">Column A</th><th class=\"confluenceTh\">Column B</th></tr>");
+            for (int row = 0; row < 3; row++) {
+                sb.append("<tr><td class=\"confluenceTd\">a").append(row).append("</td><td class=\"confluenceTd\">b").append(row).append("</td></tr>");
+            }
+            sb.append("</tbody></table></div>");
+            sb.append("<div class=\"code panel pdl\"><div class=\"codeContent panelContent pdl\"><pre class=\"syntaxhighlighter-pre\">public class Section")
+              .append(i).append(" {\n    int value = ").append(i).append(";\n}</pre></div></div>");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Write a tree of markdown pages in the {@link io.github.md2conf.indexer.ChildLayout#SUB_DIRECTORY} layout,
+     * level by level, every page has up to fanOut children.
+     *
+     * @param root      - directory to write pages to
+     * @param pageCount - total number of pages
+     * @param fanOut    - max number of top level pages and max number of children of a page
+     * @param sections  - number of sections of every page
+     */
+    public static void writeMarkdownTree(Path root, int pageCount, int fanOut, int sections) throws IOException {
+        Deque<Path> directories = new ArrayDeque<>();
+        directories.add(root);
+        int written = 0;
+        while (written < pageCount) {
+            Path dir = directories.poll();
+            Files.createDirectories(dir);
+            for (int i = 0; i < fanOut && written < pageCount; i++, written++) {
+                String name = "page-" + written;
+                Files.writeString(dir.resolve(name + ".md"), markdownPage(name, sections));
+                directories.add(dir.resolve(name));
+            }
+        }
+    }
+
+    public static byte[] resource(String name) {
+        try (InputStream inputStream = BenchmarkContent.class.getResourceAsStream(name)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("No benchmark resource " + name);
+            }
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void deleteQuietly(Path path) {
+        if (path != null) {
+            FileUtils.deleteQuietly(path.toFile());
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package io.github.md2conf.benchmarks;
+
+import io.github.md2conf.converter.cache.ConversionCache;
+import io.github.md2conf.model.util.ContentHashAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hashing of page content as done by the publisher (content-hash property) and by the conversion cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContentHashBenchmark {
+
+    @Param({"1", "64", "1024"})
+    public int sizeKb;
+
+    @Param({"SHA256", "MURMUR3_128"})
+    public ContentHashAlgorithm algorithm;
+
+    private String content;
+    private byte[] source;
+    private final Path sourcePath = Path.of("docs/page.md");
+
+    @Setup
+    public void setUp() {
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < sizeKb * 1024) {
+            sb.append(BenchmarkContent.markdownPage("Page", 1));
+        }
+        content = sb.substring(0, sizeKb * 1024);
+        source = content.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String publisherContentHash() {
+        return algorithm.hash(content);
+    }
+
+    @Benchmark
+    public String conversionCacheKey() {
+        return ConversionCache.cacheKey(source, sourcePath, "md2wiki;removeTitle=true");
+    }
+}
@@ -0,0 +1,73 @@
+package io.github.md2conf.benchmarks;
+
+import io.github.md2conf.indexer.ChildLayout;
+import io.github.md2conf.indexer.DelegatingFileIndexer;
+import io.github.md2conf.indexer.FileIndexer;
+import io.github.md2conf.indexer.FileIndexerConfigurationProperties;
+import io.github.md2conf.indexer.PagesStructure;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static io.github.md2conf.benchmarks.corpus.CorpusGenerator.CorpusGeneratorBuilder.aCorpusGenerator;
+
+/**
+ * Indexing of generated corpora of different sizes and layouts, with attachments.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FileIndexerBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pageCount;
+
+    @Param({"SUB_DIRECTORY", "SAME_DIRECTORY"})
+    public ChildLayout childLayout;
+
+    private Path inputDir;
+    private FileIndexer fileIndexer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputDir = Files.createTempDirectory("indexer-benchmark");
+        aCorpusGenerator()
+                .withPageCount(pageCount)
+                .withChildLayout(childLayout)
+                .withSectionsPerPage(1)
+                .build()
+                .generate(inputDir);
+        FileIndexerConfigurationProperties properties = new FileIndexerConfigurationProperties();
+        properties.setFileExtension("md");
+        properties.setChildLayout(childLayout);
+        fileIndexer = new DelegatingFileIndexer(properties);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContent.deleteQuietly(inputDir);
+    }
+
+    @Benchmark
+    public PagesStructure indexPath() {
+        return fileIndexer.indexPath(inputDir);
+    }
+}
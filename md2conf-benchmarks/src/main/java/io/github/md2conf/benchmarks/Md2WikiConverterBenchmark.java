@@ -0,0 +1,70 @@
+package io.github.md2conf.benchmarks;
+
+import io.github.md2conf.converter.md2wiki.Md2WikiConverter;
+import io.github.md2conf.indexer.DelegatingFileIndexer;
+import io.github.md2conf.indexer.FileIndexerConfigurationProperties;
+import io.github.md2conf.indexer.PagesStructure;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.title.processor.DefaultPageStructureTitleProcessor;
+import io.github.md2conf.title.processor.TitleExtractStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-page conversion of markdown to wiki, including title processing and writing of the output file.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Md2WikiConverterBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int sections;
+
+    private Path inputDir;
+    private Path outputDir;
+    private PagesStructure pagesStructure;
+    private Md2WikiConverter converter;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputDir = Files.createTempDirectory("md2wiki-benchmark-input");
+        outputDir = Files.createTempDirectory("md2wiki-benchmark-output");
+        Files.writeString(inputDir.resolve("page.md"), BenchmarkContent.markdownPage("Page", sections));
+        FileIndexerConfigurationProperties properties = new FileIndexerConfigurationProperties();
+        properties.setFileExtension("md");
+        pagesStructure = new DelegatingFileIndexer(properties).indexPath(inputDir);
+        converter = new Md2WikiConverter(new DefaultPageStructureTitleProcessor(TitleExtractStrategy.FROM_FIRST_HEADER, null, null, false),
+                outputDir, true, false, "plantuml");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContent.deleteQuietly(inputDir);
+        BenchmarkContent.deleteQuietly(outputDir);
+    }
+
+    @Benchmark
+    public ConfluenceContentModel convertPage() throws IOException {
+        return converter.convert(pagesStructure);
+    }
+}
@@ -0,0 +1,132 @@
+package io.github.md2conf.benchmarks;
+
+import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
+import io.github.md2conf.confluence.client.http.ConfluenceAttachment;
+import io.github.md2conf.confluence.client.http.RestApiInternalClient;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.params.BasicHttpParams;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.HttpContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON extraction of {@link RestApiInternalClient} over recorded Confluence responses. No network is involved,
+ * responses are served from memory.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RestApiInternalClientBenchmark {
+
+    private static final String PAYLOADS = "/io/github/md2conf/benchmarks/payloads/";
+
+    private final RestApiInternalClient client = new RestApiInternalClient("http://confluence.example.com",
+            new RecordedResponsesHttpClient(), null, "user", "password");
+
+    @Benchmark
+    public ConfluenceApiPage pageWithViewContent() {
+        return client.getPageWithViewContent("100000");
+    }
+
+    @Benchmark
+    public List<ConfluenceApiPage> childPagesWithViewContent() {
+        return client.getChildPagesWithViewContent("100000");
+    }
+
+    @Benchmark
+    public List<ConfluenceApiPage> childPages() {
+        return client.getChildPages("100000");
+    }
+
+    @Benchmark
+    public List<ConfluenceAttachment> attachments() {
+        return client.getAttachments("100000");
+    }
+
+    @Benchmark
+    public List<String> labels() {
+        return client.getLabels("100000");
+    }
+
+    /**
+     * Serves recorded payloads chosen by request path and expand options
+     */
+    static class RecordedResponsesHttpClient extends CloseableHttpClient {
+
+        private final Map<String, byte[]> payloads = new LinkedHashMap<>();
+
+        RecordedResponsesHttpClient() {
+            payloads.put("/child/page?body.view", BenchmarkContent.resource(PAYLOADS + "child-pages-with-view-content.json"));
+            payloads.put("/child/page", BenchmarkContent.resource(PAYLOADS + "child-pages.json"));
+            payloads.put("/child/attachment", BenchmarkContent.resource(PAYLOADS + "attachments.json"));
+            payloads.put("/label", BenchmarkContent.resource(PAYLOADS + "labels.json"));
+            payloads.put("", BenchmarkContent.resource(PAYLOADS + "page-with-view-content.json"));
+        }
+
+        @Override
+        protected CloseableHttpResponse doExecute(HttpHost target, HttpRequest request, HttpContext context) {
+            URI uri = URI.create(request.getRequestLine().getUri());
+            String query = uri.getQuery() == null ? "" : uri.getQuery();
+            for (Map.Entry<String, byte[]> entry : payloads.entrySet()) {
+                String[] pathAndExpand = entry.getKey().split("\\?");
+                if (uri.getPath().endsWith(pathAndExpand[0]) && (pathAndExpand.length == 1 || query.contains(pathAndExpand[1]))) {
+                    return new RecordedResponse(entry.getValue());
+                }
+            }
+            throw new IllegalArgumentException("No recorded response for " + uri);
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public HttpParams getParams() {
+            return new BasicHttpParams();
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public ClientConnectionManager getConnectionManager() {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    static class RecordedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        RecordedResponse(byte[] payload) {
+            super(HttpVersion.HTTP_1_1, 200, "OK");
+            setEntity(new ByteArrayEntity(payload, ContentType.APPLICATION_JSON));
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.md2conf.benchmarks;
+
+import io.github.md2conf.indexer.DelegatingFileIndexer;
+import io.github.md2conf.indexer.FileIndexerConfigurationProperties;
+import io.github.md2conf.indexer.PagesStructure;
+import io.github.md2conf.title.processor.DefaultPageStructureTitleProcessor;
+import io.github.md2conf.title.processor.FirstHeaderTitleExtractor;
+import io.github.md2conf.title.processor.PageStructureTitleProcessor;
+import io.github.md2conf.title.processor.TitleExtractStrategy;
+import io.github.md2conf.title.processor.TitleExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title extraction from the first header of a single page and title processing of a page tree.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TitleExtractionBenchmark {
+
+    @Param({"1", "100"})
+    public int sections;
+
+    private Path inputDir;
+    private Path page;
+    private PagesStructure pagesStructure;
+    private final TitleExtractor titleExtractor = new FirstHeaderTitleExtractor();
+    private final PageStructureTitleProcessor titleProcessor =
+            new DefaultPageStructureTitleProcessor(TitleExtractStrategy.FROM_FIRST_HEADER, "prefix ", null, true);
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputDir = Files.createTempDirectory("title-benchmark");
+        BenchmarkContent.writeMarkdownTree(inputDir, 100, 10, sections);
+        page = inputDir.resolve("page-0.md");
+        FileIndexerConfigurationProperties properties = new FileIndexerConfigurationProperties();
+        properties.setFileExtension("md");
+        pagesStructure = new DelegatingFileIndexer(properties).indexPath(inputDir);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContent.deleteQuietly(inputDir);
+    }
+
+    @Benchmark
+    public String extractTitle() throws IOException {
+        return titleExtractor.extractTitle(page);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Map<Path, String> toTitleMapOf100Pages() throws IOException {
+        return titleProcessor.toTitleMap(pagesStructure);
+    }
+}
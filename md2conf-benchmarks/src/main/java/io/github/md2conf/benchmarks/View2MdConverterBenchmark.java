@@ -0,0 +1,81 @@
+package io.github.md2conf.benchmarks;
+
+import com.vladsch.flexmark.util.data.MutableDataSet;
+import io.github.md2conf.converter.view2md.View2MdConverter;
+import io.github.md2conf.indexer.PagesStructure;
+import io.github.md2conf.markdown.formatter.MarkdownFormatter;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.ConfluencePage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of Confluence view html to markdown and formatting of markdown.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class View2MdConverterBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int sections;
+
+    private Path inputDir;
+    private Path outputDir;
+    private ConfluenceContentModel model;
+    private View2MdConverter converter;
+    private MarkdownFormatter markdownFormatter;
+    private String markdown;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputDir = Files.createTempDirectory("view2md-benchmark-input");
+        outputDir = Files.createTempDirectory("view2md-benchmark-output");
+        Path contentFile = inputDir.resolve("65551.xhtml");
+        Files.writeString(contentFile, BenchmarkContent.viewPage(sections));
+        ConfluencePage page = new ConfluencePage();
+        page.setTitle("Page");
+        page.setType(ConfluenceContentModel.Type.VIEW);
+        page.setContentFilePath(contentFile.toString());
+        model = new ConfluenceContentModel(List.of(page));
+        converter = new View2MdConverter(outputDir, new MutableDataSet());
+        markdownFormatter = new MarkdownFormatter();
+        markdown = BenchmarkContent.markdownPage("Page", sections);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkContent.deleteQuietly(inputDir);
+        BenchmarkContent.deleteQuietly(outputDir);
+    }
+
+    @Benchmark
+    public PagesStructure convertPage() {
+        return converter.convert(model);
+    }
+
+    @Benchmark
+    public String formatMarkdown() {
+        return markdownFormatter.format(markdown);
+    }
+}
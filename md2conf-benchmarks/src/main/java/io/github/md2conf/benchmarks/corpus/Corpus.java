@@ -0,0 +1,84 @@
+package io.github.md2conf.benchmarks.corpus;
+
+import io.github.md2conf.indexer.ChildLayout;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Corpus written by {@link CorpusGenerator}
+ */
+public class Corpus {
+
+    private final Path root;
+    private final ChildLayout childLayout;
+    final List<Path> pages = new ArrayList<>();
+    int links;
+    int images;
+    int attachments;
+    private long bytes;
+
+    Corpus(Path root, ChildLayout childLayout) {
+        this.root = root;
+        this.childLayout = childLayout;
+    }
+
+    void addBytes(long count) {
+        bytes += count;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public ChildLayout getChildLayout() {
+        return childLayout;
+    }
+
+    /**
+     * @return page paths, level by level
+     */
+    public List<Path> getPages() {
+        return Collections.unmodifiableList(pages);
+    }
+
+    /**
+     * @return number of cross-page links
+     */
+    public int getLinks() {
+        return links;
+    }
+
+    /**
+     * @return number of image references, images are shared between pages
+     */
+    public int getImages() {
+        return images;
+    }
+
+    public int getAttachments() {
+        return attachments;
+    }
+
+    /**
+     * @return total size of written files
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return "Corpus{" +
+                "root=" + root +
+                ", childLayout=" + childLayout +
+                ", pages=" + pages.size() +
+                ", links=" + links +
+                ", images=" + images +
+                ", attachments=" + attachments +
+                ", bytes=" + bytes +
+                '}';
+    }
+}
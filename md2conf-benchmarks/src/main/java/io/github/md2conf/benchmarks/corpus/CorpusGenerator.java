@@ -0,0 +1,306 @@
+package io.github.md2conf.benchmarks.corpus;
+
+import io.github.md2conf.indexer.ChildLayout;
+import io.github.md2conf.indexer.PathNameUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of markdown documentation trees. The same settings and seed produce byte-identical corpora.
+ * <p>
+ * Pages are laid out for the given {@link ChildLayout}. Every page has a title header, sections with text, lists,
+ * code blocks and tables, cross-page links to random pages, images from a shared {@code images} directory and
+ * attachments in its attachments directory.
+ */
+public class CorpusGenerator {
+
+    static final String IMAGES_DIRECTORY = "images";
+    private static final String[] WORDS = {"lorem", "ipsum", "dolor", "sit", "amet", "consectetur", "adipiscing", "elit",
+            "sed", "do", "eiusmod", "tempor", "incididunt", "ut", "labore", "et", "dolore", "magna", "aliqua", "enim",
+            "minim", "veniam", "quis", "nostrud", "exercitation", "ullamco", "laboris", "nisi", "aliquip", "commodo"};
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+
+    private final int pageCount;
+    private final int fanOut;
+    private final ChildLayout childLayout;
+    private final int sectionsPerPage;
+    private final double linksPerPage;
+    private final double imagesPerPage;
+    private final double attachmentsPerPage;
+    private final int attachmentSize;
+    private final long seed;
+
+    private CorpusGenerator(CorpusGeneratorBuilder builder) {
+        this.pageCount = builder.pageCount;
+        this.fanOut = builder.fanOut;
+        this.childLayout = builder.childLayout;
+        this.sectionsPerPage = builder.sectionsPerPage;
+        this.linksPerPage = builder.linksPerPage;
+        this.imagesPerPage = builder.imagesPerPage;
+        this.attachmentsPerPage = builder.attachmentsPerPage;
+        this.attachmentSize = builder.attachmentSize;
+        this.seed = builder.seed;
+    }
+
+    /**
+     * Write corpus to the directory, the directory is created if it doesn't exist
+     */
+    public Corpus generate(Path root) throws IOException {
+        Random random = new Random(seed);
+        List<Node> nodes = buildTree(random);
+        assignPaths(nodes, root);
+        Corpus corpus = new Corpus(root, childLayout);
+        int imagePoolSize = imagesPerPage > 0 ? Math.max(1, pageCount / 10) : 0;
+        for (int i = 0; i < imagePoolSize; i++) {
+            Path image = root.resolve(IMAGES_DIRECTORY).resolve("image-" + i + ".png");
+            corpus.addBytes(writeBinary(image, PNG_SIGNATURE, random));
+        }
+        for (Node node : nodes) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("# ").append(node.title).append("\n\n");
+            sb.append(sentence(random, 12)).append("\n\n");
+            List<String> inlines = new ArrayList<>();
+            for (int i = 0, n = count(linksPerPage, random); i < n; i++) {
+                Node target = nodes.get(random.nextInt(nodes.size()));
+                inlines.add("[" + target.title + "](" + relative(node.path.getParent(), target.path) + ")");
+                corpus.links++;
+            }
+            for (int i = 0, n = imagePoolSize > 0 ? count(imagesPerPage, random) : 0; i < n; i++) {
+                Path image = root.resolve(IMAGES_DIRECTORY).resolve("image-" + random.nextInt(imagePoolSize) + ".png");
+                inlines.add("![" + image.getFileName() + "](" + relative(node.path.getParent(), image) + ")");
+                corpus.images++;
+            }
+            for (int i = 0, n = count(attachmentsPerPage, random); i < n; i++) {
+                Path attachment = PathNameUtils.attachmentsDirectoryByPagePath(node.path).resolve("attachment-" + i + ".bin");
+                corpus.addBytes(writeBinary(attachment, new byte[0], random));
+                inlines.add("[" + attachment.getFileName() + "](" + relative(node.path.getParent(), attachment) + ")");
+                corpus.attachments++;
+            }
+            int sections = Math.max(1, sectionsPerPage);
+            for (int s = 0; s < sections; s++) {
+                appendSection(sb, node, s, random, inlines.subList(inlines.size() * s / sections, inlines.size() * (s + 1) / sections));
+            }
+            byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+            Files.createDirectories(node.path.getParent());
+            Files.write(node.path, bytes);
+            corpus.addBytes(bytes.length);
+            corpus.pages.add(node.path);
+        }
+        return corpus;
+    }
+
+    /**
+     * Pages are created level by level, a page has from 1 to 2 * fanOut - 1 children, fanOut on average.
+     * With {@link ChildLayout#SAME_DIRECTORY} the first page is the single top level page.
+     */
+    private List<Node> buildTree(Random random) {
+        List<Node> nodes = new ArrayList<>();
+        Deque<Node> parents = new ArrayDeque<>();
+        int topLevelCount = childLayout == ChildLayout.SAME_DIRECTORY ? 1 : childCount(random);
+        for (int i = 0; i < topLevelCount && nodes.size() < pageCount; i++) {
+            nodes.add(newNode(nodes.size(), null, random));
+            parents.add(nodes.get(nodes.size() - 1));
+        }
+        while (nodes.size() < pageCount) {
+            Node parent = parents.poll();
+            for (int i = 0, n = childCount(random); i < n && nodes.size() < pageCount; i++) {
+                Node child = newNode(nodes.size(), parent, random);
+                parent.children.add(child);
+                nodes.add(child);
+                parents.add(child);
+            }
+        }
+        return nodes;
+    }
+
+    private void assignPaths(List<Node> nodes, Path root) {
+        for (Node node : nodes) {
+            Path dir = node.parent == null ? root : node.parent.childrenDirectory;
+            String name = "page-" + node.index;
+            if (childLayout == ChildLayout.SUB_DIRECTORY) {
+                node.path = dir.resolve(name + ".md");
+                node.childrenDirectory = dir.resolve(name);
+            } else if (node.parent == null) {
+                node.path = dir.resolve("index.md");
+                node.childrenDirectory = dir;
+            } else if (node.children.isEmpty()) {
+                node.path = dir.resolve(name + ".md");
+            } else {
+                node.path = dir.resolve(name).resolve("index.md");
+                node.childrenDirectory = dir.resolve(name);
+            }
+        }
+    }
+
+    private void appendSection(StringBuilder sb, Node node, int section, Random random, List<String> inlines) {
+        sb.append("## ").append(capitalize(WORDS[random.nextInt(WORDS.length)])).append(' ').append(section).append("\n\n");
+        sb.append(sentence(random, 20));
+        for (String inline : inlines) {
+            sb.append(" See ").append(inline).append(". ").append(sentence(random, 6));
+        }
+        sb.append(" More at [external link](https://example.com/").append(node.index).append('/').append(section).append(").\n\n");
+        switch (random.nextInt(3)) {
+            case 0:
+                sb.append("* ").append(sentence(random, 4)).append("\n* **").append(sentence(random, 3))
+                        .append("**\n    * ").append(sentence(random, 3)).append("\n\n");
+                break;
+            case 1:
+                sb.append("```java\npublic class Page").append(node.index).append("Section").append(section)
+                        .append(" {\n    int value = ").append(random.nextInt(1000)).append(";\n}\n```\n\n");
+                break;
+            default:
+                sb.append("| Name | Value |\n|------|-------|\n");
+                for (int row = 0; row < 3; row++) {
+                    sb.append("| ").append(WORDS[random.nextInt(WORDS.length)]).append(" | ").append(random.nextInt(1000)).append(" |\n");
+                }
+                sb.append('\n');
+        }
+    }
+
+    private Node newNode(int index, Node parent, Random random) {
+        return new Node(index, "Page " + index + " " + capitalize(WORDS[random.nextInt(WORDS.length)]), parent);
+    }
+
+    private int childCount(Random random) {
+        return 1 + random.nextInt(2 * Math.max(1, fanOut) - 1);
+    }
+
+    /**
+     * @return integer part of average plus one with probability of fractional part
+     */
+    private static int count(double average, Random random) {
+        int n = (int) average;
+        return n + (random.nextDouble() < average - n ? 1 : 0);
+    }
+
+    private int writeBinary(Path path, byte[] header, Random random) throws IOException {
+        byte[] bytes = new byte[Math.max(header.length, attachmentSize)];
+        random.nextBytes(bytes);
+        System.arraycopy(header, 0, bytes, 0, header.length);
+        Files.createDirectories(path.getParent());
+        Files.write(path, bytes);
+        return bytes.length;
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder sb = new StringBuilder(capitalize(WORDS[random.nextInt(WORDS.length)]));
+        for (int i = 1; i < words; i++) {
+            sb.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sb.append('.').toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private static String relative(Path from, Path to) {
+        return from.relativize(to).toString().replace('\\', '/');
+    }
+
+    private static class Node {
+        final int index;
+        final String title;
+        final Node parent;
+        final List<Node> children = new ArrayList<>();
+        Path path;
+        Path childrenDirectory;
+
+        Node(int index, String title, Node parent) {
+            this.index = index;
+            this.title = title;
+            this.parent = parent;
+        }
+    }
+
+    public static final class CorpusGeneratorBuilder {
+        private int pageCount = 100;
+        private int fanOut = 5;
+        private ChildLayout childLayout = ChildLayout.SUB_DIRECTORY;
+        private int sectionsPerPage = 3;
+        private double linksPerPage = 2;
+        private double imagesPerPage = 0.5;
+        private double attachmentsPerPage = 0.2;
+        private int attachmentSize = 4096;
+        private long seed = 42;
+
+        private CorpusGeneratorBuilder() {
+        }
+
+        public static CorpusGeneratorBuilder aCorpusGenerator() {
+            return new CorpusGeneratorBuilder();
+        }
+
+        public CorpusGeneratorBuilder withPageCount(int pageCount) {
+            this.pageCount = pageCount;
+            return this;
+        }
+
+        /**
+         * Average number of children of a page, 1 produces a chain of pages
+         */
+        public CorpusGeneratorBuilder withFanOut(int fanOut) {
+            this.fanOut = fanOut;
+            return this;
+        }
+
+        public CorpusGeneratorBuilder withChildLayout(ChildLayout childLayout) {
+            this.childLayout = childLayout;
+            return this;
+        }
+
+        public CorpusGeneratorBuilder withSectionsPerPage(int sectionsPerPage) {
+            this.sectionsPerPage = sectionsPerPage;
+            return this;
+        }
+
+        /**
+         * Average number of links to other pages of the corpus
+         */
+        public CorpusGeneratorBuilder withLinksPerPage(double linksPerPage) {
+            this.linksPerPage = linksPerPage;
+            return this;
+        }
+
+        /**
+         * Average number of images of a page. Images are shared, there is one image per 10 pages.
+         */
+        public CorpusGeneratorBuilder withImagesPerPage(double imagesPerPage) {
+            this.imagesPerPage = imagesPerPage;
+            return this;
+        }
+
+        /**
+         * Average number of attachments of a page
+         */
+        public CorpusGeneratorBuilder withAttachmentsPerPage(double attachmentsPerPage) {
+            this.attachmentsPerPage = attachmentsPerPage;
+            return this;
+        }
+
+        /**
+         * Size in bytes of every image and attachment
+         */
+        public CorpusGeneratorBuilder withAttachmentSize(int attachmentSize) {
+            this.attachmentSize = attachmentSize;
+            return this;
+        }
+
+        public CorpusGeneratorBuilder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        public CorpusGenerator build() {
+            return new CorpusGenerator(this);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package io.github.md2conf.benchmarks.corpus;
+
+import io.github.md2conf.indexer.ChildLayout;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.Callable;
+
+import static io.github.md2conf.benchmarks.corpus.CorpusGenerator.CorpusGeneratorBuilder.aCorpusGenerator;
+
+/**
+ * Write a synthetic corpus to disk, see {@link CorpusGenerator}
+ * <p>
+ * Run with {@code java -cp md2conf-benchmarks/target/benchmarks.jar io.github.md2conf.benchmarks.corpus.GenerateCorpusCommand -o corpus}
+ */
+@Command(name = "generate-corpus", mixinStandardHelpOptions = true,
+        description = "Generate deterministic markdown documentation tree")
+public class GenerateCorpusCommand implements Callable<Integer> {
+
+    @Option(names = {"-o", "--output-dir"}, required = true, description = "Directory to write corpus to")
+    Path outputDir;
+
+    @Option(names = {"--pages"}, description = "Number of pages. Default: ${DEFAULT-VALUE}", defaultValue = "1000")
+    int pageCount;
+
+    @Option(names = {"--fan-out"}, description = "Average number of children of a page. Default: ${DEFAULT-VALUE}", defaultValue = "5")
+    int fanOut;
+
+    @Option(names = {"--child-layout"}, description = "Valid values: ${COMPLETION-CANDIDATES}. Default: ${DEFAULT-VALUE}", defaultValue = "SUB_DIRECTORY")
+    ChildLayout childLayout;
+
+    @Option(names = {"--sections-per-page"}, description = "Number of sections of a page. Default: ${DEFAULT-VALUE}", defaultValue = "3")
+    int sectionsPerPage;
+
+    @Option(names = {"--links-per-page"}, description = "Average number of cross-page links. Default: ${DEFAULT-VALUE}", defaultValue = "2")
+    double linksPerPage;
+
+    @Option(names = {"--images-per-page"}, description = "Average number of images. Default: ${DEFAULT-VALUE}", defaultValue = "0.5")
+    double imagesPerPage;
+
+    @Option(names = {"--attachments-per-page"}, description = "Average number of attachments. Default: ${DEFAULT-VALUE}", defaultValue = "0.2")
+    double attachmentsPerPage;
+
+    @Option(names = {"--attachment-size"}, description = "Size in bytes of images and attachments. Default: ${DEFAULT-VALUE}", defaultValue = "4096")
+    int attachmentSize;
+
+    @Option(names = {"--seed"}, description = "Random seed. Default: ${DEFAULT-VALUE}", defaultValue = "42")
+    long seed;
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new GenerateCorpusCommand()).execute(args));
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        Corpus corpus = aCorpusGenerator()
+                .withPageCount(pageCount)
+                .withFanOut(fanOut)
+                .withChildLayout(childLayout)
+                .withSectionsPerPage(sectionsPerPage)
+                .withLinksPerPage(linksPerPage)
+                .withImagesPerPage(imagesPerPage)
+                .withAttachmentsPerPage(attachmentsPerPage)
+                .withAttachmentSize(attachmentSize)
+                .withSeed(seed)
+                .build()
+                .generate(outputDir);
+        System.out.println(corpus);
+        return 0;
+    }
+}
@@ -0,0 +1,41 @@
+package io.github.md2conf.benchmarks.e2e;
+
+import java.util.Arrays;
+
+/**
+ * Records latencies in nanoseconds and reports percentiles. Keeps every sample, the harness runs are bounded.
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+    private int size;
+
+    public synchronized void record(long nanos) {
+        if (size == samples.length) {
+            samples = Arrays.copyOf(samples, size * 2);
+        }
+        samples[size++] = nanos;
+    }
+
+    public synchronized int count() {
+        return size;
+    }
+
+    public synchronized void reset() {
+        size = 0;
+    }
+
+    /**
+     * @param percentile - from 0 to 100
+     * @return latency in milliseconds, 0 when nothing is recorded
+     */
+    public synchronized double percentileMillis(double percentile) {
+        if (size == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, size);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100 * size) - 1;
+        return sorted[Math.max(0, Math.min(index, size - 1))] / 1_000_000.0;
+    }
+}
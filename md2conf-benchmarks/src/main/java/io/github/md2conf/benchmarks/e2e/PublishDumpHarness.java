@@ -0,0 +1,286 @@
+package io.github.md2conf.benchmarks.e2e;
+
+import io.github.md2conf.benchmarks.BenchmarkContent;
+import io.github.md2conf.benchmarks.stub.ConfluenceStubServer;
+import io.github.md2conf.confluence.client.DumpConfluenceClient;
+import io.github.md2conf.confluence.client.OrphanRemovalStrategy;
+import io.github.md2conf.confluence.client.PublishConfluenceClient;
+import io.github.md2conf.confluence.client.PublishConfluenceClientListener;
+import io.github.md2conf.confluence.client.PublishingStrategy;
+import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
+import io.github.md2conf.confluence.client.http.RestApiInternalClient;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.ConfluencePage;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.github.md2conf.benchmarks.stub.ConfluenceStubServer.ConfluenceStubServerBuilder.aConfluenceStubServer;
+import static io.github.md2conf.confluence.client.PublishConfluenceClientBuilder.aConfluenceClient;
+
+/**
+ * End-to-end publish and dump against {@link ConfluenceStubServer}. For every page count reports pages/sec,
+ * requests/page and client side latency percentiles of initial publish, publish without changes and dump.
+ * <p>
+ * Run with {@code java -cp md2conf-benchmarks/target/benchmarks.jar io.github.md2conf.benchmarks.e2e.PublishDumpHarness}
+ */
+@Command(name = "publish-dump-harness", mixinStandardHelpOptions = true,
+        description = "End-to-end publish and dump against in-process Confluence stub")
+public class PublishDumpHarness implements Callable<Integer> {
+
+    static final String SPACE_KEY = "BENCH";
+    static final String ROOT_TITLE = "Benchmark root";
+    private static final String REQUEST_START = "md2conf.benchmarks.requestStart";
+
+    @Option(names = {"--pages"}, split = ",", description = "Page counts, one run per count. Default: ${DEFAULT-VALUE}", defaultValue = "100,1000,10000")
+    List<Integer> pageCounts = new ArrayList<>();
+
+    @Option(names = {"--fan-out"}, description = "Max number of children of a page. Default: ${DEFAULT-VALUE}", defaultValue = "10")
+    int fanOut;
+
+    @Option(names = {"--attachment-every"}, description = "Every n-th page has an attachment, 0 means no attachments. Default: ${DEFAULT-VALUE}", defaultValue = "5")
+    int attachmentEvery;
+
+    @Option(names = {"--latency-ms"}, description = "Stub latency of every request. Default: ${DEFAULT-VALUE}", defaultValue = "0")
+    long latencyMillis;
+
+    @Option(names = {"--latency-jitter-ms"}, description = "Stub random latency added to every request. Default: ${DEFAULT-VALUE}", defaultValue = "0")
+    long latencyJitterMillis;
+
+    @Option(names = {"--max-requests-per-second"}, description = "Stub throughput cap")
+    Double maxRequestsPerSecond;
+
+    @Option(names = {"--error-rate"}, description = "Fraction of requests failed by the stub. Default: ${DEFAULT-VALUE}", defaultValue = "0")
+    double errorRate;
+
+    @Option(names = {"--seed"}, description = "Seed of stub latency jitter and error injection. Default: ${DEFAULT-VALUE}", defaultValue = "42")
+    long seed;
+
+    public static void main(String[] args) {
+        System.exit(new CommandLine(new PublishDumpHarness()).execute(args));
+    }
+
+    @Override
+    public Integer call() throws IOException {
+        PrintStream out = System.out;
+        out.printf("%-10s %8s %10s %10s %10s %10s %10s %10s %10s%n",
+                "phase", "pages", "seconds", "pages/s", "req/page", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (int pageCount : pageCounts) {
+            for (PhaseResult result : run(pageCount)) {
+                out.printf("%-10s %8d %10.2f %10.1f %10.2f %10.2f %10.2f %10.2f %10.2f%s%n",
+                        result.phase, result.pages, result.seconds, result.pagesPerSecond(), result.requestsPerPage(),
+                        result.p50, result.p95, result.p99, result.max,
+                        result.failure == null ? "" : "  FAILED: " + result.failure);
+            }
+        }
+        return 0;
+    }
+
+    List<PhaseResult> run(int pageCount) throws IOException {
+        Path workDir = Files.createTempDirectory("md2conf-harness");
+        LatencyRecorder latencyRecorder = new LatencyRecorder();
+        try (ConfluenceStubServer server = aConfluenceStubServer()
+                .withLatency(Duration.ofMillis(latencyMillis))
+                .withLatencyJitter(Duration.ofMillis(latencyJitterMillis))
+                .withMaxRequestsPerSecond(maxRequestsPerSecond)
+                .withErrorRate(errorRate)
+                .withSeed(seed)
+                .build()
+                .start();
+             CloseableHttpClient httpClient = recordingHttpClient(latencyRecorder)) {
+            server.store().addPage(SPACE_KEY, null, ROOT_TITLE, "");
+            ConfluenceContentModel model = writeModel(workDir.resolve("model"), pageCount, fanOut, attachmentEvery);
+            RestApiInternalClient apiClient = new RestApiInternalClient(server.getBaseUrl(), httpClient, null, "user", "password");
+            PublishConfluenceClient publishClient = aConfluenceClient()
+                    .withInternalApiClient(apiClient)
+                    .withConfluenceClientListener(new CountingListener())
+                    .withPublishingStrategy(PublishingStrategy.APPEND_TO_ANCESTOR)
+                    .withOrphanRemovalStrategy(OrphanRemovalStrategy.REMOVE_ORPHANS)
+                    .build();
+            DumpConfluenceClient dumpClient = new DumpConfluenceClient(apiClient, workDir.resolve("dump"));
+
+            List<PhaseResult> results = new ArrayList<>();
+            results.add(measure("publish", pageCount, server, latencyRecorder,
+                    () -> publishClient.publish(model, SPACE_KEY, ROOT_TITLE)));
+            results.add(measure("republish", pageCount, server, latencyRecorder,
+                    () -> publishClient.publish(model, SPACE_KEY, ROOT_TITLE)));
+            results.add(measure("dump", pageCount + 1, server, latencyRecorder,
+                    () -> dumpClient.dump(SPACE_KEY, ROOT_TITLE)));
+            return results;
+        } finally {
+            BenchmarkContent.deleteQuietly(workDir);
+        }
+    }
+
+    /**
+     * Write a tree of wiki pages level by level, every page has up to fanOut children
+     *
+     * @param attachmentEvery - every n-th page has an attachment, 0 means no attachments
+     */
+    static ConfluenceContentModel writeModel(Path dir, int pageCount, int fanOut, int attachmentEvery) throws IOException {
+        Files.createDirectories(dir);
+        List<ConfluencePage> rootPages = new ArrayList<>();
+        Deque<List<ConfluencePage>> siblingLists = new ArrayDeque<>();
+        siblingLists.add(rootPages);
+        int written = 0;
+        while (written < pageCount) {
+            List<ConfluencePage> siblings = siblingLists.poll();
+            for (int i = 0; i < fanOut && written < pageCount; i++, written++) {
+                String title = "Page " + written;
+                Path contentFile = dir.resolve("page-" + written + ".wiki");
+                Files.writeString(contentFile, "h1. " + title + "\n\nContent of *" + title + "* with [a link|https://example.com/"
+                        + written + "] and some text to publish.\n", StandardCharsets.UTF_8);
+                ConfluencePage page = new ConfluencePage();
+                page.setTitle(title);
+                page.setType(ConfluenceContentModel.Type.WIKI);
+                page.setContentFilePath(contentFile.toString());
+                page.setLabels(List.of("md2conf", "benchmark"));
+                if (attachmentEvery > 0 && written % attachmentEvery == 0) {
+                    Path attachment = dir.resolve("attachment-" + written + ".txt");
+                    Files.writeString(attachment, ("attachment " + written + "\n").repeat(64), StandardCharsets.UTF_8);
+                    page.setAttachments(Map.of(attachment.getFileName().toString(), attachment.toString()));
+                }
+                siblings.add(page);
+                siblingLists.add(page.getChildren());
+            }
+        }
+        ConfluenceContentModel model = new ConfluenceContentModel();
+        model.setPages(rootPages);
+        return model;
+    }
+
+    private static PhaseResult measure(String phase, int pages, ConfluenceStubServer server, LatencyRecorder latencyRecorder, ThrowingRunnable action) {
+        server.resetCounters();
+        latencyRecorder.reset();
+        long start = System.nanoTime();
+        String failure = null;
+        try {
+            action.run();
+        } catch (Exception e) {
+            failure = String.valueOf(e);
+        }
+        PhaseResult result = new PhaseResult();
+        result.phase = phase;
+        result.pages = pages;
+        result.seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        result.requests = server.requestCount();
+        result.writeRequests = server.requestCountByOperation().entrySet().stream()
+                .filter(entry -> !entry.getKey().startsWith("GET "))
+                .mapToLong(Map.Entry::getValue)
+                .sum();
+        result.p50 = latencyRecorder.percentileMillis(50);
+        result.p95 = latencyRecorder.percentileMillis(95);
+        result.p99 = latencyRecorder.percentileMillis(99);
+        result.max = latencyRecorder.percentileMillis(100);
+        result.failure = failure;
+        return result;
+    }
+
+    private static CloseableHttpClient recordingHttpClient(LatencyRecorder latencyRecorder) {
+        return HttpClients.custom()
+                .addInterceptorFirst((HttpRequestInterceptor) (request, context) -> context.setAttribute(REQUEST_START, System.nanoTime()))
+                .addInterceptorLast((HttpResponseInterceptor) (response, context) -> {
+                    Object start = context.getAttribute(REQUEST_START);
+                    if (start != null) {
+                        latencyRecorder.record(System.nanoTime() - (Long) start);
+                    }
+                })
+                .build();
+    }
+
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    static class PhaseResult {
+        String phase;
+        int pages;
+        double seconds;
+        long requests;
+        long writeRequests;
+        double p50;
+        double p95;
+        double p99;
+        double max;
+        String failure;
+
+        double pagesPerSecond() {
+            return seconds > 0 ? pages / seconds : 0;
+        }
+
+        double requestsPerPage() {
+            return pages > 0 ? (double) requests / pages : 0;
+        }
+    }
+
+    /**
+     * Counts publish events without logging every page
+     */
+    static class CountingListener implements PublishConfluenceClientListener {
+
+        final AtomicInteger pagesAdded = new AtomicInteger();
+        final AtomicInteger pagesUpdated = new AtomicInteger();
+        final AtomicInteger pagesNotModified = new AtomicInteger();
+
+        @Override
+        public void pageAdded(ConfluenceApiPage addedPage) {
+            pagesAdded.incrementAndGet();
+        }
+
+        @Override
+        public void pageUpdated(ConfluenceApiPage existingPage, ConfluenceApiPage updatedPage) {
+            pagesUpdated.incrementAndGet();
+        }
+
+        @Override
+        public void pageNotModified(ConfluenceApiPage existingPage) {
+            pagesNotModified.incrementAndGet();
+        }
+
+        @Override
+        public void pageDeleted(ConfluenceApiPage deletedPage) {
+        }
+
+        @Override
+        public void attachmentAdded(String attachmentFileName, String contentId) {
+        }
+
+        @Override
+        public void attachmentUpdated(String attachmentFileName, String contentId) {
+        }
+
+        @Override
+        public void attachmentNotModified(String attachmentFileName, String contentId) {
+        }
+
+        @Override
+        public void attachmentDeleted(String attachmentFileName, String contentId) {
+        }
+
+        @Override
+        public void publishCompleted() {
+        }
+
+        @Override
+        public void pageSkippedUpdate(ConfluenceApiPage existingPage) {
+        }
+    }
+}
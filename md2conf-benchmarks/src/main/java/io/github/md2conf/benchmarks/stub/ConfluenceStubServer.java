@@ -0,0 +1,552 @@
+package io.github.md2conf.benchmarks.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.RateLimiter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.github.md2conf.benchmarks.stub.StubContentStore.StubAttachment;
+import io.github.md2conf.benchmarks.stub.StubContentStore.StubPage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for Confluence. Implements the subset of {@code /rest/api/content} used by
+ * {@code HttpRequestFactory}: pages, child pages, attachments, content properties and labels, plus attachment downloads.
+ * <p>
+ * Latency, throughput cap and error injection are configurable to simulate a slow or unreliable instance.
+ * Content is kept in memory by {@link StubContentStore}.
+ */
+public class ConfluenceStubServer implements AutoCloseable {
+
+    private static final String REST_API_CONTEXT = "/rest/api";
+    private static final String DOWNLOAD_CONTEXT = "/download/attachments/";
+
+    static {
+        // headers and body are written separately, without TCP_NODELAY every response waits for delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StubContentStore store = new StubContentStore();
+    private final Duration latency;
+    private final Duration latencyJitter;
+    private final RateLimiter rateLimiter;
+    private final double errorRate;
+    private final int errorStatusCode;
+    private final Random random;
+    private final int threads;
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicLong injectedErrorCount = new AtomicLong();
+    private final Map<String, LongAdder> requestCountByOperation = new ConcurrentHashMap<>();
+    private HttpServer httpServer;
+    private ExecutorService executorService;
+
+    private ConfluenceStubServer(ConfluenceStubServerBuilder builder) {
+        this.latency = builder.latency;
+        this.latencyJitter = builder.latencyJitter;
+        this.rateLimiter = builder.maxRequestsPerSecond != null ? RateLimiter.create(builder.maxRequestsPerSecond) : null;
+        this.errorRate = builder.errorRate;
+        this.errorStatusCode = builder.errorStatusCode;
+        this.random = new Random(builder.seed);
+        this.threads = builder.threads;
+    }
+
+    public ConfluenceStubServer start() {
+        try {
+            httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        executorService = Executors.newFixedThreadPool(threads);
+        httpServer.setExecutor(executorService);
+        httpServer.createContext("/", this::handle);
+        httpServer.start();
+        return this;
+    }
+
+    @Override
+    public void close() {
+        if (httpServer != null) {
+            httpServer.stop(0);
+            executorService.shutdownNow();
+        }
+    }
+
+    public String getBaseUrl() {
+        return "http://" + httpServer.getAddress().getHostString() + ":" + httpServer.getAddress().getPort();
+    }
+
+    public StubContentStore store() {
+        return store;
+    }
+
+    public long requestCount() {
+        return requestCount.get();
+    }
+
+    public long injectedErrorCount() {
+        return injectedErrorCount.get();
+    }
+
+    /**
+     * @return number of requests by operation, like {@code GET /content/{id}/child/page}
+     */
+    public Map<String, Long> requestCountByOperation() {
+        Map<String, Long> result = new TreeMap<>();
+        requestCountByOperation.forEach((operation, count) -> result.put(operation, count.sum()));
+        return result;
+    }
+
+    public void resetCounters() {
+        requestCount.set(0);
+        injectedErrorCount.set(0);
+        requestCountByOperation.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requestCount.incrementAndGet();
+            simulateLatency();
+            if (rateLimiter != null) {
+                rateLimiter.acquire();
+            }
+            String path = exchange.getRequestURI().getRawPath();
+            String method = exchange.getRequestMethod();
+            requestCountByOperation.computeIfAbsent(method + " " + operationOf(path), k -> new LongAdder()).increment();
+            if (injectError()) {
+                injectedErrorCount.incrementAndGet();
+                respond(exchange, errorStatusCode, error(errorStatusCode, "Injected error"));
+                return;
+            }
+            try {
+                route(exchange, method, path);
+            } catch (StubException e) {
+                respond(exchange, e.getStatusCode(), error(e.getStatusCode(), e.getMessage()));
+            } catch (RuntimeException e) {
+                respond(exchange, 500, error(500, String.valueOf(e)));
+            }
+        }
+    }
+
+    private void route(HttpExchange exchange, String method, String rawPath) throws IOException {
+        Map<String, String> query = queryParameters(exchange.getRequestURI().getRawQuery());
+        if (rawPath.startsWith(DOWNLOAD_CONTEXT) && method.equals("GET")) {
+            String[] segments = rawPath.substring(DOWNLOAD_CONTEXT.length()).split("/");
+            byte[] data = store.getAttachmentData(segments[0], decode(segments[1]))
+                    .orElseThrow(() -> new StubException(404, "No attachment " + rawPath));
+            respondBytes(exchange, data);
+            return;
+        }
+        if (!rawPath.startsWith(REST_API_CONTEXT + "/content")) {
+            throw new StubException(404, "Not implemented " + rawPath);
+        }
+        List<String> segments = new ArrayList<>(Arrays.asList(rawPath.substring((REST_API_CONTEXT + "/content").length()).split("/")));
+        segments.removeIf(String::isEmpty);
+        if (segments.isEmpty()) {
+            if (method.equals("GET")) {
+                respond(exchange, 200, searchByTitle(query.get("spaceKey"), query.get("title")));
+            } else if (method.equals("POST")) {
+                respond(exchange, 200, addPage(readJson(exchange)));
+            } else {
+                throw new StubException(405, method + " " + rawPath);
+            }
+            return;
+        }
+        String id = segments.get(0);
+        String resource = String.join("/", segments.subList(1, segments.size()));
+        switch (method + " " + (segments.size() > 3 && resource.startsWith("child/attachment/") ? "child/attachment/{id}/data" :
+                segments.size() > 2 && resource.startsWith("property/") ? "property/{key}" : resource)) {
+            case "GET ":
+                respond(exchange, 200, pageJson(store.getPage(id), query.getOrDefault("expand", "")));
+                break;
+            case "PUT ":
+                respond(exchange, 200, updatePage(id, readJson(exchange)));
+                break;
+            case "DELETE ":
+                store.deleteContent(id);
+                respond(exchange, 204, null);
+                break;
+            case "GET child/page":
+                respond(exchange, 200, page(store.getChildPages(id), query,
+                        p -> pageJson(p, query.getOrDefault("expand", ""))));
+                break;
+            case "GET descendant/page":
+                respond(exchange, 200, page(store.getDescendantPages(id), query,
+                        p -> pageJson(p, query.getOrDefault("expand", ""))));
+                break;
+            case "GET child/attachment":
+                List<StubAttachment> attachments = store.getAttachments(id);
+                if (query.containsKey("filename")) {
+                    attachments.removeIf(a -> !a.title.equals(query.get("filename")));
+                }
+                respond(exchange, 200, page(attachments, query, this::attachmentJson));
+                break;
+            case "POST child/attachment":
+                MultipartFile file = readMultipartFile(exchange);
+                StubAttachment added = store.addAttachment(id, file.fileName, file.data);
+                respond(exchange, 200, page(List.of(added), Map.of(), this::attachmentJson));
+                break;
+            case "POST child/attachment/{id}/data":
+                StubAttachment updated = store.updateAttachment(id, segments.get(3), readMultipartFile(exchange).data);
+                respond(exchange, 200, attachmentJson(updated));
+                break;
+            case "POST property":
+                JsonNode property = readJson(exchange);
+                String key = decode(property.path("key").asText());
+                store.setProperty(id, key, property.path("value").asText());
+                respond(exchange, 200, propertyJson(key, property.path("value").asText()));
+                break;
+            case "GET property/{key}":
+                String propertyKey = decode(segments.get(2));
+                String value = store.getProperty(id, propertyKey)
+                        .orElseThrow(() -> new StubException(404, "No property " + propertyKey));
+                respond(exchange, 200, propertyJson(propertyKey, value));
+                break;
+            case "DELETE property/{key}":
+                store.deleteProperty(id, decode(segments.get(2)));
+                respond(exchange, 204, null);
+                break;
+            case "GET label":
+                respond(exchange, 200, page(store.getLabels(id), query, this::labelJson));
+                break;
+            case "POST label":
+                List<String> labels = new ArrayList<>();
+                readJson(exchange).forEach(label -> labels.add(label.path("name").asText()));
+                store.addLabels(id, labels);
+                respond(exchange, 200, page(store.getLabels(id), Map.of(), this::labelJson));
+                break;
+            case "DELETE label":
+                store.deleteLabel(id, query.get("name"));
+                respond(exchange, 204, null);
+                break;
+            default:
+                throw new StubException(404, "Not implemented " + method + " " + rawPath);
+        }
+    }
+
+    private ObjectNode searchByTitle(String spaceKey, String title) {
+        List<StubPage> found = new ArrayList<>();
+        store.findPageByTitle(spaceKey, title).ifPresent(found::add);
+        return page(found, Map.of(), p -> pageJson(p, ""));
+    }
+
+    private ObjectNode addPage(JsonNode payload) {
+        String parentId = payload.path("ancestors").path(0).path("id").asText(null);
+        StubPage page = store.addPage(payload.path("space").path("key").asText(), parentId,
+                payload.path("title").asText(), bodyOf(payload));
+        return pageJson(page, "");
+    }
+
+    private ObjectNode updatePage(String id, JsonNode payload) {
+        String parentId = payload.path("ancestors").path(0).path("id").asText(null);
+        StubPage page = store.updatePage(id, parentId, payload.path("title").asText(), bodyOf(payload),
+                payload.path("version").path("number").asInt());
+        return pageJson(page, "");
+    }
+
+    private static String bodyOf(JsonNode payload) {
+        JsonNode body = payload.path("body");
+        return body.has("storage") ? body.path("storage").path("value").asText() : body.path("wiki").path("value").asText();
+    }
+
+    private ObjectNode pageJson(StubPage page, String expand) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", page.id);
+        node.put("type", "page");
+        node.put("status", "current");
+        node.put("title", page.title);
+        node.putObject("version").put("number", page.version);
+        if (expand.contains("ancestors")) {
+            ArrayNode ancestors = node.putArray("ancestors");
+            store.getAncestorIds(page.id).forEach(ancestorId -> ancestors.addObject().put("id", ancestorId));
+        }
+        if (expand.contains("metadata.labels")) {
+            node.putObject("metadata").set("labels", page(store.getLabels(page.id), Map.of("limit", "200"), this::labelJson));
+        }
+        if (expand.contains("body.view")) {
+            node.putObject("body").putObject("view").put("value", page.body).put("representation", "view");
+        }
+        node.putObject("_links").put("webui", "/pages/viewpage.action?pageId=" + page.id);
+        return node;
+    }
+
+    private ObjectNode attachmentJson(StubAttachment attachment) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", attachment.id);
+        node.put("type", "attachment");
+        node.put("status", "current");
+        node.put("title", attachment.title);
+        node.putObject("version").put("number", attachment.version);
+        node.putObject("extensions").put("fileSize", attachment.data.length);
+        node.putObject("_links").put("download", DOWNLOAD_CONTEXT + attachment.pageId + "/"
+                + URLEncoder.encode(attachment.title, StandardCharsets.UTF_8).replace("+", "%20")
+                + "?version=" + attachment.version + "&api=v2");
+        return node;
+    }
+
+    private ObjectNode propertyJson(String key, String value) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("key", key);
+        node.put("value", value);
+        node.putObject("version").put("number", 1);
+        return node;
+    }
+
+    private ObjectNode labelJson(String label) {
+        return objectMapper.createObjectNode().put("prefix", "global").put("name", label);
+    }
+
+    private <T> ObjectNode page(List<T> items, Map<String, String> query, java.util.function.Function<T, ObjectNode> toJson) {
+        int start = Integer.parseInt(query.getOrDefault("start", "0"));
+        int limit = Integer.parseInt(query.getOrDefault("limit", "25"));
+        List<T> slice = items.subList(Math.min(start, items.size()), Math.min(start + limit, items.size()));
+        ObjectNode node = objectMapper.createObjectNode();
+        ArrayNode results = node.putArray("results");
+        slice.forEach(item -> results.add(toJson.apply(item)));
+        node.put("start", start);
+        node.put("limit", limit);
+        node.put("size", slice.size());
+        return node;
+    }
+
+    private ObjectNode error(int statusCode, String message) {
+        return objectMapper.createObjectNode().put("statusCode", statusCode).put("message", message);
+    }
+
+    private JsonNode readJson(HttpExchange exchange) throws IOException {
+        return objectMapper.readTree(exchange.getRequestBody());
+    }
+
+    private void respond(HttpExchange exchange, int statusCode, JsonNode body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(statusCode, -1);
+            return;
+        }
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
+        exchange.sendResponseHeaders(statusCode, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private static void respondBytes(HttpExchange exchange, byte[] bytes) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+        exchange.sendResponseHeaders(200, bytes.length == 0 ? -1 : bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(bytes);
+        }
+    }
+
+    private void simulateLatency() {
+        long millis = latency.toMillis();
+        if (!latencyJitter.isZero()) {
+            synchronized (random) {
+                millis += (long) (random.nextDouble() * latencyJitter.toMillis());
+            }
+        }
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private boolean injectError() {
+        if (errorRate <= 0) {
+            return false;
+        }
+        synchronized (random) {
+            return random.nextDouble() < errorRate;
+        }
+    }
+
+    /**
+     * @return path with content ids and property keys replaced by placeholders
+     */
+    static String operationOf(String rawPath) {
+        if (rawPath.startsWith(DOWNLOAD_CONTEXT)) {
+            return "/download/attachments/{id}/{fileName}";
+        }
+        String path = rawPath.startsWith(REST_API_CONTEXT) ? rawPath.substring(REST_API_CONTEXT.length()) : rawPath;
+        return path.replaceAll("/content/[^/]+", "/content/{id}")
+                .replaceAll("/child/attachment/[^/]+/data", "/child/attachment/{id}/data")
+                .replaceAll("/property/[^/]+", "/property/{key}");
+    }
+
+    private static Map<String, String> queryParameters(String rawQuery) {
+        Map<String, String> result = new HashMap<>();
+        if (rawQuery == null) {
+            return result;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int index = parameter.indexOf('=');
+            if (index > 0) {
+                result.put(decode(parameter.substring(0, index)), decode(parameter.substring(index + 1)));
+            }
+        }
+        return result;
+    }
+
+    private static String decode(String value) {
+        return URLDecoder.decode(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Minimal multipart/form-data parser, reads the part named "file"
+     */
+    private static MultipartFile readMultipartFile(HttpExchange exchange) throws IOException {
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType == null || !contentType.contains("boundary=")) {
+            throw new StubException(415, "Multipart request expected");
+        }
+        String boundary = contentType.substring(contentType.indexOf("boundary=") + "boundary=".length()).split(";")[0].replace("\"", "");
+        byte[] body = exchange.getRequestBody().readAllBytes();
+        byte[] delimiter = ("--" + boundary).getBytes(StandardCharsets.ISO_8859_1);
+        int partStart = indexOf(body, delimiter, 0);
+        while (partStart >= 0) {
+            int headersStart = partStart + delimiter.length + 2;
+            int nextDelimiter = indexOf(body, delimiter, headersStart);
+            if (nextDelimiter < 0) {
+                break;
+            }
+            int headersEnd = indexOf(body, "\r\n\r\n".getBytes(StandardCharsets.ISO_8859_1), headersStart);
+            String headers = new String(body, headersStart, headersEnd - headersStart, StandardCharsets.UTF_8);
+            if (headers.contains("name=\"file\"")) {
+                String fileName = null;
+                int fileNameIndex = headers.indexOf("filename=\"");
+                if (fileNameIndex >= 0) {
+                    int fileNameStart = fileNameIndex + "filename=\"".length();
+                    fileName = headers.substring(fileNameStart, headers.indexOf('"', fileNameStart));
+                }
+                int dataStart = headersEnd + 4;
+                int dataEnd = nextDelimiter - 2; // CRLF before delimiter
+                return new MultipartFile(fileName, Arrays.copyOfRange(body, dataStart, Math.max(dataStart, dataEnd)));
+            }
+            partStart = nextDelimiter;
+        }
+        throw new StubException(400, "No file part in multipart request");
+    }
+
+    private static int indexOf(byte[] array, byte[] target, int from) {
+        outer:
+        for (int i = from; i <= array.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (array[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static class MultipartFile {
+        final String fileName;
+        final byte[] data;
+
+        MultipartFile(String fileName, byte[] data) {
+            this.fileName = fileName;
+            this.data = data;
+        }
+    }
+
+    public static final class ConfluenceStubServerBuilder {
+        private Duration latency = Duration.ZERO;
+        private Duration latencyJitter = Duration.ZERO;
+        private Double maxRequestsPerSecond;
+        private double errorRate = 0;
+        private int errorStatusCode = 500;
+        private long seed = 42;
+        private int threads = 16;
+
+        private ConfluenceStubServerBuilder() {
+        }
+
+        public static ConfluenceStubServerBuilder aConfluenceStubServer() {
+            return new ConfluenceStubServerBuilder();
+        }
+
+        /**
+         * Fixed delay of every response
+         */
+        public ConfluenceStubServerBuilder withLatency(Duration latency) {
+            this.latency = latency;
+            return this;
+        }
+
+        /**
+         * Random delay from 0 to jitter added to latency
+         */
+        public ConfluenceStubServerBuilder withLatencyJitter(Duration latencyJitter) {
+            this.latencyJitter = latencyJitter;
+            return this;
+        }
+
+        /**
+         * Requests above the cap are delayed, null means no cap
+         */
+        public ConfluenceStubServerBuilder withMaxRequestsPerSecond(Double maxRequestsPerSecond) {
+            this.maxRequestsPerSecond = maxRequestsPerSecond;
+            return this;
+        }
+
+        /**
+         * Fraction of requests, from 0 to 1, failed with error status code without being processed
+         */
+        public ConfluenceStubServerBuilder withErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        public ConfluenceStubServerBuilder withErrorStatusCode(int errorStatusCode) {
+            this.errorStatusCode = errorStatusCode;
+            return this;
+        }
+
+        /**
+         * Seed of latency jitter and error injection
+         */
+        public ConfluenceStubServerBuilder withSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Number of request handler threads
+         */
+        public ConfluenceStubServerBuilder withThreads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        public ConfluenceStubServer build() {
+            return new ConfluenceStubServer(this);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package io.github.md2conf.benchmarks.stub;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory content of the stub: pages, attachments, content properties and labels.
+ * All methods are synchronized, the store is shared by request handler threads.
+ */
+public class StubContentStore {
+
+    private final AtomicLong idSequence = new AtomicLong(100000);
+    private final Map<String, StubPage> pages = new LinkedHashMap<>();
+    private final Map<String, StubAttachment> attachments = new LinkedHashMap<>();
+    private final Map<String, String> pageIdsByTitle = new HashMap<>();
+    private final Map<String, Set<String>> childIds = new HashMap<>();
+    private final Map<String, Map<String, StubAttachment>> attachmentsByPage = new HashMap<>();
+
+    public synchronized StubPage addPage(String spaceKey, String parentId, String title, String body) {
+        if (findPageByTitle(spaceKey, title).isPresent()) {
+            throw new StubException(400, "A page with this title already exists: " + title);
+        }
+        if (parentId != null && !pages.containsKey(parentId)) {
+            throw new StubException(404, "No parent page " + parentId);
+        }
+        StubPage page = new StubPage(nextId(), spaceKey, parentId, title, body);
+        pages.put(page.id, page);
+        pageIdsByTitle.put(titleKey(spaceKey, title), page.id);
+        children(parentId).add(page.id);
+        return page.copy();
+    }
+
+    public synchronized StubPage updatePage(String id, String parentId, String title, String body, int version) {
+        StubPage page = page(id);
+        if (version != page.version + 1) {
+            throw new StubException(409, "Version must be incremented on update. Current version is: " + page.version);
+        }
+        Optional<StubPage> sameTitle = findPageByTitle(page.spaceKey, title);
+        if (sameTitle.isPresent() && !sameTitle.get().id.equals(id)) {
+            throw new StubException(400, "A page with this title already exists: " + title);
+        }
+        if (parentId != null) {
+            page(parentId);
+            children(page.parentId).remove(id);
+            children(parentId).add(id);
+            page.parentId = parentId;
+        }
+        pageIdsByTitle.remove(titleKey(page.spaceKey, page.title));
+        pageIdsByTitle.put(titleKey(page.spaceKey, title), id);
+        page.title = title;
+        page.body = body;
+        page.version = version;
+        return page.copy();
+    }
+
+    /**
+     * Delete page or attachment by id. Children of a deleted page are moved to its parent, like Confluence does.
+     */
+    public synchronized void deleteContent(String id) {
+        StubAttachment removed = attachments.remove(id);
+        if (removed != null) {
+            pageAttachments(removed.pageId).remove(removed.title);
+            return;
+        }
+        StubPage page = page(id);
+        pages.remove(id);
+        pageIdsByTitle.remove(titleKey(page.spaceKey, page.title));
+        children(page.parentId).remove(id);
+        Set<String> orphans = childIds.remove(id);
+        if (orphans != null) {
+            orphans.forEach(childId -> pages.get(childId).parentId = page.parentId);
+            children(page.parentId).addAll(orphans);
+        }
+        Map<String, StubAttachment> pageAttachments = attachmentsByPage.remove(id);
+        if (pageAttachments != null) {
+            pageAttachments.values().forEach(a -> attachments.remove(a.id));
+        }
+    }
+
+    public synchronized Optional<StubPage> findPageByTitle(String spaceKey, String title) {
+        return Optional.ofNullable(pageIdsByTitle.get(titleKey(spaceKey, title)))
+                .map(pages::get)
+                .map(StubPage::copy);
+    }
+
+    public synchronized StubPage getPage(String id) {
+        return page(id).copy();
+    }
+
+    public synchronized List<StubPage> getChildPages(String parentId) {
+        page(parentId);
+        return children(parentId).stream()
+                .map(pages::get)
+                .map(StubPage::copy)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return all pages under the page, parents before their children
+     */
+    public synchronized List<StubPage> getDescendantPages(String parentId) {
+        page(parentId);
+        List<StubPage> res = new ArrayList<>();
+        collectDescendants(parentId, res);
+        return res;
+    }
+
+    /**
+     * @return ids of ancestors of the page, the root first
+     */
+    public synchronized List<String> getAncestorIds(String id) {
+        LinkedList<String> res = new LinkedList<>();
+        for (String parentId = page(id).parentId; parentId != null; parentId = page(parentId).parentId) {
+            res.addFirst(parentId);
+        }
+        return res;
+    }
+
+    private void collectDescendants(String parentId, List<StubPage> res) {
+        for (String childId : children(parentId)) {
+            res.add(pages.get(childId).copy());
+            collectDescendants(childId, res);
+        }
+    }
+
+    public synchronized List<StubAttachment> getAttachments(String pageId) {
+        page(pageId);
+        return pageAttachments(pageId).values().stream()
+                .map(StubAttachment::copy)
+                .collect(Collectors.toList());
+    }
+
+    public synchronized StubAttachment addAttachment(String pageId, String title, byte[] data) {
+        page(pageId);
+        if (pageAttachments(pageId).containsKey(title)) {
+            throw new StubException(400, "Cannot add a new attachment with same file name as an existing attachment: " + title);
+        }
+        StubAttachment attachment = new StubAttachment("att" + nextId(), pageId, title, data);
+        attachments.put(attachment.id, attachment);
+        pageAttachments(pageId).put(title, attachment);
+        return attachment.copy();
+    }
+
+    public synchronized StubAttachment updateAttachment(String pageId, String attachmentId, byte[] data) {
+        StubAttachment attachment = attachments.get(attachmentId);
+        if (attachment == null || !attachment.pageId.equals(pageId)) {
+            throw new StubException(404, "No attachment " + attachmentId + " on page " + pageId);
+        }
+        attachment.data = data;
+        attachment.version++;
+        return attachment.copy();
+    }
+
+    public synchronized Optional<byte[]> getAttachmentData(String pageId, String title) {
+        return Optional.ofNullable(pageAttachments(pageId).get(title)).map(a -> a.data);
+    }
+
+    public synchronized Optional<String> getProperty(String pageId, String key) {
+        return Optional.ofNullable(page(pageId).properties.get(key));
+    }
+
+    public synchronized void setProperty(String pageId, String key, String value) {
+        StubPage page = page(pageId);
+        if (page.properties.containsKey(key)) {
+            throw new StubException(409, "Cannot add a property with the same key: " + key);
+        }
+        page.properties.put(key, value);
+    }
+
+    public synchronized void deleteProperty(String pageId, String key) {
+        if (page(pageId).properties.remove(key) == null) {
+            throw new StubException(404, "No property " + key);
+        }
+    }
+
+    public synchronized List<String> getLabels(String pageId) {
+        return new ArrayList<>(page(pageId).labels);
+    }
+
+    public synchronized void addLabels(String pageId, Collection<String> labels) {
+        page(pageId).labels.addAll(labels);
+    }
+
+    public synchronized void deleteLabel(String pageId, String label) {
+        page(pageId).labels.remove(label);
+    }
+
+    public synchronized int pageCount() {
+        return pages.size();
+    }
+
+    public synchronized int attachmentCount() {
+        return attachments.size();
+    }
+
+    private StubPage page(String id) {
+        StubPage page = pages.get(id);
+        if (page == null) {
+            throw new StubException(404, "No content with id " + id);
+        }
+        return page;
+    }
+
+    private Set<String> children(String parentId) {
+        return childIds.computeIfAbsent(String.valueOf(parentId), k -> new LinkedHashSet<>());
+    }
+
+    private Map<String, StubAttachment> pageAttachments(String pageId) {
+        return attachmentsByPage.computeIfAbsent(pageId, k -> new TreeMap<>());
+    }
+
+    private static String titleKey(String spaceKey, String title) {
+        return spaceKey + "\n" + title;
+    }
+
+    private String nextId() {
+        return String.valueOf(idSequence.incrementAndGet());
+    }
+
+    public static class StubPage {
+        public final String id;
+        public final String spaceKey;
+        public String parentId;
+        public String title;
+        public String body;
+        public int version = 1;
+        final Map<String, String> properties = new LinkedHashMap<>();
+        final Set<String> labels = new LinkedHashSet<>();
+
+        StubPage(String id, String spaceKey, String parentId, String title, String body) {
+            this.id = id;
+            this.spaceKey = spaceKey;
+            this.parentId = parentId;
+            this.title = title;
+            this.body = body;
+        }
+
+        StubPage copy() {
+            StubPage copy = new StubPage(id, spaceKey, parentId, title, body);
+            copy.version = version;
+            return copy;
+        }
+    }
+
+    public static class StubAttachment {
+        public final String id;
+        public final String pageId;
+        public final String title;
+        public byte[] data;
+        public int version = 1;
+
+        StubAttachment(String id, String pageId, String title, byte[] data) {
+            this.id = id;
+            this.pageId = pageId;
+            this.title = title;
+            this.data = data;
+        }
+
+        StubAttachment copy() {
+            StubAttachment copy = new StubAttachment(id, pageId, title, data);
+            copy.version = version;
+            return copy;
+        }
+    }
+}
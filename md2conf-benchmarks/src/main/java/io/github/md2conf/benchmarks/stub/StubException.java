@@ -0,0 +1,18 @@
+package io.github.md2conf.benchmarks.stub;
+
+/**
+ * Error answered by the stub with the given HTTP status code
+ */
+public class StubException extends RuntimeException {
+
+    private final int statusCode;
+
+    public StubException(int statusCode, String message) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
@@ -0,0 +1,98 @@
+package io.github.md2conf.benchmarks.corpus;
+
+import io.github.md2conf.indexer.ChildLayout;
+import io.github.md2conf.indexer.DelegatingFileIndexer;
+import io.github.md2conf.indexer.FileIndexerConfigurationProperties;
+import io.github.md2conf.indexer.Page;
+import io.github.md2conf.indexer.PagesStructure;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.github.md2conf.benchmarks.corpus.CorpusGenerator.CorpusGeneratorBuilder.aCorpusGenerator;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CorpusGeneratorTest {
+
+    private static final Pattern LOCAL_LINK = Pattern.compile("]\\(([^)h][^)]*)\\)");
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void same_seed_produces_same_corpus() throws IOException {
+        aCorpusGenerator().withPageCount(50).withSeed(7).build().generate(tempDir.resolve("a"));
+        aCorpusGenerator().withPageCount(50).withSeed(7).build().generate(tempDir.resolve("b"));
+        aCorpusGenerator().withPageCount(50).withSeed(8).build().generate(tempDir.resolve("c"));
+
+        assertThat(contentOf(tempDir.resolve("a"))).isEqualTo(contentOf(tempDir.resolve("b")));
+        assertThat(contentOf(tempDir.resolve("a"))).isNotEqualTo(contentOf(tempDir.resolve("c")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(ChildLayout.class)
+    void every_page_is_indexed_and_local_links_resolve(ChildLayout childLayout) throws IOException {
+        Corpus corpus = aCorpusGenerator()
+                .withPageCount(200)
+                .withFanOut(3)
+                .withChildLayout(childLayout)
+                .withLinksPerPage(3)
+                .withImagesPerPage(1)
+                .withAttachmentsPerPage(1)
+                .withAttachmentSize(16)
+                .build()
+                .generate(tempDir);
+
+        FileIndexerConfigurationProperties properties = new FileIndexerConfigurationProperties();
+        properties.setFileExtension("md");
+        properties.setChildLayout(childLayout);
+        PagesStructure structure = new DelegatingFileIndexer(properties).indexPath(tempDir);
+
+        assertThat(corpus.getPages()).hasSize(200);
+        assertThat(count(structure.pages())).isEqualTo(200);
+        assertThat(corpus.getLinks()).isPositive();
+        assertThat(corpus.getImages()).isPositive();
+        assertThat(corpus.getAttachments()).isPositive();
+        for (Path page : corpus.getPages()) {
+            Matcher matcher = LOCAL_LINK.matcher(Files.readString(page));
+            while (matcher.find()) {
+                assertThat(page.getParent().resolve(matcher.group(1))).isRegularFile();
+            }
+        }
+    }
+
+    @Test
+    void fan_out_of_one_produces_chain() throws IOException {
+        Corpus corpus = aCorpusGenerator().withPageCount(20).withFanOut(1).build().generate(tempDir);
+
+        assertThat(corpus.getPages().get(19)).startsWith(tempDir.resolve("page-0/page-1/page-2"));
+    }
+
+    private static int count(List<? extends Page> pages) {
+        return pages.stream().mapToInt(page -> 1 + count(page.children())).sum();
+    }
+
+    private static Map<String, String> contentOf(Path root) throws IOException {
+        try (Stream<Path> stream = Files.walk(root)) {
+            List<Path> files = stream.filter(Files::isRegularFile).collect(Collectors.toList());
+            Map<String, String> result = new TreeMap<>();
+            for (Path file : files) {
+                result.put(root.relativize(file).toString(), new String(Files.readAllBytes(file), StandardCharsets.ISO_8859_1));
+            }
+            return result;
+        }
+    }
+}
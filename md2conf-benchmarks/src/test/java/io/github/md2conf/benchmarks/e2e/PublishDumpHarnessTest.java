@@ -0,0 +1,28 @@
+package io.github.md2conf.benchmarks.e2e;
+
+import org.junit.jupiter.api.Test;
+import picocli.CommandLine;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PublishDumpHarnessTest {
+
+    @Test
+    void publish_republish_and_dump() throws Exception {
+        PublishDumpHarness harness = new PublishDumpHarness();
+        new CommandLine(harness).parseArgs("--pages", "12", "--fan-out", "3");
+
+        List<PublishDumpHarness.PhaseResult> results = harness.run(12);
+
+        assertThat(results).extracting(r -> r.phase).containsExactly("publish", "republish", "dump");
+        assertThat(results).allSatisfy(r -> {
+            assertThat(r.failure).isNull();
+            assertThat(r.requests).isPositive();
+            assertThat(r.max).isGreaterThanOrEqualTo(r.p50);
+        });
+        assertThat(results.get(0).writeRequests).isPositive();
+        assertThat(results.get(1).writeRequests).isZero();
+    }
+}
@@ -0,0 +1,166 @@
+package io.github.md2conf.benchmarks.stub;
+
+import io.github.md2conf.confluence.client.http.ConfluenceApiPage;
+import io.github.md2conf.confluence.client.http.ConfluenceAttachment;
+import io.github.md2conf.confluence.client.http.NotFoundException;
+import io.github.md2conf.confluence.client.http.RequestFailedException;
+import io.github.md2conf.confluence.client.http.RestApiInternalClient;
+import io.github.md2conf.confluence.client.metrics.HistogramRequestMetrics;
+import io.github.md2conf.confluence.client.jfr.RestCallEvent;
+import io.github.md2conf.model.ConfluenceContentModel;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.http.impl.client.HttpClients;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static io.github.md2conf.benchmarks.stub.ConfluenceStubServer.ConfluenceStubServerBuilder.aConfluenceStubServer;
+import static io.github.md2conf.confluence.client.http.RestApiInternalClientBuilder.aRestApiInternalClient;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConfluenceStubServerTest {
+
+    private ConfluenceStubServer server;
+    private RestApiInternalClient client;
+    private String rootId;
+
+    @BeforeEach
+    void setUp() {
+        server = aConfluenceStubServer().build().start();
+        rootId = server.store().addPage("SPACE", null, "Root", "").id;
+        client = new RestApiInternalClient(server.getBaseUrl(), HttpClients.createDefault(), null, "user", "password");
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void add_update_and_delete_page() {
+        String id = client.addPageUnderAncestor("SPACE", rootId, "Child", "h1. Child", ConfluenceContentModel.Type.WIKI, null);
+        assertThat(client.getPageByTitle("SPACE", "Child")).isEqualTo(id);
+
+        client.updatePage(id, rootId, "Child renamed", "h1. Renamed", ConfluenceContentModel.Type.WIKI, 2, null, false);
+        ConfluenceApiPage page = client.getPageWithViewContent(id);
+        assertThat(page.getTitle()).isEqualTo("Child renamed");
+        assertThat(page.getContent()).isEqualTo("h1. Renamed");
+        assertThat(page.getVersion()).isEqualTo(2);
+        assertThat(client.getChildPages(rootId)).extracting(ConfluenceApiPage::getContentId).containsExactly(id);
+
+        client.deletePage(id);
+        assertThatThrownBy(() -> client.getPageByTitle("SPACE", "Child renamed")).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void child_pages_are_paged() {
+        for (int i = 0; i < 60; i++) {
+            client.addPageUnderAncestor("SPACE", rootId, "Page " + i, "", ConfluenceContentModel.Type.STORAGE, null);
+        }
+        assertThat(client.getChildPages(rootId)).hasSize(60);
+        assertThat(server.requestCountByOperation()).containsEntry("GET /content/{id}/child/page", 3L);
+    }
+
+    @Test
+    void descendant_pages_are_listed_with_parents() {
+        String childId = client.addPageUnderAncestor("SPACE", rootId, "Child", "", ConfluenceContentModel.Type.STORAGE, null);
+        for (int i = 0; i < 120; i++) {
+            client.addPageUnderAncestor("SPACE", childId, "Page " + i, "", ConfluenceContentModel.Type.STORAGE, null);
+        }
+        Map<String, List<ConfluenceApiPage>> childPagesByParentId = client.getDescendantPagesByParentId(rootId);
+        assertThat(childPagesByParentId.get(rootId)).extracting(ConfluenceApiPage::getContentId).containsExactly(childId);
+        assertThat(childPagesByParentId.get(childId)).hasSize(120);
+        assertThat(server.requestCountByOperation()).containsEntry("GET /content/{id}/descendant/page", 2L);
+    }
+
+    @Test
+    void add_update_and_download_attachment(@TempDir Path tempDir) throws Exception {
+        client.addAttachment(rootId, "file name.txt", new ByteArrayInputStream("first".getBytes(StandardCharsets.UTF_8)));
+        ConfluenceAttachment attachment = client.getAttachmentByFileName(rootId, "file name.txt");
+        client.updateAttachmentContent(rootId, attachment.getId(), new ByteArrayInputStream("second".getBytes(StandardCharsets.UTF_8)), false);
+
+        List<ConfluenceAttachment> attachments = client.getAttachments(rootId);
+        assertThat(attachments).hasSize(1);
+        assertThat(attachments.get(0).getVersion()).isEqualTo(2);
+        Path downloaded = tempDir.resolve("downloaded.txt");
+        client.saveUrlToFile(attachments.get(0).getRelativeDownloadLink(), downloaded.toFile());
+        assertThat(Files.readString(downloaded)).isEqualTo("second");
+    }
+
+    @Test
+    void properties_and_labels() {
+        client.setPropertyByKey(rootId, "content-hash", "abc");
+        assertThat(client.getPropertyByKey(rootId, "content-hash")).isEqualTo("abc");
+        client.deletePropertyByKey(rootId, "content-hash");
+        assertThat(client.getPropertyByKey(rootId, "content-hash")).isNull();
+
+        client.addLabels(rootId, List.of("one", "two"));
+        client.deleteLabel(rootId, "one");
+        assertThat(client.getLabels(rootId)).containsExactly("two");
+        assertThat(client.getPageWithViewContent(rootId).getLabels()).containsExactly("two");
+    }
+
+    @Test
+    void errors_are_injected() {
+        server.close();
+        server = aConfluenceStubServer().withErrorRate(1).withErrorStatusCode(503).build().start();
+        client = new RestApiInternalClient(server.getBaseUrl(), HttpClients.createDefault(), null, "user", "password");
+
+        assertThatThrownBy(() -> client.getChildPages("1")).isInstanceOf(RequestFailedException.class)
+                .hasMessageContaining("503");
+        assertThat(server.injectedErrorCount()).isEqualTo(1);
+    }
+
+    @Test
+    void request_metrics_account_bytes_by_operation() {
+        HistogramRequestMetrics requestMetrics = new HistogramRequestMetrics();
+        client = aRestApiInternalClient()
+                .withRootConfluenceUrl(server.getBaseUrl())
+                .withHttpClient(HttpClients.createDefault())
+                .withUsername("user")
+                .withPasswordOrPersonalAccessToken("password")
+                .withRequestMetrics(requestMetrics)
+                .build();
+
+        client.addAttachment(rootId, "file.txt", new ByteArrayInputStream(new byte[4096]));
+        client.getAttachments(rootId);
+
+        assertThat(requestMetrics.statistics()).containsOnlyKeys("addAttachment", "getAttachments");
+        assertThat(requestMetrics.statistics().get("addAttachment").getRequestBytes()).isGreaterThan(4096);
+        assertThat(requestMetrics.statistics().get("getAttachments").getResponseBytes()).isPositive();
+        assertThat(requestMetrics.statistics().get("getAttachments").getFailedCount()).isZero();
+    }
+
+    @Test
+    void rest_calls_are_recorded_as_jfr_events(@TempDir Path tempDir) throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(RestCallEvent.class).withThreshold(Duration.ZERO);
+            recording.start();
+            client.addLabels(rootId, List.of("label"));
+            recording.stop();
+            Path dump = tempDir.resolve("recording.jfr");
+            recording.dump(dump);
+            events = RecordingFile.readAllEvents(dump);
+        }
+
+        assertThat(events).hasSize(1);
+        RecordedEvent event = events.get(0);
+        assertThat(event.getString("operation")).isEqualTo("addLabels");
+        assertThat(event.getString("method")).isEqualTo("POST");
+        assertThat(event.getInt("statusCode")).isEqualTo(200);
+        assertThat(event.getLong("requestBytes")).isPositive();
+    }
+}
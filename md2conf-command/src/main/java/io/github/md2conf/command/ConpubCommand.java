@@ -1,15 +1,27 @@
 package io.github.md2conf.command;
 
 import io.github.md2conf.command.subcommand.Md2WikiConvertCommand;
-import lombok.SneakyThrows;
+import io.github.md2conf.confluence.client.PublishPipeline;
+import io.github.md2conf.converter.PageConvertedListener;
+import io.github.md2conf.indexer.PagesStructure;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.util.FileDigestCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
+import java.io.File;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.github.md2conf.model.util.ModelFilesystemUtil.saveConfluenceContentModelAtPath;
+import static io.github.md2conf.model.util.ModelFilesystemUtil.serializeConfluenceContentModel;
+
 @Command(name = "conpub", aliases = "convert-and-publish", description = "Convert and publish docs to a Confluence instance")
 public class ConpubCommand implements Runnable {
-    private final Logger logger = LoggerFactory.getLogger(getClass());
+    private static final Logger logger = LoggerFactory.getLogger(ConpubCommand.class);
 
     @CommandLine.Mixin
     LoggingMixin loggingMixin;
@@ -23,6 +35,8 @@ public class ConpubCommand implements Runnable {
     PublishCommand.ConfluenceOptions confluenceOptions;
     @CommandLine.ArgGroup(exclusive = false,  heading = "Publish options:\n")
     PublishCommand.PublishOptions publishOptions;
+    @CommandLine.ArgGroup(exclusive = false,  heading = "Conpub options:\n")
+    ConpubOptions conpubOptions;
 
 
     @Override
@@ -31,17 +45,130 @@ public class ConpubCommand implements Runnable {
         var indexerOptionsLocal = indexerOptions==null? new IndexCommand.IndexerOptions(): indexerOptions;
         var publishOptionsLocal = publishOptions==null? new PublishCommand.PublishOptions(): publishOptions;
         var titleProcessingLocal = titleProcessingOptions == null ? new ConvertCommand.TitleProcessingOptions() : titleProcessingOptions;
-        conpub(convertOptionsLocal, indexerOptionsLocal, confluenceOptions, publishOptionsLocal, titleProcessingLocal);
+        var conpubOptionsLocal = conpubOptions == null ? new ConpubOptions() : conpubOptions;
+        conpub(convertOptionsLocal, indexerOptionsLocal, confluenceOptions, publishOptionsLocal, titleProcessingLocal, conpubOptionsLocal);
     }
 
-    @SneakyThrows
     public static void conpub(Md2WikiConvertCommand.Md2WikiConvertOptions md2WikiConvertOptions,
                               IndexCommand.IndexerOptions indexerOptions,
                               PublishCommand.ConfluenceOptions confluenceOptions,
                               PublishCommand.PublishOptions publishOptions,
                               ConvertCommand.TitleProcessingOptions titleProcessingOptions) {
-        var modelFile = Md2WikiConvertCommand.convertMd2Wiki(md2WikiConvertOptions, indexerOptions, titleProcessingOptions);
-        PublishCommand.publish(confluenceOptions, publishOptions, modelFile.toPath());
+        conpub(md2WikiConvertOptions, indexerOptions, confluenceOptions, publishOptions, titleProcessingOptions, new ConpubOptions());
+    }
+
+    /**
+     * Converted model is passed to the publisher in memory. The model file is saved in the background, if enabled,
+     * from a snapshot taken before the model is published.
+     * In pipelined mode pages are published while the rest of the pages are still converted on a dedicated thread, which
+     * is interrupted if publishing fails. Dry run is never pipelined.
+     * In incremental mode only pages changed in git since the last publish are published, it is never pipelined too.
+     */
+    public static void conpub(Md2WikiConvertCommand.Md2WikiConvertOptions md2WikiConvertOptions,
+                              IndexCommand.IndexerOptions indexerOptions,
+                              PublishCommand.ConfluenceOptions confluenceOptions,
+                              PublishCommand.PublishOptions publishOptions,
+                              ConvertCommand.TitleProcessingOptions titleProcessingOptions,
+                              ConpubOptions conpubOptions) {
+        if (publishOptions.fileDigestCachePath == null) {
+            publishOptions.fileDigestCachePath = md2WikiConvertOptions.outputDirectory.resolve(FileDigestCache.DEFAULT_FILE_NAME);
+        }
+        if (conpubOptions.incremental) {
+            conpubIncremental(md2WikiConvertOptions, indexerOptions, confluenceOptions, publishOptions, titleProcessingOptions, conpubOptions);
+        } else if (conpubOptions.pipelined && !publishOptions.dryRun) {
+            PublishPipeline pipeline = new PublishPipeline(conpubOptions.pipelineCapacity);
+            ExecutorService conversionExecutor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "md2conf-conversion"));
+            try {
+                CompletableFuture<byte[]> conversion = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        var model = Md2WikiConvertCommand.convertMd2WikiToModel(md2WikiConvertOptions, indexerOptions, titleProcessingOptions, pipeline::submit);
+                        pipeline.complete();
+                        return conpubOptions.saveContentModel ? serializeConfluenceContentModel(model) : null;
+                    } catch (Throwable e) {
+                        pipeline.fail(e);
+                        throw e;
+                    }
+                }, conversionExecutor);
+                CompletableFuture<File> modelFile = conpubOptions.saveContentModel ?
+                        conversion.thenApply(json -> saveConfluenceContentModelAtPath(json, md2WikiConvertOptions.outputDirectory)) :
+                        CompletableFuture.completedFuture(null);
+                publishAndAwaitModelFile(() -> {
+                    try {
+                        PublishCommand.publish(confluenceOptions, publishOptions, pipeline);
+                    } catch (RuntimeException e) {
+                        if (!conversion.isDone()) {
+                            conversionExecutor.shutdownNow(); // stop converting pages which won't be published
+                        }
+                        throw e;
+                    }
+                }, modelFile);
+            } finally {
+                conversionExecutor.shutdown();
+            }
+        } else {
+            var model = Md2WikiConvertCommand.convertMd2WikiToModel(md2WikiConvertOptions, indexerOptions, titleProcessingOptions);
+            CompletableFuture<File> modelFile = saveContentModel(model, md2WikiConvertOptions, conpubOptions);
+            publishAndAwaitModelFile(() -> PublishCommand.publish(confluenceOptions, publishOptions, model), modelFile);
+        }
+    }
+
+    private static void conpubIncremental(Md2WikiConvertCommand.Md2WikiConvertOptions md2WikiConvertOptions,
+                                          IndexCommand.IndexerOptions indexerOptions,
+                                          PublishCommand.ConfluenceOptions confluenceOptions,
+                                          PublishCommand.PublishOptions publishOptions,
+                                          ConvertCommand.TitleProcessingOptions titleProcessingOptions,
+                                          ConpubOptions conpubOptions) {
+        md2WikiConvertOptions.conversionCacheEnable = true; // unchanged pages are taken from the cache
+        var incremental = IncrementalPublishing.load(indexerOptions.inputDirectory, md2WikiConvertOptions.outputDirectory,
+                IncrementalPublishing.scope(confluenceOptions, md2WikiConvertOptions));
+        PagesStructure pagesStructure = IndexCommand.indexInputDirectory(indexerOptions);
+        var model = Md2WikiConvertCommand.convertMd2WikiToModel(md2WikiConvertOptions, pagesStructure, titleProcessingOptions, PageConvertedListener.NOOP);
+        CompletableFuture<File> modelFile = saveContentModel(model, md2WikiConvertOptions, conpubOptions);
+        var changedPages = incremental.changedPages(pagesStructure, model);
+        publishAndAwaitModelFile(() -> PublishCommand.publish(confluenceOptions, publishOptions, model, changedPages), modelFile);
+        if (!publishOptions.dryRun) {
+            incremental.save(pagesStructure, model);
+        }
+    }
+
+    /**
+     * The model is serialized before publishing starts, only writing the file overlaps with publishing
+     */
+    private static CompletableFuture<File> saveContentModel(ConfluenceContentModel model,
+                                                            Md2WikiConvertCommand.Md2WikiConvertOptions md2WikiConvertOptions,
+                                                            ConpubOptions conpubOptions) {
+        if (!conpubOptions.saveContentModel) {
+            return CompletableFuture.completedFuture(null);
+        }
+        byte[] json = serializeConfluenceContentModel(model);
+        return CompletableFuture.supplyAsync(() -> saveConfluenceContentModelAtPath(json, md2WikiConvertOptions.outputDirectory));
+    }
+
+    private static void publishAndAwaitModelFile(Runnable publish, CompletableFuture<File> modelFile) {
+        try {
+            publish.run();
+        } catch (RuntimeException e) {
+            modelFile.handle((file, ex) -> file).join(); // don't leave the model file half-written, publishing error takes precedence
+            throw e;
+        }
+        File file = modelFile.join();
+        if (file != null) {
+            logger.info("Confluence content model saved at file {}", file);
+        }
+    }
+
+    public static class ConpubOptions {
+        @CommandLine.Option(names = {"--save-content-model"}, negatable = true, defaultValue = "true", fallbackValue = "true",
+                description = "Save confluence-content-model.json to the output directory. Publishing doesn't wait for it.",
+                showDefaultValue = CommandLine.Help.Visibility.ALWAYS)
+        public boolean saveContentModel = true;
+        @CommandLine.Option(names = {"--pipelined"}, description = "Publish pages while the rest of the pages are still converted")
+        public boolean pipelined = false;
+        @CommandLine.Option(names = {"--pipeline-capacity"}, description = "Max number of converted pages waiting to be published in pipelined mode",
+                defaultValue = "" + PublishPipeline.DEFAULT_CAPACITY, showDefaultValue = CommandLine.Help.Visibility.ALWAYS)
+        public int pipelineCapacity = PublishPipeline.DEFAULT_CAPACITY;
+        @CommandLine.Option(names = {"--incremental"}, description = "Publish only pages changed in git since the last publish. Enables conversion cache, not pipelined.")
+        public boolean incremental = false;
     }
 
 }
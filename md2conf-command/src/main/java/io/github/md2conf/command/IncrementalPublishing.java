@@ -0,0 +1,262 @@
+package io.github.md2conf.command;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.md2conf.command.subcommand.Md2WikiConvertCommand;
+import io.github.md2conf.converter.md2wiki.attachment.LocalPathUtil;
+import io.github.md2conf.indexer.Page;
+import io.github.md2conf.indexer.PagesStructure;
+import io.github.md2conf.indexer.git.GitChanges;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.ConfluencePage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Incremental conpub: only pages whose sources or attachments changed in git since the last successful publish
+ * (and their ancestors) are published, together with pages linking to a page which was added since then.
+ * Publish state is stored in the output directory.
+ * <p>
+ * Everything is published when the changes can't be attributed to pages: no previous state, another Confluence
+ * location or conversion options, not a git working tree, unknown commit, a removed or renamed page, or a changed
+ * file which is neither a page nor an attachment.
+ */
+public class IncrementalPublishing {
+
+    public static final String STATE_FILE_NAME = ".md2conf-incremental.json";
+
+    private static final Logger logger = LoggerFactory.getLogger(IncrementalPublishing.class);
+    private static final ObjectMapper JSON_OBJECT_MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path inputDirectory;
+    private final Path outputDirectory;
+    private final Path stateFile;
+    private final String scope;
+    private final State previousState;
+    private final GitChanges gitChanges;
+    private final boolean changesKnown;
+
+    IncrementalPublishing(Path inputDirectory, Path outputDirectory, String scope, State previousState, GitChanges gitChanges, boolean changesKnown) {
+        this.inputDirectory = inputDirectory.toAbsolutePath().normalize();
+        this.outputDirectory = outputDirectory.toAbsolutePath().normalize();
+        this.stateFile = this.outputDirectory.resolve(STATE_FILE_NAME);
+        this.scope = scope;
+        this.previousState = previousState;
+        this.gitChanges = gitChanges;
+        this.changesKnown = changesKnown;
+    }
+
+    /**
+     * Read the state of the previous publish and collect git changes since it
+     */
+    public static IncrementalPublishing load(Path inputDirectory, Path outputDirectory, String scope) {
+        State previousState = readState(outputDirectory.resolve(STATE_FILE_NAME));
+        String baseCommit = previousState != null && scope.equals(previousState.scope) ? previousState.commit : null;
+        GitChanges gitChanges = GitChanges.since(inputDirectory, baseCommit).orElse(null);
+        boolean changesKnown = gitChanges != null;
+        if (gitChanges == null && baseCommit != null) {
+            gitChanges = GitChanges.since(inputDirectory, null).orElse(null); // unknown commit, e.g. after a rebase; start over from HEAD
+        }
+        return new IncrementalPublishing(inputDirectory, outputDirectory, scope, previousState, gitChanges, changesKnown);
+    }
+
+    /**
+     * Location and options which affect published content. State of another scope is not reused.
+     */
+    public static String scope(PublishCommand.ConfluenceOptions confluenceOptions, Md2WikiConvertCommand.Md2WikiConvertOptions md2WikiConvertOptions) {
+        return String.join(" ", confluenceOptions.confluenceUrl, confluenceOptions.spaceKey, confluenceOptions.parentPageTitle,
+                String.valueOf(md2WikiConvertOptions.plantumlCodeMacroEnable), md2WikiConvertOptions.plantumlCodeMacroName);
+    }
+
+    /**
+     * @param pagesStructure - indexed pages the model is converted from
+     * @param model          - converted model
+     * @return pages to publish
+     */
+    public Predicate<ConfluencePage> changedPages(PagesStructure pagesStructure, ConfluenceContentModel model) {
+        if (previousState == null || previousState.commit == null) {
+            logger.info("Incremental publishing: no previous publish state at {}, publish all pages", stateFile);
+            return page -> true;
+        }
+        if (!scope.equals(previousState.scope)) {
+            logger.info("Incremental publishing: Confluence location or conversion options changed, publish all pages");
+            return page -> true;
+        }
+        if (!changesKnown) {
+            logger.info("Incremental publishing: changes since commit {} are unknown, publish all pages", previousState.commit);
+            return page -> true;
+        }
+        Map<ConfluencePage, Page> sources = new IdentityHashMap<>();
+        if (!collectSources(pagesStructure.pages(), model.getPages(), sources)) {
+            logger.info("Incremental publishing: pages don't match their sources, publish all pages");
+            return page -> true;
+        }
+        Map<String, String> titles = titles(sources);
+        for (Map.Entry<String, String> previous : previousState.titles.entrySet()) {
+            String title = titles.get(previous.getKey());
+            if (title == null || !title.equals(previous.getValue())) {
+                logger.info("Incremental publishing: page '{}' from {} is removed or renamed, publish all pages", previous.getValue(), previous.getKey());
+                return page -> true;
+            }
+        }
+        Set<Path> changedPaths = changedPaths();
+        Set<Path> knownPaths = new HashSet<>();
+        Set<String> attachmentNames = new HashSet<>();
+        sources.forEach((page, source) -> {
+            knownPaths.add(normalize(source.path()));
+            source.attachments().forEach(attachment -> knownPaths.add(normalize(attachment)));
+            attachmentNames.addAll(page.getAttachments().keySet());
+        });
+        for (Path changedPath : changedPaths) {
+            if (!knownPaths.contains(changedPath) && !attachmentNames.contains(String.valueOf(changedPath.getFileName()))) {
+                logger.info("Incremental publishing: changed file {} is neither a page nor an attachment, publish all pages", changedPath);
+                return page -> true;
+            }
+        }
+        Set<String> changedFileNames = changedPaths.stream().map(path -> String.valueOf(path.getFileName())).collect(Collectors.toSet());
+        Set<ConfluencePage> changedPages = Collections.newSetFromMap(new IdentityHashMap<>());
+        sources.forEach((page, source) -> {
+            String path = relativePath(source.path());
+            boolean changed = !previousState.titles.containsKey(path)
+                    || previousState.links.getOrDefault(path, Collections.emptySet()).stream()
+                    .anyMatch(target -> !Objects.equals(previousState.titles.get(target), titles.get(target)))
+                    || changedPaths.contains(normalize(source.path()))
+                    || source.attachments().stream().anyMatch(attachment -> changedPaths.contains(normalize(attachment)))
+                    || page.getAttachments().keySet().stream().anyMatch(changedFileNames::contains);
+            if (changed) {
+                changedPages.add(page);
+            }
+        });
+        logger.info("Incremental publishing: {} of {} pages changed since commit {}", changedPages.size(), sources.size(), previousState.commit);
+        return changedPages::contains;
+    }
+
+    /**
+     * Remember published commit and pages. Must be called only after a successful publish.
+     */
+    public void save(PagesStructure pagesStructure, ConfluenceContentModel model) {
+        if (gitChanges == null) {
+            return;
+        }
+        Map<ConfluencePage, Page> sources = new IdentityHashMap<>();
+        State state = new State();
+        state.scope = scope;
+        state.commit = collectSources(pagesStructure.pages(), model.getPages(), sources) ? gitChanges.getHeadCommit() : null;
+        state.uncommitted = gitChanges.getUncommittedPaths().stream()
+                .filter(this::isInputPath)
+                .map(this::relativePath)
+                .collect(Collectors.toCollection(TreeSet::new));
+        state.titles = titles(sources);
+        state.links = links(sources);
+        try {
+            Files.createDirectories(outputDirectory);
+            JSON_OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValue(stateFile.toFile(), state);
+        } catch (IOException e) {
+            logger.warn("Could not save incremental publish state to {}, next publish will publish all pages", stateFile, e);
+        }
+    }
+
+    /**
+     * Changed files inside the input directory, including files which were not committed at the previous publish
+     */
+    private Set<Path> changedPaths() {
+        Set<Path> res = new HashSet<>();
+        res.addAll(gitChanges.getCommittedPaths());
+        res.addAll(gitChanges.getUncommittedPaths());
+        previousState.uncommitted.forEach(path -> res.add(inputDirectory.resolve(path).normalize()));
+        res.removeIf(path -> !isInputPath(path));
+        return res;
+    }
+
+    private boolean isInputPath(Path path) {
+        return path.startsWith(inputDirectory) && !path.startsWith(outputDirectory);
+    }
+
+    private Map<String, String> titles(Map<ConfluencePage, Page> sources) {
+        Map<String, String> res = new LinkedHashMap<>();
+        sources.forEach((page, source) -> res.put(relativePath(source.path()), page.getTitle()));
+        return res;
+    }
+
+    /**
+     * Markdown files linked from each page inside the input directory, whether they are pages or not, so a page is
+     * published again when a page it links to is added, removed or retitled
+     */
+    private Map<String, Set<String>> links(Map<ConfluencePage, Page> sources) {
+        Map<String, Set<String>> res = new LinkedHashMap<>();
+        sources.forEach((page, source) -> {
+            try {
+                Set<String> targets = LocalPathUtil.collectPageLinkPaths(Files.readString(source.path()), normalize(source.path()).getParent()).stream()
+                        .filter(this::isInputPath)
+                        .map(this::relativePath)
+                        .collect(Collectors.toCollection(TreeSet::new));
+                if (!targets.isEmpty()) {
+                    res.put(relativePath(source.path()), targets);
+                }
+            } catch (IOException e) {
+                logger.warn("Could not read links of {}", source.path(), e);
+            }
+        });
+        return res;
+    }
+
+    private String relativePath(Path path) {
+        return inputDirectory.relativize(normalize(path)).toString().replace('\\', '/');
+    }
+
+    private static Path normalize(Path path) {
+        return path.toAbsolutePath().normalize();
+    }
+
+    /**
+     * Converters keep the order of pages, so pages are matched with their sources by position
+     */
+    private static boolean collectSources(List<? extends Page> sources, List<ConfluencePage> pages, Map<ConfluencePage, Page> res) {
+        if (sources.size() != pages.size()) {
+            return false;
+        }
+        for (int i = 0; i < pages.size(); i++) {
+            res.put(pages.get(i), sources.get(i));
+            if (!collectSources(sources.get(i).children(), pages.get(i).getChildren(), res)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static State readState(Path path) {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try {
+            return JSON_OBJECT_MAPPER.readValue(path.toFile(), State.class);
+        } catch (IOException e) {
+            logger.warn("Could not read incremental publish state from {}", path, e);
+            return null;
+        }
+    }
+
+    static class State {
+        public String scope;
+        public String commit;
+        public Set<String> uncommitted = new TreeSet<>();
+        public Map<String, String> titles = new LinkedHashMap<>();
+        public Map<String, Set<String>> links = new LinkedHashMap<>();
+    }
+}
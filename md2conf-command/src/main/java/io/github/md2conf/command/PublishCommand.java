@@ -3,14 +3,32 @@ package io.github.md2conf.command;
 import io.github.md2conf.confluence.client.ConfluenceClientConfigurationProperties;
 import io.github.md2conf.confluence.client.ConfluenceClientFactory;
 import io.github.md2conf.confluence.client.OrphanRemovalStrategy;
+import io.github.md2conf.confluence.client.PublishConfluenceClient;
+import io.github.md2conf.confluence.client.PublishDeadline;
+import io.github.md2conf.confluence.client.PublishPipeline;
 import io.github.md2conf.confluence.client.PublishingStrategy;
+import io.github.md2conf.confluence.client.http.RequestIsolation;
+import io.github.md2conf.confluence.client.http.RequestTimeouts;
+import io.github.md2conf.confluence.client.http.ResponseCache;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.ConfluencePage;
+import io.github.md2conf.model.util.ContentHashAlgorithm;
+import io.github.md2conf.model.util.FileDigestCache;
 import io.github.md2conf.model.util.ModelFilesystemUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine;
 import picocli.CommandLine.Command;
 
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
 
 import static io.github.md2conf.confluence.client.ConfluenceClientConfigurationProperties.ConfluenceClientConfigurationPropertiesBuilder.aConfluenceClientConfigurationProperties;
 
@@ -33,16 +51,49 @@ public class PublishCommand implements Runnable {
     @Override
     public void run() {
         PublishOptions publishOptionsLocal = publishOptions==null ? new PublishOptions(): publishOptions;
+        if (publishOptionsLocal.fileDigestCachePath == null) {
+            Path modelDirectory = Files.isDirectory(confluenceContentModelPath) ? confluenceContentModelPath : confluenceContentModelPath.toAbsolutePath().getParent();
+            publishOptionsLocal.fileDigestCachePath = modelDirectory.resolve(FileDigestCache.DEFAULT_FILE_NAME);
+        }
         publish(confluenceOptions, publishOptionsLocal, confluenceContentModelPath);
     }
 
     public static void publish(ConfluenceOptions confluenceOptions, PublishOptions publishOptions, Path confluenceContentModelPath) {
         var model = ModelFilesystemUtil.readModel(confluenceContentModelPath);
+        publish(confluenceOptions, publishOptions, model);
+    }
+
+    public static void publish(ConfluenceOptions confluenceOptions, PublishOptions publishOptions, ConfluenceContentModel model) {
+        publish(confluenceOptions, publishOptions, model, page -> true);
+    }
+
+    /**
+     * Publish only changed pages and their ancestors, unchanged subtrees are not touched
+     */
+    public static void publish(ConfluenceOptions confluenceOptions, PublishOptions publishOptions, ConfluenceContentModel model,
+                               Predicate<ConfluencePage> changedPages) {
         var clientProps = buildConfluenceClientConfigurationProperties(confluenceOptions, publishOptions);
-        var publishConfluenceClient = ConfluenceClientFactory.publishConfluenceClient(clientProps, model, null);
-        publishConfluenceClient.publish(model, confluenceOptions.spaceKey, confluenceOptions.parentPageTitle);
+        try (var publishConfluenceClient = ConfluenceClientFactory.publishConfluenceClient(clientProps, model, null)) {
+            if (publishOptions.dryRun) {
+                var plan = publishConfluenceClient.plan(model, confluenceOptions.spaceKey, confluenceOptions.parentPageTitle, changedPages);
+                logger.info("Dry run, nothing is published. Publish plan:\n{}", plan.describe());
+                return;
+            }
+            publishConfluenceClient.publish(model, confluenceOptions.spaceKey, confluenceOptions.parentPageTitle, changedPages);
+        }
     }
 
+    public static void publish(ConfluenceOptions confluenceOptions, PublishOptions publishOptions, PublishPipeline pipeline) {
+        var clientProps = buildConfluenceClientConfigurationProperties(confluenceOptions, publishOptions);
+        try (var publishConfluenceClient = ConfluenceClientFactory.publishConfluenceClient(clientProps, null)) {
+            publishConfluenceClient.publish(pipeline, confluenceOptions.spaceKey, confluenceOptions.parentPageTitle);
+        }
+    }
+
+
+    private static Instant jvmStartTime() {
+        return Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime());
+    }
 
     protected static ConfluenceClientConfigurationProperties buildConfluenceClientConfigurationProperties(ConfluenceOptions confluenceOptions, PublishOptions publishOptions) {
         return aConfluenceClientConfigurationProperties()
@@ -53,11 +104,30 @@ public class PublishCommand implements Runnable {
                 .withUsername(confluenceOptions.username)
                 .withMaxRequestsPerSecond(confluenceOptions.maxRequestsPerSecond)
                 .withConnectionTTL(confluenceOptions.connectionTimeToLive)
+                .withResponseCacheSize(confluenceOptions.responseCacheSize)
+                .withHedgeBudget(confluenceOptions.hedgeBudget)
+                .withHedgeUrl(confluenceOptions.hedgeUrl)
+                .withReadUrls(confluenceOptions.readUrls)
+                .withMetadataTimeout(confluenceOptions.metadataTimeout)
+                .withBodyTimeout(confluenceOptions.bodyTimeout)
+                .withAttachmentTimeout(confluenceOptions.attachmentTimeout)
+                .withCircuitBreakerThreshold(confluenceOptions.circuitBreakerThreshold)
+                .withCircuitBreakerOpenDuration(Duration.ofSeconds(confluenceOptions.circuitBreakerOpenTime))
+                .withMaxConcurrentReads(confluenceOptions.maxConcurrentReads)
+                .withMaxConcurrentPageWrites(confluenceOptions.maxConcurrentPageWrites)
+                .withMaxConcurrentAttachmentWrites(confluenceOptions.maxConcurrentAttachmentWrites)
+                .withDeadline(publishOptions.timeLimit != null ? jvmStartTime().plusSeconds(publishOptions.timeLimit) : null)
+                .withDeadlineMargin(Duration.ofSeconds(publishOptions.deadlineMargin))
                 .withVersionMessage(publishOptions.versionMessage)
                 .withSkipSslVerification(confluenceOptions.skipSslVerification)
                 .withNotifyWatchers(publishOptions.notifyWatchers)
                 .withOrphanRemovalStrategy(publishOptions.orphanRemovalStrategy)
                 .withPublishingStrategy(publishOptions.parentPagePublishingStrategy)
+                .withJournalPath(publishOptions.dryRun ? null : publishOptions.journalPath)
+                .withResume(publishOptions.resume)
+                .withOrphanRemovalConcurrency(publishOptions.orphanRemovalConcurrency)
+                .withFileDigestCachePath(publishOptions.fileDigestCachePath)
+                .withContentHashAlgorithm(publishOptions.contentHashAlgorithm)
                 .build();
     }
 
@@ -79,9 +149,45 @@ public class PublishCommand implements Runnable {
         public Double maxRequestsPerSecond;
         @CommandLine.Option(names = {"--connection-time-to-live"}, description = "Connection TTL in milliseconds", order = 8)
         public Integer connectionTimeToLive;
+        @CommandLine.Option(names = {"--response-cache-size"}, description = "Max total size in bytes of GET responses cached in memory and revalidated after writes, 0 disables the cache",
+                defaultValue = "" + ResponseCache.DEFAULT_MAX_BYTES, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 9)
+        public long responseCacheSize = ResponseCache.DEFAULT_MAX_BYTES;
+        @CommandLine.Option(names = {"--hedge-budget"}, description = "Max number of duplicates of GET requests slower than p95 latency, as a fraction of GET requests, 0 disables hedging",
+                defaultValue = "0", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 10)
+        public double hedgeBudget = 0;
+        @CommandLine.Option(names = {"--hedge-url"}, description = "The root URL of another Confluence node to send duplicates of slow GET requests to", order = 11)
+        public String hedgeUrl;
+        @CommandLine.Option(names = {"--read-urls"}, split = ",", description = "Comma separated root URLs of Confluence nodes to spread GET requests over, writes go to the Confluence URL", order = 12)
+        public List<String> readUrls = new ArrayList<>();
+        @CommandLine.Option(names = {"--metadata-timeout"}, description = "Socket timeout in milliseconds of lookups and small writes, like properties and labels, 0 for no timeout",
+                defaultValue = "" + RequestTimeouts.DEFAULT_METADATA_TIMEOUT_MILLIS, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 13)
+        public int metadataTimeout = RequestTimeouts.DEFAULT_METADATA_TIMEOUT_MILLIS;
+        @CommandLine.Option(names = {"--body-timeout"}, description = "Socket timeout in milliseconds of requests with page content, like page fetch and update, 0 for no timeout",
+                defaultValue = "" + RequestTimeouts.DEFAULT_BODY_TIMEOUT_MILLIS, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 14)
+        public int bodyTimeout = RequestTimeouts.DEFAULT_BODY_TIMEOUT_MILLIS;
+        @CommandLine.Option(names = {"--attachment-timeout"}, description = "Socket timeout in milliseconds of attachment uploads and downloads, 0 for no timeout",
+                defaultValue = "" + RequestTimeouts.DEFAULT_ATTACHMENT_TIMEOUT_MILLIS, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 15)
+        public int attachmentTimeout = RequestTimeouts.DEFAULT_ATTACHMENT_TIMEOUT_MILLIS;
+        @CommandLine.Option(names = {"--circuit-breaker-threshold"}, description = "Consecutive failures of reads, page writes or attachment writes, " +
+                "after which requests of the same class are rejected for a while. 0 disables circuit breakers.",
+                defaultValue = "" + RequestIsolation.DEFAULT_FAILURE_THRESHOLD, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 16)
+        public int circuitBreakerThreshold = RequestIsolation.DEFAULT_FAILURE_THRESHOLD;
+        @CommandLine.Option(names = {"--circuit-breaker-open-time"}, description = "Seconds requests are rejected after a circuit breaker opens, before a probe request is sent",
+                defaultValue = "30", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 17)
+        public long circuitBreakerOpenTime = RequestIsolation.DEFAULT_OPEN_DURATION.getSeconds();
+        @CommandLine.Option(names = {"--max-concurrent-reads"}, description = "Max number of GET requests in flight, 0 for no limit",
+                defaultValue = "0", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 18)
+        public int maxConcurrentReads = 0;
+        @CommandLine.Option(names = {"--max-concurrent-page-writes"}, description = "Max number of write requests in flight other than attachment writes, 0 for no limit",
+                defaultValue = "0", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 19)
+        public int maxConcurrentPageWrites = 0;
+        @CommandLine.Option(names = {"--max-concurrent-attachment-writes"}, description = "Max number of attachment uploads and deletions in flight, 0 for no limit",
+                defaultValue = "" + RequestIsolation.DEFAULT_MAX_CONCURRENT_ATTACHMENT_WRITES, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 20)
+        public int maxConcurrentAttachmentWrites = RequestIsolation.DEFAULT_MAX_CONCURRENT_ATTACHMENT_WRITES;
     }
 
     public static class PublishOptions {
+        public static final String DEFAULT_JOURNAL_PATH = ".md2conf-publish.journal";
         @CommandLine.Option(names = {"--orphan-removal-strategy"}, description = "Valid values: ${COMPLETION-CANDIDATES}",
                 defaultValue = "KEEP_ORPHANS",
                 showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 11)
@@ -94,6 +200,31 @@ public class PublishCommand implements Runnable {
         public boolean notifyWatchers = false;
         @CommandLine.Option(names = {"--version-message"}, description = "Version message", defaultValue = "Published by md2conf", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 14)
         public String versionMessage = "Published by md2conf";
+        @CommandLine.Option(names = {"--dry-run"}, description = "Print changes to publish with estimated request count and upload size, don't change anything in Confluence",
+                defaultValue = "false", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 15)
+        public boolean dryRun = false;
+        @CommandLine.Option(names = {"--journal"}, description = "File to record completed publish operations. Deleted after successful publishing.",
+                defaultValue = DEFAULT_JOURNAL_PATH, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 16)
+        public Path journalPath = Paths.get(DEFAULT_JOURNAL_PATH);
+        @CommandLine.Option(names = {"--resume"}, description = "Continue failed publishing from the journal, without checking completed operations again",
+                defaultValue = "false", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 17)
+        public boolean resume = false;
+        @CommandLine.Option(names = {"--orphan-removal-concurrency"}, description = "Max number of orphan pages (leaves first) or labels of a page deleted in parallel",
+                defaultValue = "" + PublishConfluenceClient.DEFAULT_ORPHAN_REMOVAL_CONCURRENCY, showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 18)
+        public int orphanRemovalConcurrency = PublishConfluenceClient.DEFAULT_ORPHAN_REMOVAL_CONCURRENCY;
+        @CommandLine.Option(names = {"--file-digest-cache"}, description = "File to cache attachment digests by path, size, modification time and inode. " +
+                "Default is " + FileDigestCache.DEFAULT_FILE_NAME + " in the output directory or the directory of the content model.", order = 19)
+        public Path fileDigestCachePath;
+        @CommandLine.Option(names = {"--content-hash-algorithm"}, description = "Algorithm of page and attachment hashes used to detect changes. " +
+                "Hashes stored by another algorithm are replaced without republishing unchanged content. Valid values: ${COMPLETION-CANDIDATES}",
+                defaultValue = "SHA256", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 20)
+        public ContentHashAlgorithm contentHashAlgorithm = ContentHashAlgorithm.SHA256;
+        @CommandLine.Option(names = {"--time-limit"}, description = "Max run time in seconds since start of the JVM. Publishing stops before the limit, " +
+                "reports pages left undone and keeps the journal for resume. No request is sent after the limit.", order = 21)
+        public Long timeLimit;
+        @CommandLine.Option(names = {"--deadline-margin"}, description = "No page is started when less than this number of seconds is left until the time limit",
+                defaultValue = "60", showDefaultValue = CommandLine.Help.Visibility.ALWAYS, order = 22)
+        public long deadlineMargin = PublishDeadline.DEFAULT_MARGIN.getSeconds();
     }
 
 }
@@ -3,7 +3,11 @@ package io.github.md2conf.command.subcommand;
 import io.github.md2conf.command.ConvertCommand;
 import io.github.md2conf.command.IndexCommand;
 import io.github.md2conf.command.LoggingMixin;
+import io.github.md2conf.converter.AttachmentMaterialization;
+import io.github.md2conf.converter.AttachmentMaterializer;
+import io.github.md2conf.converter.PageConvertedListener;
 import io.github.md2conf.converter.PageStructureConverter;
+import io.github.md2conf.converter.cache.ConversionCache;
 import io.github.md2conf.converter.md2wiki.Md2WikiConverter;
 import io.github.md2conf.indexer.PagesStructure;
 import io.github.md2conf.model.ConfluenceContentModel;
@@ -40,18 +44,48 @@ public class Md2WikiConvertCommand implements Runnable {
         convertMd2Wiki(this.md2WikiConvertOptions, indexerOptionsLocal, titleProcessingLocal);
     }
 
-    @SneakyThrows
     public static File convertMd2Wiki(Md2WikiConvertOptions md2WikiConvertOptions,
                                       IndexCommand.IndexerOptions indexerOptions,
                                       ConvertCommand.TitleProcessingOptions titleProcessingOptions) {
-        PagesStructure pagesStructure = IndexCommand.indexInputDirectory(indexerOptions);
-        PageStructureConverter converterService = createConverter(md2WikiConvertOptions, titleProcessingOptions);
-        ConfluenceContentModel model = converterService.convert(pagesStructure);
+        ConfluenceContentModel model = convertMd2WikiToModel(md2WikiConvertOptions, indexerOptions, titleProcessingOptions);
         File contentModelFile = saveConfluenceContentModelAtPath(model, md2WikiConvertOptions.outputDirectory);
         log.info("Confluence content model saved at file {}", contentModelFile);
         return contentModelFile;
     }
 
+    /**
+     * Convert to model without saving it to the output directory
+     */
+    public static ConfluenceContentModel convertMd2WikiToModel(Md2WikiConvertOptions md2WikiConvertOptions,
+                                                               IndexCommand.IndexerOptions indexerOptions,
+                                                               ConvertCommand.TitleProcessingOptions titleProcessingOptions) {
+        return convertMd2WikiToModel(md2WikiConvertOptions, indexerOptions, titleProcessingOptions, PageConvertedListener.NOOP);
+    }
+
+    /**
+     * Convert to model without saving it to the output directory, listener is notified about every converted page
+     */
+    @SneakyThrows
+    public static ConfluenceContentModel convertMd2WikiToModel(Md2WikiConvertOptions md2WikiConvertOptions,
+                                                               IndexCommand.IndexerOptions indexerOptions,
+                                                               ConvertCommand.TitleProcessingOptions titleProcessingOptions,
+                                                               PageConvertedListener listener) {
+        PagesStructure pagesStructure = IndexCommand.indexInputDirectory(indexerOptions);
+        return convertMd2WikiToModel(md2WikiConvertOptions, pagesStructure, titleProcessingOptions, listener);
+    }
+
+    /**
+     * Convert already indexed pages to model without saving it to the output directory
+     */
+    @SneakyThrows
+    public static ConfluenceContentModel convertMd2WikiToModel(Md2WikiConvertOptions md2WikiConvertOptions,
+                                                               PagesStructure pagesStructure,
+                                                               ConvertCommand.TitleProcessingOptions titleProcessingOptions,
+                                                               PageConvertedListener listener) {
+        PageStructureConverter converterService = createConverter(md2WikiConvertOptions, titleProcessingOptions);
+        return converterService.convert(pagesStructure, listener);
+    }
+
     private static PageStructureConverter createConverter(Md2WikiConvertOptions md2WikiConvertOptions,
                                                           ConvertCommand.TitleProcessingOptions titleProcessingOptions) {
 
@@ -67,7 +101,10 @@ public class Md2WikiConvertCommand implements Runnable {
         return new Md2WikiConverter(pageStructureTitleProcessor,
                 md2WikiConvertOptions.outputDirectory, needToRemoveTitle,
                 md2WikiConvertOptions.plantumlCodeMacroEnable,
-                md2WikiConvertOptions.plantumlCodeMacroName);
+                md2WikiConvertOptions.plantumlCodeMacroName,
+                md2WikiConvertOptions.conversionCacheEnable ?
+                        new ConversionCache(md2WikiConvertOptions.outputDirectory.resolve(ConversionCache.DEFAULT_CACHE_DIRECTORY)) : null,
+                new AttachmentMaterializer(md2WikiConvertOptions.attachmentMaterialization));
     }
 
     public static class Md2WikiConvertOptions extends ConvertCommand.ConvertOptions {
@@ -75,5 +112,9 @@ public class Md2WikiConvertCommand implements Runnable {
         public Boolean plantumlCodeMacroEnable = false;
         @CommandLine.Option(names = {"--plantuml-code-macro-name"}, description = "Name of confluence macro to render plantuml. Need to have custom Confluence plugin on a server. Possible known options are: 'plantuml' or 'plantumlrender' or 'plantumlcloud'. By default, 'plantuml' is used.")
         public String plantumlCodeMacroName = "plantuml";
+        @CommandLine.Option(names = {"--conversion-cache-enable"}, description = "Reuse results of previous conversions of unchanged pages. Cache is stored in the output directory.")
+        public Boolean conversionCacheEnable = false;
+        @CommandLine.Option(names = {"--attachment-materialization"}, description = "How attachments are placed into the output directory. Valid values: ${COMPLETION-CANDIDATES}")
+        public AttachmentMaterialization attachmentMaterialization = AttachmentMaterialization.COPY;
     }
 }
@@ -6,6 +6,8 @@ import com.vladsch.flexmark.util.data.MutableDataSet;
 import com.vladsch.flexmark.util.format.options.HeadingStyle;
 import io.github.md2conf.command.ConvertCommand;
 import io.github.md2conf.command.LoggingMixin;
+import io.github.md2conf.converter.AttachmentMaterialization;
+import io.github.md2conf.converter.AttachmentMaterializer;
 import io.github.md2conf.converter.view2md.View2MdConverter;
 import io.github.md2conf.model.ConfluenceContentModel;
 import io.github.md2conf.model.util.ModelFilesystemUtil;
@@ -36,7 +38,8 @@ public class View2MdConvertCommand implements Runnable{
 
     public static void convertView2Md(View2MdConvertOptions view2MdConvertOptions, MarkdownFormatOptions markdownFormatOptions) {
         ConfluenceContentModel model = ModelFilesystemUtil.readModel(view2MdConvertOptions.modelPath);
-        View2MdConverter view2MdConverter = new View2MdConverter(view2MdConvertOptions.outputDirectory, formatOptionsAsDataHolder(markdownFormatOptions));
+        View2MdConverter view2MdConverter = new View2MdConverter(view2MdConvertOptions.outputDirectory, formatOptionsAsDataHolder(markdownFormatOptions),
+                new AttachmentMaterializer(view2MdConvertOptions.attachmentMaterialization));
         view2MdConverter.convert(model);
         log.info("Converting to markdown result saved to {}", view2MdConvertOptions.outputDirectory);
     }
@@ -53,6 +56,8 @@ public class View2MdConvertCommand implements Runnable{
     public static class View2MdConvertOptions extends ConvertCommand.ConvertOptions {
         @CommandLine.Option(names = { "--model-path"}, required = true, description = "Model path directory")
         public Path modelPath;
+        @CommandLine.Option(names = {"--attachment-materialization"}, description = "How attachments are placed into the output directory. Valid values: ${COMPLETION-CANDIDATES}")
+        public AttachmentMaterialization attachmentMaterialization = AttachmentMaterialization.COPY;
     }
     public static class MarkdownFormatOptions {
         @CommandLine.Option(names = {"--markdown-right-margin"}, description = "Markdown right margin size")
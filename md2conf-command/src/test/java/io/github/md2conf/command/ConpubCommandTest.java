@@ -1,9 +1,13 @@
 package io.github.md2conf.command;
 
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.util.ModelFilesystemUtil;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import picocli.CommandLine;
 
 import java.io.StringWriter;
+import java.nio.file.Path;
 
 import static io.github.md2conf.command.TestUtil.getCommandLine;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,4 +27,27 @@ class ConpubCommandTest {
                 .contains("Missing required argument");
     }
 
-}
\ No newline at end of file
+    @Test
+    void when_noSaveContentModel_then_modelFileDisabled() {
+        ConpubCommand.ConpubOptions conpubOptions = new ConpubCommand.ConpubOptions();
+        assertThat(conpubOptions.saveContentModel).isTrue();
+        new CommandLine(conpubOptions).parseArgs("--no-save-content-model");
+        assertThat(conpubOptions.saveContentModel).isFalse();
+    }
+
+    @Test
+    void when_publishFails_then_modelFileIsSaved(@TempDir Path outputDir) {
+        StringWriter swOut = new StringWriter();
+        StringWriter swErr = new StringWriter();
+        CommandLine cmd = getCommandLine(swOut, swErr);
+        int exitCode = cmd.execute("conpub", "-i", "src/test/resources/markdown_example", "-o", outputDir.toString(),
+                "-url", "http://localhost:6551", "-s", "TEST", "-pt", "Test");
+        assertThat(exitCode).isNotZero();
+        assertThat(swErr.toString()).contains("Connection refused");
+        assertThat(outputDir.resolve(ModelFilesystemUtil.DEFAULT_FILE_NAME)).exists();
+        ConfluenceContentModel model = ModelFilesystemUtil.readModel(outputDir);
+        assertThat(model.getPages()).hasSize(1);
+        assertThat(model.getPages().get(0).getTitle()).isEqualTo("Header");
+    }
+
+}
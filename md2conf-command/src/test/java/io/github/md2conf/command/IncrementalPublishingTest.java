@@ -0,0 +1,148 @@
+package io.github.md2conf.command;
+
+import io.github.md2conf.indexer.DefaultPage;
+import io.github.md2conf.indexer.DefaultPagesStructure;
+import io.github.md2conf.indexer.PagesStructure;
+import io.github.md2conf.model.ConfluenceContentModel;
+import io.github.md2conf.model.ConfluencePage;
+import org.eclipse.jgit.api.Git;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IncrementalPublishingTest {
+
+    private static final String SCOPE = "http://confluence ~SPACE Parent false plantuml";
+
+    @TempDir
+    Path repositoryDir;
+    @TempDir
+    Path outputDir;
+
+    @Test
+    void only_pages_changed_since_last_publish_are_published() throws Exception {
+        Path docs = Files.createDirectories(repositoryDir.resolve("docs"));
+        Files.writeString(docs.resolve("a.md"), "# A");
+        Files.writeString(docs.resolve("b.md"), "# B");
+        Files.writeString(docs.resolve("b.png"), "png");
+        PagesStructure pagesStructure = new DefaultPagesStructure(List.of(
+                new DefaultPage(docs.resolve("a.md")),
+                new DefaultPage(docs.resolve("b.md"), List.of(docs.resolve("b.png")))));
+        ConfluencePage a = page("A", Map.of());
+        ConfluencePage b = page("B", Map.of("b.png", docs.resolve("b.png").toString()));
+        ConfluenceContentModel model = new ConfluenceContentModel(List.of(a, b));
+        try (Git git = Git.init().setDirectory(repositoryDir.toFile()).call()) {
+            commit(git);
+
+            IncrementalPublishing first = IncrementalPublishing.load(docs, outputDir, SCOPE);
+            assertThat(changed(first.changedPages(pagesStructure, model), a, b)).containsExactly(a, b);
+            first.save(pagesStructure, model);
+
+            assertThat(changed(IncrementalPublishing.load(docs, outputDir, SCOPE).changedPages(pagesStructure, model), a, b)).isEmpty();
+
+            Files.writeString(docs.resolve("b.png"), "changed png");
+            commit(git);
+            assertThat(changed(IncrementalPublishing.load(docs, outputDir, SCOPE).changedPages(pagesStructure, model), a, b)).containsExactly(b);
+            assertThat(changed(IncrementalPublishing.load(docs, outputDir, SCOPE + " other").changedPages(pagesStructure, model), a, b)).containsExactly(a, b);
+
+            Files.writeString(docs.resolve("notes.txt"), "not a page");
+            assertThat(changed(IncrementalPublishing.load(docs, outputDir, SCOPE).changedPages(pagesStructure, model), a, b)).containsExactly(a, b);
+        }
+    }
+
+    @Test
+    void uncommitted_changes_are_published_again_after_commit() throws Exception {
+        Path docs = Files.createDirectories(repositoryDir.resolve("docs"));
+        Files.writeString(docs.resolve("a.md"), "# A");
+        Files.writeString(docs.resolve("b.md"), "# B");
+        PagesStructure pagesStructure = new DefaultPagesStructure(List.of(
+                new DefaultPage(docs.resolve("a.md")),
+                new DefaultPage(docs.resolve("b.md"))));
+        ConfluencePage a = page("A", Map.of());
+        ConfluencePage b = page("B", Map.of());
+        ConfluenceContentModel model = new ConfluenceContentModel(List.of(a, b));
+        try (Git git = Git.init().setDirectory(repositoryDir.toFile()).call()) {
+            commit(git);
+            IncrementalPublishing.load(docs, outputDir, SCOPE).save(pagesStructure, model);
+
+            Files.writeString(docs.resolve("a.md"), "# A changed");
+            IncrementalPublishing uncommitted = IncrementalPublishing.load(docs, outputDir, SCOPE);
+            assertThat(changed(uncommitted.changedPages(pagesStructure, model), a, b)).containsExactly(a);
+            uncommitted.save(pagesStructure, model);
+
+            Files.writeString(docs.resolve("a.md"), "# A");
+            assertThat(changed(IncrementalPublishing.load(docs, outputDir, SCOPE).changedPages(pagesStructure, model), a, b)).containsExactly(a);
+        }
+    }
+
+    @Test
+    void page_linking_to_added_page_is_published() throws Exception {
+        Path docs = Files.createDirectories(repositoryDir.resolve("docs"));
+        Files.writeString(docs.resolve("a.md"), "# A\n[to B](b.md)");
+        Files.writeString(docs.resolve("c.md"), "# C");
+        ConfluencePage a = page("A", Map.of());
+        ConfluencePage c = page("C", Map.of());
+        try (Git git = Git.init().setDirectory(repositoryDir.toFile()).call()) {
+            commit(git);
+            IncrementalPublishing.load(docs, outputDir, SCOPE).save(
+                    new DefaultPagesStructure(List.of(new DefaultPage(docs.resolve("a.md")), new DefaultPage(docs.resolve("c.md")))),
+                    new ConfluenceContentModel(List.of(a, c)));
+
+            Files.writeString(docs.resolve("b.md"), "# B");
+            commit(git);
+            ConfluencePage b = page("B", Map.of());
+            PagesStructure pagesStructure = new DefaultPagesStructure(List.of(
+                    new DefaultPage(docs.resolve("a.md")), new DefaultPage(docs.resolve("b.md")), new DefaultPage(docs.resolve("c.md"))));
+            Predicate<ConfluencePage> changedPages = IncrementalPublishing.load(docs, outputDir, SCOPE)
+                    .changedPages(pagesStructure, new ConfluenceContentModel(List.of(a, b, c)));
+
+            assertThat(changed(changedPages, a, b, c)).containsExactly(a, b);
+        }
+    }
+
+    @Test
+    void renamed_page_or_no_git_repository_publishes_all_pages() throws Exception {
+        Path docs = Files.createDirectories(repositoryDir.resolve("docs"));
+        Files.writeString(docs.resolve("a.md"), "# A");
+        PagesStructure pagesStructure = new DefaultPagesStructure(List.of(new DefaultPage(docs.resolve("a.md"))));
+        ConfluencePage a = page("A", Map.of());
+        IncrementalPublishing.load(docs, outputDir, SCOPE).save(pagesStructure, new ConfluenceContentModel(List.of(a)));
+        assertThat(outputDir.resolve(IncrementalPublishing.STATE_FILE_NAME)).doesNotExist();
+
+        try (Git git = Git.init().setDirectory(repositoryDir.toFile()).call()) {
+            commit(git);
+            IncrementalPublishing.load(docs, outputDir, SCOPE).save(pagesStructure, new ConfluenceContentModel(List.of(a)));
+
+            ConfluencePage renamed = page("A renamed", Map.of());
+            Predicate<ConfluencePage> changedPages = IncrementalPublishing.load(docs, outputDir, SCOPE)
+                    .changedPages(pagesStructure, new ConfluenceContentModel(List.of(renamed)));
+            assertThat(changedPages.test(renamed)).isTrue();
+        }
+    }
+
+    private static ConfluencePage page(String title, Map<String, String> attachments) {
+        ConfluencePage page = new ConfluencePage();
+        page.setTitle(title);
+        page.setAttachments(attachments);
+        return page;
+    }
+
+    private static List<ConfluencePage> changed(Predicate<ConfluencePage> changedPages, ConfluencePage... pages) {
+        return Arrays.stream(pages).filter(changedPages).collect(Collectors.toList());
+    }
+
+    private static void commit(Git git) throws Exception {
+        git.add().addFilepattern(".").call();
+        git.add().setUpdate(true).addFilepattern(".").call();
+        git.commit().setMessage("docs").setSign(false).setAuthor("md2conf", "md2conf@example.com").setCommitter("md2conf", "md2conf@example.com").call();
+    }
+}
@@ -1,15 +1,24 @@
 package io.github.md2conf.maven.plugin;
 
 import com.vladsch.flexmark.util.format.options.HeadingStyle;
+import io.github.md2conf.command.ConpubCommand;
 import io.github.md2conf.command.ConvertCommand;
 import io.github.md2conf.command.IndexCommand;
 import io.github.md2conf.command.PublishCommand;
 import io.github.md2conf.command.subcommand.Md2WikiConvertCommand;
 import io.github.md2conf.command.subcommand.View2MdConvertCommand;
 import io.github.md2conf.confluence.client.OrphanRemovalStrategy;
+import io.github.md2conf.confluence.client.PublishConfluenceClient;
+import io.github.md2conf.confluence.client.PublishDeadline;
+import io.github.md2conf.confluence.client.PublishPipeline;
 import io.github.md2conf.confluence.client.PublishingStrategy;
+import io.github.md2conf.confluence.client.http.RequestIsolation;
+import io.github.md2conf.confluence.client.http.RequestTimeouts;
+import io.github.md2conf.confluence.client.http.ResponseCache;
+import io.github.md2conf.converter.AttachmentMaterialization;
 import io.github.md2conf.indexer.ChildLayout;
 import io.github.md2conf.indexer.OrphanFileAction;
+import io.github.md2conf.model.util.ContentHashAlgorithm;
 import io.github.md2conf.title.processor.TitleExtractStrategy;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugins.annotations.Parameter;
@@ -17,6 +26,8 @@ import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 public abstract class AbstractMd2ConfMojo extends AbstractMojo {
 
@@ -42,6 +53,8 @@ public abstract class AbstractMd2ConfMojo extends AbstractMojo {
     protected ChildLayout indexerChildLayout = ChildLayout.SUB_DIRECTORY;
     @Parameter(property = PREFIX + "orphanFileAction")
     protected OrphanFileAction orphanFileAction = OrphanFileAction.IGNORE;
+    @Parameter(property = PREFIX + "attachmentMaterialization")
+    protected AttachmentMaterialization attachmentMaterialization = AttachmentMaterialization.COPY;
     @Parameter(property = PREFIX + "titleExtract")
     protected TitleExtractStrategy titleExtract = TitleExtractStrategy.FROM_FIRST_HEADER;
     @Parameter(property = PREFIX + "titlePrefix")
@@ -56,6 +69,8 @@ public abstract class AbstractMd2ConfMojo extends AbstractMojo {
     protected Boolean plantumlCodeMacroEnable=false;
     @Parameter(property = PREFIX + "plantumlCodeMacroName")
     protected String plantumlCodeMacroName;
+    @Parameter(property = PREFIX + "conversionCacheEnable")
+    protected Boolean conversionCacheEnable = false;
     @Parameter(property = PREFIX + "markdownRightMargin")
     protected Integer markdownRightMargin;
     @Parameter(property = PREFIX + "markdownHeadingStyle")
@@ -83,20 +98,73 @@ public abstract class AbstractMd2ConfMojo extends AbstractMojo {
     protected PublishingStrategy parentPagePublishingStrategy = PublishingStrategy.APPEND_TO_ANCESTOR;
     @Parameter(property = PREFIX + "notifyWatchers")
     protected boolean notifyWatchers = false;
+    @Parameter(property = PREFIX + "dryRun")
+    protected boolean dryRun = false;
+    @Parameter(property = PREFIX + "journalPath", defaultValue = "${project.build.directory}/md2conf-publish.journal")
+    protected File journalPath;
+    @Parameter(property = PREFIX + "resume")
+    protected boolean resume = false;
+    @Parameter(property = PREFIX + "orphanRemovalConcurrency")
+    protected int orphanRemovalConcurrency = PublishConfluenceClient.DEFAULT_ORPHAN_REMOVAL_CONCURRENCY;
+    @Parameter(property = PREFIX + "fileDigestCachePath")
+    protected File fileDigestCachePath;
+    @Parameter(property = PREFIX + "contentHashAlgorithm")
+    protected ContentHashAlgorithm contentHashAlgorithm = ContentHashAlgorithm.SHA256;
     @Parameter(property = PREFIX + "skipSslVerification")
     protected boolean skipSslVerification = false;
     @Parameter(property = PREFIX + "maxRequestsPerSecond")
     protected Double maxRequestsPerSecond;
     @Parameter(property = PREFIX + "connectionTimeToLive")
     protected Integer connectionTimeToLive;
+    @Parameter(property = PREFIX + "responseCacheSize")
+    protected long responseCacheSize = ResponseCache.DEFAULT_MAX_BYTES;
+    @Parameter(property = PREFIX + "hedgeBudget")
+    protected double hedgeBudget = 0;
+    @Parameter(property = PREFIX + "hedgeUrl")
+    protected String hedgeUrl;
+    @Parameter(property = PREFIX + "readUrls")
+    protected List<String> readUrls = new ArrayList<>();
+    @Parameter(property = PREFIX + "metadataTimeout")
+    protected int metadataTimeout = RequestTimeouts.DEFAULT_METADATA_TIMEOUT_MILLIS;
+    @Parameter(property = PREFIX + "bodyTimeout")
+    protected int bodyTimeout = RequestTimeouts.DEFAULT_BODY_TIMEOUT_MILLIS;
+    @Parameter(property = PREFIX + "attachmentTimeout")
+    protected int attachmentTimeout = RequestTimeouts.DEFAULT_ATTACHMENT_TIMEOUT_MILLIS;
+    @Parameter(property = PREFIX + "circuitBreakerThreshold")
+    protected int circuitBreakerThreshold = RequestIsolation.DEFAULT_FAILURE_THRESHOLD;
+    @Parameter(property = PREFIX + "circuitBreakerOpenTime")
+    protected long circuitBreakerOpenTime = RequestIsolation.DEFAULT_OPEN_DURATION.getSeconds();
+    @Parameter(property = PREFIX + "maxConcurrentReads")
+    protected int maxConcurrentReads = 0;
+    @Parameter(property = PREFIX + "maxConcurrentPageWrites")
+    protected int maxConcurrentPageWrites = 0;
+    @Parameter(property = PREFIX + "maxConcurrentAttachmentWrites")
+    protected int maxConcurrentAttachmentWrites = RequestIsolation.DEFAULT_MAX_CONCURRENT_ATTACHMENT_WRITES;
+    @Parameter(property = PREFIX + "timeLimit")
+    protected Long timeLimit;
+    @Parameter(property = PREFIX + "deadlineMargin")
+    protected long deadlineMargin = PublishDeadline.DEFAULT_MARGIN.getSeconds();
+
+    /// --- CONPUB options
+
+    @Parameter(property = PREFIX + "saveContentModel")
+    protected boolean saveContentModel = true;
+    @Parameter(property = PREFIX + "pipelined")
+    protected boolean pipelined = false;
+    @Parameter(property = PREFIX + "pipelineCapacity")
+    protected int pipelineCapacity = PublishPipeline.DEFAULT_CAPACITY;
+    @Parameter(property = PREFIX + "incremental")
+    protected boolean incremental = false;
 
 
     @NotNull
     protected Md2WikiConvertCommand.Md2WikiConvertOptions getMd2WikiConvertOptions() {
         Md2WikiConvertCommand.Md2WikiConvertOptions md2WikiConvertOptions = new Md2WikiConvertCommand.Md2WikiConvertOptions();
         md2WikiConvertOptions.outputDirectory = this.outputDirectory.toPath();
+        md2WikiConvertOptions.attachmentMaterialization = this.attachmentMaterialization;
         md2WikiConvertOptions.plantumlCodeMacroEnable = this.plantumlCodeMacroEnable;
         md2WikiConvertOptions.plantumlCodeMacroName = this.plantumlCodeMacroName;
+        md2WikiConvertOptions.conversionCacheEnable = this.conversionCacheEnable;
         return md2WikiConvertOptions;
     }
 
@@ -115,6 +183,7 @@ public abstract class AbstractMd2ConfMojo extends AbstractMojo {
     protected View2MdConvertCommand.View2MdConvertOptions getFormatOptions() {
         View2MdConvertCommand.View2MdConvertOptions view2MdConvertOptions = new View2MdConvertCommand.View2MdConvertOptions();
         view2MdConvertOptions.modelPath = this.confluenceContentModelPath.toPath();
+        view2MdConvertOptions.attachmentMaterialization = this.attachmentMaterialization;
         return view2MdConvertOptions;
     }
 
@@ -125,6 +194,15 @@ public abstract class AbstractMd2ConfMojo extends AbstractMojo {
         return markdownFormatOptions;
     }
 
+    protected ConpubCommand.ConpubOptions getConpubOptions() {
+        ConpubCommand.ConpubOptions conpubOptions = new ConpubCommand.ConpubOptions();
+        conpubOptions.saveContentModel = this.saveContentModel;
+        conpubOptions.pipelined = this.pipelined;
+        conpubOptions.pipelineCapacity = this.pipelineCapacity;
+        conpubOptions.incremental = this.incremental;
+        return conpubOptions;
+    }
+
     protected IndexCommand.IndexerOptions getIndexerOptions(){
         IndexCommand.IndexerOptions indexerOptions = new IndexCommand.IndexerOptions();
         indexerOptions.inputDirectory = this.inputDirectory.toPath();
@@ -143,6 +221,18 @@ public abstract class AbstractMd2ConfMojo extends AbstractMojo {
         options.orphanRemovalStrategy = this.orphanRemovalStrategy;
         options.parentPagePublishingStrategy = this.parentPagePublishingStrategy;
         options.notifyWatchers  = this.notifyWatchers;
+        options.dryRun = this.dryRun;
+        if (this.journalPath != null) {
+            options.journalPath = this.journalPath.toPath();
+        }
+        options.resume = this.resume;
+        options.orphanRemovalConcurrency = this.orphanRemovalConcurrency;
+        if (this.fileDigestCachePath != null) {
+            options.fileDigestCachePath = this.fileDigestCachePath.toPath();
+        }
+        options.contentHashAlgorithm = this.contentHashAlgorithm;
+        options.timeLimit = this.timeLimit;
+        options.deadlineMargin = this.deadlineMargin;
         return options;
     }
 
@@ -156,6 +246,18 @@ public abstract class AbstractMd2ConfMojo extends AbstractMojo {
         options.skipSslVerification = this.skipSslVerification;
         options.maxRequestsPerSecond = this.maxRequestsPerSecond;
         options.connectionTimeToLive = this.connectionTimeToLive;
+        options.responseCacheSize = this.responseCacheSize;
+        options.hedgeBudget = this.hedgeBudget;
+        options.hedgeUrl = this.hedgeUrl;
+        options.readUrls = this.readUrls;
+        options.metadataTimeout = this.metadataTimeout;
+        options.bodyTimeout = this.bodyTimeout;
+        options.attachmentTimeout = this.attachmentTimeout;
+        options.circuitBreakerThreshold = this.circuitBreakerThreshold;
+        options.circuitBreakerOpenTime = this.circuitBreakerOpenTime;
+        options.maxConcurrentReads = this.maxConcurrentReads;
+        options.maxConcurrentPageWrites = this.maxConcurrentPageWrites;
+        options.maxConcurrentAttachmentWrites = this.maxConcurrentAttachmentWrites;
         return options;
     }
 